@@ -0,0 +1,103 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Where backup archives are kept, selected with backup.store.
+ *
+ * An archive is written as members (one gzip member per table, dumped in parallel) and becomes the
+ * members joined one after the other; the store decides their order and reports each member's
+ * offset. Readers only ever ask for byte ranges of it, so a store is free to keep those bytes
+ * however it likes.
+ */
+public interface ArchiveStore {
+
+    /**
+     * Start writing the archive of a new backup
+     * @param workDir Scratch directory owned by the backup, deleted when it ends
+     */
+    Writer create(String backupId, Path workDir) throws IOException;
+
+    boolean exists(String backupId);
+
+    /**
+     * Bytes [offset, offset + length) of a committed archive
+     */
+    InputStream open(String backupId, long offset, long length) throws IOException;
+
+    /**
+     * The archive as a single local file, if the store keeps it as one; lets downloads use sendfile
+     */
+    Optional<Path> localFile(String backupId);
+
+    /**
+     * Delete the archive, and its saved manifest if any
+     */
+    void delete(String backupId) throws IOException;
+
+    /**
+     * True if identical content in different archives is stored once. Members are then written so
+     * that unchanged data compresses to identical bytes from one backup to the next.
+     */
+    default boolean isDeduplicating() {
+        return false;
+    }
+
+    /**
+     * Keep a copy of a backup's manifest with the archive, for stores that outlive the local disk
+     */
+    default void saveManifest(String backupId, byte[] manifest) throws IOException {
+    }
+
+    /**
+     * Manifests saved with saveManifest, by backup id
+     */
+    default Map<String, byte[]> loadManifests() throws IOException {
+        return Map.of();
+    }
+
+    interface Writer extends Closeable {
+
+        /**
+         * Output for one member; members may be written concurrently, one per thread
+         */
+        Member newMember() throws IOException;
+
+        /**
+         * Join the members, all closed, and make the archive visible. Members are laid out in the
+         * given order unless the store has already placed them.
+         * @return Size of the archive
+         */
+        long commit(List<Member> members) throws IOException;
+
+        /**
+         * Discard everything written unless the archive was committed
+         */
+        @Override
+        void close() throws IOException;
+    }
+
+    abstract class Member extends OutputStream {
+
+        protected long offset = -1;
+
+        /**
+         * Bytes written so far
+         */
+        public abstract long size();
+
+        /**
+         * Where the member starts in the archive; known once the archive is committed
+         */
+        public long offset() {
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index of the completed backups in backup.directory, keyed by backup id.
+ *
+ * Each archive has a manifest sidecar written after the archive itself, so a manifest on disk
+ * means a complete backup. The sidecars are read once at startup and the index is kept in step
+ * with every create and delete afterwards; listing backups never touches the disk or the database.
+ * Stores that outlive the local disk also keep the manifests, and any the disk is missing are
+ * restored from them at startup.
+ */
+@Component
+@Slf4j
+public class BackupCatalog {
+
+    public static final String MANIFEST_FILE_EXTENSION = ".manifest.json";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    // Time of the last completed restore; no incremental may be based on a backup older than it
+    private static final String LAST_RESTORE_FILE = "last-restore";
+
+    private final ObjectMapper objectMapper;
+    private final ArchiveStore archiveStore;
+    private final Map<String, BackupManifest> manifests = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastRestore;
+
+    @Value("${backup.directory:./backups}")
+    private String backupDirectory;
+
+    public BackupCatalog(ObjectMapper objectMapper, ArchiveStore archiveStore) {
+        this.objectMapper = objectMapper;
+        this.archiveStore = archiveStore;
+    }
+
+    @PostConstruct
+    void load() {
+        Path directory = Paths.get(backupDirectory);
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(this::loadEntry);
+            } catch (IOException e) {
+                log.error("Failed to scan backup directory {}", directory, e);
+            }
+        }
+        recoverStoredManifests();
+        Path lastRestoreFile = directory.resolve(LAST_RESTORE_FILE);
+        if (Files.exists(lastRestoreFile)) {
+            try {
+                lastRestore = LocalDateTime.parse(Files.readString(lastRestoreFile).trim());
+            } catch (IOException | DateTimeParseException e) {
+                log.error("Error reading {}", lastRestoreFile, e);
+            }
+        }
+        log.info("Backup catalog loaded: {} backups in {}", manifests.size(), directory);
+    }
+
+    private void loadEntry(Path file) {
+        String fileName = file.getFileName().toString();
+        // Leftovers of a backup interrupted by a shutdown; it was never listed
+        if (fileName.endsWith(PARTIAL_SUFFIX) || fileName.startsWith(".tmp-")) {
+            log.warn("Removing incomplete backup file {}", file);
+            deleteRecursively(file);
+            return;
+        }
+        if (!fileName.endsWith(MANIFEST_FILE_EXTENSION)) {
+            return;
+        }
+        try {
+            BackupManifest manifest = objectMapper.readValue(file.toFile(), BackupManifest.class);
+            if (!archiveStore.exists(checkId(manifest.getBackupId()))) {
+                log.warn("Ignoring manifest {}: its archive is missing", file);
+                return;
+            }
+            manifests.put(manifest.getBackupId(), manifest);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Error reading backup manifest: {}", file, e);
+        }
+    }
+
+    /**
+     * Backups whose manifest the archive store has but the local disk does not, e.g. on a new node
+     */
+    private void recoverStoredManifests() {
+        try {
+            archiveStore.loadManifests().forEach((backupId, json) -> {
+                if (manifests.containsKey(backupId)) {
+                    return;
+                }
+                try {
+                    BackupManifest manifest = objectMapper.readValue(json, BackupManifest.class);
+                    if (archiveStore.exists(checkId(manifest.getBackupId()))) {
+                        writeSidecar(manifest.getBackupId(), json);
+                        manifests.put(manifest.getBackupId(), manifest);
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    log.error("Error reading stored backup manifest: {}", backupId, e);
+                }
+            });
+        } catch (IOException e) {
+            log.error("Failed to list backup manifests in the archive store", e);
+        }
+    }
+
+    /**
+     * Write the manifest sidecar of a finished archive and add it to the index
+     */
+    public void register(BackupManifest manifest) throws IOException {
+        byte[] json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest);
+        writeSidecar(manifest.getBackupId(), json);
+        archiveStore.saveManifest(manifest.getBackupId(), json);
+        manifests.put(manifest.getBackupId(), manifest);
+    }
+
+    private void writeSidecar(String backupId, byte[] json) throws IOException {
+        directory();
+        Path target = manifestPath(backupId);
+        Path partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+        Files.write(partial, json);
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Drop a backup from the index, then delete its manifest and archive
+     * @return true if the backup existed
+     */
+    public boolean remove(String backupId) throws IOException {
+        boolean indexed = manifests.remove(backupId) != null;
+        // Manifest first so a half-deleted backup is never picked up again at startup
+        boolean hadManifest = Files.deleteIfExists(manifestPath(backupId));
+        boolean hadArchive = archiveStore.exists(backupId);
+        archiveStore.delete(backupId);
+        return indexed || hadManifest || hadArchive;
+    }
+
+    public Optional<BackupManifest> find(String backupId) {
+        return Optional.ofNullable(manifests.get(checkId(backupId)));
+    }
+
+    /**
+     * All completed backups, newest first
+     */
+    public List<BackupManifest> list() {
+        return manifests.values().stream()
+                .sorted(Comparator.comparing(BackupManifest::getStartedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * The backup an incremental backup taken now should be based on: the newest backup, unless the
+     * database has been restored since it was taken (the restore rewrote rows without change tracking)
+     */
+    public Optional<BackupManifest> incrementalParent() {
+        return list().stream()
+                .findFirst()
+                .filter(latest -> latest.getSnapshot() != null)
+                .filter(latest -> lastRestore == null || latest.getStartedAt().isAfter(lastRestore));
+    }
+
+    /**
+     * The backups to restore, in order, to reach the given one: its full backup, then each incremental
+     */
+    public List<BackupManifest> chain(String backupId) {
+        LinkedList<BackupManifest> chain = new LinkedList<>();
+        BackupManifest current = find(backupId)
+                .orElseThrow(() -> new ResourceNotFoundExecption("Backup not found: " + backupId));
+        chain.addFirst(current);
+        while (current.isIncremental()) {
+            String parentId = current.getParentBackupId();
+            current = manifests.get(parentId);
+            if (current == null) {
+                throw new IllegalStateException("Backup " + backupId + " cannot be restored: its parent " + parentId + " is missing");
+            }
+            chain.addFirst(current);
+        }
+        return chain;
+    }
+
+    /**
+     * Incremental backups taken directly on top of the given one
+     */
+    public List<BackupManifest> children(String backupId) {
+        return manifests.values().stream()
+                .filter(manifest -> backupId.equals(manifest.getParentBackupId()))
+                .toList();
+    }
+
+    /**
+     * Snapshot of the oldest backup that can still be the parent of an incremental, if any
+     */
+    public Optional<String> oldestSnapshot() {
+        return manifests.values().stream()
+                .filter(manifest -> manifest.getSnapshot() != null)
+                .min(Comparator.comparing(BackupManifest::getStartedAt))
+                .map(BackupManifest::getSnapshot);
+    }
+
+    public void recordRestore() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        Files.writeString(directory().resolve(LAST_RESTORE_FILE), now.toString());
+        lastRestore = now;
+    }
+
+    public Path directory() throws IOException {
+        return Files.createDirectories(Paths.get(backupDirectory));
+    }
+
+    private Path manifestPath(String backupId) {
+        return Paths.get(backupDirectory, checkId(backupId) + MANIFEST_FILE_EXTENSION);
+    }
+
+    private static String checkId(String backupId) {
+        // Backup ids are generated UUIDs; anything else could escape the backup directory
+        try {
+            UUID.fromString(backupId);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid backup id: " + backupId);
+        }
+        return backupId;
+    }
+
+    private static void deleteRecursively(Path path) {
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(child -> {
+                try {
+                    Files.deleteIfExists(child);
+                } catch (IOException e) {
+                    log.warn("Could not delete {}", child);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not delete {}", path);
+        }
+    }
+}
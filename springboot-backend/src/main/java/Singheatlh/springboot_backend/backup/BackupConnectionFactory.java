@@ -0,0 +1,74 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dedicated connections for backup and restore: a long COPY must not hold one of the request
+ * pool's few connections, and should not go through the query-counting proxy either.
+ */
+@Component
+class BackupConnectionFactory {
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    private String datasourcePassword;
+
+    @Value("${backup.restore-maintenance-work-mem:256MB}")
+    private String restoreMaintenanceWorkMem;
+
+    Connection open() throws SQLException {
+        return DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword);
+    }
+
+    /**
+     * Read-only repeatable-read transaction that sees the snapshot exported by a leader connection
+     */
+    Connection openSnapshot(String snapshotId) throws SQLException {
+        Connection connection = open();
+        try {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setReadOnly(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId.replace("'", "''") + "'");
+            }
+            return connection;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Session for loading restored data: FK and user triggers suspended (as pg_restore
+     * --disable-triggers does) and extra memory for rebuilding indexes
+     */
+    Connection openForRestore() throws SQLException {
+        Connection connection = open();
+        try {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT set_config('session_replication_role', 'replica', false), "
+                            + "set_config('maintenance_work_mem', ?, false)")) {
+                statement.setString(1, restoreMaintenanceWorkMem);
+                statement.execute();
+            }
+            connection.setAutoCommit(false);
+            return connection;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+}
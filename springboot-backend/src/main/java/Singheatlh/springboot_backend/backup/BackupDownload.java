@@ -0,0 +1,22 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import Singheatlh.springboot_backend.util.RangedContentSender;
+
+/**
+ * An archive ready to be served
+ * @param fileName Name to offer in Content-Disposition
+ * @param etag Quoted strong ETag, derived from the archive's checksums
+ * @param file The archive as a local file, or null if the store keeps it some other way
+ */
+public record BackupDownload(String backupId, String fileName, String etag, long length, long lastModified,
+                             Path file, ArchiveStore store) implements RangedContentSender.Content {
+
+    @Override
+    public InputStream open(long offset, long length) throws IOException {
+        return store.open(backupId, offset, length);
+    }
+}
@@ -0,0 +1,18 @@
+package Singheatlh.springboot_backend.backup;
+
+/**
+ * Thrown when a backup or restore is requested while another one is still running
+ */
+public class BackupInProgressException extends IllegalStateException {
+
+    private final String activeJobId;
+
+    public BackupInProgressException(String activeJobId) {
+        super("A backup or restore job is already running: " + activeJobId);
+        this.activeJobId = activeJobId;
+    }
+
+    public String getActiveJobId() {
+        return activeJobId;
+    }
+}
@@ -0,0 +1,159 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import Singheatlh.springboot_backend.dto.BackupStatusDto;
+
+/**
+ * State of one background backup or restore. Written by the job thread (and the engine's workers
+ * through the listener callbacks), read concurrently by status requests.
+ */
+public class BackupJob implements BackupProgressListener {
+
+    public enum Type { BACKUP, RESTORE }
+
+    public enum Status { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final Type type;
+    private final String backupId;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final Map<String, TableProgress> tables = new ConcurrentSkipListMap<>();
+    private final CompletableFuture<BackupStatusDto> completion = new CompletableFuture<>();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    public BackupJob(Type type, String backupId) {
+        this.type = type;
+        this.backupId = backupId;
+    }
+
+    @Override
+    public void tablePlanned(String table, long expectedRows) {
+        tables.put(table, new TableProgress(table, expectedRows));
+    }
+
+    @Override
+    public void tableStarted(String table) {
+        tables.get(table).state = TableProgress.State.RUNNING;
+    }
+
+    @Override
+    public void bytesTransferred(String table, long bytes) {
+        // Single writer per table, so a plain read-modify-write of the volatile is safe
+        tables.get(table).bytes += bytes;
+    }
+
+    @Override
+    public void tableCompleted(String table, long rows) {
+        TableProgress progress = tables.get(table);
+        progress.rows = rows;
+        progress.state = TableProgress.State.DONE;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    public void complete(BackupStatusDto result) {
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+        completion.complete(result);
+    }
+
+    public void fail(Throwable cause) {
+        status = cancelRequested ? Status.CANCELLED : Status.FAILED;
+        error = cancelRequested ? "Cancelled" : cause.getMessage();
+        finishedAt = LocalDateTime.now();
+        completion.completeExceptionally(cause);
+    }
+
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getBackupId() {
+        return backupId;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Collection<TableProgress> getTables() {
+        return tables.values();
+    }
+
+    public CompletableFuture<BackupStatusDto> getCompletion() {
+        return completion;
+    }
+
+    public static final class TableProgress {
+
+        public enum State { PENDING, RUNNING, DONE }
+
+        private final String name;
+        private final long expectedRows;
+        private volatile State state = State.PENDING;
+        private volatile long bytes;
+        private volatile long rows;
+
+        private TableProgress(String name, long expectedRows) {
+            this.name = name;
+            this.expectedRows = expectedRows;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getExpectedRows() {
+            return expectedRows;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Describes one backup archive: which tables it holds (all rows, or for an incremental backup the
+ * rows changed since its parent), where each table's gzip member starts in the archive, and the
+ * row counts, sizes and checksums needed to list, verify and restore it without opening the archive.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BackupManifest {
+
+    public static final int FORMAT_VERSION = 1;
+    public static final String FORMAT_PGCOPY_BINARY = "pgcopy-binary";
+    public static final String COMPRESSION_GZIP = "gzip";
+    public static final String TYPE_FULL = "FULL";
+    public static final String TYPE_INCREMENTAL = "INCREMENTAL";
+    public static final String MODE_FULL = "FULL";
+    public static final String MODE_CHANGES = "CHANGES";
+
+    private int formatVersion;
+    private String backupId;
+    private String type; // FULL, or INCREMENTAL on top of parentBackupId
+    private String parentBackupId;
+    // pg_snapshot the backup was read at; the next incremental copies what this snapshot could not see
+    private String snapshot;
+    private String format;
+    private String compression;
+    private String database;
+    private String schema;
+    private String serverVersion;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private long durationMillis;
+    private long archiveBytes;
+    private long totalRows;
+    private List<TableEntry> tables;
+    private List<SequenceValue> sequences;
+    // Incremental only: primary keys deleted since the parent, one row (table_name, row_key) each
+    private TableEntry tombstones;
+
+    @JsonIgnore
+    public boolean isIncremental() {
+        return TYPE_INCREMENTAL.equals(type);
+    }
+
+    /**
+     * SHA-256 over the position and checksum of every gzip member. The members make up the whole
+     * archive, so this identifies its exact bytes without reading them.
+     */
+    public String archiveChecksum() {
+        List<TableEntry> members = new ArrayList<>(tables);
+        if (tombstones != null) {
+            members.add(tombstones);
+        }
+        members.sort(Comparator.comparingLong(TableEntry::getOffset));
+        MessageDigest digest = PgCopySupport.sha256();
+        digest.update((backupId + ":" + archiveBytes).getBytes(StandardCharsets.UTF_8));
+        for (TableEntry member : members) {
+            digest.update((";" + member.getOffset() + ":" + member.getCompressedBytes() + ":" + member.getSha256())
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * One table, stored as a single gzip member of COPY binary output at [offset, offset + compressedBytes)
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class TableEntry {
+        private String name;
+        private String mode; // FULL: every row; CHANGES: rows changed since the parent backup
+        private List<String> columns;
+        private List<String> primaryKey;
+        private long rowCount;
+        private long offset;
+        private long compressedBytes;
+        private long uncompressedBytes;
+        private String sha256;
+        private long elapsedMillis;
+
+        @JsonIgnore
+        public boolean isChanges() {
+            return MODE_CHANGES.equals(mode);
+        }
+    }
+
+    /**
+     * Sequence position at snapshot time; lastValue is null if the sequence was never used
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class SequenceValue {
+        private String name;
+        private Long lastValue;
+    }
+}
@@ -0,0 +1,49 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Receives per-table progress from PgCopyBackupEngine and PgCopyRestoreEngine. Table callbacks may come from several
+ * worker threads at once, but each table is only ever reported by one thread.
+ */
+public interface BackupProgressListener {
+
+    BackupProgressListener NONE = new BackupProgressListener() {
+    };
+
+    /**
+     * Called once per table before any data moves
+     * @param expectedRows Planner estimate for a backup, exact count for a restore
+     */
+    default void tablePlanned(String table, long expectedRows) {
+    }
+
+    default void tableStarted(String table) {
+    }
+
+    /**
+     * Uncompressed COPY bytes moved since the previous call for this table
+     */
+    default void bytesTransferred(String table, long bytes) {
+    }
+
+    default void tableCompleted(String table, long rows) {
+    }
+
+    /**
+     * Polled while data is moving; returning true aborts the backup or restore
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * Throws if cancelled. An IOException from a COPY stream makes CopyManager cancel the COPY on
+     * the server before rethrowing.
+     */
+    default void checkCancelled() throws InterruptedIOException {
+        if (isCancelled()) {
+            throw new InterruptedIOException("Cancelled");
+        }
+    }
+}
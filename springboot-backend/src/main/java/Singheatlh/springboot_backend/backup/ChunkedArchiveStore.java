@@ -0,0 +1,431 @@
+package Singheatlh.springboot_backend.backup;
+
+import static Singheatlh.springboot_backend.backup.PgCopySupport.BUFFER_SIZE;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.sha256;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores archives as content-defined chunks so data shared between backups is kept once.
+ *
+ * Each member is cut into chunks with a rolling hash as it is written, and each chunk is stored
+ * under its SHA-256 in backup.directory/chunks, unless a chunk with that hash is already there.
+ * An archive is then just its recipe, &lt;id&gt;.chunks: the list of its chunks in order. The
+ * backup engine writes members rsyncable for this store, so a table that barely changed between
+ * two backups compresses to mostly the same chunks.
+ *
+ * Chunks are reference counted across recipes (counts are rebuilt from the recipes at startup) and
+ * deleted when the last backup using them is. Archives written by the file store are still read.
+ */
+@Component
+@ConditionalOnProperty(name = "backup.store", havingValue = "chunked")
+@Slf4j
+public class ChunkedArchiveStore implements ArchiveStore {
+
+    private static final String RECIPE_EXTENSION = ".chunks";
+    private static final String CHUNK_DIRECTORY = "chunks";
+    private static final String TEMP_PREFIX = ".tmp-";
+    private static final int HASH_BYTES = 32;
+
+    // Reference count of every stored chunk, by hex hash; guarded by itself
+    private final Map<String, Integer> references = new HashMap<>();
+
+    @Value("${backup.directory:./backups}")
+    private String backupDirectory;
+
+    @Value("${backup.chunk-size:256KB}")
+    private DataSize chunkSize;
+
+    @PostConstruct
+    void load() throws IOException {
+        Path directory = Paths.get(backupDirectory);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        boolean allRecipesRead = true;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path recipe : files.filter(file -> file.getFileName().toString().endsWith(RECIPE_EXTENSION)).toList()) {
+                try {
+                    readRecipe(recipe).forEach(chunk -> references.merge(chunk.hash(), 1, Integer::sum));
+                } catch (IOException e) {
+                    log.error("Error reading backup recipe: {}", recipe, e);
+                    allRecipesRead = false;
+                }
+            }
+        }
+        // An unreadable recipe may still name chunks no other recipe does: sweeping would destroy its backup
+        if (!allRecipesRead) {
+            log.warn("Chunk store loaded: {} chunks referenced, unreferenced chunks kept because a recipe could not be read",
+                    references.size());
+            return;
+        }
+        // Chunks of backups that were interrupted, or deleted while the application was down
+        long orphans = 0;
+        Path chunks = directory.resolve(CHUNK_DIRECTORY);
+        if (Files.isDirectory(chunks)) {
+            try (Stream<Path> files = Files.walk(chunks)) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(TEMP_PREFIX) || !references.containsKey(name)) {
+                        Files.deleteIfExists(file);
+                        orphans++;
+                    }
+                }
+            }
+        }
+        log.info("Chunk store loaded: {} chunks referenced, {} unreferenced removed", references.size(), orphans);
+    }
+
+    @Override
+    public Writer create(String backupId, Path workDir) throws IOException {
+        Files.createDirectories(chunkDirectory());
+        return new ChunkWriter(backupId);
+    }
+
+    @Override
+    public boolean exists(String backupId) {
+        return Files.exists(recipePath(backupId)) || Files.exists(legacyPath(backupId));
+    }
+
+    @Override
+    public InputStream open(String backupId, long offset, long length) throws IOException {
+        List<ChunkRef> chunks;
+        try {
+            chunks = readRecipe(recipePath(backupId));
+        } catch (NoSuchFileException e) {
+            return FileArchiveStore.openRange(legacyPath(backupId), offset, length);
+        }
+        List<ChunkSlice> slices = new ArrayList<>();
+        long chunkStart = 0;
+        long end = offset + length;
+        for (ChunkRef chunk : chunks) {
+            long chunkEnd = chunkStart + chunk.length();
+            if (chunkEnd > offset && chunkStart < end) {
+                long from = Math.max(offset, chunkStart) - chunkStart;
+                long to = Math.min(end, chunkEnd) - chunkStart;
+                slices.add(new ChunkSlice(chunkPath(chunk.hash()), from, to - from));
+            }
+            if (chunkEnd >= end) {
+                break;
+            }
+            chunkStart = chunkEnd;
+        }
+        return new SliceInputStream(slices.iterator());
+    }
+
+    @Override
+    public Optional<Path> localFile(String backupId) {
+        // Only archives from before the store was switched exist as one file
+        Path legacy = legacyPath(backupId);
+        return Files.exists(recipePath(backupId)) || !Files.exists(legacy) ? Optional.empty() : Optional.of(legacy);
+    }
+
+    @Override
+    public void delete(String backupId) throws IOException {
+        Path recipe = recipePath(backupId);
+        List<ChunkRef> chunks;
+        try {
+            chunks = readRecipe(recipe);
+        } catch (NoSuchFileException e) {
+            Files.deleteIfExists(legacyPath(backupId));
+            return;
+        }
+        // Recipe first: if the release is interrupted, the chunks are unreferenced and removed at startup
+        Files.delete(recipe);
+        release(chunks.stream().map(ChunkRef::hash).toList());
+    }
+
+    @Override
+    public boolean isDeduplicating() {
+        return true;
+    }
+
+    /**
+     * Take a reference to a chunk
+     * @return true if the chunk is not stored yet and the caller must write it
+     */
+    private boolean acquire(String hash) {
+        synchronized (references) {
+            return references.merge(hash, 1, Integer::sum) == 1;
+        }
+    }
+
+    private void release(List<String> hashes) {
+        synchronized (references) {
+            for (String hash : hashes) {
+                if (references.computeIfPresent(hash, (key, count) -> count > 1 ? count - 1 : null) == null) {
+                    try {
+                        Files.deleteIfExists(chunkPath(hash));
+                    } catch (IOException e) {
+                        log.warn("Could not delete backup chunk {}; it is removed at the next startup", hash);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeChunk(String hash, byte[] data, int length) throws IOException {
+        Path target = chunkPath(hash);
+        Files.createDirectories(target.getParent());
+        Path temp = chunkDirectory().resolve(TEMP_PREFIX + UUID.randomUUID());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static List<ChunkRef> readRecipe(Path recipe) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(recipe), BUFFER_SIZE))) {
+            int count = in.readInt();
+            List<ChunkRef> chunks = new ArrayList<>(count);
+            byte[] hash = new byte[HASH_BYTES];
+            for (int i = 0; i < count; i++) {
+                in.readFully(hash);
+                chunks.add(new ChunkRef(HexFormat.of().formatHex(hash), in.readInt()));
+            }
+            return chunks;
+        }
+    }
+
+    private static void writeRecipe(Path recipe, List<ChunkRef> chunks) throws IOException {
+        Path partial = recipe.resolveSibling(recipe.getFileName() + ".partial");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            out.writeInt(chunks.size());
+            for (ChunkRef chunk : chunks) {
+                out.write(HexFormat.of().parseHex(chunk.hash()));
+                out.writeInt(chunk.length());
+            }
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, recipe, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path chunkDirectory() {
+        return Paths.get(backupDirectory, CHUNK_DIRECTORY);
+    }
+
+    private Path chunkPath(String hash) {
+        // Fan out over 256 subdirectories to keep directories small
+        return chunkDirectory().resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path recipePath(String backupId) {
+        return Paths.get(backupDirectory, backupId + RECIPE_EXTENSION);
+    }
+
+    private Path legacyPath(String backupId) {
+        return Paths.get(backupDirectory, backupId + PgCopyBackupEngine.ARCHIVE_EXTENSION);
+    }
+
+    private record ChunkRef(String hash, int length) {
+    }
+
+    private record ChunkSlice(Path file, long offset, long length) {
+    }
+
+    private final class ChunkWriter implements Writer {
+        private final String backupId;
+        // Every reference taken while writing; given back unless the archive is committed
+        private final List<String> acquired = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong storedBytes = new AtomicLong();
+        private boolean committed;
+
+        ChunkWriter(String backupId) {
+            this.backupId = backupId;
+        }
+
+        @Override
+        public Member newMember() {
+            return new ChunkingMember(this);
+        }
+
+        @Override
+        public long commit(List<Member> members) throws IOException {
+            List<ChunkRef> chunks = new ArrayList<>();
+            long totalBytes = 0;
+            for (Member member : members) {
+                chunks.addAll(((ChunkingMember) member).chunks);
+                member.offset = totalBytes;
+                totalBytes += member.size();
+            }
+            writeRecipe(recipePath(backupId), chunks);
+            committed = true;
+            log.info("Archive {} stored as {} chunks: {} of {} bytes were new", backupId, chunks.size(),
+                    storedBytes.get(), totalBytes);
+            return totalBytes;
+        }
+
+        @Override
+        public void close() {
+            if (!committed) {
+                release(acquired);
+            }
+        }
+
+        void store(byte[] data, int length, List<ChunkRef> chunks) throws IOException {
+            MessageDigest digest = sha256();
+            digest.update(data, 0, length);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            boolean isNew = acquire(hash);
+            acquired.add(hash);
+            if (isNew) {
+                writeChunk(hash, data, length);
+                storedBytes.addAndGet(length);
+            }
+            chunks.add(new ChunkRef(hash, length));
+        }
+    }
+
+    /**
+     * Cuts what is written into chunks and hands each to the writer as soon as it is complete
+     */
+    private final class ChunkingMember extends Member {
+        private final ChunkWriter writer;
+        private final ContentDefinedChunker chunker = new ContentDefinedChunker((int) chunkSize.toBytes());
+        private final byte[] buffer = new byte[chunker.maxSize()];
+        private final List<ChunkRef> chunks = new ArrayList<>();
+        private int buffered;
+        private long size;
+        private boolean closed;
+
+        ChunkingMember(ChunkWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            size += length;
+            while (length > 0) {
+                int cut = chunker.nextCut(data, offset, length);
+                int taken = cut < 0 ? length : cut - offset;
+                System.arraycopy(data, offset, buffer, buffered, taken);
+                buffered += taken;
+                offset += taken;
+                length -= taken;
+                if (cut >= 0) {
+                    emit();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                if (buffered > 0) {
+                    emit();
+                }
+            }
+        }
+
+        private void emit() throws IOException {
+            writer.store(buffer, buffered, chunks);
+            buffered = 0;
+        }
+    }
+
+    /**
+     * Reads a list of chunk slices back to back, opening each chunk only when it is reached
+     */
+    private static final class SliceInputStream extends InputStream {
+        private final Iterator<ChunkSlice> slices;
+        private InputStream current;
+
+        SliceInputStream(Iterator<ChunkSlice> slices) {
+            this.slices = slices;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                if (current == null) {
+                    if (!slices.hasNext()) {
+                        return -1;
+                    }
+                    ChunkSlice slice = slices.next();
+                    current = FileArchiveStore.openRange(slice.file(), slice.offset(), slice.length());
+                }
+                int read = current.read(buffer, offset, length);
+                if (read > 0) {
+                    return read;
+                }
+                current.close();
+                current = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+}
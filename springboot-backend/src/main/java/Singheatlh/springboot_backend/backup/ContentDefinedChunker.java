@@ -0,0 +1,61 @@
+package Singheatlh.springboot_backend.backup;
+
+/**
+ * Finds content-defined cut points in a byte stream with a gear rolling hash (as in FastCDC).
+ *
+ * A cut depends only on the bytes just before it, so inserting or changing data shifts the cut
+ * points around the edit but not elsewhere: the same content produces the same chunks again.
+ * Chunks are between minSize and maxSize bytes, averaging roughly averageSize.
+ */
+final class ContentDefinedChunker {
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // SplitMix64 with a fixed seed: the table must never change, or stored chunks stop matching
+        long state = 0x5DEECE66DL;
+        for (int i = 0; i < GEAR.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final int minSize;
+    private final int maxSize;
+    // High bits only: each shift pushes older bytes out of the top, so these see the last 64 bytes
+    private final long mask;
+    private long hash;
+    private int size;
+
+    ContentDefinedChunker(int averageSize) {
+        this.minSize = Math.max(averageSize / 4, 64);
+        this.maxSize = averageSize * 4;
+        int bits = 63 - Long.numberOfLeadingZeros(Math.max(averageSize - minSize, 2));
+        this.mask = -1L << (64 - bits);
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Scan buffer[offset, offset + length) for the next cut
+     * @return Index just past the last byte of the current chunk, or -1 if the chunk goes on past this buffer
+     */
+    int nextCut(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+            size++;
+            if (size >= minSize && ((hash & mask) == 0 || size >= maxSize)) {
+                hash = 0;
+                size = 0;
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
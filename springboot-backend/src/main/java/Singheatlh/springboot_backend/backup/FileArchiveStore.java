@@ -0,0 +1,326 @@
+package Singheatlh.springboot_backend.backup;
+
+import static Singheatlh.springboot_backend.backup.PgCopySupport.BUFFER_SIZE;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps each archive whole, as backup.directory/&lt;id&gt;.pgcopy.gz, written in a single pass.
+ *
+ * The member holding the archive's tail writes straight into it. Members written meanwhile are
+ * held in memory, spilling to the backup's work directory only once they outgrow it, and are
+ * appended by whoever holds the tail next. Archives without a manifest, left behind by a backup
+ * that stopped between commit and registration, are removed at startup.
+ */
+@Component
+@ConditionalOnProperty(name = "backup.store", havingValue = "file", matchIfMissing = true)
+@Slf4j
+public class FileArchiveStore implements ArchiveStore {
+
+    private static final String PARTIAL_SUFFIX = ".partial";
+    // Most tables compress to less than this and never touch the work directory
+    private static final int MEMORY_SPOOL_BYTES = 16 * BUFFER_SIZE;
+
+    @Value("${backup.directory:./backups}")
+    private String backupDirectory;
+
+    @PostConstruct
+    void load() throws IOException {
+        Path directory = Paths.get(backupDirectory);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        long orphans = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path archive : files.filter(file -> file.getFileName().toString().endsWith(PgCopyBackupEngine.ARCHIVE_EXTENSION)).toList()) {
+                String name = archive.getFileName().toString();
+                String backupId = name.substring(0, name.length() - PgCopyBackupEngine.ARCHIVE_EXTENSION.length());
+                if (!Files.exists(directory.resolve(backupId + BackupCatalog.MANIFEST_FILE_EXTENSION))) {
+                    log.warn("Removing backup archive {}: no manifest refers to it", archive);
+                    Files.deleteIfExists(archive);
+                    orphans++;
+                }
+            }
+        }
+        log.info("File archive store loaded: {} unreferenced archives removed", orphans);
+    }
+
+    @Override
+    public Writer create(String backupId, Path workDir) throws IOException {
+        Path archive = archivePath(backupId);
+        Files.createDirectories(archive.getParent());
+        return new FileWriter(archive, workDir);
+    }
+
+    @Override
+    public boolean exists(String backupId) {
+        return Files.exists(archivePath(backupId));
+    }
+
+    @Override
+    public InputStream open(String backupId, long offset, long length) throws IOException {
+        return openRange(archivePath(backupId), offset, length);
+    }
+
+    static InputStream openRange(Path file, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Path> localFile(String backupId) {
+        return Optional.of(archivePath(backupId));
+    }
+
+    @Override
+    public void delete(String backupId) throws IOException {
+        Files.deleteIfExists(archivePath(backupId));
+    }
+
+    Path archivePath(String backupId) {
+        return Paths.get(backupDirectory, backupId + PgCopyBackupEngine.ARCHIVE_EXTENSION);
+    }
+
+    /**
+     * One archive being written to &lt;id&gt;.pgcopy.gz.partial. The member holding tailLock appends to
+     * the file; completed members waiting for the tail queue up in pending and are appended by
+     * whoever holds it next. Members are laid out in the order they reach the tail.
+     */
+    private static final class FileWriter implements Writer {
+        private final Path archive;
+        private final Path partial;
+        private final Path workDir;
+        private final FileChannel channel;
+        private final ReentrantLock tailLock = new ReentrantLock();
+        private final Queue<FileMember> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger memberNumber = new AtomicInteger();
+        private long appended;
+        private boolean committed;
+
+        FileWriter(Path archive, Path workDir) throws IOException {
+            this.archive = archive;
+            this.partial = archive.resolveSibling(archive.getFileName() + PARTIAL_SUFFIX);
+            this.workDir = workDir;
+            this.channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public Member newMember() {
+            return new FileMember(this, workDir.resolve(String.format("%04d.spool", memberNumber.getAndIncrement())));
+        }
+
+        @Override
+        public long commit(List<Member> members) throws IOException {
+            tailLock.lock();
+            try {
+                drainPending();
+            } finally {
+                tailLock.unlock();
+            }
+            for (Member member : members) {
+                if (member.offset() < 0) {
+                    throw new IllegalStateException("Archive member was never closed");
+                }
+            }
+            channel.force(true);
+            channel.close();
+            Files.move(partial, archive, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return appended;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        }
+
+        /**
+         * Let the waiting members in, then give up the tail. Loops because a member may have
+         * queued itself after the queue was drained but before the lock was released.
+         */
+        void releaseTail() throws IOException {
+            do {
+                try {
+                    drainPending();
+                } finally {
+                    tailLock.unlock();
+                }
+            } while (!pending.isEmpty() && tailLock.tryLock());
+        }
+
+        void drainPending() throws IOException {
+            FileMember member;
+            while ((member = pending.poll()) != null) {
+                member.offset = appended;
+                member.drainSpool();
+            }
+        }
+
+        void append(byte[] data, int offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            appended += length;
+        }
+
+        /**
+         * Append a spill file with zero-copy transfers
+         */
+        void appendFile(Path file) throws IOException {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position, channel);
+                }
+                appended += size;
+            }
+        }
+    }
+
+    /**
+     * Writes straight into the archive if it can take the tail, and is held in memory (then
+     * spilled to disk) otherwise
+     */
+    private static final class FileMember extends Member {
+        private final FileWriter writer;
+        private final Path spillFile;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int buffered;
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private OutputStream spill;
+        private long size;
+        private boolean live;
+        private boolean closed;
+
+        FileMember(FileWriter writer, Path spillFile) {
+            this.writer = writer;
+            this.spillFile = spillFile;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            if (!live && writer.tailLock.tryLock()) {
+                // Finished members go first, then what this one has held back so far
+                writer.drainPending();
+                this.offset = writer.appended;
+                drainSpool();
+                live = true;
+            }
+            if (live) {
+                if (buffered + length > buffer.length) {
+                    flushBuffer();
+                }
+                if (length >= buffer.length) {
+                    writer.append(data, offset, length);
+                } else {
+                    System.arraycopy(data, offset, buffer, buffered, length);
+                    buffered += length;
+                }
+            } else if (spill != null) {
+                spill.write(data, offset, length);
+            } else {
+                memory.write(data, offset, length);
+                if (memory.size() > MEMORY_SPOOL_BYTES) {
+                    spill = new BufferedOutputStream(Files.newOutputStream(spillFile), BUFFER_SIZE);
+                    memory.writeTo(spill);
+                    memory = null;
+                }
+            }
+            size += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (live) {
+                try {
+                    flushBuffer();
+                } finally {
+                    writer.releaseTail();
+                }
+                return;
+            }
+            if (spill != null) {
+                spill.close();
+            }
+            writer.pending.add(this);
+            if (writer.tailLock.tryLock()) {
+                writer.releaseTail();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (buffered > 0) {
+                writer.append(buffer, 0, buffered);
+                buffered = 0;
+            }
+        }
+
+        void drainSpool() throws IOException {
+            if (spill != null) {
+                spill.close();
+                spill = null;
+                writer.appendFile(spillFile);
+                Files.delete(spillFile);
+            } else if (memory != null) {
+                writer.append(memory.toByteArray(), 0, memory.size());
+            }
+            memory = null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Works through a list of items on a few threads, each with its own connection, taking items in
+ * list order. If one item fails, no further items are started; items already running finish (or
+ * fail) before the first error is rethrown, so nothing is left running against the database.
+ */
+final class ParallelCopyRunner {
+
+    @FunctionalInterface
+    interface ConnectionOpener {
+        Connection open() throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Task<T> {
+        void run(Connection connection, T item) throws IOException, SQLException;
+    }
+
+    private ParallelCopyRunner() {
+    }
+
+    static <T> void run(List<T> items, int parallelism, String threadPrefix, ConnectionOpener opener, Task<T> task)
+            throws IOException, SQLException, InterruptedException {
+        if (items.isEmpty()) {
+            return;
+        }
+        Queue<T> pending = new ConcurrentLinkedQueue<>(items);
+        int workers = Math.max(1, Math.min(parallelism, items.size()));
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers,
+                runnable -> new Thread(runnable, threadPrefix + threadNumber.incrementAndGet()));
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> {
+                    try (Connection connection = opener.open()) {
+                        T item;
+                        while ((item = pending.poll()) != null) {
+                            task.run(connection, item);
+                        }
+                    } catch (IOException | SQLException | RuntimeException e) {
+                        pending.clear();
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            Throwable failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure != null) {
+                rethrow(failure);
+            }
+        } catch (InterruptedException e) {
+            pending.clear();
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void rethrow(Throwable failure) throws IOException, SQLException {
+        if (failure instanceof IOException io) {
+            throw io;
+        }
+        if (failure instanceof SQLException sql) {
+            throw sql;
+        }
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new IllegalStateException("Backup worker failed", failure);
+    }
+}
@@ -0,0 +1,377 @@
+package Singheatlh.springboot_backend.backup;
+
+import static Singheatlh.springboot_backend.backup.PgCopySupport.BUFFER_SIZE;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.CHANGE_COLUMN;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.TOMBSTONE_COLUMNS;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.TOMBSTONE_TABLE;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.columnList;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.qualified;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.queryString;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.quoteIdentifier;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.sha256;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process logical backup of one schema using the PostgreSQL COPY protocol.
+ *
+ * A leader transaction exports a snapshot; worker connections import it so every table is read
+ * from the same point in time (as pg_dump -j does) while tables are streamed in parallel with
+ * COPY ... TO STDOUT (FORMAT binary). Each table becomes one gzip member; the archive is the members
+ * joined in the order the store lays them out, itself a valid multi-member gzip file, kept by the
+ * configured ArchiveStore. The manifest records where each member starts so tables can be restored
+ * independently.
+ *
+ * An incremental backup reads at its own snapshot too, but copies only the rows whose row_txid
+ * (stamped by the V9 change-tracking triggers) was not visible in the parent backup's snapshot,
+ * plus the keys deleted since then from backup_tombstone. Tables without tracking are copied in full.
+ *
+ * Only data and sequence positions are captured: the schema itself is owned by Flyway.
+ */
+@Component
+@Slf4j
+public class PgCopyBackupEngine {
+
+    public static final String ARCHIVE_EXTENSION = ".pgcopy.gz";
+
+    // xmin:xmax:xip1,xip2,... as printed by pg_current_snapshot(); checked before it is inlined in COPY
+    private static final Pattern SNAPSHOT_PATTERN = Pattern.compile("\\d+:\\d+:[\\d,]*");
+
+    private final BackupConnectionFactory connections;
+    private final ArchiveStore archiveStore;
+
+    @Value("${backup.schema:public}")
+    private String schema;
+
+    @Value("${backup.excluded-tables:flyway_schema_history}")
+    private List<String> excludedTables;
+
+    @Value("${backup.parallelism:2}")
+    private int parallelism;
+
+    // 1 (fastest) to 9 (smallest); COPY binary output compresses well even at level 1
+    @Value("${backup.compression-level:1}")
+    private int compressionLevel;
+
+    public PgCopyBackupEngine(BackupConnectionFactory connections, ArchiveStore archiveStore) {
+        this.connections = connections;
+        this.archiveStore = archiveStore;
+    }
+
+    /**
+     * Dump every table of the schema into a new archive in the archive store
+     * @param directory Where the backup's scratch files go
+     * @param parent Backup to take an incremental backup on top of, or null for a full backup
+     * @param listener Receives per-table progress and can cancel the backup
+     * @return Manifest of the written archive
+     */
+    public BackupManifest backup(String backupId, Path directory, BackupManifest parent, BackupProgressListener listener)
+            throws IOException, SQLException, InterruptedException {
+        String parentSnapshot = parent != null ? checkSnapshot(parent.getSnapshot()) : null;
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        Path workDir = Files.createDirectories(directory.resolve(".tmp-" + backupId));
+        try (Connection leader = connections.open(); ArchiveStore.Writer writer = archiveStore.create(backupId, workDir)) {
+            leader.setAutoCommit(false);
+            leader.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            leader.setReadOnly(true);
+
+            // The leader's transaction must stay open until every worker has imported the snapshot
+            String snapshotId = queryString(leader, "SELECT pg_export_snapshot()");
+            String snapshot = queryString(leader, "SELECT CAST(pg_current_snapshot() AS text)");
+            if (parent != null && !isChangeTrackingInstalled(leader)) {
+                throw new IllegalStateException("Change tracking (migration V9) is not installed; take a full backup");
+            }
+            List<TableSpec> tables = listTables(leader);
+            tables.forEach(table -> listener.tablePlanned(table.name(), table.estimatedRows()));
+            List<BackupManifest.SequenceValue> sequences = readSequences(leader);
+            List<DumpedTable> dumped = new ArrayList<>(dumpTables(tables, snapshotId, parentSnapshot, writer, listener));
+            DumpedTable tombstones = null;
+            if (parentSnapshot != null) {
+                TableSpec spec = new TableSpec(tables.size(), TOMBSTONE_TABLE, TOMBSTONE_COLUMNS, List.of(), false, 0, 0);
+                listener.tablePlanned(TOMBSTONE_TABLE, 0);
+                String sql = "COPY (SELECT " + columnList(TOMBSTONE_COLUMNS) + " FROM " + qualified(schema, TOMBSTONE_TABLE)
+                        + " WHERE " + changedSince("deleted_txid", parentSnapshot) + ") TO STDOUT (FORMAT binary)";
+                tombstones = dumpTable(leader.unwrap(PGConnection.class).getCopyAPI(), spec, sql,
+                        BackupManifest.MODE_CHANGES, writer, listener);
+                dumped.add(tombstones);
+            }
+            leader.rollback();
+
+            long archiveBytes = writer.commit(dumped.stream().map(DumpedTable::member).toList());
+            dumped.forEach(table -> table.entry().setOffset(table.member().offset()));
+
+            List<BackupManifest.TableEntry> entries = dumped.stream()
+                    .filter(table -> !TOMBSTONE_TABLE.equals(table.entry().getName()))
+                    .map(DumpedTable::entry)
+                    .toList();
+            BackupManifest manifest = BackupManifest.builder()
+                    .formatVersion(BackupManifest.FORMAT_VERSION)
+                    .backupId(backupId)
+                    .type(parent != null ? BackupManifest.TYPE_INCREMENTAL : BackupManifest.TYPE_FULL)
+                    .parentBackupId(parent != null ? parent.getBackupId() : null)
+                    .snapshot(snapshot)
+                    .format(BackupManifest.FORMAT_PGCOPY_BINARY)
+                    .compression(BackupManifest.COMPRESSION_GZIP)
+                    .database(leader.getCatalog())
+                    .schema(schema)
+                    .serverVersion(leader.getMetaData().getDatabaseProductVersion())
+                    .startedAt(startedAt)
+                    .completedAt(LocalDateTime.now())
+                    .durationMillis((System.nanoTime() - started) / 1_000_000)
+                    .archiveBytes(archiveBytes)
+                    .totalRows(entries.stream().mapToLong(BackupManifest.TableEntry::getRowCount).sum())
+                    .tables(entries)
+                    .sequences(sequences)
+                    .tombstones(tombstones != null ? tombstones.entry() : null)
+                    .build();
+            log.info("{} backup {} written: {} tables, {} rows, {} bytes in {} ms", manifest.getType(), backupId, entries.size(),
+                    manifest.getTotalRows(), archiveBytes, manifest.getDurationMillis());
+            return manifest;
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private List<DumpedTable> dumpTables(List<TableSpec> tables, String snapshotId, String parentSnapshot,
+                                         ArchiveStore.Writer writer, BackupProgressListener listener) throws IOException, SQLException, InterruptedException {
+        Map<String, DumpedTable> dumped = new ConcurrentHashMap<>();
+        // Largest tables first so one big table does not start last and dominate the wall time
+        List<TableSpec> bySize = tables.stream()
+                .sorted(Comparator.comparingLong(TableSpec::totalBytes).reversed())
+                .toList();
+        ParallelCopyRunner.run(bySize, parallelism, "backup-copy-", () -> connections.openSnapshot(snapshotId),
+                (connection, table) -> {
+                    boolean changesOnly = parentSnapshot != null && table.tracked();
+                    CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                    dumped.put(table.name(), dumpTable(copyManager, table, copyOutSql(table, parentSnapshot),
+                            changesOnly ? BackupManifest.MODE_CHANGES : BackupManifest.MODE_FULL, writer, listener));
+                });
+        // Archive order is by table name so manifests of the same schema line up
+        return tables.stream().map(table -> dumped.get(table.name())).toList();
+    }
+
+    private DumpedTable dumpTable(CopyManager copyManager, TableSpec table, String sql, String mode,
+                                  ArchiveStore.Writer writer, BackupProgressListener listener) throws IOException, SQLException {
+        listener.tableStarted(table.name());
+        long started = System.nanoTime();
+        ArchiveStore.Member member = writer.newMember();
+        MessageDigest digest = sha256();
+        long rows;
+        ProgressOutputStream uncompressed;
+        try (ProgressOutputStream out = new ProgressOutputStream(table.name(), listener,
+                newGzip(new DigestOutputStream(member, digest)))) {
+            uncompressed = out;
+            rows = copyManager.copyOut(sql, out);
+        }
+        BackupManifest.TableEntry entry = BackupManifest.TableEntry.builder()
+                .name(table.name())
+                .mode(mode)
+                .columns(table.columns())
+                .primaryKey(table.primaryKey())
+                .rowCount(rows)
+                .compressedBytes(member.size())
+                .uncompressedBytes(uncompressed.getCount())
+                .sha256(HexFormat.of().formatHex(digest.digest()))
+                .elapsedMillis((System.nanoTime() - started) / 1_000_000)
+                .build();
+        listener.tableCompleted(table.name(), rows);
+        log.debug("Dumped {}: {} rows, {} -> {} bytes", table.name(), rows, entry.getUncompressedBytes(),
+                entry.getCompressedBytes());
+        return new DumpedTable(member, entry);
+    }
+
+    private List<TableSpec> listTables(Connection connection) throws SQLException {
+        List<TableSpec> tables = new ArrayList<>();
+        String sql = "SELECT c.relname, pg_total_relation_size(c.oid), c.reltuples FROM pg_class c "
+                + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                + "WHERE n.nspname = ? AND c.relkind = 'r' ORDER BY c.relname";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, schema);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString(1);
+                    if (!excludedTables.contains(name) && !TOMBSTONE_TABLE.equals(name)) {
+                        // reltuples is -1 for a table that has never been analyzed
+                        tables.add(new TableSpec(tables.size(), name, List.of(), List.of(), false, rs.getLong(2),
+                                Math.max(rs.getLong(3), 0)));
+                    }
+                }
+            }
+        }
+        List<TableSpec> withColumns = new ArrayList<>(tables.size());
+        for (TableSpec table : tables) {
+            List<String> columns = new ArrayList<>(listColumns(connection, table.name()));
+            // row_txid is never restored: restored rows read as "older than any backup"
+            boolean tracked = columns.remove(CHANGE_COLUMN);
+            List<String> primaryKey = listPrimaryKey(connection, table.name());
+            withColumns.add(new TableSpec(table.index(), table.name(), columns, primaryKey,
+                    tracked && !primaryKey.isEmpty(), table.totalBytes(), table.estimatedRows()));
+        }
+        return withColumns;
+    }
+
+    private List<String> listColumns(Connection connection, String table) throws SQLException {
+        // Generated columns cannot be copied in; they are recomputed on restore
+        String sql = "SELECT attname FROM pg_attribute WHERE attrelid = CAST(? AS regclass) "
+                + "AND attnum > 0 AND NOT attisdropped AND attgenerated = '' ORDER BY attnum";
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, qualified(schema, table));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    columns.add(rs.getString(1));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private List<String> listPrimaryKey(Connection connection, String table) throws SQLException {
+        String sql = "SELECT a.attname FROM pg_index i "
+                + "JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = ANY (i.indkey) "
+                + "WHERE i.indrelid = CAST(? AS regclass) AND i.indisprimary "
+                + "ORDER BY array_position(CAST(i.indkey AS int2[]), a.attnum)";
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, qualified(schema, table));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    columns.add(rs.getString(1));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private boolean isChangeTrackingInstalled(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            statement.setString(1, qualified(schema, TOMBSTONE_TABLE));
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Forget deletions that every backup in the catalog already reflects
+     * @param oldestSnapshot Snapshot of the oldest backup an incremental may still be taken on top of
+     */
+    public void pruneTombstones(String oldestSnapshot) throws SQLException {
+        try (Connection connection = connections.open()) {
+            if (!isChangeTrackingInstalled(connection)) {
+                return;
+            }
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + qualified(schema, TOMBSTONE_TABLE)
+                    + " WHERE deleted_txid < pg_snapshot_xmin(CAST(? AS pg_snapshot))")) {
+                statement.setString(1, checkSnapshot(oldestSnapshot));
+                int pruned = statement.executeUpdate();
+                if (pruned > 0) {
+                    log.debug("Pruned {} backup tombstones", pruned);
+                }
+            }
+        }
+    }
+
+    private List<BackupManifest.SequenceValue> readSequences(Connection connection) throws SQLException {
+        List<BackupManifest.SequenceValue> sequences = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT sequencename, last_value FROM pg_sequences WHERE schemaname = ? ORDER BY sequencename")) {
+            statement.setString(1, schema);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    long lastValue = rs.getLong(2);
+                    sequences.add(new BackupManifest.SequenceValue(rs.getString(1), rs.wasNull() ? null : lastValue));
+                }
+            }
+        }
+        return sequences;
+    }
+
+    private String copyOutSql(TableSpec table, String parentSnapshot) {
+        if (parentSnapshot == null || !table.tracked()) {
+            return "COPY " + qualified(schema, table.name()) + " (" + columnList(table.columns()) + ") "
+                    + "TO STDOUT (FORMAT binary)";
+        }
+        return "COPY (SELECT " + columnList(table.columns()) + " FROM " + qualified(schema, table.name())
+                + " WHERE " + changedSince(CHANGE_COLUMN, parentSnapshot) + ") TO STDOUT (FORMAT binary)";
+    }
+
+    /**
+     * Rows written by a transaction the snapshot could not see. Everything below the snapshot's xmin
+     * was visible to it, so the range test comes first and can use the txid column's index.
+     */
+    private static String changedSince(String txidColumn, String snapshot) {
+        String literal = "CAST('" + snapshot + "' AS pg_snapshot)";
+        return quoteIdentifier(txidColumn) + " >= pg_snapshot_xmin(" + literal + ") AND NOT pg_visible_in_snapshot("
+                + quoteIdentifier(txidColumn) + ", " + literal + ")";
+    }
+
+    private static String checkSnapshot(String snapshot) {
+        if (snapshot == null || !SNAPSHOT_PATTERN.matcher(snapshot).matches()) {
+            throw new IllegalStateException("Backup has no usable snapshot to take an incremental backup on top of");
+        }
+        return snapshot;
+    }
+
+    private GZIPOutputStream newGzip(OutputStream out) throws IOException {
+        int level = Math.max(1, Math.min(compressionLevel, 9));
+        if (archiveStore.isDeduplicating()) {
+            return new RsyncableGzipOutputStream(out, level);
+        }
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    private static void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (var paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Could not delete backup work file {}", path);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not clean up backup work directory {}", directory);
+        }
+    }
+
+    private record TableSpec(int index, String name, List<String> columns, List<String> primaryKey, boolean tracked,
+                             long totalBytes, long estimatedRows) {
+    }
+
+    private record DumpedTable(ArchiveStore.Member member, BackupManifest.TableEntry entry) {
+    }
+}
@@ -0,0 +1,425 @@
+package Singheatlh.springboot_backend.backup;
+
+import static Singheatlh.springboot_backend.backup.PgCopySupport.BUFFER_SIZE;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.TOMBSTONE_COLUMNS;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.columnList;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.copyInSql;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.qualified;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.quoteIdentifier;
+import static Singheatlh.springboot_backend.backup.PgCopySupport.sha256;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Restores a backup chain (a full backup and the incrementals on top of it) with parallel
+ * COPY ... FROM STDIN, the way pg_restore -j does:
+ *
+ * 1. One transaction records the DDL of the restored tables' indexes, key constraints and foreign
+ *    keys in a journal file, drops them and truncates the tables.
+ * 2. Each table's full copy is loaded on its own connection, with no index to maintain.
+ * 3. Indexes and key constraints are rebuilt, again one table per connection.
+ * 4. Incrementals are applied per table; they need the primary keys.
+ * 5. Foreign keys are added back and sequences reset, and the journal is deleted.
+ *
+ * Unlike a single-transaction load this is not atomic: a failed or cancelled restore leaves the
+ * tables partially loaded. The dropped DDL is always put back; if that fails too, the statements
+ * still missing are in the journal in the backup directory.
+ */
+@Component
+@Slf4j
+public class PgCopyRestoreEngine {
+
+    public static final String RESTORE_JOURNAL = "restore-pending-ddl.sql";
+
+    // Constraint already exists / relation already exists: that statement was applied before the failure
+    private static final Set<String> ALREADY_APPLIED_STATES = Set.of("42710", "42P07");
+
+    private final BackupConnectionFactory connections;
+    private final ArchiveStore archiveStore;
+
+    @Value("${backup.restore-parallelism:4}")
+    private int parallelism;
+
+    public PgCopyRestoreEngine(BackupConnectionFactory connections, ArchiveStore archiveStore) {
+        this.connections = connections;
+        this.archiveStore = archiveStore;
+    }
+
+    /**
+     * Replace the schema's data with the contents of a backup chain
+     * @param chain Full backup first, then its incrementals in order
+     * @param directory Where to keep the restore journal
+     * @param listener Receives per-table progress and can cancel the restore
+     */
+    public void restore(List<BackupManifest> chain, Path directory, BackupProgressListener listener)
+            throws IOException, SQLException, InterruptedException {
+        long started = System.nanoTime();
+        BackupManifest target = chain.get(chain.size() - 1);
+        String tableSchema = chain.get(0).getSchema();
+
+        Map<String, List<ChainMember>> members = new TreeMap<>();
+        for (int step = 0; step < chain.size(); step++) {
+            BackupManifest manifest = chain.get(step);
+            for (BackupManifest.TableEntry table : manifest.getTables()) {
+                members.computeIfAbsent(table.getName(), name -> new ArrayList<>()).add(new ChainMember(step, manifest, table));
+            }
+        }
+        members.forEach((name, tableMembers) -> listener.tablePlanned(name,
+                tableMembers.stream().mapToLong(member -> member.entry().getRowCount()).sum()));
+        // Biggest tables first so one large table does not start last and dominate the wall time
+        List<String> bySize = members.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, List<ChainMember>> entry) ->
+                        entry.getValue().get(0).entry().getUncompressedBytes()).reversed())
+                .map(Map.Entry::getKey)
+                .toList();
+
+        Path journal = directory.resolve(RESTORE_JOURNAL);
+        DeferredDdl ddl = prepare(tableSchema, members.keySet(), journal);
+
+        Map<String, Long> loadedRows = new TreeMap<>();
+        boolean restored = false;
+        try {
+            ParallelCopyRunner.run(bySize, parallelism, "restore-copy-", connections::openForRestore, (connection, name) -> {
+                ChainMember base = members.get(name).get(0);
+                if (base.entry().isChanges()) {
+                    throw new IllegalStateException("Backup chain has no full copy of table " + name);
+                }
+                listener.tableStarted(name);
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                long rows = loadMember(copyManager, base.manifest().getBackupId(),
+                        copyInSql(tableSchema, name, base.entry().getColumns()), base.entry(), listener);
+                connection.commit();
+                recordLoaded(loadedRows, name, rows, members.get(name).size() == 1, listener);
+            });
+
+            ParallelCopyRunner.run(bySize, parallelism, "restore-index-", connections::openForRestore, (connection, name) -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : ddl.tableCreates().getOrDefault(name, List.of())) {
+                        listener.checkCancelled();
+                        statement.execute(sql);
+                    }
+                }
+                connection.commit();
+            });
+
+            List<String> incremented = bySize.stream().filter(name -> members.get(name).size() > 1).toList();
+            ParallelCopyRunner.run(incremented, parallelism, "restore-apply-", connections::openForRestore, (connection, name) -> {
+                List<ChainMember> tableMembers = members.get(name);
+                long rows = 0;
+                for (ChainMember member : tableMembers.subList(1, tableMembers.size())) {
+                    rows += applyIncrement(connection, tableSchema, member, listener);
+                }
+                connection.commit();
+                recordLoaded(loadedRows, name, rows, true, listener);
+            });
+
+            try (Connection connection = connections.openForRestore(); Statement statement = connection.createStatement()) {
+                for (String sql : ddl.foreignKeyCreates()) {
+                    statement.execute(sql);
+                }
+                restoreSequences(connection, target);
+                connection.commit();
+            }
+            restored = true;
+        } finally {
+            if (!restored) {
+                recreateDeferredDdl(ddl, journal);
+            }
+        }
+        Files.deleteIfExists(journal);
+        log.info("Backup {} restored from a chain of {}: {} tables in {} ms", target.getBackupId(), chain.size(),
+                members.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Record the deferred DDL, drop it and empty the tables, in one transaction
+     */
+    private DeferredDdl prepare(String tableSchema, Set<String> tables, Path journal) throws IOException, SQLException {
+        try (Connection connection = connections.open()) {
+            connection.setAutoCommit(false);
+            DeferredDdl ddl = captureDeferredDdl(connection, tableSchema, tables);
+            // Written before anything is dropped so the DDL survives a crash mid-restore
+            Files.write(journal, ddl.creates().stream().map(sql -> sql + ";").toList());
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : ddl.drops()) {
+                    statement.execute(sql);
+                }
+                statement.execute("TRUNCATE TABLE " + tables.stream()
+                        .map(name -> qualified(tableSchema, name))
+                        .collect(Collectors.joining(", ")));
+            }
+            connection.commit();
+            return ddl;
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(journal);
+            throw e;
+        }
+    }
+
+    private DeferredDdl captureDeferredDdl(Connection connection, String tableSchema, Set<String> tables) throws SQLException {
+        Array restored = connection.createArrayOf("text",
+                tables.stream().map(name -> qualified(tableSchema, name)).toArray());
+        String restoredTables = "CAST(CAST(? AS text[]) AS regclass[])";
+
+        // Primary key, unique and exclusion constraints, with the indexes behind them
+        Map<String, List<String>> tableCreates = new LinkedHashMap<>();
+        List<String> keyDrops = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT c.relname, format('ALTER TABLE %s DROP CONSTRAINT %I', k.conrelid::regclass, k.conname), "
+                        + "format('ALTER TABLE %s ADD CONSTRAINT %I %s', k.conrelid::regclass, k.conname, pg_get_constraintdef(k.oid)) "
+                        + "FROM pg_constraint k JOIN pg_class c ON c.oid = k.conrelid "
+                        + "WHERE k.contype IN ('p', 'u', 'x') AND k.conrelid = ANY (" + restoredTables + ") "
+                        + "ORDER BY c.relname, k.conname")) {
+            statement.setArray(1, restored);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    keyDrops.add(rs.getString(2));
+                    tableCreates.computeIfAbsent(rs.getString(1), name -> new ArrayList<>()).add(rs.getString(3));
+                }
+            }
+        }
+
+        // Other indexes
+        List<String> indexDrops = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT c.relname, format('DROP INDEX %s', i.indexrelid::regclass), pg_get_indexdef(i.indexrelid) "
+                        + "FROM pg_index i JOIN pg_class c ON c.oid = i.indrelid "
+                        + "WHERE i.indrelid = ANY (" + restoredTables + ") AND NOT EXISTS ("
+                        + "SELECT 1 FROM pg_constraint k WHERE k.conindid = i.indexrelid AND k.contype IN ('p', 'u', 'x')) "
+                        + "ORDER BY c.relname, i.indexrelid")) {
+            statement.setArray(1, restored);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    indexDrops.add(rs.getString(2));
+                    tableCreates.computeIfAbsent(rs.getString(1), name -> new ArrayList<>()).add(rs.getString(3));
+                }
+            }
+        }
+
+        // Foreign keys from or to a restored table; TRUNCATE would refuse the latter
+        List<String> foreignKeyDrops = new ArrayList<>();
+        List<String> foreignKeyCreates = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT format('ALTER TABLE %s DROP CONSTRAINT %I', k.conrelid::regclass, k.conname), "
+                        + "format('ALTER TABLE %s ADD CONSTRAINT %I %s', k.conrelid::regclass, k.conname, pg_get_constraintdef(k.oid)) "
+                        + "FROM pg_constraint k WHERE k.contype = 'f' "
+                        + "AND (k.conrelid = ANY (" + restoredTables + ") OR k.confrelid = ANY (" + restoredTables + ")) "
+                        + "ORDER BY k.conrelid, k.conname")) {
+            statement.setArray(1, restored);
+            statement.setArray(2, restored);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    foreignKeyDrops.add(rs.getString(1));
+                    foreignKeyCreates.add(rs.getString(2));
+                }
+            }
+        }
+
+        List<String> drops = new ArrayList<>(foreignKeyDrops);
+        drops.addAll(indexDrops);
+        drops.addAll(keyDrops);
+        return new DeferredDdl(drops, tableCreates, foreignKeyCreates);
+    }
+
+    /**
+     * Put back whatever a failed restore had not recreated yet, one statement at a time
+     */
+    private void recreateDeferredDdl(DeferredDdl ddl, Path journal) {
+        List<String> missing = new ArrayList<>();
+        try (Connection connection = connections.open(); Statement statement = connection.createStatement()) {
+            for (String sql : ddl.creates()) {
+                try {
+                    statement.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_APPLIED_STATES.contains(e.getSQLState())) {
+                        log.error("Could not recreate after failed restore: {} ({})", sql, e.getMessage());
+                        missing.add(sql + ";");
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Could not connect to recreate indexes and constraints after failed restore", e);
+            return;
+        }
+        try {
+            if (missing.isEmpty()) {
+                Files.deleteIfExists(journal);
+            } else {
+                Files.write(journal, missing);
+                log.error("{} index/constraint statements could not be recreated; they are in {}", missing.size(), journal);
+            }
+        } catch (IOException e) {
+            log.error("Could not update restore journal {}", journal, e);
+        }
+    }
+
+    /**
+     * Apply one incremental member of a table to the data loaded so far
+     * @return Rows in the increment
+     */
+    private long applyIncrement(Connection connection, String tableSchema, ChainMember member,
+                                BackupProgressListener listener) throws IOException, SQLException {
+        BackupManifest.TableEntry table = member.entry();
+        String target = qualified(tableSchema, table.getName());
+        String columns = columnList(table.getColumns());
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        String backupId = member.manifest().getBackupId();
+        try (Statement statement = connection.createStatement()) {
+            if (!table.isChanges()) {
+                // Untracked table: the increment holds all of its rows
+                statement.execute("DELETE FROM " + target);
+                return loadMember(copyManager, backupId, copyInSql(tableSchema, table.getName(), table.getColumns()), table, listener);
+            }
+
+            statement.execute("DROP TABLE IF EXISTS pg_temp.backup_changes");
+            statement.execute("CREATE TEMP TABLE backup_changes ON COMMIT DROP AS SELECT " + columns
+                    + " FROM " + target + " WITH NO DATA");
+            long rows = loadMember(copyManager, backupId, "COPY pg_temp.backup_changes (" + columns + ") FROM STDIN (FORMAT binary)",
+                    table, listener);
+
+            String keyMatch = table.getPrimaryKey().stream()
+                    .map(column -> "target." + quoteIdentifier(column) + " = source." + quoteIdentifier(column))
+                    .collect(Collectors.joining(" AND "));
+            if (member.manifest().getTombstones() != null) {
+                String tombstones = loadTombstones(connection, copyManager, member, listener);
+                try (PreparedStatement deleteTombstoned = connection.prepareStatement("DELETE FROM " + target + " AS target "
+                        + "USING " + tombstones + " tomb, jsonb_populate_record(CAST(NULL AS " + target + "), tomb.row_key) AS source "
+                        + "WHERE tomb.table_name = ? AND " + keyMatch)) {
+                    deleteTombstoned.setString(1, table.getName());
+                    deleteTombstoned.executeUpdate();
+                }
+            }
+            statement.executeUpdate("DELETE FROM " + target + " AS target USING pg_temp.backup_changes AS source WHERE " + keyMatch);
+            statement.executeUpdate("INSERT INTO " + target + " (" + columns + ") SELECT " + columns + " FROM pg_temp.backup_changes");
+            return rows;
+        }
+    }
+
+    /**
+     * Load a chain step's tombstones into a session temp table, once per connection
+     * @return Name of the temp table
+     */
+    private String loadTombstones(Connection connection, CopyManager copyManager, ChainMember member,
+                                  BackupProgressListener listener) throws IOException, SQLException {
+        String tableName = "pg_temp.backup_restore_tombstone_" + member.step();
+        try (PreparedStatement exists = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            exists.setString(1, tableName);
+            try (ResultSet rs = exists.executeQuery()) {
+                if (rs.next() && rs.getBoolean(1)) {
+                    return tableName;
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP TABLE backup_restore_tombstone_" + member.step() + " (table_name TEXT, row_key JSONB)");
+        }
+        // Shared by every table of the step, so not reported as any one table's progress, but still cancellable
+        BackupProgressListener cancelOnly = new BackupProgressListener() {
+            @Override
+            public boolean isCancelled() {
+                return listener.isCancelled();
+            }
+        };
+        loadMember(copyManager, member.manifest().getBackupId(), "COPY " + tableName + " (" + columnList(TOMBSTONE_COLUMNS) + ") FROM STDIN (FORMAT binary)",
+                member.manifest().getTombstones(), cancelOnly);
+        return tableName;
+    }
+
+    /**
+     * Stream one gzip member of an archive into a COPY FROM STDIN, verifying its checksum and row count
+     * @return Rows copied
+     */
+    private long loadMember(CopyManager copyManager, String backupId, String copySql,
+                            BackupManifest.TableEntry table, BackupProgressListener listener)
+            throws IOException, SQLException {
+        MessageDigest digest = sha256();
+        InputStream member = new DigestInputStream(
+                archiveStore.open(backupId, table.getOffset(), table.getCompressedBytes()), digest);
+        long rows;
+        try (InputStream data = new ProgressInputStream(new GZIPInputStream(member, BUFFER_SIZE), table.getName(), listener)) {
+            rows = copyManager.copyIn(copySql, data);
+            // Drain so the digest covers the whole member, including the gzip trailer
+            member.transferTo(OutputStream.nullOutputStream());
+        }
+        if (!HexFormat.of().formatHex(digest.digest()).equals(table.getSha256())) {
+            throw new IllegalStateException("Checksum mismatch for table " + table.getName() + "; archive is corrupt");
+        }
+        if (rows != table.getRowCount()) {
+            throw new IllegalStateException("Restored " + rows + " rows into " + table.getName()
+                    + " but the backup recorded " + table.getRowCount());
+        }
+        return rows;
+    }
+
+    private void restoreSequences(Connection connection, BackupManifest manifest) throws SQLException {
+        if (manifest.getSequences() == null) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement("SELECT setval(CAST(? AS regclass), ?, ?)")) {
+            for (BackupManifest.SequenceValue sequence : manifest.getSequences()) {
+                statement.setString(1, qualified(manifest.getSchema(), sequence.getName()));
+                statement.setLong(2, sequence.getLastValue() != null ? sequence.getLastValue() : 1L);
+                statement.setBoolean(3, sequence.getLastValue() != null);
+                statement.execute();
+            }
+        }
+    }
+
+    private static void recordLoaded(Map<String, Long> loadedRows, String table, long rows, boolean finished,
+                                     BackupProgressListener listener) {
+        long total;
+        synchronized (loadedRows) {
+            total = loadedRows.merge(table, rows, Long::sum);
+        }
+        if (finished) {
+            listener.tableCompleted(table, total);
+        }
+    }
+
+    private record ChainMember(int step, BackupManifest manifest, BackupManifest.TableEntry entry) {
+    }
+
+    /**
+     * @param drops Foreign keys, then indexes, then key constraints
+     * @param tableCreates Key constraints and indexes of each table
+     * @param foreignKeyCreates Added back once every table is loaded
+     */
+    private record DeferredDdl(List<String> drops, Map<String, List<String>> tableCreates, List<String> foreignKeyCreates) {
+
+        List<String> creates() {
+            List<String> creates = new ArrayList<>();
+            tableCreates.values().forEach(creates::addAll);
+            creates.addAll(foreignKeyCreates);
+            return creates;
+        }
+    }
+}
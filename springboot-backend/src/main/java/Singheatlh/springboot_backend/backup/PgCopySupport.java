@@ -0,0 +1,56 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * SQL and archive helpers shared by the backup and restore engines
+ */
+final class PgCopySupport {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final String CHANGE_COLUMN = "row_txid";
+    static final String TOMBSTONE_TABLE = "backup_tombstone";
+    static final List<String> TOMBSTONE_COLUMNS = List.of("table_name", "row_key");
+
+    private PgCopySupport() {
+    }
+
+    static String copyInSql(String tableSchema, String table, List<String> columns) {
+        return "COPY " + qualified(tableSchema, table) + " (" + columnList(columns) + ") "
+                + "FROM STDIN (FORMAT binary)";
+    }
+
+    static String columnList(List<String> columns) {
+        return columns.stream().map(PgCopySupport::quoteIdentifier).collect(Collectors.joining(", "));
+    }
+
+    static String qualified(String tableSchema, String name) {
+        return quoteIdentifier(tableSchema) + "." + quoteIdentifier(name);
+    }
+
+    static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    static String queryString(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reports decompressed bytes as COPY FROM STDIN consumes them
+ */
+class ProgressInputStream extends FilterInputStream {
+
+    private final String table;
+    private final BackupProgressListener listener;
+
+    ProgressInputStream(InputStream in, String table, BackupProgressListener listener) {
+        super(in);
+        this.table = table;
+        this.listener = listener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        listener.checkCancelled();
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            listener.bytesTransferred(table, read);
+        }
+        return read;
+    }
+}
@@ -0,0 +1,38 @@
+package Singheatlh.springboot_backend.backup;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts bytes on their way into the compressor (the table's uncompressed size) and reports them
+ */
+class ProgressOutputStream extends FilterOutputStream {
+
+    private final String table;
+    private final BackupProgressListener listener;
+    private long count;
+
+    ProgressOutputStream(String table, BackupProgressListener listener, OutputStream out) {
+        super(out);
+        this.table = table;
+        this.listener = listener;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        listener.checkCancelled();
+        out.write(buffer, offset, length);
+        count += length;
+        listener.bytesTransferred(table, length);
+    }
+}
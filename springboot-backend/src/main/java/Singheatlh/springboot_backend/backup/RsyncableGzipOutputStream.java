@@ -0,0 +1,52 @@
+package Singheatlh.springboot_backend.backup;
+
+import static Singheatlh.springboot_backend.backup.PgCopySupport.BUFFER_SIZE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A gzip stream that resets the compressor at content-defined points of its input, as gzip
+ * --rsyncable does. Compressed output after a reset depends only on the input after it, so two
+ * versions of a table that differ in a few rows compress to bytes that differ only near those rows
+ * and a deduplicating store can share the rest. Costs a little compression ratio.
+ */
+class RsyncableGzipOutputStream extends GZIPOutputStream {
+
+    // Average input between resets: a change costs about this much, and the ratio loss is small at this size
+    private static final int AVERAGE_SEGMENT = 64 * 1024;
+
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker(AVERAGE_SEGMENT);
+
+    RsyncableGzipOutputStream(OutputStream out, int level) throws IOException {
+        super(out, BUFFER_SIZE);
+        def.setLevel(level);
+    }
+
+    @Override
+    public synchronized void write(byte[] buffer, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            int cut = chunker.nextCut(buffer, offset, end - offset);
+            int segmentEnd = cut < 0 ? end : cut;
+            super.write(buffer, offset, segmentEnd - offset);
+            if (cut >= 0) {
+                fullFlush();
+            }
+            offset = segmentEnd;
+        }
+    }
+
+    /**
+     * Emit everything compressed so far and forget the dictionary, byte-aligned
+     */
+    private void fullFlush() throws IOException {
+        int length;
+        do {
+            length = def.deflate(buf, 0, buf.length, Deflater.FULL_FLUSH);
+            out.write(buf, 0, length);
+        } while (length == buf.length);
+    }
+}
@@ -0,0 +1,468 @@
+package Singheatlh.springboot_backend.backup;
+
+import static Singheatlh.springboot_backend.backup.PgCopySupport.BUFFER_SIZE;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * Keeps archives (and their manifests) in an S3-compatible bucket, e.g. MinIO, so backups survive
+ * the loss of the application server.
+ *
+ * Archives are streamed into a multipart upload while the backup runs; parts are uploaded on
+ * several threads as soon as they fill. Only one member can stream into the upload at a time, so
+ * it takes the members in the order they are written: the first table to start streams straight
+ * through, and tables dumped alongside it are spooled to the work directory until it finishes.
+ * Nothing waits for the whole archive to be on local disk.
+ *
+ * Reads are ranged GETs. Incomplete uploads of a failed backup are aborted; a bucket lifecycle rule
+ * for incomplete multipart uploads cleans up after a crash.
+ */
+@Component
+@ConditionalOnProperty(name = "backup.store", havingValue = "s3")
+@Slf4j
+public class S3ArchiveStore implements ArchiveStore {
+
+    // S3 rejects parts below 5 MiB other than the last
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    @Value("${backup.s3.endpoint}")
+    private String endpoint;
+
+    @Value("${backup.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${backup.s3.bucket}")
+    private String bucket;
+
+    @Value("${backup.s3.prefix:backups/}")
+    private String prefix;
+
+    @Value("${backup.s3.access-key}")
+    private String accessKey;
+
+    @Value("${backup.s3.secret-key}")
+    private String secretKey;
+
+    @Value("${backup.s3.part-size:16MB}")
+    private DataSize partSize;
+
+    @Value("${backup.s3.upload-parallelism:4}")
+    private int uploadParallelism;
+
+    private S3Client s3;
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    void init() {
+        s3 = S3Client.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                // MinIO and most other S3-compatible servers want bucket-in-path URLs
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+        AtomicInteger threadNumber = new AtomicInteger();
+        uploadExecutor = Executors.newFixedThreadPool(Math.max(1, uploadParallelism), runnable -> {
+            Thread thread = new Thread(runnable, "backup-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdownNow();
+        s3.close();
+    }
+
+    @Override
+    public Writer create(String backupId, Path workDir) throws IOException {
+        String key = archiveKey(backupId);
+        try {
+            String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType("application/gzip")
+                    .build()).uploadId();
+            return new UploadWriter(key, uploadId, workDir);
+        } catch (SdkException e) {
+            throw new IOException("Could not start upload of " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean exists(String backupId) {
+        try {
+            s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(archiveKey(backupId)).build());
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String backupId, long offset, long length) throws IOException {
+        if (length == 0) {
+            return InputStream.nullInputStream();
+        }
+        try {
+            return s3.getObject(GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(archiveKey(backupId))
+                    .range("bytes=" + offset + "-" + (offset + length - 1))
+                    .build());
+        } catch (SdkException e) {
+            throw new IOException("Could not read backup " + backupId + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localFile(String backupId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void delete(String backupId) throws IOException {
+        try {
+            // Manifest first, as on local disk, so a half-deleted backup is never listed again
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(manifestKey(backupId)).build());
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(archiveKey(backupId)).build());
+        } catch (SdkException e) {
+            throw new IOException("Could not delete backup " + backupId + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void saveManifest(String backupId, byte[] manifest) throws IOException {
+        try {
+            s3.putObject(PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(manifestKey(backupId))
+                    .contentType("application/json")
+                    .build(), RequestBody.fromBytes(manifest));
+        } catch (SdkException e) {
+            throw new IOException("Could not store manifest of backup " + backupId + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, byte[]> loadManifests() throws IOException {
+        Map<String, byte[]> manifests = new HashMap<>();
+        try {
+            for (S3Object object : s3.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                    .bucket(bucket)
+                    .prefix(prefix)
+                    .build()).contents()) {
+                String key = object.key();
+                if (key.endsWith(BackupCatalog.MANIFEST_FILE_EXTENSION)) {
+                    String backupId = key.substring(prefix.length(), key.length() - BackupCatalog.MANIFEST_FILE_EXTENSION.length());
+                    manifests.put(backupId, s3.getObjectAsBytes(GetObjectRequest.builder().bucket(bucket).key(key).build())
+                            .asByteArray());
+                }
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not list backups in bucket " + bucket + ": " + e.getMessage(), e);
+        }
+        return manifests;
+    }
+
+    private String archiveKey(String backupId) {
+        return prefix + backupId + PgCopyBackupEngine.ARCHIVE_EXTENSION;
+    }
+
+    private String manifestKey(String backupId) {
+        return prefix + backupId + BackupCatalog.MANIFEST_FILE_EXTENSION;
+    }
+
+    /**
+     * One multipart upload. The member holding streamLock appends to the current part; completed
+     * members waiting for the stream queue up in pending and are appended by whoever holds it next.
+     */
+    private final class UploadWriter implements Writer {
+        private final String key;
+        private final String uploadId;
+        private final Path workDir;
+        private final int partBytes = (int) Math.max(partSize.toBytes(), MIN_PART_SIZE);
+        private final ReentrantLock streamLock = new ReentrantLock();
+        private final Queue<UploadMember> pending = new ConcurrentLinkedQueue<>();
+        // Parts being uploaded, plus the one being filled, bound the memory used
+        private final Semaphore partsInFlight = new Semaphore(Math.max(1, uploadParallelism));
+        private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        private final AtomicInteger memberNumber = new AtomicInteger();
+        private byte[] part;
+        private int partFilled;
+        private long appended;
+        private volatile Throwable uploadFailure;
+        private boolean committed;
+
+        UploadWriter(String key, String uploadId, Path workDir) {
+            this.key = key;
+            this.uploadId = uploadId;
+            this.workDir = workDir;
+        }
+
+        @Override
+        public Member newMember() {
+            return new UploadMember(this, workDir.resolve(String.format("%04d.spool", memberNumber.getAndIncrement())));
+        }
+
+        @Override
+        public long commit(List<Member> members) throws IOException {
+            streamLock.lock();
+            try {
+                drainPending();
+                if (partFilled > 0 || parts.isEmpty()) {
+                    uploadPart();
+                }
+            } finally {
+                streamLock.unlock();
+            }
+            for (Member member : members) {
+                if (member.offset() < 0) {
+                    throw new IllegalStateException("Archive member was never closed");
+                }
+            }
+            List<CompletedPart> completed = new ArrayList<>();
+            try {
+                for (CompletableFuture<CompletedPart> future : parts) {
+                    completed.add(future.join());
+                }
+                completed.sort(Comparator.comparingInt(CompletedPart::partNumber));
+                s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                        .build());
+            } catch (CompletionException | SdkException e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                throw new IOException("Upload of " + key + " failed: " + cause.getMessage(), cause);
+            }
+            committed = true;
+            log.info("Archive uploaded to {}/{}: {} bytes in {} parts", bucket, key, appended, completed.size());
+            return appended;
+        }
+
+        @Override
+        public void close() {
+            if (committed) {
+                return;
+            }
+            try {
+                s3.abortMultipartUpload(AbortMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).build());
+            } catch (SdkException e) {
+                log.warn("Could not abort upload of {}; the bucket's lifecycle rule has to clean it up: {}", key, e.getMessage());
+            }
+        }
+
+        /**
+         * Let the waiting members in, then give up the stream. Loops because a member may have
+         * queued itself after the queue was drained but before the lock was released.
+         */
+        void releaseStream() throws IOException {
+            do {
+                try {
+                    drainPending();
+                } finally {
+                    streamLock.unlock();
+                }
+            } while (!pending.isEmpty() && streamLock.tryLock());
+        }
+
+        void drainPending() throws IOException {
+            UploadMember member;
+            while ((member = pending.poll()) != null) {
+                member.offset = appended;
+                member.drainSpool();
+            }
+        }
+
+        void append(byte[] data, int offset, int length) throws IOException {
+            if (uploadFailure != null) {
+                throw new IOException("Upload of " + key + " failed: " + uploadFailure.getMessage(), uploadFailure);
+            }
+            while (length > 0) {
+                if (part == null) {
+                    part = new byte[partBytes];
+                }
+                int copied = Math.min(length, partBytes - partFilled);
+                System.arraycopy(data, offset, part, partFilled, copied);
+                partFilled += copied;
+                appended += copied;
+                offset += copied;
+                length -= copied;
+                if (partFilled == partBytes) {
+                    uploadPart();
+                }
+            }
+        }
+
+        private void uploadPart() throws IOException {
+            try {
+                partsInFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting to upload " + key);
+            }
+            byte[] data = part != null ? part : new byte[0];
+            int length = partFilled;
+            int partNumber = parts.size() + 1;
+            part = null;
+            partFilled = 0;
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    String etag = s3.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) length)
+                            .build(), RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length)).eTag();
+                    return CompletedPart.builder().partNumber(partNumber).eTag(etag).build();
+                } catch (RuntimeException e) {
+                    uploadFailure = e;
+                    throw e;
+                } finally {
+                    partsInFlight.release();
+                }
+            }, uploadExecutor));
+        }
+    }
+
+    /**
+     * Streams straight into the upload if it can take the stream, and spools to disk otherwise
+     */
+    private static final class UploadMember extends Member {
+        private final UploadWriter writer;
+        private final Path spoolFile;
+        private OutputStream spool;
+        private long size;
+        private boolean live;
+        private boolean closed;
+
+        UploadMember(UploadWriter writer, Path spoolFile) {
+            this.writer = writer;
+            this.spoolFile = spoolFile;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            if (!live && writer.streamLock.tryLock()) {
+                // Finished members go first, then what this one has spooled so far
+                writer.drainPending();
+                this.offset = writer.appended;
+                drainSpool();
+                live = true;
+            }
+            if (live) {
+                writer.append(data, offset, length);
+            } else {
+                if (spool == null) {
+                    spool = new BufferedOutputStream(Files.newOutputStream(spoolFile), BUFFER_SIZE);
+                }
+                spool.write(data, offset, length);
+            }
+            size += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (live) {
+                writer.releaseStream();
+                return;
+            }
+            if (spool != null) {
+                spool.close();
+            }
+            writer.pending.add(this);
+            if (writer.streamLock.tryLock()) {
+                writer.releaseStream();
+            }
+        }
+
+        void drainSpool() throws IOException {
+            if (spool == null) {
+                return;
+            }
+            spool.close();
+            spool = null;
+            try (InputStream in = Files.newInputStream(spoolFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    writer.append(buffer, 0, read);
+                }
+            }
+            Files.delete(spoolFile);
+        }
+    }
+}
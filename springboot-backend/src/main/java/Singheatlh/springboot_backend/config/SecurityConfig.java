@@ -1,11 +1,19 @@
 package Singheatlh.springboot_backend.config;
 
+import Singheatlh.springboot_backend.config.jwt.JwtAuthFilter;
+import Singheatlh.springboot_backend.config.jwt.JwtUtils;
+import Singheatlh.springboot_backend.metrics.ApplicationMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -20,14 +28,27 @@ public class SecurityConfig {
     private String allowedOrigins;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtUtils jwtUtils,
+                                                   ApplicationMetrics applicationMetrics) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
+            // Every request carries its own token; nothing is kept in the HTTP session
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            // Not a bean, so it is not also registered as a plain servlet filter
+            .addFilterBefore(new JwtAuthFilter(jwtUtils, applicationMetrics), UsernamePasswordAuthenticationFilter.class)
+            // A missing or invalid token is a 401, not the default 403
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
             .authorizeHttpRequests(auth -> auth
-                // For development, we allow all requests to the API.
-                // In production, you should secure your endpoints.
-                .requestMatchers("/api/**").permitAll()
+                // Reachable before signing in
+                .requestMatchers("/api/auth/health", "/api/auth/signup", "/api/auth/login",
+                    "/api/auth/password/reset", "/api/auth/validate-token").permitAll()
+                // Public clinic and doctor lookups
+                .requestMatchers(HttpMethod.GET, "/api/clinic/**", "/api/doctor/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Everything else, including administration, backups, monitoring streams and the
+                // Prometheus scrape (its series are tagged with doctor IDs), needs a token
                 .anyRequest().authenticated()
             );
         return http.build();
@@ -1,5 +1,55 @@
 package Singheatlh.springboot_backend.config.jwt;
 
-public class JwtAuthFilter {
-    
+import Singheatlh.springboot_backend.metrics.ApplicationMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Authenticates requests carrying a Supabase access token in the Authorization header.
+ *
+ * The principal is the Supabase user ID (a String, as @AuthenticationPrincipal parameters expect),
+ * with the token's role as its only authority. Requests without a valid token continue
+ * unauthenticated; SecurityConfig decides which endpoints need one.
+ */
+@RequiredArgsConstructor
+public class JwtAuthFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtils jwtUtils;
+    private final ApplicationMetrics applicationMetrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            jwtUtils.verify(header.substring(BEARER_PREFIX.length()).trim()).ifPresent(claims -> {
+                List<SimpleGrantedAuthority> authorities = claims.role() != null
+                        ? List.of(new SimpleGrantedAuthority("ROLE_" + claims.role().toUpperCase(Locale.ROOT)))
+                        : List.of();
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(claims.subject(), null, authorities);
+                authentication.setDetails(claims);
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+                applicationMetrics.recordUserActivity(claims.subject());
+            });
+        }
+        filterChain.doFilter(request, response);
+    }
 }
@@ -1,5 +1,339 @@
 package Singheatlh.springboot_backend.config.jwt;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies Supabase access tokens locally, without calling the auth server per request.
+ *
+ * Tokens must carry the project's issuer (supabase.url + /auth/v1) and the configured audience.
+ * HS256 tokens are checked against the project's JWT secret. ES256/RS256 tokens are checked against
+ * the project's JWKS, fetched on first use and refreshed in the background; a key id that is not in
+ * the cached set causes an immediate refetch (rate limited), which picks up key rotation.
+ *
+ * Verified claims are cached by SHA-256 of the token until the token expires, so a client sending
+ * the same token on every request pays for the signature check once.
+ */
+@Slf4j
+@Component
 public class JwtUtils {
-    
+
+    private static final String AUTH_PATH = "/auth/v1";
+    private static final String JWKS_PATH = AUTH_PATH + "/.well-known/jwks.json";
+    private static final Duration JWKS_TIMEOUT = Duration.ofSeconds(5);
+    // Unknown key ids refetch the JWKS at most this often, so made-up kids cannot flood the auth server
+    private static final Duration JWKS_MIN_REFETCH = Duration.ofSeconds(30);
+
+    /**
+     * The claims the application uses from a verified token
+     * @param subject Supabase user ID
+     * @param role Supabase role claim, e.g. "authenticated"
+     */
+    public record JwtClaims(String subject, String email, String role, Instant expiresAt) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final WebClient webClient;
+    private final String jwksUrl;
+    private final String issuer;
+    private final byte[] secret;
+    private final String audience;
+    private final Duration clockSkew;
+    private final Duration jwksRefresh;
+    private final int claimsCacheSize;
+
+    private final Map<String, JwtClaims> claimsCache = new ConcurrentHashMap<>();
+    private final ThreadLocal<Mac> hmac;
+
+    private volatile Map<String, PublicKey> jwks = Map.of();
+    private volatile long jwksFetchedNanos;
+    private volatile long jwksAttemptNanos;
+    private final AtomicBoolean jwksRefreshing = new AtomicBoolean();
+    private final ExecutorService jwksExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jwks-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JwtUtils(
+            @Value("${supabase.url:}") String supabaseUrl,
+            @Value("${supabase.jwt.secret:}") String secret,
+            @Value("${supabase.jwt.jwks-url:}") String jwksUrl,
+            @Value("${supabase.jwt.audience:authenticated}") String audience,
+            @Value("${supabase.jwt.clock-skew:30s}") Duration clockSkew,
+            @Value("${supabase.jwt.jwks-refresh:10m}") Duration jwksRefresh,
+            @Value("${supabase.jwt.claims-cache-size:10000}") int claimsCacheSize,
+            ObjectMapper objectMapper,
+            WebClient.Builder webClientBuilder) {
+        this.objectMapper = objectMapper;
+        this.webClient = webClientBuilder.build();
+        String baseUrl = supabaseUrl.endsWith("/") ? supabaseUrl.substring(0, supabaseUrl.length() - 1) : supabaseUrl;
+        this.jwksUrl = !jwksUrl.isBlank() ? jwksUrl : (baseUrl.isBlank() ? "" : baseUrl + JWKS_PATH);
+        this.issuer = baseUrl.isBlank() ? "" : baseUrl + AUTH_PATH;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.audience = audience;
+        this.clockSkew = clockSkew;
+        this.jwksRefresh = jwksRefresh;
+        this.claimsCacheSize = claimsCacheSize;
+        this.hmac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(this.secret, "HmacSHA256"));
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jwksExecutor.shutdownNow();
+    }
+
+    /**
+     * Check a token's signature, expiry, issuer and audience
+     * @return The token's claims, or empty if it is not a valid access token
+     */
+    public Optional<JwtClaims> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        String cacheKey = hash(token);
+        JwtClaims cached = claimsCache.get(cacheKey);
+        if (cached != null) {
+            if (cached.expiresAt().plus(clockSkew).isAfter(now)) {
+                return Optional.of(cached);
+            }
+            claimsCache.remove(cacheKey);
+            return Optional.empty();
+        }
+
+        try {
+            JwtClaims claims = decode(token, now);
+            if (claims == null) {
+                return Optional.empty();
+            }
+            cache(cacheKey, claims, now);
+            return Optional.of(claims);
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private JwtClaims decode(String token, Instant now) throws IOException, GeneralSecurityException {
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (firstDot < 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        JsonNode header = objectMapper.readTree(decoder.decode(token.substring(0, firstDot)));
+        byte[] signingInput = token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII);
+        byte[] signature = decoder.decode(token.substring(secondDot + 1));
+
+        if (!verifySignature(header.path("alg").asText(), header.path("kid").asText(null), signingInput, signature)) {
+            log.debug("Rejected JWT: bad signature");
+            return null;
+        }
+
+        JsonNode payload = objectMapper.readTree(decoder.decode(token.substring(firstDot + 1, secondDot)));
+        String subject = payload.path("sub").asText(null);
+        if (subject == null || !payload.path("exp").canConvertToLong()) {
+            return null;
+        }
+        Instant expiresAt = Instant.ofEpochSecond(payload.path("exp").asLong());
+        if (!expiresAt.plus(clockSkew).isAfter(now)) {
+            return null;
+        }
+        if (payload.has("nbf") && Instant.ofEpochSecond(payload.path("nbf").asLong()).minus(clockSkew).isAfter(now)) {
+            return null;
+        }
+        if (!issuer.isBlank() && !issuer.equals(payload.path("iss").asText(null))) {
+            return null;
+        }
+        if (!audience.isBlank() && !hasAudience(payload.path("aud"))) {
+            return null;
+        }
+        return new JwtClaims(subject, payload.path("email").asText(null), payload.path("role").asText(null), expiresAt);
+    }
+
+    private boolean verifySignature(String alg, String kid, byte[] signingInput, byte[] signature)
+            throws GeneralSecurityException {
+        switch (alg) {
+            case "HS256" -> {
+                if (secret.length == 0) {
+                    return false;
+                }
+                Mac mac = hmac.get();
+                return MessageDigest.isEqual(mac.doFinal(signingInput), signature);
+            }
+            case "ES256", "RS256" -> {
+                boolean ec = "ES256".equals(alg);
+                PublicKey key = publicKey(kid);
+                // The header names the algorithm, so check it matches the key it claims to be signed with
+                if (key == null || !key.getAlgorithm().equals(ec ? "EC" : "RSA")) {
+                    return false;
+                }
+                // JWS carries ECDSA signatures as raw R||S rather than DER
+                Signature verifier = Signature.getInstance(ec ? "SHA256withECDSAinP1363Format" : "SHA256withRSA");
+                verifier.initVerify(key);
+                verifier.update(signingInput);
+                return verifier.verify(signature);
+            }
+            default -> {
+                // Includes "none"
+                return false;
+            }
+        }
+    }
+
+    private boolean hasAudience(JsonNode aud) {
+        if (aud.isArray()) {
+            for (JsonNode value : aud) {
+                if (audience.equals(value.asText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return audience.equals(aud.asText(null));
+    }
+
+    private void cache(String cacheKey, JwtClaims claims, Instant now) {
+        if (claimsCache.size() >= claimsCacheSize) {
+            claimsCache.values().removeIf(entry -> !entry.expiresAt().plus(clockSkew).isAfter(now));
+            if (claimsCache.size() >= claimsCacheSize) {
+                return;
+            }
+        }
+        claimsCache.put(cacheKey, claims);
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // ========== JWKS ==========
+
+    private PublicKey publicKey(String kid) {
+        if (kid == null || jwksUrl.isEmpty()) {
+            return null;
+        }
+        PublicKey key = jwks.get(kid);
+        long now = System.nanoTime();
+        if (key == null) {
+            // New key after a rotation, or the first asymmetric token since startup
+            if (jwksAttemptNanos == 0 || now - jwksAttemptNanos >= JWKS_MIN_REFETCH.toNanos()) {
+                refreshJwks();
+                key = jwks.get(kid);
+            }
+        } else if (now - jwksFetchedNanos >= jwksRefresh.toNanos() && jwksRefreshing.compareAndSet(false, true)) {
+            jwksExecutor.execute(() -> {
+                try {
+                    refreshJwks();
+                } finally {
+                    jwksRefreshing.set(false);
+                }
+            });
+        }
+        return key;
+    }
+
+    private synchronized void refreshJwks() {
+        long attempt = System.nanoTime();
+        if (jwksAttemptNanos != 0 && attempt - jwksAttemptNanos < JWKS_MIN_REFETCH.toNanos()) {
+            return;
+        }
+        jwksAttemptNanos = attempt;
+        try {
+            String body = webClient.get().uri(jwksUrl).retrieve().bodyToMono(String.class).block(JWKS_TIMEOUT);
+            Map<String, PublicKey> keys = new HashMap<>();
+            for (JsonNode jwk : objectMapper.readTree(body).path("keys")) {
+                String kid = jwk.path("kid").asText(null);
+                if (kid == null || "enc".equals(jwk.path("use").asText())) {
+                    continue;
+                }
+                try {
+                    PublicKey key = toPublicKey(jwk);
+                    if (key != null) {
+                        keys.put(kid, key);
+                    }
+                } catch (GeneralSecurityException | IllegalArgumentException e) {
+                    log.warn("Skipping unusable JWK {}: {}", kid, e.getMessage());
+                }
+            }
+            jwks = Map.copyOf(keys);
+            jwksFetchedNanos = System.nanoTime();
+            log.info("Loaded {} signing keys from {}", keys.size(), jwksUrl);
+        } catch (Exception e) {
+            // Keep the previous keys; tokens signed with them still verify
+            log.error("Failed to fetch JWKS from {}: {}", jwksUrl, e.getMessage());
+        }
+    }
+
+    private static PublicKey toPublicKey(JsonNode jwk) throws GeneralSecurityException {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        switch (jwk.path("kty").asText()) {
+            case "RSA" -> {
+                BigInteger modulus = new BigInteger(1, decoder.decode(jwk.path("n").asText()));
+                BigInteger exponent = new BigInteger(1, decoder.decode(jwk.path("e").asText()));
+                return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+            }
+            case "EC" -> {
+                if (!"P-256".equals(jwk.path("crv").asText())) {
+                    return null;
+                }
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec("secp256r1"));
+                ECPoint point = new ECPoint(new BigInteger(1, decoder.decode(jwk.path("x").asText())),
+                        new BigInteger(1, decoder.decode(jwk.path("y").asText())));
+                return KeyFactory.getInstance("EC").generatePublic(
+                        new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
 }
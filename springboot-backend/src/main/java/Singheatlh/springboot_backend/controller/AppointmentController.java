@@ -18,6 +18,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import Singheatlh.springboot_backend.dto.AppointmentDto;
 import Singheatlh.springboot_backend.dto.CreateAppointmentRequest;
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.ErrorResponse;
 import Singheatlh.springboot_backend.dto.MedicalSummaryDto;
 import Singheatlh.springboot_backend.dto.request.RescheduleAppointmentRequest;
@@ -106,6 +107,32 @@ public class AppointmentController {
         }
     }
 
+    @PutMapping("/bulk-cancel-by-staff")
+    public ResponseEntity<?> bulkCancelAppointmentsByStaff(
+            @RequestBody Singheatlh.springboot_backend.dto.request.BulkCancelAppointmentsRequest request) {
+        try {
+            return ResponseEntity.ok(appointmentService.bulkCancelAppointmentsByStaff(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PutMapping("/bulk-redistribute-by-staff")
+    public ResponseEntity<?> bulkRedistributeAppointmentsByStaff(
+            @RequestBody Singheatlh.springboot_backend.dto.request.BulkRedistributeAppointmentsRequest request) {
+        try {
+            return ResponseEntity.ok(appointmentService.bulkRedistributeAppointmentsByStaff(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PutMapping("/{id}/reschedule")
     public ResponseEntity<?> rescheduleAppointment(
             @PathVariable String id,
@@ -280,6 +307,50 @@ public class AppointmentController {
         }
     }
 
+    // ========== Keyset (cursor) Pagination ==========
+    // Pass the nextCursor from the previous response to fetch the following page.
+    // Invalid cursors surface as 400 via GlobalExceptionHandler.
+
+    @GetMapping("/patient/{patientId}/scroll")
+    public ResponseEntity<CursorPageResponse<AppointmentDto>> scrollAppointmentsByPatient(
+            @PathVariable UUID patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(
+            appointmentService.getAppointmentsByPatientIdPage(patientId, cursor, pageSize, includeTotal));
+    }
+
+    @GetMapping("/doctor/{doctorId}/scroll")
+    public ResponseEntity<CursorPageResponse<AppointmentDto>> scrollAppointmentsByDoctor(
+            @PathVariable String doctorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(
+            appointmentService.getAppointmentsByDoctorIdPage(doctorId, cursor, pageSize, includeTotal));
+    }
+
+    @GetMapping("/clinic/{clinicId}/scroll")
+    public ResponseEntity<CursorPageResponse<AppointmentDto>> scrollAppointmentsByClinic(
+            @PathVariable Integer clinicId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(
+            appointmentService.getAppointmentsByClinicIdPage(clinicId, cursor, pageSize, includeTotal));
+    }
+
+    @GetMapping("/status/{status}/scroll")
+    public ResponseEntity<CursorPageResponse<AppointmentDto>> scrollAppointmentsByStatus(
+            @PathVariable AppointmentStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(
+            appointmentService.getAppointmentsByStatusPage(status, cursor, pageSize, includeTotal));
+    }
+
     /**
      * Get medical summary for a specific appointment
      * Returns the treatment summary if available
@@ -59,34 +59,12 @@ public class AuthController {
         }
     }
 
+    // The token was verified by JwtAuthFilter; SecurityConfig rejects requests without one
     @GetMapping("/profile")
-    public ResponseEntity<?> getCurrentUserProfile(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+    public ResponseEntity<?> getCurrentUserProfile(@AuthenticationPrincipal String supabaseUid) {
         log.info("=== GET /api/auth/profile called ===");
-        log.info("Authorization header: {}", authHeader);
 
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                log.error("Missing or invalid Authorization header");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponse("Missing or invalid Authorization header"));
-            }
-
-            // Extract JWT token
-            String jwtToken = authHeader.substring(7);
-            log.info("JWT Token extracted: {}...", jwtToken.substring(0, Math.min(20, jwtToken.length())));
-
-            // TODO: Properly decode and validate JWT token
-            // For now, we'll extract the 'sub' claim which contains the user ID
-            String supabaseUid = extractUserIdFromJwt(jwtToken);
-            log.info("Extracted user ID from JWT: {}", supabaseUid);
-
-            if (supabaseUid == null) {
-                log.error("Could not extract user ID from JWT token");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponse("Invalid JWT token"));
-            }
-
             UserDto userDto = authService.getCurrentUserProfile(supabaseUid);
             log.info("Successfully fetched profile for user: {}", userDto.getEmail());
             return ResponseEntity.ok(userDto);
@@ -98,39 +76,6 @@ public class AuthController {
         }
     }
 
-    // Helper method to extract user ID from JWT token
-    private String extractUserIdFromJwt(String jwtToken) {
-        try {
-            // JWT format: header.payload.signature
-            String[] parts = jwtToken.split("\\.");
-            if (parts.length != 3) {
-                log.error("Invalid JWT format");
-                return null;
-            }
-
-            // Decode the payload (base64url encoded)
-            String payload = new String(java.util.Base64.getUrlDecoder().decode(parts[1]));
-            log.debug("JWT Payload: {}", payload);
-
-            // Extract 'sub' claim (user ID) from JSON
-            // Simple JSON parsing - in production use a proper JWT library
-            int subIndex = payload.indexOf("\"sub\":\"");
-            if (subIndex == -1) {
-                log.error("'sub' claim not found in JWT");
-                return null;
-            }
-
-            int startIndex = subIndex + 7; // length of "\"sub\":\""
-            int endIndex = payload.indexOf("\"", startIndex);
-            String userId = payload.substring(startIndex, endIndex);
-
-            return userId;
-        } catch (Exception e) {
-            log.error("Error extracting user ID from JWT", e);
-            return null;
-        }
-    }
-
     @PutMapping("/email")
     public ResponseEntity<?> updateEmail(@AuthenticationPrincipal String supabaseUid,
             @RequestBody UpdateEmailRequest updateRequest) {
@@ -1,12 +1,22 @@
 package Singheatlh.springboot_backend.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import Singheatlh.springboot_backend.dto.ClinicStatisticsDto;
+import Singheatlh.springboot_backend.dto.QueueAnalyticsDto;
+import Singheatlh.springboot_backend.service.ClinicDashboardStreamService;
+import Singheatlh.springboot_backend.service.ClinicExportService;
 import Singheatlh.springboot_backend.service.ClinicMonitoringService;
 
+import java.io.IOException;
 import java.time.LocalDate;
 
 @RestController
@@ -15,6 +25,8 @@ import java.time.LocalDate;
 public class ClinicStaffController {
     
     private final ClinicMonitoringService clinicMonitoringService;
+    private final ClinicDashboardStreamService clinicDashboardStreamService;
+    private final ClinicExportService clinicExportService;
     
     /**
      * Get monitoring statistics for a specific clinic
@@ -38,4 +50,76 @@ public class ClinicStaffController {
             return ResponseEntity.status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+
+    /**
+     * Live dashboard stream for a clinic (Server-Sent Events), replacing polling of /monitoring/statistics
+     * @param clinicId The clinic ID
+     * @return A "snapshot" event with today's statistics, then "delta" events with only the changed fields
+     */
+    @GetMapping(value = "/monitoring/stream/{clinicId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamClinicStatistics(@PathVariable Integer clinicId) {
+        return clinicDashboardStreamService.subscribe(clinicId);
+    }
+
+    /**
+     * Get clinic-wide queue analytics over a date range
+     * @param clinicId The clinic ID
+     * @param from First day of the range (defaults to 29 days before 'to')
+     * @param to Last day of the range, inclusive (defaults to today)
+     * @param granularity DAY, WEEK or MONTH (defaults to DAY)
+     * @return Time series of check-ins, completions, no-shows, waiting and consultation times
+     */
+    @GetMapping("/monitoring/analytics/clinic/{clinicId}")
+    public ResponseEntity<QueueAnalyticsDto> getClinicAnalytics(
+            @PathVariable Integer clinicId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") QueueAnalyticsDto.Granularity granularity) {
+        return ResponseEntity.ok(clinicMonitoringService.getClinicAnalytics(clinicId, from, to, granularity));
+    }
+
+    /**
+     * Get queue analytics for one doctor over a date range
+     * @param doctorId The doctor ID
+     * @param from First day of the range (defaults to 29 days before 'to')
+     * @param to Last day of the range, inclusive (defaults to today)
+     * @param granularity DAY, WEEK or MONTH (defaults to DAY)
+     * @return Time series of check-ins, completions, no-shows, waiting and consultation times
+     */
+    @GetMapping("/monitoring/analytics/doctor/{doctorId}")
+    public ResponseEntity<QueueAnalyticsDto> getDoctorAnalytics(
+            @PathVariable String doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") QueueAnalyticsDto.Granularity granularity) {
+        return ResponseEntity.ok(clinicMonitoringService.getDoctorAnalytics(doctorId, from, to, granularity));
+    }
+
+    /**
+     * Download one clinic's appointments, queue tickets or medical summaries as gzip-compressed CSV or NDJSON.
+     * Rows are streamed as they are read, so a truncated gzip stream means the export failed part way.
+     * Only system administrators and staff of the clinic may export (401 without a token, 403 otherwise).
+     * @param clinicId The clinic ID
+     * @param dataset APPOINTMENTS, QUEUE_TICKETS or MEDICAL_SUMMARIES
+     * @param from First day of the range (defaults to 29 days before 'to')
+     * @param to Last day of the range, inclusive (defaults to today)
+     * @param format CSV or NDJSON (defaults to CSV)
+     */
+    @GetMapping("/export/{clinicId}")
+    public void exportClinicData(
+            @PathVariable Integer clinicId,
+            @RequestParam ClinicExportService.Dataset dataset,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "CSV") ClinicExportService.Format format,
+            @AuthenticationPrincipal String supabaseUid,
+            HttpServletResponse response) throws IOException {
+        // Checks the caller may see this clinic before any header or byte of the export is written
+        ClinicExportService.Export export =
+            clinicExportService.prepareExport(supabaseUid, clinicId, dataset, from, to, format);
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(export.fileName()).build().toString());
+        clinicExportService.writeExport(export, response.getOutputStream());
+    }
 }
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.QueueStatusDto;
 import Singheatlh.springboot_backend.dto.QueueTicketDto;
 import Singheatlh.springboot_backend.entity.enums.QueueStatus;
@@ -228,6 +229,17 @@ public class QueueController {
         }
     }
     
+    // Keyset-paginated variant of the patient ticket history; pass nextCursor to get the next page
+    @GetMapping("/patient/{patientId}/scroll")
+    public ResponseEntity<CursorPageResponse<QueueTicketDto>> scrollQueueTicketsByPatientId(
+            @PathVariable java.util.UUID patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(
+            queueService.getQueueTicketsByPatientIdPage(patientId, cursor, pageSize, includeTotal));
+    }
+    
     @PostMapping("/notify/{doctorId}")
     public ResponseEntity<Map<String, String>> processNotifications(@PathVariable String doctorId) {
         try {
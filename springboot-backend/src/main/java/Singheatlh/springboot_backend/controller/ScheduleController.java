@@ -1,6 +1,7 @@
 package Singheatlh.springboot_backend.controller;
 
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
+import Singheatlh.springboot_backend.dto.ScheduleChangeImpactDto;
 import Singheatlh.springboot_backend.dto.ScheduleDto;
 import Singheatlh.springboot_backend.dto.SlotDto;
 import Singheatlh.springboot_backend.entity.enums.ScheduleType;
@@ -46,19 +47,23 @@ public class ScheduleController {
         return new ResponseEntity<>(newSchedule, HttpStatus.CREATED);
     }
 
+    // includeImpact=true returns the schedule together with the booked appointments it no longer covers
     @PutMapping("/{id}")
-    public ResponseEntity<ScheduleDto> updateSchedule(
+    public ResponseEntity<Object> updateSchedule(
             @PathVariable("id") String scheduleId,
-            @Valid @RequestBody ScheduleDto scheduleDto) {
+            @Valid @RequestBody ScheduleDto scheduleDto,
+            @RequestParam(defaultValue = "false") boolean includeImpact) {
         scheduleDto.setScheduleId(scheduleId);
-        ScheduleDto updatedSchedule = scheduleService.updateSchedule(scheduleDto);
-        return ResponseEntity.ok(updatedSchedule);
+        ScheduleChangeImpactDto result = scheduleService.updateScheduleWithImpact(scheduleDto);
+        return ResponseEntity.ok(includeImpact ? result : result.getSchedule());
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteSchedule(@PathVariable("id") String scheduleId) {
-        scheduleService.deleteSchedule(scheduleId);
-        return ResponseEntity.ok("Schedule deleted successfully!");
+    public ResponseEntity<Object> deleteSchedule(
+            @PathVariable("id") String scheduleId,
+            @RequestParam(defaultValue = "false") boolean includeImpact) {
+        ScheduleChangeImpactDto result = scheduleService.deleteScheduleWithImpact(scheduleId);
+        return ResponseEntity.ok(includeImpact ? result : "Schedule deleted successfully!");
     }
 
     // Custom query endpoints
@@ -87,6 +92,28 @@ public class ScheduleController {
         return ResponseEntity.ok(scheduleService.getSchedulesWithPaginationByDoctorAndDateRange(doctorId, startDate, endDate, page, pageSize));
     }
 
+    // Keyset-paginated variants: pass nextCursor from the previous response instead of a page number
+    @GetMapping("/doctor/{doctorId}/scroll")
+    public ResponseEntity<Object> scrollSchedulesByDoctor(
+            @PathVariable String doctorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(scheduleService.getSchedulesByDoctorIdPage(doctorId, cursor, pageSize, includeTotal));
+    }
+
+    @GetMapping("/doctor/{doctorId}/scroll/date-range")
+    public ResponseEntity<Object> scrollSchedulesByDoctorAndDateRange(
+            @PathVariable String doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(scheduleService.getSchedulesByDoctorAndDateRangePage(
+                doctorId, startDate, endDate, cursor, pageSize, includeTotal));
+    }
+
     @GetMapping("/doctor/{doctorId}/available")
     public ResponseEntity<List<ScheduleDto>> getAvailableSchedulesByDoctor(@PathVariable("doctorId") String doctorId) {
         List<ScheduleDto> schedules = scheduleService.getAvailableSchedulesByDoctor(doctorId);
@@ -1,15 +1,22 @@
 package Singheatlh.springboot_backend.controller;
 
+import Singheatlh.springboot_backend.backup.BackupDownload;
+import Singheatlh.springboot_backend.backup.BackupInProgressException;
+import Singheatlh.springboot_backend.backup.BackupManifest;
 import Singheatlh.springboot_backend.dto.*;
 import Singheatlh.springboot_backend.dto.request.*;
 import Singheatlh.springboot_backend.service.*;
+import Singheatlh.springboot_backend.util.RangedContentSender;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +33,8 @@ public class SystemAdministratorController {
     private final SystemMonitoringService systemMonitoringService;
     private final SystemBackupService systemBackupService;
 
+    private static final MediaType ARCHIVE_MEDIA_TYPE = MediaType.parseMediaType("application/gzip");
+
     @PostMapping
     public ResponseEntity<SystemAdministratorDto> createSystemAdministrator(
             @RequestBody CreateSystemAdministratorRequest createRequest) {
@@ -81,6 +90,16 @@ public class SystemAdministratorController {
         return ResponseEntity.ok(userService.getUsersWithPagination(page, pageSize, search, role));
     }
 
+    @GetMapping("/users/scroll")
+    public ResponseEntity<Object> getUsersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String role,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(userService.getUsersWithCursor(cursor, pageSize, search, role, includeTotal));
+    }
+
     @GetMapping("/users/count")
     public ResponseEntity<Integer> getUserCount() {
         int count = userService.getUserCount();
@@ -127,6 +146,15 @@ public class SystemAdministratorController {
         return ResponseEntity.ok(doctorService.getDoctorsWithPagination(page, pageSize, search));
     }
 
+    @GetMapping("/doctors/scroll")
+    public ResponseEntity<Object> getDoctorsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(doctorService.getDoctorsWithCursor(cursor, pageSize, search, includeTotal));
+    }
+
     @GetMapping("/doctors/count")
     public ResponseEntity<Integer> getDoctorCount() {
         int count = doctorService.getDoctorCount();
@@ -161,6 +189,15 @@ public class SystemAdministratorController {
         return ResponseEntity.ok(clinicManagementService.getClinicsWithPagination(page, pageSize, search));
     }
 
+    @GetMapping("/clinics/scroll")
+    public ResponseEntity<Object> getClinicsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(clinicManagementService.getClinicsWithCursor(cursor, pageSize, search, includeTotal));
+    }
+
     @PutMapping("/clinics/{clinicId}/hours")
     public ResponseEntity<ClinicDto> setClinicHours(@PathVariable Integer clinicId, @RequestBody UpdateClinicHoursRequest request) {
         ClinicDto updatedClinic = clinicManagementService.setClinicHours(clinicId, request.getOpeningHours(), request.getClosingHours());
@@ -210,6 +247,28 @@ public class SystemAdministratorController {
         return ResponseEntity.ok(statistics);
     }
 
+    // Query instrumentation (sampled per-endpoint SQL stats and slow statements)
+    @GetMapping("/monitoring/instrumentation")
+    public ResponseEntity<QueryInstrumentationReportDto> getQueryInstrumentation() {
+        return ResponseEntity.ok(systemMonitoringService.getQueryInstrumentationReport());
+    }
+
+    @PutMapping("/monitoring/instrumentation")
+    public ResponseEntity<QueryInstrumentationReportDto> configureQueryInstrumentation(
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) Double sampleRate,
+            @RequestParam(required = false) Long slowQueryThresholdMs,
+            @RequestParam(required = false) Boolean hibernateStatistics) {
+        return ResponseEntity.ok(systemMonitoringService.configureQueryInstrumentation(
+                enabled, sampleRate, slowQueryThresholdMs, hibernateStatistics));
+    }
+
+    @DeleteMapping("/monitoring/instrumentation")
+    public ResponseEntity<Void> resetQueryInstrumentation() {
+        systemMonitoringService.resetQueryInstrumentation();
+        return ResponseEntity.noContent().build();
+    }
+
     // System Backup Management
     @PostMapping("/backup/create")
     public ResponseEntity<BackupStatusDto> createBackup() {
@@ -223,13 +282,18 @@ public class SystemAdministratorController {
         return ResponseEntity.ok(backups);
     }
 
+    @GetMapping("/backup/{backupId}/manifest")
+    public ResponseEntity<BackupManifest> getBackupManifest(@PathVariable String backupId) {
+        return ResponseEntity.ok(systemBackupService.getBackupManifest(backupId));
+    }
+
+    // Supports Range/If-Range, so interrupted downloads can resume and large archives can be fetched in chunks
     @GetMapping("/backup/download/{backupId}")
-    public ResponseEntity<Resource> downloadBackup(@PathVariable String backupId) {
-        Resource resource = systemBackupService.downloadBackup(backupId);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + backupId + ".zip\"")
-                .header(HttpHeaders.CONTENT_TYPE, "application/zip")
-                .body(resource);
+    public void downloadBackup(@PathVariable String backupId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        BackupDownload download = systemBackupService.downloadBackup(backupId);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + download.fileName() + "\"");
+        RangedContentSender.send(request, response, download, ARCHIVE_MEDIA_TYPE);
     }
 
     @PostMapping("/backup/restore/{backupId}")
@@ -244,8 +308,43 @@ public class SystemAdministratorController {
         return ResponseEntity.ok("Backup deleted successfully!");
     }
 
+    // Background backup/restore jobs: start and return immediately, then poll for progress
+    @PostMapping("/backup/jobs")
+    public ResponseEntity<BackupJobDto> startBackupJob(@RequestParam(defaultValue = "false") boolean incremental) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(systemBackupService.startBackup(incremental));
+    }
+
+    @PostMapping("/backup/jobs/restore/{backupId}")
+    public ResponseEntity<BackupJobDto> startRestoreJob(@PathVariable String backupId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(systemBackupService.startRestore(backupId));
+    }
+
+    @GetMapping("/backup/jobs")
+    public ResponseEntity<List<BackupJobDto>> getBackupJobs() {
+        return ResponseEntity.ok(systemBackupService.getJobs());
+    }
+
+    @GetMapping("/backup/jobs/{jobId}")
+    public ResponseEntity<BackupJobDto> getBackupJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(systemBackupService.getJob(jobId));
+    }
+
+    @DeleteMapping("/backup/jobs/{jobId}")
+    public ResponseEntity<BackupJobDto> cancelBackupJob(@PathVariable String jobId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(systemBackupService.cancelJob(jobId));
+    }
+
     // Exception Handlers
 
+    @ExceptionHandler(BackupInProgressException.class)
+    public ResponseEntity<Map<String, String>> handleBackupInProgress(BackupInProgressException e) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Backup In Progress");
+        errorResponse.put("message", e.getMessage());
+        errorResponse.put("jobId", e.getActiveJobId());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException e) {
         Map<String, String> errorResponse = new HashMap<>();
@@ -0,0 +1,24 @@
+package Singheatlh.springboot_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Minimal view of a cancelled appointment, carrying only what the patient notification needs.
+ * Loaded with a constructor projection so bulk cancellation never hydrates Appointment entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentCancellationNotice {
+    private String appointmentId;
+    private UUID patientId;
+    private String patientName;
+    private String patientEmail;
+    private String doctorName;
+    private LocalDateTime startDatetime;
+}
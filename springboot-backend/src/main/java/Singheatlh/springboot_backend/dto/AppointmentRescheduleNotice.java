@@ -0,0 +1,30 @@
+package Singheatlh.springboot_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Minimal view of an appointment moved by staff, carrying only what the patient notification needs.
+ * Loaded with a constructor projection after the move; previousStartDatetime is filled in by the caller.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentRescheduleNotice {
+    private String appointmentId;
+    private UUID patientId;
+    private String patientName;
+    private String patientEmail;
+    private String doctorName;
+    private LocalDateTime startDatetime;
+    private LocalDateTime previousStartDatetime;
+
+    public AppointmentRescheduleNotice(String appointmentId, UUID patientId, String patientName, String patientEmail,
+                                       String doctorName, LocalDateTime startDatetime) {
+        this(appointmentId, patientId, patientName, patientEmail, doctorName, startDatetime, null);
+    }
+}
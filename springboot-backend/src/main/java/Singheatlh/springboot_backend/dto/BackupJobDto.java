@@ -0,0 +1,40 @@
+package Singheatlh.springboot_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BackupJobDto {
+    private String jobId;
+    private String type; // BACKUP, RESTORE
+    private String backupId;
+    private String status; // RUNNING, COMPLETED, FAILED, CANCELLED
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private int totalTables;
+    private int completedTables;
+    private long bytesProcessed;
+    private long rowsProcessed;
+    private List<TableProgressDto> tables;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class TableProgressDto {
+        private String name;
+        private String state; // PENDING, RUNNING, DONE
+        private long expectedRows; // estimate while backing up, exact while restoring
+        private long rows;
+        private long bytes; // uncompressed COPY bytes moved so far
+    }
+}
@@ -18,4 +18,13 @@ public class BackupStatusDto {
     private String status; // COMPLETED, FAILED, IN_PROGRESS
     private String description;
     private int recordCount;
+    // From the backup's manifest
+    private String type; // FULL, INCREMENTAL
+    private String parentBackupId;
+    private long totalRows;
+    private int tableCount;
+    private String format;
+    private String compression;
+    private long uncompressedBytes;
+    private long durationMillis;
 }
@@ -0,0 +1,20 @@
+package Singheatlh.springboot_backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a bulk staff cancellation: which appointments were cancelled.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkCancellationResultDto {
+    private int cancelledCount;
+    private List<String> cancelledAppointmentIds;
+}
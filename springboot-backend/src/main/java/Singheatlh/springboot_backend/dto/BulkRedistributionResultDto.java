@@ -0,0 +1,20 @@
+package Singheatlh.springboot_backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a bulk redistribution: the moved appointments and those no free slot could be found for.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkRedistributionResultDto {
+    private List<AppointmentDto> rescheduledAppointments;
+    private List<String> unassignedAppointmentIds;
+}
@@ -0,0 +1,44 @@
+package Singheatlh.springboot_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Changes to a clinic's dashboard since the previous event on the stream.
+// Fields that did not change are omitted; doctorStats only lists doctors whose figures changed,
+// and removedDoctorIds the doctors no longer on the dashboard.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClinicDashboardDelta {
+
+    private Integer clinicId;
+    private LocalDate reportDate;
+    private long sequence;
+
+    private Integer totalPatientsSeenToday;
+    private Integer totalPatientsPendingToday;
+    private Integer totalCheckInsToday;
+    private Integer totalCompletedToday;
+    private Integer totalNoShowsToday;
+
+    // Rolling wait / consultation (in minutes)
+    private Double averageWaitingTime;
+    private Double minWaitingTime;
+    private Double maxWaitingTime;
+    private Double averageConsultationTime;
+    private LatencyPercentilesDto waitingTimePercentiles;
+    private LatencyPercentilesDto consultationTimePercentiles;
+
+    private ClinicStatisticsDto.QueueStatusBreakdown queueBreakdown;
+    private List<ClinicStatisticsDto.DoctorDailyStats> doctorStats;
+    private List<String> removedDoctorIds;
+}
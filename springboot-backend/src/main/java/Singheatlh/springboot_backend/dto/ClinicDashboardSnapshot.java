@@ -0,0 +1,21 @@
+package Singheatlh.springboot_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Full state of a clinic's dashboard, as the first event of a stream or after a day rollover.
+// Serialized as the ClinicStatisticsDto fields plus sequence: the deltas that apply to it are the
+// ones numbered above it.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClinicDashboardSnapshot {
+
+    private long sequence;
+
+    @JsonUnwrapped
+    private ClinicStatisticsDto statistics;
+}
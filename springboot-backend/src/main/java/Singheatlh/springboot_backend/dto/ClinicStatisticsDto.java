@@ -33,6 +33,10 @@ public class ClinicStatisticsDto {
     // (in minutes)
     private Double averageConsultationTime;
     
+    // Tail latencies (in minutes)
+    private LatencyPercentilesDto waitingTimePercentiles;
+    private LatencyPercentilesDto consultationTimePercentiles;
+    
     private List<DoctorDailyStats> doctorStats;
     
     // Queue status breakdown
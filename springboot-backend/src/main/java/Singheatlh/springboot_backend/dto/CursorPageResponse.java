@@ -0,0 +1,25 @@
+package Singheatlh.springboot_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keyset (cursor) page. Unlike {@link PaginatedResponse} there is no page number;
+ * clients pass {@code nextCursor} back to fetch the following page.
+ * totalElements is only populated when the caller explicitly asks for it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int pageSize;
+    private String nextCursor;
+    private boolean hasNextPage;
+    private Long totalElements;
+}
@@ -0,0 +1,18 @@
+package Singheatlh.springboot_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Percentiles of a duration distribution (in minutes); null when there are no samples
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LatencyPercentilesDto {
+    private long sampleCount;
+    private Double p50;
+    private Double p90;
+    private Double p99;
+}
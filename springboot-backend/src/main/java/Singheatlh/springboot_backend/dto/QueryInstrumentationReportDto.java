@@ -0,0 +1,77 @@
+package Singheatlh.springboot_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class QueryInstrumentationReportDto {
+
+    private boolean enabled;
+    private double sampleRate;
+    private long slowQueryThresholdMillis;
+    private LocalDateTime collectingSince;
+
+    // Per request mapping (e.g. "GET /api/queue/doctor/{doctorId}"), most JDBC time first
+    private List<RouteStats> routes;
+
+    // Slowest statements over the threshold across all routes
+    private List<SlowStatement> slowestStatements;
+
+    // Null while Hibernate statistics are switched off
+    private HibernateStats hibernate;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class RouteStats {
+        private String route;
+        private long sampledRequests;
+        private long totalQueries;
+        private double averageQueriesPerRequest;
+        private long maxQueriesPerRequest;
+        private long totalJdbcMillis;
+        private double averageJdbcMillisPerRequest;
+        private long entitiesLoaded;
+        private List<SlowStatement> slowestStatements;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class SlowStatement {
+        private String route;
+        private String sql;
+        private String parameters;
+        private long elapsedMillis;
+        private LocalDateTime capturedAt;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class HibernateStats {
+        private long queryExecutionCount;
+        private long queryExecutionMaxTimeMillis;
+        private String queryExecutionMaxTimeQuery;
+        private long prepareStatementCount;
+        private long entityLoadCount;
+        private long entityFetchCount;
+        private long collectionLoadCount;
+        private long collectionFetchCount;
+        private long sessionOpenCount;
+        private long transactionCount;
+        private long secondLevelCacheHitCount;
+        private long secondLevelCacheMissCount;
+    }
+}
@@ -0,0 +1,68 @@
+package Singheatlh.springboot_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class QueueAnalyticsDto {
+
+    private Integer clinicId;
+    private String doctorId; // null for clinic-wide analytics
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private Granularity granularity;
+
+    // One entry per day/week/month that has activity, in order
+    private List<PeriodStats> series;
+
+    // Totals over the whole range
+    private PeriodStats summary;
+
+    // Percentiles over the whole range (in minutes)
+    private LatencyPercentilesDto waitingTimePercentiles;
+    private LatencyPercentilesDto consultationTimePercentiles;
+
+    // Per-doctor totals over the whole range (clinic-wide analytics only)
+    private List<DoctorRangeStats> doctorSummaries;
+
+    public enum Granularity {
+        DAY, WEEK, MONTH
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class PeriodStats {
+        private LocalDate periodStart; // null for the summary
+        private long checkIns;
+        private long completed;
+        private long noShows;
+
+        // (in minutes)
+        private Double averageWaitingTime;
+        private Double minWaitingTime;
+        private Double maxWaitingTime;
+        private Double averageConsultationTime;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class DoctorRangeStats {
+        private String doctorId;
+        private String doctorName;
+        private PeriodStats stats;
+        private LatencyPercentilesDto waitingTimePercentiles;
+        private LatencyPercentilesDto consultationTimePercentiles;
+    }
+}
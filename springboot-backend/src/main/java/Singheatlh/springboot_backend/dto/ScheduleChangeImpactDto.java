@@ -0,0 +1,21 @@
+package Singheatlh.springboot_backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a schedule update or delete together with its impact set:
+ * the booked appointments that no longer fall inside the doctor's availability.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScheduleChangeImpactDto {
+    private ScheduleDto schedule; // null for deletions
+    private List<AppointmentDto> affectedAppointments;
+}
@@ -23,6 +23,7 @@ public class SystemStatisticsDto {
     private int totalClinicStaff;
     private int totalAdministrators;
     private LocalDateTime lastBackupTime;
-    private double systemUptime;
+    private double systemUptime; // % of HTTP requests since startup without a server error
+    private long uptimeSeconds;
     private int activeUsers;
 }
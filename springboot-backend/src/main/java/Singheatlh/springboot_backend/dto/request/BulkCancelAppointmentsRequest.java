@@ -0,0 +1,49 @@
+package Singheatlh.springboot_backend.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Request DTO for clinic staff to cancel every upcoming appointment of a doctor (or a whole clinic)
+ * within a time range, e.g. when a doctor calls in sick.
+ * Exactly one of doctorId or clinicId must be provided.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCancelAppointmentsRequest {
+
+    /**
+     * The ID of the staff member performing the cancellation
+     */
+    private UUID staffId;
+
+    /**
+     * Cancel appointments for this doctor
+     */
+    private String doctorId;
+
+    /**
+     * Cancel appointments for every doctor in this clinic
+     */
+    private Integer clinicId;
+
+    /**
+     * Start of the range (inclusive)
+     */
+    private LocalDateTime startDatetime;
+
+    /**
+     * End of the range (exclusive)
+     */
+    private LocalDateTime endDatetime;
+
+    /**
+     * The reason for cancellation (mandatory for staff)
+     */
+    private String reason;
+}
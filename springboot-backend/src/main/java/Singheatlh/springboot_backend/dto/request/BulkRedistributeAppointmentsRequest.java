@@ -0,0 +1,34 @@
+package Singheatlh.springboot_backend.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Request DTO for clinic staff to move a batch of displaced appointments
+ * (e.g. from a bulk cancellation or a doctor becoming unavailable) onto
+ * free slots of other doctors in the same clinic.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRedistributeAppointmentsRequest {
+
+    /**
+     * The appointments to move (Upcoming or Cancelled)
+     */
+    private List<String> appointmentIds;
+
+    /**
+     * Earliest allowed new start time (optional - defaults to now)
+     */
+    private LocalDateTime windowStart;
+
+    /**
+     * Latest allowed new start time (optional - no limit if null)
+     */
+    private LocalDateTime windowEnd;
+}
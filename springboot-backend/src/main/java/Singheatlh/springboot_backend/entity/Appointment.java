@@ -63,6 +63,10 @@ public class Appointment {
     @Column(name = "cancelled_at")
     private LocalDateTime cancelledAt;
 
+    // The doctor's clinic, maintained by database triggers (V10) so clinic listings can seek an index
+    @Column(name = "clinic_id", insertable = false, updatable = false)
+    private Integer clinicId;
+
     public Appointment(String appointmentId, java.util.UUID patientId, String doctorId, LocalDateTime startDatetime, LocalDateTime endDatetime) {
         this.appointmentId = appointmentId;
         this.patientId = patientId;
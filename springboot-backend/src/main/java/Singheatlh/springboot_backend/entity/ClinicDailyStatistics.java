@@ -0,0 +1,39 @@
+package Singheatlh.springboot_backend.entity;
+
+import java.util.Collection;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * A clinic's counters for one day, summed from its doctors' rows. Not stored: a clinic-wide row
+ * would be upserted by every transition of every doctor and serialize the clinic's queues on it.
+ */
+@NoArgsConstructor
+public class ClinicDailyStatistics extends DailyQueueStatistics {
+
+    public static ClinicDailyStatistics sumOf(Collection<? extends DailyQueueStatistics> rows) {
+        ClinicDailyStatistics total = new ClinicDailyStatistics();
+        for (DailyQueueStatistics row : rows) {
+            total.setTotalCheckIns(total.getTotalCheckIns() + row.getTotalCheckIns());
+            total.setCheckedInCount(total.getCheckedInCount() + row.getCheckedInCount());
+            total.setCalledCount(total.getCalledCount() + row.getCalledCount());
+            total.setCompletedCount(total.getCompletedCount() + row.getCompletedCount());
+            total.setNoShowCount(total.getNoShowCount() + row.getNoShowCount());
+            total.setFastTrackedCount(total.getFastTrackedCount() + row.getFastTrackedCount());
+            total.setWaitCount(total.getWaitCount() + row.getWaitCount());
+            total.setWaitSumMinutes(total.getWaitSumMinutes() + row.getWaitSumMinutes());
+            total.setWaitMinMinutes(fold(total.getWaitMinMinutes(), row.getWaitMinMinutes(), true));
+            total.setWaitMaxMinutes(fold(total.getWaitMaxMinutes(), row.getWaitMaxMinutes(), false));
+            total.setConsultationCount(total.getConsultationCount() + row.getConsultationCount());
+            total.setConsultationSumMinutes(total.getConsultationSumMinutes() + row.getConsultationSumMinutes());
+        }
+        return total;
+    }
+
+    private static Long fold(Long current, Long value, boolean min) {
+        if (current == null || value == null) {
+            return current == null ? value : current;
+        }
+        return min ? Math.min(current, value) : Math.max(current, value);
+    }
+}
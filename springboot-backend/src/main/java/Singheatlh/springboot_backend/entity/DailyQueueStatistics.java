@@ -0,0 +1,74 @@
+package Singheatlh.springboot_backend.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.MappedSuperclass;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Counter columns of the doctor daily rollup, also summed into a clinic's totals.
+ * Rows are only written through the additive upsert in the rollup repository.
+ */
+@MappedSuperclass
+@Getter
+@Setter
+@NoArgsConstructor
+public abstract class DailyQueueStatistics {
+
+    @Column(name = "total_check_ins", nullable = false)
+    private int totalCheckIns;
+
+    @Column(name = "checked_in_count", nullable = false)
+    private int checkedInCount;
+
+    @Column(name = "called_count", nullable = false)
+    private int calledCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private int completedCount;
+
+    @Column(name = "no_show_count", nullable = false)
+    private int noShowCount;
+
+    @Column(name = "fast_tracked_count", nullable = false)
+    private int fastTrackedCount;
+
+    // Waiting time = check-in to consultation start (in minutes)
+    @Column(name = "wait_count", nullable = false)
+    private int waitCount;
+
+    @Column(name = "wait_sum_minutes", nullable = false)
+    private long waitSumMinutes;
+
+    @Column(name = "wait_min_minutes")
+    private Long waitMinMinutes;
+
+    @Column(name = "wait_max_minutes")
+    private Long waitMaxMinutes;
+
+    // Consultation time = consultation start to complete (in minutes)
+    @Column(name = "consultation_count", nullable = false)
+    private int consultationCount;
+
+    @Column(name = "consultation_sum_minutes", nullable = false)
+    private long consultationSumMinutes;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Tickets that are neither completed nor no-show
+    public int getPendingCount() {
+        return totalCheckIns - completedCount - noShowCount;
+    }
+
+    public double getAverageWaitMinutes() {
+        return waitCount == 0 ? 0.0 : (double) waitSumMinutes / waitCount;
+    }
+
+    public double getAverageConsultationMinutes() {
+        return consultationCount == 0 ? 0.0 : (double) consultationSumMinutes / consultationCount;
+    }
+}
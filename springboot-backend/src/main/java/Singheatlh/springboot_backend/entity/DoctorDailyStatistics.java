@@ -0,0 +1,44 @@
+package Singheatlh.springboot_backend.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "doctor_daily_stats")
+@IdClass(DoctorDailyStatistics.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class DoctorDailyStatistics extends DailyQueueStatistics {
+
+    @Id
+    @Column(name = "doctor_id", length = 10)
+    private String doctorId;
+
+    @Id
+    @Column(name = "stats_date")
+    private LocalDate statsDate;
+
+    // Clinic the doctor belonged to when the tickets were recorded
+    @Column(name = "clinic_id", nullable = false)
+    private Integer clinicId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String doctorId;
+        private LocalDate statsDate;
+    }
+}
@@ -0,0 +1,64 @@
+package Singheatlh.springboot_backend.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import Singheatlh.springboot_backend.entity.enums.LatencyMetric;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One bucket of a doctor's daily latency histogram. Rows are only written through the
+ * additive upsert in DoctorLatencyHistogramRepository.
+ */
+@Entity
+@Table(name = "doctor_latency_histogram")
+@IdClass(DoctorLatencyHistogram.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class DoctorLatencyHistogram {
+
+    @Id
+    @Column(name = "doctor_id", length = 10)
+    private String doctorId;
+
+    @Id
+    @Column(name = "stats_date")
+    private LocalDate statsDate;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "metric", length = 20)
+    private LatencyMetric metric;
+
+    @Id
+    @Column(name = "bucket_minutes")
+    private Long bucketMinutes;
+
+    @Column(name = "clinic_id", nullable = false)
+    private Integer clinicId;
+
+    @Column(name = "sample_count", nullable = false)
+    private int sampleCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String doctorId;
+        private LocalDate statsDate;
+        private LatencyMetric metric;
+        private Long bucketMinutes;
+    }
+}
@@ -0,0 +1,6 @@
+package Singheatlh.springboot_backend.entity.enums;
+
+public enum LatencyMetric {
+    WAIT,           // Check-in to consultation start
+    CONSULTATION    // Consultation start to complete
+}
@@ -0,0 +1,171 @@
+package Singheatlh.springboot_backend.metrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
+
+/**
+ * Application-level Micrometer meters for the queue, booking, slot and notification hot paths.
+ * Exposed with the JVM, Hikari pool and HTTP server meters through /actuator/prometheus.
+ *
+ * Tagged meters are registered once and kept by name, tags and outcome: the registry would return
+ * the same meter, but only after building its id and, for timers, its histogram configuration.
+ */
+@Component
+public class ApplicationMetrics {
+
+    public static final String QUEUE_CHECK_IN = "queue.checkin";
+    public static final String QUEUE_CALL_NEXT = "queue.call.next";
+    public static final String SCHEDULE_SLOTS_GENERATE = "schedule.slots.generate";
+    public static final String APPOINTMENT_CREATE = "appointment.create";
+
+    // A user counts as active if seen within this window
+    private static final Duration ACTIVE_USER_WINDOW = Duration.ofMinutes(15);
+
+    private final MeterRegistry registry;
+    private final Counter checkIns;
+    private final Map<String, AtomicLong> queueLengths = new ConcurrentHashMap<>();
+    private final Map<String, Long> userLastSeenNanos = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Counter> counters = new ConcurrentHashMap<>();
+
+    public ApplicationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.checkIns = Counter.builder("queue.checkins")
+                .description("Completed patient check-ins (rate() gives check-ins per minute)")
+                .register(registry);
+        Gauge.builder("users.active", this, ApplicationMetrics::getActiveUserCount)
+                .description("Distinct users seen in the last " + ACTIVE_USER_WINDOW.toMinutes() + " minutes")
+                .register(registry);
+    }
+
+    /**
+     * Time an operation, tagging the outcome as success or error
+     */
+    public <T> T time(String name, Supplier<T> operation, String... tags) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            String result = outcome;
+            timers.computeIfAbsent(new MeterKey(name, Arrays.asList(tags), result), key -> Timer.builder(name)
+                            .tags(tags)
+                            .tag("outcome", result)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordCheckIn() {
+        checkIns.increment();
+    }
+
+    /**
+     * Time spent waiting to enter a per-doctor queue lock
+     * @param operation The queue operation that waited (checkIn, callNext, ...)
+     * @param waitNanos Nanoseconds between requesting and acquiring the lock
+     */
+    public void recordDoctorLockWait(String operation, long waitNanos) {
+        timers.computeIfAbsent(new MeterKey("queue.doctor.lock.wait", List.of(operation), null), key -> Timer.builder(key.name())
+                        .tag("operation", operation)
+                        .register(registry))
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Current number of active tickets in a doctor's queue today
+     */
+    public void updateQueueLength(String doctorId, long length) {
+        if (doctorId == null) {
+            return;
+        }
+        queueLengths.computeIfAbsent(doctorId, id -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("queue.length", value, AtomicLong::get)
+                    .tag("doctor", id)
+                    .register(registry);
+            return value;
+        }).set(length);
+    }
+
+    /**
+     * Latency of one outbound notification and whether it failed
+     */
+    public void recordNotification(String type, long durationNanos, boolean failed) {
+        String outcome = failed ? "failure" : "success";
+        timers.computeIfAbsent(new MeterKey("notification.send", List.of(type), outcome), key -> Timer.builder(key.name())
+                        .tag("type", type)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        if (failed) {
+            counters.computeIfAbsent(new MeterKey("notification.failures", List.of(type), null), key -> Counter.builder(key.name())
+                            .tag("type", type)
+                            .register(registry))
+                    .increment();
+        }
+    }
+
+    public void recordUserActivity(String userId) {
+        if (userId != null) {
+            userLastSeenNanos.put(userId, System.nanoTime());
+        }
+    }
+
+    public int getActiveUserCount() {
+        long cutoff = System.nanoTime() - ACTIVE_USER_WINDOW.toNanos();
+        userLastSeenNanos.values().removeIf(lastSeen -> lastSeen - cutoff < 0);
+        return userLastSeenNanos.size();
+    }
+
+    /**
+     * Seconds since the JVM started, from the process.uptime meter
+     */
+    public long getUptimeSeconds() {
+        var uptime = Search.in(registry).name("process.uptime").timeGauge();
+        return uptime == null ? 0 : (long) uptime.value(TimeUnit.SECONDS);
+    }
+
+    /**
+     * Share of HTTP requests since startup that did not fail with a server error (100 when idle)
+     */
+    public double getAvailabilityPercent() {
+        long total = 0;
+        long serverErrors = 0;
+        for (Timer timer : Search.in(registry).name("http.server.requests").timers()) {
+            total += timer.count();
+            if ("SERVER_ERROR".equals(timer.getId().getTag("outcome"))) {
+                serverErrors += timer.count();
+            }
+        }
+        if (total == 0) {
+            return 100.0;
+        }
+        double percent = 100.0 * (total - serverErrors) / total;
+        return Math.round(percent * 100.0) / 100.0;
+    }
+
+    /**
+     * Identity of a tagged meter: its name, tag key/value pairs and outcome (null if untagged)
+     */
+    private record MeterKey(String name, List<String> tags, String outcome) {
+    }
+}
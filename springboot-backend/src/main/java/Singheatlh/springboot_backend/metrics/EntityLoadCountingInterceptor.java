@@ -0,0 +1,20 @@
+package Singheatlh.springboot_backend.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Counts entities Hibernate hydrates into the current QueryCapture.
+ * Registered through spring.jpa.properties.hibernate.session_factory.interceptor.
+ */
+public class EntityLoadCountingInterceptor implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        QueryCapture capture = QueryCapture.current();
+        if (capture != null) {
+            capture.recordEntityLoad();
+        }
+        return false;
+    }
+}
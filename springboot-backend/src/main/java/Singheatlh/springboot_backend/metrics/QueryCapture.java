@@ -0,0 +1,101 @@
+package Singheatlh.springboot_backend.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL activity of one unit of work (normally one HTTP request) on the current thread.
+ *
+ * A capture is either sampled, counting every statement, its JDBC time and the entities Hibernate
+ * loads, or unsampled, where only statements over the slow threshold are kept. Captures are
+ * thread-bound, so work handed to other threads (e.g. async notifications) is not attributed.
+ */
+public final class QueryCapture {
+
+    private static final ThreadLocal<QueryCapture> CURRENT = new ThreadLocal<>();
+
+    private final boolean sampled;
+    private final boolean recordStatements;
+    private int queryCount;
+    private long jdbcMillis;
+    private int entitiesLoaded;
+    private final List<String> statements = new ArrayList<>();
+    private final List<SlowStatement> slowStatements = new ArrayList<>();
+
+    private QueryCapture(boolean sampled, boolean recordStatements) {
+        this.sampled = sampled;
+        this.recordStatements = recordStatements;
+    }
+
+    /**
+     * Start capturing on the current thread, replacing any capture already running
+     * @param sampled Count every statement rather than only slow ones
+     * @param recordStatements Also keep the SQL text of every statement (tests and diagnostics)
+     */
+    public static QueryCapture begin(boolean sampled, boolean recordStatements) {
+        QueryCapture capture = new QueryCapture(sampled, recordStatements);
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    public static QueryCapture current() {
+        return CURRENT.get();
+    }
+
+    public void end() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    void recordStatement(String sql, long elapsedMillis) {
+        if (!sampled) {
+            return;
+        }
+        queryCount++;
+        jdbcMillis += elapsedMillis;
+        if (recordStatements) {
+            statements.add(sql);
+        }
+    }
+
+    void recordEntityLoad() {
+        if (sampled) {
+            entitiesLoaded++;
+        }
+    }
+
+    void recordSlowStatement(SlowStatement statement) {
+        slowStatements.add(statement);
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public int getQueryCount() {
+        return queryCount;
+    }
+
+    public long getJdbcMillis() {
+        return jdbcMillis;
+    }
+
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    public List<SlowStatement> getSlowStatements() {
+        return slowStatements;
+    }
+
+    /**
+     * A statement that crossed the slow-query threshold, with its bound parameters
+     */
+    public record SlowStatement(String sql, String parameters, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,46 @@
+package Singheatlh.springboot_backend.metrics;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Opens a QueryCapture around each request and files it under the matched request mapping
+ */
+@Component
+public class QueryCaptureFilter extends OncePerRequestFilter {
+
+    private final QueryInstrumentation instrumentation;
+
+    public QueryCaptureFilter(QueryInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!instrumentation.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        QueryCapture capture = QueryCapture.begin(instrumentation.shouldSample(), false);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            capture.end();
+            instrumentation.recordCapture(routeOf(request), capture);
+        }
+    }
+
+    private static String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : QueryInstrumentation.UNMAPPED_ROUTE);
+    }
+}
@@ -0,0 +1,84 @@
+package Singheatlh.springboot_backend.metrics;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * datasource-proxy listener feeding JDBC executions into the current QueryCapture.
+ * Parameters are only formatted for statements over the slow threshold.
+ */
+public class QueryCountingListener implements QueryExecutionListener {
+
+    private static final int MAX_TEXT_LENGTH = 2000;
+
+    private final ObjectProvider<QueryInstrumentation> instrumentationProvider;
+    private volatile QueryInstrumentation instrumentation;
+
+    public QueryCountingListener(ObjectProvider<QueryInstrumentation> instrumentationProvider) {
+        this.instrumentationProvider = instrumentationProvider;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Timing is taken from ExecutionInfo after execution
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryInstrumentation instrumentation = resolveInstrumentation();
+        if (instrumentation == null || !instrumentation.isEnabled()) {
+            return;
+        }
+        long elapsedMillis = execInfo.getElapsedTime();
+        QueryCapture capture = QueryCapture.current();
+        boolean slow = elapsedMillis >= instrumentation.getSlowQueryThresholdMillis();
+        if (capture == null && !slow) {
+            return;
+        }
+
+        String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        if (capture != null) {
+            capture.recordStatement(sql, elapsedMillis);
+        }
+        if (slow) {
+            QueryCapture.SlowStatement statement = new QueryCapture.SlowStatement(
+                    truncate(sql), truncate(formatParameters(queryInfoList)), elapsedMillis);
+            if (capture != null) {
+                capture.recordSlowStatement(statement);
+            } else {
+                instrumentation.recordSlowStatement(QueryInstrumentation.BACKGROUND_ROUTE, statement);
+            }
+        }
+    }
+
+    private QueryInstrumentation resolveInstrumentation() {
+        QueryInstrumentation resolved = instrumentation;
+        if (resolved == null) {
+            resolved = instrumentationProvider.getIfAvailable();
+            instrumentation = resolved;
+        }
+        return resolved;
+    }
+
+    private static String formatParameters(List<QueryInfo> queryInfoList) {
+        return queryInfoList.stream()
+                .flatMap(info -> info.getParametersList().stream())
+                .map(parameters -> parameters.stream()
+                        .map(ParameterSetOperation::getArgs)
+                        .filter(args -> args != null && args.length > 1)
+                        .map(args -> String.valueOf(args[1]))
+                        .collect(Collectors.joining(", ", "[", "]")))
+                .collect(Collectors.joining(" "));
+    }
+
+    private static String truncate(String text) {
+        return text.length() <= MAX_TEXT_LENGTH ? text : text.substring(0, MAX_TEXT_LENGTH) + "...";
+    }
+}
@@ -0,0 +1,221 @@
+package Singheatlh.springboot_backend.metrics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import Singheatlh.springboot_backend.dto.QueryInstrumentationReportDto;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Aggregates QueryCapture results per request mapping and exposes them, together with Hibernate
+ * Statistics, to the admin instrumentation endpoint.
+ *
+ * Cheap enough to leave on in production: only a sample of requests is fully counted, and outside
+ * the sample only statements slower than the threshold are recorded (with their parameters).
+ */
+@Component
+public class QueryInstrumentation {
+
+    public static final String BACKGROUND_ROUTE = "(background)";
+    public static final String UNMAPPED_ROUTE = "(unmapped)";
+
+    private static final int SLOWEST_PER_ROUTE = 5;
+
+    // Resolved lazily: the DataSource proxy reports here while the EntityManagerFactory is still starting
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    @Value("${instrumentation.enabled:true}")
+    private volatile boolean enabled;
+
+    @Value("${instrumentation.sample-rate:0.05}")
+    private volatile double sampleRate;
+
+    @Value("${instrumentation.slow-query-threshold-ms:200}")
+    private volatile long slowQueryThresholdMillis;
+
+    @Value("${instrumentation.max-slow-statements:20}")
+    private int maxSlowStatements;
+
+    private final Map<String, RouteAccumulator> routes = new ConcurrentHashMap<>();
+    private final List<QueryInstrumentationReportDto.SlowStatement> slowestStatements = new ArrayList<>();
+    private volatile LocalDateTime collectingSince = LocalDateTime.now();
+
+    public QueryInstrumentation(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    public boolean shouldSample() {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Fold a finished capture into the stats of its route
+     */
+    public void recordCapture(String route, QueryCapture capture) {
+        if (capture.isSampled()) {
+            routes.computeIfAbsent(route, r -> new RouteAccumulator()).add(capture);
+        }
+        for (QueryCapture.SlowStatement statement : capture.getSlowStatements()) {
+            recordSlowStatement(route, statement);
+        }
+    }
+
+    public void recordSlowStatement(String route, QueryCapture.SlowStatement statement) {
+        QueryInstrumentationReportDto.SlowStatement entry = QueryInstrumentationReportDto.SlowStatement.builder()
+                .route(route)
+                .sql(statement.sql())
+                .parameters(statement.parameters())
+                .elapsedMillis(statement.elapsedMillis())
+                .capturedAt(LocalDateTime.now())
+                .build();
+        routes.computeIfAbsent(route, r -> new RouteAccumulator()).addSlow(entry);
+        synchronized (slowestStatements) {
+            keepSlowest(slowestStatements, entry, maxSlowStatements);
+        }
+    }
+
+    public QueryInstrumentationReportDto report() {
+        List<QueryInstrumentationReportDto.RouteStats> routeStats = routes.entrySet().stream()
+                .map(entry -> entry.getValue().toDto(entry.getKey()))
+                .sorted(Comparator.comparingLong(QueryInstrumentationReportDto.RouteStats::getTotalJdbcMillis).reversed())
+                .collect(Collectors.toList());
+        List<QueryInstrumentationReportDto.SlowStatement> slowest;
+        synchronized (slowestStatements) {
+            slowest = new ArrayList<>(slowestStatements);
+        }
+        return QueryInstrumentationReportDto.builder()
+                .enabled(enabled)
+                .sampleRate(sampleRate)
+                .slowQueryThresholdMillis(slowQueryThresholdMillis)
+                .collectingSince(collectingSince)
+                .routes(routeStats)
+                .slowestStatements(slowest)
+                .hibernate(hibernateStats())
+                .build();
+    }
+
+    public void reset() {
+        routes.clear();
+        synchronized (slowestStatements) {
+            slowestStatements.clear();
+        }
+        statistics().clear();
+        collectingSince = LocalDateTime.now();
+    }
+
+    /**
+     * Adjust collection at runtime; null arguments leave the current value
+     */
+    public void configure(Boolean enabled, Double sampleRate, Long slowQueryThresholdMillis, Boolean hibernateStatistics) {
+        if (enabled != null) {
+            this.enabled = enabled;
+        }
+        if (sampleRate != null) {
+            if (sampleRate < 0 || sampleRate > 1) {
+                throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+            }
+            this.sampleRate = sampleRate;
+        }
+        if (slowQueryThresholdMillis != null) {
+            if (slowQueryThresholdMillis < 0) {
+                throw new IllegalArgumentException("slowQueryThresholdMillis must not be negative");
+            }
+            this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+        }
+        if (hibernateStatistics != null) {
+            statistics().setStatisticsEnabled(hibernateStatistics);
+        }
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.getObject().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private QueryInstrumentationReportDto.HibernateStats hibernateStats() {
+        Statistics stats = statistics();
+        if (!stats.isStatisticsEnabled()) {
+            return null;
+        }
+        return QueryInstrumentationReportDto.HibernateStats.builder()
+                .queryExecutionCount(stats.getQueryExecutionCount())
+                .queryExecutionMaxTimeMillis(stats.getQueryExecutionMaxTime())
+                .queryExecutionMaxTimeQuery(stats.getQueryExecutionMaxTimeQueryString())
+                .prepareStatementCount(stats.getPrepareStatementCount())
+                .entityLoadCount(stats.getEntityLoadCount())
+                .entityFetchCount(stats.getEntityFetchCount())
+                .collectionLoadCount(stats.getCollectionLoadCount())
+                .collectionFetchCount(stats.getCollectionFetchCount())
+                .sessionOpenCount(stats.getSessionOpenCount())
+                .transactionCount(stats.getTransactionCount())
+                .secondLevelCacheHitCount(stats.getSecondLevelCacheHitCount())
+                .secondLevelCacheMissCount(stats.getSecondLevelCacheMissCount())
+                .build();
+    }
+
+    private static void keepSlowest(List<QueryInstrumentationReportDto.SlowStatement> slowest,
+                                    QueryInstrumentationReportDto.SlowStatement entry, int limit) {
+        slowest.add(entry);
+        slowest.sort(Comparator.comparingLong(QueryInstrumentationReportDto.SlowStatement::getElapsedMillis).reversed());
+        if (slowest.size() > limit) {
+            slowest.remove(slowest.size() - 1);
+        }
+    }
+
+    private static final class RouteAccumulator {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder jdbcMillis = new LongAdder();
+        private final LongAdder entitiesLoaded = new LongAdder();
+        private final AtomicLong maxQueries = new AtomicLong();
+        private final List<QueryInstrumentationReportDto.SlowStatement> slowest = new ArrayList<>();
+
+        void add(QueryCapture capture) {
+            requests.increment();
+            queries.add(capture.getQueryCount());
+            jdbcMillis.add(capture.getJdbcMillis());
+            entitiesLoaded.add(capture.getEntitiesLoaded());
+            maxQueries.accumulateAndGet(capture.getQueryCount(), Math::max);
+        }
+
+        synchronized void addSlow(QueryInstrumentationReportDto.SlowStatement entry) {
+            keepSlowest(slowest, entry, SLOWEST_PER_ROUTE);
+        }
+
+        synchronized QueryInstrumentationReportDto.RouteStats toDto(String route) {
+            long requestCount = requests.sum();
+            return QueryInstrumentationReportDto.RouteStats.builder()
+                    .route(route)
+                    .sampledRequests(requestCount)
+                    .totalQueries(queries.sum())
+                    .averageQueriesPerRequest(requestCount == 0 ? 0.0 : (double) queries.sum() / requestCount)
+                    .maxQueriesPerRequest(maxQueries.get())
+                    .totalJdbcMillis(jdbcMillis.sum())
+                    .averageJdbcMillisPerRequest(requestCount == 0 ? 0.0 : (double) jdbcMillis.sum() / requestCount)
+                    .entitiesLoaded(entitiesLoaded.sum())
+                    .slowestStatements(new ArrayList<>(slowest))
+                    .build();
+        }
+    }
+}
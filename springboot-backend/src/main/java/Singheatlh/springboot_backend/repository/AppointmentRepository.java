@@ -1,19 +1,43 @@
 package Singheatlh.springboot_backend.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import Singheatlh.springboot_backend.dto.AppointmentCancellationNotice;
+import Singheatlh.springboot_backend.dto.AppointmentRescheduleNotice;
+import Singheatlh.springboot_backend.dto.AppointmentDto;
 import Singheatlh.springboot_backend.entity.Appointment;
 import Singheatlh.springboot_backend.entity.enums.AppointmentStatus;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, String> {  // Changed to String (CHAR(10))
+
+    // Constructor projection used by the read-only list queries below. Selecting only the DTO
+    // columns avoids hydrating (and dirty-tracking) Appointment, Patient, Doctor and Clinic entities.
+    String DTO_SELECT = "SELECT new Singheatlh.springboot_backend.dto.AppointmentDto(" +
+           "a.appointmentId, a.patientId, p.name, a.doctorId, d.name, c.name, " +
+           "a.startDatetime, a.endDatetime, a.status) " +
+           "FROM Appointment a " +
+           "LEFT JOIN a.patient p " +
+           "LEFT JOIN a.doctor d " +
+           "LEFT JOIN d.clinic c ";
+
+    // Rows per round trip when streaming exports
+    String EXPORT_FETCH_SIZE = "500";
     
     // Override findAll to include related entities
     @Query("SELECT a FROM Appointment a " +
@@ -22,13 +46,10 @@ public interface AppointmentRepository extends JpaRepository<Appointment, String
            "LEFT JOIN FETCH d.clinic")
     List<Appointment> findAll();
     
-    // Find all appointments for a specific patient with doctor and clinic details
-    @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.patient " +
-           "LEFT JOIN FETCH a.doctor d " +
-           "LEFT JOIN FETCH d.clinic " +
+    // Find all appointments for a specific patient with doctor and clinic details (DTO projection)
+    @Query(DTO_SELECT +
            "WHERE a.patientId = :patientId")
-    List<Appointment> findByPatientId(@Param("patientId") UUID patientId);
+    List<AppointmentDto> findDtosByPatientId(@Param("patientId") UUID patientId);
     
     // Find all appointments for a specific doctor with patient and clinic details
     @Query("SELECT a FROM Appointment a " +
@@ -63,16 +84,21 @@ public interface AppointmentRepository extends JpaRepository<Appointment, String
     List<Appointment> findByPatientIdAndStartDatetimeBetween(
         UUID patientId, LocalDateTime startDate, LocalDateTime endDate);
     
+    // Active bookings of several patients ending after a time (patient double-booking checks in bulk)
+    @Query("SELECT a FROM Appointment a WHERE a.patientId IN :patientIds " +
+           "AND a.status IN ('Upcoming', 'Ongoing') " +
+           "AND a.endDatetime > :from")
+    List<Appointment> findActiveByPatientIdsEndingAfter(
+        @Param("patientIds") Collection<UUID> patientIds,
+        @Param("from") LocalDateTime from);
+    
     // Find upcoming appointments for a patient
-    @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.patient " +
-           "LEFT JOIN FETCH a.doctor d " +
-           "LEFT JOIN FETCH d.clinic " +
+    @Query(DTO_SELECT +
            "WHERE a.patientId = :patientId " +
            "AND a.startDatetime > :currentTime " +
            "AND a.status = 'Upcoming' " +
            "ORDER BY a.startDatetime ASC")
-    List<Appointment> findUpcomingAppointmentsByPatientId(
+    List<AppointmentDto> findUpcomingDtosByPatientId(
         @Param("patientId") UUID patientId, 
         @Param("currentTime") LocalDateTime currentTime);
     
@@ -97,64 +123,200 @@ public interface AppointmentRepository extends JpaRepository<Appointment, String
         @Param("doctorId") String doctorId,
         @Param("date") LocalDateTime date);
 
+    // Find booked appointments of a doctor overlapping [deltaStart, deltaEnd) - used to compute the
+    // impact of a schedule change. Start times are only scanned from scanFrom, so the lookup is an
+    // index range over the changed part of the calendar rather than the doctor's full history.
+    @Query(DTO_SELECT +
+           "WHERE a.doctorId = :doctorId " +
+           "AND a.status IN ('Upcoming', 'Ongoing') " +
+           "AND a.startDatetime >= :scanFrom AND a.startDatetime < :deltaEnd " +
+           "AND a.endDatetime > :deltaStart " +
+           "ORDER BY a.startDatetime ASC")
+    List<AppointmentDto> findBookedDtosOverlapping(
+        @Param("doctorId") String doctorId,
+        @Param("scanFrom") LocalDateTime scanFrom,
+        @Param("deltaStart") LocalDateTime deltaStart,
+        @Param("deltaEnd") LocalDateTime deltaEnd);
+
     // ========== Clinic Staff Queries ==========
 
     // Find all appointments for a specific clinic
-    @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.patient " +
-           "LEFT JOIN FETCH a.doctor d " +
-           "LEFT JOIN FETCH d.clinic " +
+    @Query(DTO_SELECT +
            "WHERE d.clinicId = :clinicId " +
            "ORDER BY a.startDatetime ASC")
-    List<Appointment> findByClinicId(@Param("clinicId") Integer clinicId);
+    List<AppointmentDto> findDtosByClinicId(@Param("clinicId") Integer clinicId);
 
     // Find appointments for a clinic with specific status
-    @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.patient " +
-           "LEFT JOIN FETCH a.doctor d " +
-           "LEFT JOIN FETCH d.clinic " +
+    @Query(DTO_SELECT +
            "WHERE d.clinicId = :clinicId " +
            "AND a.status = :status " +
            "ORDER BY a.startDatetime ASC")
-    List<Appointment> findByClinicIdAndStatus(
+    List<AppointmentDto> findDtosByClinicIdAndStatus(
         @Param("clinicId") Integer clinicId,
         @Param("status") AppointmentStatus status);
 
     // Find today's appointments for a clinic
-    @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.patient " +
-           "LEFT JOIN FETCH a.doctor d " +
-           "LEFT JOIN FETCH d.clinic " +
+    @Query(DTO_SELECT +
            "WHERE d.clinicId = :clinicId " +
            "AND DATE(a.startDatetime) = DATE(:date) " +
            "ORDER BY a.startDatetime ASC")
-    List<Appointment> findTodayAppointmentsByClinicId(
+    List<AppointmentDto> findTodayDtosByClinicId(
         @Param("clinicId") Integer clinicId,
         @Param("date") LocalDateTime date);
 
     // Find appointments for a clinic within a date range
-    @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.patient " +
-           "LEFT JOIN FETCH a.doctor d " +
-           "LEFT JOIN FETCH d.clinic " +
+    @Query(DTO_SELECT +
            "WHERE d.clinicId = :clinicId " +
            "AND a.startDatetime BETWEEN :startDate AND :endDate " +
            "ORDER BY a.startDatetime ASC")
-    List<Appointment> findByClinicIdAndDateRange(
+    List<AppointmentDto> findDtosByClinicIdAndDateRange(
         @Param("clinicId") Integer clinicId,
         @Param("startDate") LocalDateTime startDate,
         @Param("endDate") LocalDateTime endDate);
 
     // Find upcoming appointments for a clinic
-    @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.patient " +
-           "LEFT JOIN FETCH a.doctor d " +
-           "LEFT JOIN FETCH d.clinic " +
+    @Query(DTO_SELECT +
            "WHERE d.clinicId = :clinicId " +
            "AND a.startDatetime > :currentTime " +
            "AND a.status = 'Upcoming' " +
            "ORDER BY a.startDatetime ASC")
-    List<Appointment> findUpcomingAppointmentsByClinicId(
+    List<AppointmentDto> findUpcomingDtosByClinicId(
         @Param("clinicId") Integer clinicId,
         @Param("currentTime") LocalDateTime currentTime);
+
+    // Stream a clinic's appointments starting in [start, end) for export. Must be consumed inside a
+    // transaction: the fetch size makes the driver read through a server-side cursor in batches
+    // instead of buffering the whole result.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(DTO_SELECT +
+           "WHERE d.clinicId = :clinicId " +
+           "AND a.startDatetime >= :start AND a.startDatetime < :end " +
+           "ORDER BY a.startDatetime ASC, a.appointmentId ASC")
+    Stream<AppointmentDto> streamDtosByClinicIdAndDateRange(
+        @Param("clinicId") Integer clinicId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+
+    // ========== Keyset (cursor) Pagination ==========
+    // Pageable is only used as a LIMIT (always page 0, size = pageSize + 1);
+    // the seek predicate on (startDatetime, appointmentId) replaces OFFSET.
+
+    // Find the next page of appointments for a patient after the given cursor
+    @Query(DTO_SELECT +
+           "WHERE a.patientId = :patientId " +
+           "AND (a.startDatetime > :afterStart " +
+           "OR (a.startDatetime = :afterStart AND a.appointmentId > :afterId)) " +
+           "ORDER BY a.startDatetime ASC, a.appointmentId ASC")
+    List<AppointmentDto> findDtosByPatientIdAfterCursor(
+        @Param("patientId") UUID patientId,
+        @Param("afterStart") LocalDateTime afterStart,
+        @Param("afterId") String afterId,
+        Pageable limit);
+
+    // Find the next page of appointments for a doctor after the given cursor
+    @Query(DTO_SELECT +
+           "WHERE a.doctorId = :doctorId " +
+           "AND (a.startDatetime > :afterStart " +
+           "OR (a.startDatetime = :afterStart AND a.appointmentId > :afterId)) " +
+           "ORDER BY a.startDatetime ASC, a.appointmentId ASC")
+    List<AppointmentDto> findDtosByDoctorIdAfterCursor(
+        @Param("doctorId") String doctorId,
+        @Param("afterStart") LocalDateTime afterStart,
+        @Param("afterId") String afterId,
+        Pageable limit);
+
+    // Find the next page of appointments for a clinic after the given cursor; filters on the
+    // appointment's own clinicId so the seek uses idx_appointment_clinic_start_id
+    @Query(DTO_SELECT +
+           "WHERE a.clinicId = :clinicId " +
+           "AND (a.startDatetime > :afterStart " +
+           "OR (a.startDatetime = :afterStart AND a.appointmentId > :afterId)) " +
+           "ORDER BY a.startDatetime ASC, a.appointmentId ASC")
+    List<AppointmentDto> findDtosByClinicIdAfterCursor(
+        @Param("clinicId") Integer clinicId,
+        @Param("afterStart") LocalDateTime afterStart,
+        @Param("afterId") String afterId,
+        Pageable limit);
+
+    // Find the next page of appointments with a status after the given cursor
+    @Query(DTO_SELECT +
+           "WHERE a.status = :status " +
+           "AND (a.startDatetime > :afterStart " +
+           "OR (a.startDatetime = :afterStart AND a.appointmentId > :afterId)) " +
+           "ORDER BY a.startDatetime ASC, a.appointmentId ASC")
+    List<AppointmentDto> findDtosByStatusAfterCursor(
+        @Param("status") AppointmentStatus status,
+        @Param("afterStart") LocalDateTime afterStart,
+        @Param("afterId") String afterId,
+        Pageable limit);
+
+    // Counts backing the optional total on cursor pages
+    long countByPatientId(UUID patientId);
+
+    long countByDoctorId(String doctorId);
+
+    long countByStatus(AppointmentStatus status);
+
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.clinicId = :clinicId")
+    long countByClinicId(@Param("clinicId") Integer clinicId);
+
+    // ========== Bulk Cancellation ==========
+    // One set-based UPDATE per bulk cancel; the affected rows are then read back by the
+    // cancellation stamp (cancelledBy + cancelledAt) written in the same transaction.
+
+    // Cancel every upcoming appointment of a doctor starting in [start, end)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = Singheatlh.springboot_backend.entity.enums.AppointmentStatus.Cancelled, " +
+           "a.cancelledBy = :cancelledBy, a.cancelledAt = :cancelledAt, a.cancellationReason = :reason " +
+           "WHERE a.doctorId = :doctorId " +
+           "AND a.status = 'Upcoming' " +
+           "AND a.startDatetime >= :start AND a.startDatetime < :end")
+    int bulkCancelByDoctorId(
+        @Param("doctorId") String doctorId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end,
+        @Param("cancelledBy") UUID cancelledBy,
+        @Param("cancelledAt") LocalDateTime cancelledAt,
+        @Param("reason") String reason);
+
+    // Cancel every upcoming appointment of a clinic's doctors starting in [start, end)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = Singheatlh.springboot_backend.entity.enums.AppointmentStatus.Cancelled, " +
+           "a.cancelledBy = :cancelledBy, a.cancelledAt = :cancelledAt, a.cancellationReason = :reason " +
+           "WHERE a.doctorId IN (SELECT d.doctorId FROM Doctor d WHERE d.clinicId = :clinicId) " +
+           "AND a.status = 'Upcoming' " +
+           "AND a.startDatetime >= :start AND a.startDatetime < :end")
+    int bulkCancelByClinicId(
+        @Param("clinicId") Integer clinicId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end,
+        @Param("cancelledBy") UUID cancelledBy,
+        @Param("cancelledAt") LocalDateTime cancelledAt,
+        @Param("reason") String reason);
+
+    // Find moved appointments by ID, with the patient details and new doctor needed for notification
+    @Query("SELECT new Singheatlh.springboot_backend.dto.AppointmentRescheduleNotice(" +
+           "a.appointmentId, a.patientId, p.name, p.email, d.name, a.startDatetime) " +
+           "FROM Appointment a " +
+           "LEFT JOIN a.patient p " +
+           "LEFT JOIN a.doctor d " +
+           "WHERE a.appointmentId IN :appointmentIds " +
+           "ORDER BY a.startDatetime ASC")
+    List<AppointmentRescheduleNotice> findRescheduleNotices(@Param("appointmentIds") Collection<String> appointmentIds);
+
+    // Find the appointments stamped by a bulk cancel, with the patient details needed for notification
+    @Query("SELECT new Singheatlh.springboot_backend.dto.AppointmentCancellationNotice(" +
+           "a.appointmentId, a.patientId, p.name, p.email, d.name, a.startDatetime) " +
+           "FROM Appointment a " +
+           "LEFT JOIN a.patient p " +
+           "LEFT JOIN a.doctor d " +
+           "WHERE a.status = 'Cancelled' " +
+           "AND a.cancelledBy = :cancelledBy AND a.cancelledAt = :cancelledAt " +
+           "AND a.startDatetime >= :start AND a.startDatetime < :end " +
+           "ORDER BY a.startDatetime ASC")
+    List<AppointmentCancellationNotice> findCancellationNotices(
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end,
+        @Param("cancelledBy") UUID cancelledBy,
+        @Param("cancelledAt") LocalDateTime cancelledAt);
 }
@@ -26,4 +26,25 @@ public interface ClinicRepository extends JpaRepository<Clinic, Integer> {
         @Param("searchPattern") String searchPattern,
         Pageable pageable
     );
+
+    // Keyset variant of findWithPaginationAndSearch: seeks past the last clinic_id instead of using OFFSET
+    @Query(value = "SELECT * FROM clinic c WHERE " +
+           "(:search IS NULL OR c.name ILIKE :searchPattern OR c.address ILIKE :searchPattern) AND " +
+           "c.clinic_id > :afterId " +
+           "ORDER BY c.clinic_id ASC LIMIT :limit",
+           nativeQuery = true)
+    List<Clinic> findWithSearchAfterCursor(
+        @Param("search") String search,
+        @Param("searchPattern") String searchPattern,
+        @Param("afterId") Integer afterId,
+        @Param("limit") int limit
+    );
+
+    @Query(value = "SELECT COUNT(*) FROM clinic c WHERE " +
+           "(:search IS NULL OR c.name ILIKE :searchPattern OR c.address ILIKE :searchPattern)",
+           nativeQuery = true)
+    long countWithSearch(
+        @Param("search") String search,
+        @Param("searchPattern") String searchPattern
+    );
 }
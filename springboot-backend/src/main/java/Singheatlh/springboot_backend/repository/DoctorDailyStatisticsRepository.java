@@ -0,0 +1,124 @@
+package Singheatlh.springboot_backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import Singheatlh.springboot_backend.entity.DoctorDailyStatistics;
+
+@Repository
+public interface DoctorDailyStatisticsRepository extends JpaRepository<DoctorDailyStatistics, DoctorDailyStatistics.Key> {
+
+    // Find the per-doctor rollup rows of a clinic for one day
+    List<DoctorDailyStatistics> findByClinicIdAndStatsDate(Integer clinicId, LocalDate statsDate);
+
+    // Add a ticket transition delta to the doctor's row for the day, creating the row on first use.
+    // waitSample is the newly observed waiting time (null if none) and only widens min/max.
+    @Modifying
+    @Query(value = "INSERT INTO doctor_daily_stats (doctor_id, stats_date, clinic_id, total_check_ins, " +
+           "checked_in_count, called_count, completed_count, no_show_count, fast_tracked_count, " +
+           "wait_count, wait_sum_minutes, wait_min_minutes, wait_max_minutes, " +
+           "consultation_count, consultation_sum_minutes, updated_at) " +
+           "VALUES (:doctorId, :statsDate, :clinicId, :checkIns, :checkedIn, :called, :completed, :noShow, " +
+           ":fastTracked, :waitCount, :waitSum, CAST(:waitSample AS BIGINT), CAST(:waitSample AS BIGINT), " +
+           ":consultationCount, :consultationSum, now()) " +
+           "ON CONFLICT (doctor_id, stats_date) DO UPDATE SET " +
+           "total_check_ins = doctor_daily_stats.total_check_ins + EXCLUDED.total_check_ins, " +
+           "checked_in_count = doctor_daily_stats.checked_in_count + EXCLUDED.checked_in_count, " +
+           "called_count = doctor_daily_stats.called_count + EXCLUDED.called_count, " +
+           "completed_count = doctor_daily_stats.completed_count + EXCLUDED.completed_count, " +
+           "no_show_count = doctor_daily_stats.no_show_count + EXCLUDED.no_show_count, " +
+           "fast_tracked_count = doctor_daily_stats.fast_tracked_count + EXCLUDED.fast_tracked_count, " +
+           "wait_count = doctor_daily_stats.wait_count + EXCLUDED.wait_count, " +
+           "wait_sum_minutes = doctor_daily_stats.wait_sum_minutes + EXCLUDED.wait_sum_minutes, " +
+           "wait_min_minutes = LEAST(doctor_daily_stats.wait_min_minutes, EXCLUDED.wait_min_minutes), " +
+           "wait_max_minutes = GREATEST(doctor_daily_stats.wait_max_minutes, EXCLUDED.wait_max_minutes), " +
+           "consultation_count = doctor_daily_stats.consultation_count + EXCLUDED.consultation_count, " +
+           "consultation_sum_minutes = doctor_daily_stats.consultation_sum_minutes + EXCLUDED.consultation_sum_minutes, " +
+           "updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int applyDelta(
+        @Param("doctorId") String doctorId,
+        @Param("statsDate") LocalDate statsDate,
+        @Param("clinicId") Integer clinicId,
+        @Param("checkIns") int checkIns,
+        @Param("checkedIn") int checkedIn,
+        @Param("called") int called,
+        @Param("completed") int completed,
+        @Param("noShow") int noShow,
+        @Param("fastTracked") int fastTracked,
+        @Param("waitCount") int waitCount,
+        @Param("waitSum") long waitSum,
+        @Param("waitSample") Long waitSample,
+        @Param("consultationCount") int consultationCount,
+        @Param("consultationSum") long consultationSum);
+
+    // Time series over [fromDate, toDate] bucketed by granularity ('day', 'week' or 'month').
+    // A primary-key range scan over at most one row per day of the range.
+    @Query(value = "SELECT CAST(date_trunc(CAST(:granularity AS TEXT), CAST(stats_date AS TIMESTAMP)) AS DATE) AS \"periodStart\", " +
+           "CAST(SUM(total_check_ins) AS BIGINT) AS \"checkIns\", " +
+           "CAST(SUM(completed_count) AS BIGINT) AS \"completed\", " +
+           "CAST(SUM(no_show_count) AS BIGINT) AS \"noShows\", " +
+           "CAST(SUM(wait_count) AS BIGINT) AS \"waitCount\", " +
+           "CAST(SUM(wait_sum_minutes) AS BIGINT) AS \"waitSumMinutes\", " +
+           "MIN(wait_min_minutes) AS \"waitMinMinutes\", " +
+           "MAX(wait_max_minutes) AS \"waitMaxMinutes\", " +
+           "CAST(SUM(consultation_count) AS BIGINT) AS \"consultationCount\", " +
+           "CAST(SUM(consultation_sum_minutes) AS BIGINT) AS \"consultationSumMinutes\" " +
+           "FROM doctor_daily_stats " +
+           "WHERE doctor_id = :doctorId AND stats_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY 1 ORDER BY 1",
+           nativeQuery = true)
+    List<QueueStatsAggregate.Period> findSeries(
+        @Param("doctorId") String doctorId,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate,
+        @Param("granularity") String granularity);
+
+    // Clinic time series over [fromDate, toDate], summed from its doctors' rows; a range scan of
+    // the (clinic_id, stats_date) index over one row per doctor per day
+    @Query(value = "SELECT CAST(date_trunc(CAST(:granularity AS TEXT), CAST(stats_date AS TIMESTAMP)) AS DATE) AS \"periodStart\", " +
+           "CAST(SUM(total_check_ins) AS BIGINT) AS \"checkIns\", " +
+           "CAST(SUM(completed_count) AS BIGINT) AS \"completed\", " +
+           "CAST(SUM(no_show_count) AS BIGINT) AS \"noShows\", " +
+           "CAST(SUM(wait_count) AS BIGINT) AS \"waitCount\", " +
+           "CAST(SUM(wait_sum_minutes) AS BIGINT) AS \"waitSumMinutes\", " +
+           "MIN(wait_min_minutes) AS \"waitMinMinutes\", " +
+           "MAX(wait_max_minutes) AS \"waitMaxMinutes\", " +
+           "CAST(SUM(consultation_count) AS BIGINT) AS \"consultationCount\", " +
+           "CAST(SUM(consultation_sum_minutes) AS BIGINT) AS \"consultationSumMinutes\" " +
+           "FROM doctor_daily_stats " +
+           "WHERE clinic_id = :clinicId AND stats_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY 1 ORDER BY 1",
+           nativeQuery = true)
+    List<QueueStatsAggregate.Period> findClinicSeries(
+        @Param("clinicId") Integer clinicId,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate,
+        @Param("granularity") String granularity);
+
+    // Per-doctor totals of a clinic over [fromDate, toDate]
+    @Query(value = "SELECT doctor_id AS \"doctorId\", " +
+           "CAST(SUM(total_check_ins) AS BIGINT) AS \"checkIns\", " +
+           "CAST(SUM(completed_count) AS BIGINT) AS \"completed\", " +
+           "CAST(SUM(no_show_count) AS BIGINT) AS \"noShows\", " +
+           "CAST(SUM(wait_count) AS BIGINT) AS \"waitCount\", " +
+           "CAST(SUM(wait_sum_minutes) AS BIGINT) AS \"waitSumMinutes\", " +
+           "MIN(wait_min_minutes) AS \"waitMinMinutes\", " +
+           "MAX(wait_max_minutes) AS \"waitMaxMinutes\", " +
+           "CAST(SUM(consultation_count) AS BIGINT) AS \"consultationCount\", " +
+           "CAST(SUM(consultation_sum_minutes) AS BIGINT) AS \"consultationSumMinutes\" " +
+           "FROM doctor_daily_stats " +
+           "WHERE clinic_id = :clinicId AND stats_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY doctor_id ORDER BY doctor_id",
+           nativeQuery = true)
+    List<QueueStatsAggregate.PerDoctor> findPerDoctorTotals(
+        @Param("clinicId") Integer clinicId,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate);
+}
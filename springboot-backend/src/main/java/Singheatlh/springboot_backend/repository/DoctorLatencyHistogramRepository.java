@@ -0,0 +1,76 @@
+package Singheatlh.springboot_backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import Singheatlh.springboot_backend.entity.DoctorLatencyHistogram;
+
+@Repository
+public interface DoctorLatencyHistogramRepository extends JpaRepository<DoctorLatencyHistogram, DoctorLatencyHistogram.Key> {
+
+    // Add one sample to a bucket of the doctor's histogram for the day
+    @Modifying
+    @Query(value = "INSERT INTO doctor_latency_histogram (doctor_id, stats_date, metric, bucket_minutes, clinic_id, sample_count) " +
+           "VALUES (:doctorId, :statsDate, :metric, :bucketMinutes, :clinicId, 1) " +
+           "ON CONFLICT (doctor_id, stats_date, metric, bucket_minutes) DO UPDATE SET " +
+           "sample_count = doctor_latency_histogram.sample_count + 1",
+           nativeQuery = true)
+    int addSample(
+        @Param("doctorId") String doctorId,
+        @Param("statsDate") LocalDate statsDate,
+        @Param("metric") String metric,
+        @Param("bucketMinutes") long bucketMinutes,
+        @Param("clinicId") Integer clinicId);
+
+    // Merge a doctor's histograms over [fromDate, toDate]
+    @Query(value = "SELECT CAST(NULL AS VARCHAR) AS \"doctorId\", metric AS \"metric\", " +
+           "bucket_minutes AS \"bucketMinutes\", CAST(SUM(sample_count) AS BIGINT) AS \"sampleCount\" " +
+           "FROM doctor_latency_histogram " +
+           "WHERE doctor_id = :doctorId AND stats_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY metric, bucket_minutes",
+           nativeQuery = true)
+    List<LatencyBucket> mergeForDoctor(
+        @Param("doctorId") String doctorId,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate);
+
+    // Merge all doctors' histograms of a clinic over [fromDate, toDate]
+    @Query(value = "SELECT CAST(NULL AS VARCHAR) AS \"doctorId\", metric AS \"metric\", " +
+           "bucket_minutes AS \"bucketMinutes\", CAST(SUM(sample_count) AS BIGINT) AS \"sampleCount\" " +
+           "FROM doctor_latency_histogram " +
+           "WHERE clinic_id = :clinicId AND stats_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY metric, bucket_minutes",
+           nativeQuery = true)
+    List<LatencyBucket> mergeForClinic(
+        @Param("clinicId") Integer clinicId,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate);
+
+    // Merge each doctor's histograms of a clinic over [fromDate, toDate], kept per doctor
+    @Query(value = "SELECT doctor_id AS \"doctorId\", metric AS \"metric\", " +
+           "bucket_minutes AS \"bucketMinutes\", CAST(SUM(sample_count) AS BIGINT) AS \"sampleCount\" " +
+           "FROM doctor_latency_histogram " +
+           "WHERE clinic_id = :clinicId AND stats_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY doctor_id, metric, bucket_minutes",
+           nativeQuery = true)
+    List<LatencyBucket> mergePerDoctorForClinic(
+        @Param("clinicId") Integer clinicId,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate);
+
+    /**
+     * Merged bucket count (doctorId is only set by mergePerDoctorForClinic)
+     */
+    interface LatencyBucket {
+        String getDoctorId();
+        String getMetric();
+        Long getBucketMinutes();
+        Long getSampleCount();
+    }
+}
@@ -1,5 +1,6 @@
 package Singheatlh.springboot_backend.repository;
 
+import Singheatlh.springboot_backend.dto.DoctorDto;
 import Singheatlh.springboot_backend.entity.Doctor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +13,18 @@ import java.util.List;
 public interface DoctorRepository extends JpaRepository<Doctor, String> {  // Changed from Long to String
     List<Doctor> findByClinicId(Integer clinicId);  // Simplified
 
+    // DTO projections for read-only listings - one query with the clinic name joined in,
+    // instead of loading Doctor entities and lazily initialising each clinic
+    String DTO_SELECT = "SELECT new Singheatlh.springboot_backend.dto.DoctorDto(" +
+           "d.doctorId, d.name, d.clinicId, c.name, d.appointmentDurationInMinutes) " +
+           "FROM Doctor d LEFT JOIN d.clinic c ";
+
+    @Query(DTO_SELECT)
+    List<DoctorDto> findAllDtos();
+
+    @Query(DTO_SELECT + "WHERE d.clinicId = :clinicId")
+    List<DoctorDto> findDtosByClinicId(@Param("clinicId") Integer clinicId);
+
     @Query(value = "SELECT d.* FROM doctor d LEFT JOIN clinic c ON d.clinic_id = c.clinic_id WHERE " +
            "(:search IS NULL OR d.name ILIKE :searchPattern OR c.name ILIKE :searchPattern)",
            countQuery = "SELECT COUNT(*) FROM doctor d LEFT JOIN clinic c ON d.clinic_id = c.clinic_id WHERE " +
@@ -22,4 +35,25 @@ public interface DoctorRepository extends JpaRepository<Doctor, String> {  // Ch
         @Param("searchPattern") String searchPattern,
         Pageable pageable
     );
+
+    // Keyset variant of findWithPaginationAndSearch: seeks past the last doctor_id instead of using OFFSET
+    @Query(value = "SELECT d.* FROM doctor d LEFT JOIN clinic c ON d.clinic_id = c.clinic_id WHERE " +
+           "(:search IS NULL OR d.name ILIKE :searchPattern OR c.name ILIKE :searchPattern) AND " +
+           "d.doctor_id > :afterId " +
+           "ORDER BY d.doctor_id ASC LIMIT :limit",
+           nativeQuery = true)
+    List<Doctor> findWithSearchAfterCursor(
+        @Param("search") String search,
+        @Param("searchPattern") String searchPattern,
+        @Param("afterId") String afterId,
+        @Param("limit") int limit
+    );
+
+    @Query(value = "SELECT COUNT(*) FROM doctor d LEFT JOIN clinic c ON d.clinic_id = c.clinic_id WHERE " +
+           "(:search IS NULL OR d.name ILIKE :searchPattern OR c.name ILIKE :searchPattern)",
+           nativeQuery = true)
+    long countWithSearch(
+        @Param("search") String search,
+        @Param("searchPattern") String searchPattern
+    );
 }
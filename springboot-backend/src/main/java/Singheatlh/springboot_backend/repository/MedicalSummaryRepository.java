@@ -1,13 +1,38 @@
 package Singheatlh.springboot_backend.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import Singheatlh.springboot_backend.dto.MedicalSummaryDto;
 import Singheatlh.springboot_backend.entity.MedicalSummary;
 
 @Repository
 public interface MedicalSummaryRepository extends JpaRepository<MedicalSummary, String> {
     Optional<MedicalSummary> findByAppointmentId(String appointmentId);
+
+    // Stream the summaries of a clinic's appointments starting in [start, end) for export, through a
+    // server-side cursor (see AppointmentRepository.streamDtosByClinicIdAndDateRange)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppointmentRepository.EXPORT_FETCH_SIZE))
+    @Query("SELECT new Singheatlh.springboot_backend.dto.MedicalSummaryDto(" +
+           "ms.summaryId, ms.appointmentId, ms.treatmentSummary) " +
+           "FROM MedicalSummary ms " +
+           "JOIN Appointment a ON a.appointmentId = ms.appointmentId " +
+           "JOIN a.doctor d " +
+           "WHERE d.clinicId = :clinicId " +
+           "AND a.startDatetime >= :start AND a.startDatetime < :end " +
+           "ORDER BY a.startDatetime ASC, ms.summaryId ASC")
+    Stream<MedicalSummaryDto> streamDtosByClinicIdAndDateRange(
+        @Param("clinicId") Integer clinicId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,29 @@
+package Singheatlh.springboot_backend.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of summed doctor_daily_stats rows, per doctor or for a whole clinic.
+ * Native queries alias their columns to these property names.
+ */
+public interface QueueStatsAggregate {
+    Long getCheckIns();
+    Long getCompleted();
+    Long getNoShows();
+    Long getWaitCount();
+    Long getWaitSumMinutes();
+    Long getWaitMinMinutes();
+    Long getWaitMaxMinutes();
+    Long getConsultationCount();
+    Long getConsultationSumMinutes();
+
+    // One bucket of a time series (day, week or month starting at periodStart)
+    interface Period extends QueueStatsAggregate {
+        LocalDate getPeriodStart();
+    }
+
+    // One doctor's totals over a range
+    interface PerDoctor extends QueueStatsAggregate {
+        String getDoctorId();
+    }
+}
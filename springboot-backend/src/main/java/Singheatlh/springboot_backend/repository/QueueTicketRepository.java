@@ -3,21 +3,36 @@ package Singheatlh.springboot_backend.repository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
+import Singheatlh.springboot_backend.dto.QueueTicketDto;
 import Singheatlh.springboot_backend.entity.QueueTicket;
 import Singheatlh.springboot_backend.entity.enums.QueueStatus;
 
 @Repository
 public interface QueueTicketRepository extends JpaRepository<QueueTicket, Integer> {
     
+    // Constructor projection for read-only listings: selects only the QueueTicketDto columns,
+    // so the EAGER appointment association is never loaded and nothing is added to the persistence context
+    String DTO_SELECT = "SELECT new Singheatlh.springboot_backend.dto.QueueTicketDto(" +
+           "qt.ticketId, qt.appointmentId, qt.status, qt.checkInTime, qt.queueNumber, " +
+           "qt.isFastTracked, qt.fastTrackReason, qt.ticketNumberForDay, " +
+           "qt.consultationStartTime, qt.consultationCompleteTime) " +
+           "FROM QueueTicket qt ";
+    
     // Find queue ticket by ID with appointment AND doctor eagerly loaded (for check-in confirmation)
     @Query("SELECT qt FROM QueueTicket qt " +
            "LEFT JOIN FETCH qt.appointment a " +
@@ -29,8 +44,26 @@ public interface QueueTicketRepository extends JpaRepository<QueueTicket, Intege
     Optional<QueueTicket> findByAppointmentId(String appointmentId);
     
     // Find all queue tickets for a specific patient (via JOIN with Appointment)
-    @Query("SELECT qt FROM QueueTicket qt JOIN qt.appointment a WHERE a.patientId = :patientId")
-    List<QueueTicket> findByPatientId(@Param("patientId") java.util.UUID patientId);
+    @Query(DTO_SELECT + "JOIN qt.appointment a WHERE a.patientId = :patientId")
+    List<QueueTicketDto> findDtosByPatientId(@Param("patientId") java.util.UUID patientId);
+    
+    // Find all queue tickets as DTOs
+    @Query(DTO_SELECT)
+    List<QueueTicketDto> findAllDtos();
+    
+    // Find the next page of a patient's queue tickets after the given ticket ID (keyset pagination).
+    // ticketId is an identity column so it follows check-in order.
+    @Query(DTO_SELECT + "JOIN qt.appointment a WHERE a.patientId = :patientId " +
+           "AND qt.ticketId > :afterTicketId " +
+           "ORDER BY qt.ticketId ASC")
+    List<QueueTicketDto> findDtosByPatientIdAfterCursor(
+        @Param("patientId") java.util.UUID patientId,
+        @Param("afterTicketId") Integer afterTicketId,
+        Pageable limit);
+    
+    // Count all queue tickets for a specific patient
+    @Query("SELECT COUNT(qt) FROM QueueTicket qt JOIN qt.appointment a WHERE a.patientId = :patientId")
+    long countByPatientId(@Param("patientId") java.util.UUID patientId);
     
     // Find all queue tickets for a specific doctor (via JOIN with Appointment)
     @Query("SELECT qt FROM QueueTicket qt JOIN qt.appointment a WHERE a.doctorId = :doctorId")
@@ -51,8 +84,9 @@ public interface QueueTicketRepository extends JpaRepository<QueueTicket, Intege
     @Query("SELECT qt FROM QueueTicket qt JOIN qt.appointment a JOIN a.doctor d WHERE d.clinicId = :clinicId AND qt.status = :status")
     List<QueueTicket> findByClinicIdAndStatus(@Param("clinicId") Integer clinicId, @Param("status") QueueStatus status);
     
-    // Find active queue tickets for a doctor today (ordered by queue number)
-    @Query("SELECT qt FROM QueueTicket qt JOIN qt.appointment a WHERE a.doctorId = :doctorId " +
+    // Find active queue tickets for a doctor today (ordered by queue number); the appointment is
+    // fetched in the same statement, otherwise its eager one-to-one is loaded once per ticket
+    @Query("SELECT qt FROM QueueTicket qt JOIN FETCH qt.appointment a WHERE a.doctorId = :doctorId " +
            "AND DATE(qt.checkInTime) = DATE(:date) " +
            "AND qt.status NOT IN ('COMPLETED', 'NO_SHOW') " +
            "ORDER BY qt.queueNumber ASC")
@@ -61,15 +95,48 @@ public interface QueueTicketRepository extends JpaRepository<QueueTicket, Intege
         @Param("doctorId") String doctorId, 
         @Param("date") LocalDateTime date);
     
+    // Move every active ticket of a doctor's queue for the day up one place in a single statement.
+    // Callers hold the rows locked through findActiveQueueByDoctorIdAndDate; the persistence context
+    // is flushed first and cleared afterwards, so re-read the queue before using its tickets again
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE QueueTicket qt SET qt.queueNumber = qt.queueNumber - 1 " +
+           "WHERE qt.appointmentId IN (SELECT a.appointmentId FROM Appointment a WHERE a.doctorId = :doctorId) " +
+           "AND DATE(qt.checkInTime) = DATE(:date) " +
+           "AND qt.status NOT IN ('COMPLETED', 'NO_SHOW')")
+    int decrementActiveQueueNumbers(
+        @Param("doctorId") String doctorId,
+        @Param("date") LocalDateTime date);
+    
+    // Read-only view of a doctor's active queue for today; unlike findActiveQueueByDoctorIdAndDate
+    // this takes no row locks, so display polling does not contend with check-in / call-next
+    @Query(DTO_SELECT + "JOIN qt.appointment a WHERE a.doctorId = :doctorId " +
+           "AND DATE(qt.checkInTime) = DATE(:date) " +
+           "AND qt.status NOT IN ('COMPLETED', 'NO_SHOW') " +
+           "ORDER BY qt.queueNumber ASC")
+    List<QueueTicketDto> findActiveQueueDtosByDoctorIdAndDate(
+        @Param("doctorId") String doctorId, 
+        @Param("date") LocalDateTime date);
+    
     // Find active queue tickets for a clinic today (ordered by queue number)
-    @Query("SELECT qt FROM QueueTicket qt JOIN qt.appointment a JOIN a.doctor d WHERE d.clinicId = :clinicId " +
+    @Query(DTO_SELECT + "JOIN qt.appointment a JOIN a.doctor d WHERE d.clinicId = :clinicId " +
            "AND DATE(qt.checkInTime) = DATE(:date) " +
            "AND qt.status NOT IN ('COMPLETED', 'NO_SHOW') " +
            "ORDER BY qt.queueNumber ASC")
-    List<QueueTicket> findActiveQueueByClinicIdAndDate(
+    List<QueueTicketDto> findActiveQueueDtosByClinicIdAndDate(
         @Param("clinicId") Integer clinicId, 
         @Param("date") LocalDateTime date);
     
+    // Stream a clinic's queue tickets checked in during [start, end) for export, through a
+    // server-side cursor (see AppointmentRepository.streamDtosByClinicIdAndDateRange)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppointmentRepository.EXPORT_FETCH_SIZE))
+    @Query(DTO_SELECT + "JOIN qt.appointment a JOIN a.doctor d WHERE d.clinicId = :clinicId " +
+           "AND qt.checkInTime >= :start AND qt.checkInTime < :end " +
+           "ORDER BY qt.ticketId ASC")
+    Stream<QueueTicketDto> streamDtosByClinicIdAndCheckInRange(
+        @Param("clinicId") Integer clinicId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+    
     // Find ALL queue tickets for a clinic on a specific date (for statistics/reporting)
     @Query("SELECT qt FROM QueueTicket qt JOIN qt.appointment a JOIN a.doctor d WHERE d.clinicId = :clinicId " +
            "AND DATE(qt.checkInTime) = DATE(:date) " +
@@ -101,6 +101,45 @@ public interface ScheduleRepository extends JpaRepository<Schedule, String> {
             Pageable pageable
     );
 
+    // Find the next page of a doctor's schedules after the given (start_datetime, schedule_id) cursor
+    @Query(value = "SELECT * FROM schedule s WHERE s.doctor_id = :doctorId " +
+           "AND (s.start_datetime, s.schedule_id) > (:afterStart, :afterId) " +
+           "ORDER BY s.start_datetime ASC, s.schedule_id ASC LIMIT :limit",
+           nativeQuery = true)
+    List<Schedule> findByDoctorIdAfterCursor(
+            @Param("doctorId") String doctorId,
+            @Param("afterStart") LocalDateTime afterStart,
+            @Param("afterId") String afterId,
+            @Param("limit") int limit
+    );
+
+    // Find the next page of a doctor's schedules within a date range after the given cursor
+    @Query(value = "SELECT * FROM schedule s WHERE s.doctor_id = :doctorId " +
+           "AND s.start_datetime >= :startDate AND s.end_datetime <= :endDate " +
+           "AND (s.start_datetime, s.schedule_id) > (:afterStart, :afterId) " +
+           "ORDER BY s.start_datetime ASC, s.schedule_id ASC LIMIT :limit",
+           nativeQuery = true)
+    List<Schedule> findByDoctorIdAndDateRangeAfterCursor(
+            @Param("doctorId") String doctorId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("afterStart") LocalDateTime afterStart,
+            @Param("afterId") String afterId,
+            @Param("limit") int limit
+    );
+
+    // Count schedules for a doctor
+    long countByDoctorId(String doctorId);
+
+    // Count schedules for a doctor within a date range
+    @Query("SELECT COUNT(s) FROM Schedule s WHERE s.doctorId = :doctorId " +
+           "AND s.startDatetime >= :startDate AND s.endDatetime <= :endDate")
+    long countByDoctorIdAndDateRange(
+            @Param("doctorId") String doctorId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate
+    );
+
     // Get maximum schedule ID for efficient ID generation
     @Query(value = "SELECT s.schedule_id FROM schedule s ORDER BY s.schedule_id DESC LIMIT 1",
            nativeQuery = true)
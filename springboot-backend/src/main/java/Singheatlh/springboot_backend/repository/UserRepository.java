@@ -29,4 +29,61 @@ public interface UserRepository extends JpaRepository<User, UUID> {
         @Param("role") String role,
         Pageable pageable
     );
+
+    // Keyset variant of findWithPaginationAndSearch: seeks past the last user_id instead of using OFFSET
+    @Query(value = "SELECT * FROM user_profile u WHERE " +
+           "(:search IS NULL OR u.name ILIKE :searchPattern OR u.email ILIKE :searchPattern) AND " +
+           "(:role IS NULL OR u.role = :role) AND " +
+           "u.user_id > :afterId " +
+           "ORDER BY u.user_id ASC LIMIT :limit",
+           nativeQuery = true)
+    List<User> findWithSearchAfterCursor(
+        @Param("search") String search,
+        @Param("searchPattern") String searchPattern,
+        @Param("role") String role,
+        @Param("afterId") UUID afterId,
+        @Param("limit") int limit
+    );
+
+    @Query(value = "SELECT COUNT(*) FROM user_profile u WHERE " +
+           "(:search IS NULL OR u.name ILIKE :searchPattern OR u.email ILIKE :searchPattern) AND " +
+           "(:role IS NULL OR u.role = :role)",
+           nativeQuery = true)
+    long countWithSearch(
+        @Param("search") String search,
+        @Param("searchPattern") String searchPattern,
+        @Param("role") String role
+    );
+
+    // All system dashboard totals in one round trip: one grouped pass per table instead of
+    // loading entities; doctor and clinic counts come from their primary key indexes
+    @Query(value = "SELECT " +
+           "u.patients AS \"patients\", u.clinicStaff AS \"clinicStaff\", u.administrators AS \"administrators\", " +
+           "(SELECT COUNT(*) FROM doctor) AS \"doctors\", " +
+           "(SELECT COUNT(*) FROM clinic) AS \"clinics\", " +
+           "a.total AS \"appointments\", a.completed AS \"completedAppointments\", " +
+           "a.upcoming AS \"upcomingAppointments\", a.cancelled AS \"cancelledAppointments\" " +
+           "FROM (SELECT COUNT(*) FILTER (WHERE role = 'P') AS patients, " +
+           "             COUNT(*) FILTER (WHERE role = 'C') AS clinicStaff, " +
+           "             COUNT(*) FILTER (WHERE role = 'S') AS administrators " +
+           "      FROM user_profile) u, " +
+           "     (SELECT COUNT(*) AS total, " +
+           "             COUNT(*) FILTER (WHERE status = 'Completed') AS completed, " +
+           "             COUNT(*) FILTER (WHERE status = 'Upcoming') AS upcoming, " +
+           "             COUNT(*) FILTER (WHERE status = 'Cancelled') AS cancelled " +
+           "      FROM appointment) a",
+           nativeQuery = true)
+    SystemCounts countSystemTotals();
+
+    interface SystemCounts {
+        Long getPatients();
+        Long getClinicStaff();
+        Long getAdministrators();
+        Long getDoctors();
+        Long getClinics();
+        Long getAppointments();
+        Long getCompletedAppointments();
+        Long getUpcomingAppointments();
+        Long getCancelledAppointments();
+    }
 }
@@ -5,7 +5,12 @@ import java.util.List;
 import java.util.UUID;
 
 import Singheatlh.springboot_backend.dto.AppointmentDto;
+import Singheatlh.springboot_backend.dto.BulkCancellationResultDto;
+import Singheatlh.springboot_backend.dto.BulkRedistributionResultDto;
 import Singheatlh.springboot_backend.dto.CreateAppointmentRequest;
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
+import Singheatlh.springboot_backend.dto.request.BulkCancelAppointmentsRequest;
+import Singheatlh.springboot_backend.dto.request.BulkRedistributeAppointmentsRequest;
 import Singheatlh.springboot_backend.dto.request.RescheduleAppointmentRequest;
 import Singheatlh.springboot_backend.entity.enums.AppointmentStatus;
 
@@ -43,6 +48,18 @@ public interface AppointmentService {
      */
     void cancelAppointmentByStaff(String appointmentId, UUID staffId, String reason);
 
+    /**
+     * Cancel every upcoming appointment of a doctor (or of all doctors in a clinic)
+     * starting within [startDatetime, endDatetime), e.g. when a doctor calls in sick.
+     * Applies the staff cancellation metadata with a single set-based update and
+     * notifies the affected patients in one batch after the transaction commits.
+     *
+     * @param request The bulk cancellation request (exactly one of doctorId / clinicId)
+     * @return The IDs of the appointments that were cancelled
+     * @throws IllegalArgumentException if the reason, staff ID, target or time range is invalid
+     */
+    BulkCancellationResultDto bulkCancelAppointmentsByStaff(BulkCancelAppointmentsRequest request);
+
     AppointmentDto rescheduleAppointment(String appointmentId, LocalDateTime newDateTime);
 
     /**
@@ -81,6 +98,17 @@ public interface AppointmentService {
      */
     AppointmentDto rescheduleAppointmentByStaff(String appointmentId, RescheduleAppointmentRequest request);
 
+    /**
+     * Move a batch of displaced appointments onto free slots of other doctors in the same clinic.
+     * Slots are chosen by greedy min-cost matching against each appointment's original start time,
+     * and all moves are applied through the staff reschedule strategy in one transaction.
+     *
+     * @param request The appointments to move and the allowed time window
+     * @return The rescheduled appointments and the IDs that could not be placed
+     * @throws IllegalArgumentException if no appointment IDs are given or the window is invalid
+     */
+    BulkRedistributionResultDto bulkRedistributeAppointmentsByStaff(BulkRedistributeAppointmentsRequest request);
+
     // ========== Clinic Staff Methods ==========
 
     /**
@@ -121,4 +149,39 @@ public interface AppointmentService {
      * @return List of upcoming appointments for the clinic
      */
     List<AppointmentDto> getUpcomingAppointmentsByClinicId(Integer clinicId);
+
+    // ========== Keyset (cursor) Pagination ==========
+
+    /**
+     * Get a page of a patient's appointments ordered by start time.
+     * @param patientId The patient ID
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param pageSize Maximum number of appointments to return
+     * @param includeTotal Whether to also count all matching appointments
+     * @return A cursor page of appointments
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    CursorPageResponse<AppointmentDto> getAppointmentsByPatientIdPage(
+        UUID patientId, String cursor, int pageSize, boolean includeTotal);
+
+    /**
+     * Get a page of a doctor's appointments ordered by start time.
+     * @see #getAppointmentsByPatientIdPage(UUID, String, int, boolean)
+     */
+    CursorPageResponse<AppointmentDto> getAppointmentsByDoctorIdPage(
+        String doctorId, String cursor, int pageSize, boolean includeTotal);
+
+    /**
+     * Get a page of a clinic's appointments ordered by start time.
+     * @see #getAppointmentsByPatientIdPage(UUID, String, int, boolean)
+     */
+    CursorPageResponse<AppointmentDto> getAppointmentsByClinicIdPage(
+        Integer clinicId, String cursor, int pageSize, boolean includeTotal);
+
+    /**
+     * Get a page of appointments with the given status ordered by start time.
+     * @see #getAppointmentsByPatientIdPage(UUID, String, int, boolean)
+     */
+    CursorPageResponse<AppointmentDto> getAppointmentsByStatusPage(
+        AppointmentStatus status, String cursor, int pageSize, boolean includeTotal);
 }
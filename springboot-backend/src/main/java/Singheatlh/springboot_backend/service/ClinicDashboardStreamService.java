@@ -0,0 +1,25 @@
+package Singheatlh.springboot_backend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Push feed of a clinic's live dashboard.
+ * Subscribers get a "snapshot" event (ClinicDashboardSnapshot: today's ClinicStatisticsDto and its
+ * sequence), then "delta" events (ClinicDashboardDelta) numbered after it as queue events change it. Changes are coalesced so each clinic is
+ * recomputed at most a fixed number of times per second, however many dashboards are open.
+ */
+public interface ClinicDashboardStreamService {
+
+    /**
+     * Open a dashboard stream for a clinic
+     * @param clinicId The clinic ID
+     * @return Emitter to return from the controller
+     */
+    SseEmitter subscribe(Integer clinicId);
+
+    /**
+     * Mark a clinic's dashboard as changed; subscribers receive the delta on the next flush
+     * @param clinicId The clinic ID
+     */
+    void markChanged(Integer clinicId);
+}
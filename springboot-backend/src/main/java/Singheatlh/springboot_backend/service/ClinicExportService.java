@@ -0,0 +1,47 @@
+package Singheatlh.springboot_backend.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface ClinicExportService {
+
+    enum Dataset {
+        APPOINTMENTS,
+        QUEUE_TICKETS,
+        MEDICAL_SUMMARIES
+    }
+
+    enum Format {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * A checked export request, ready to be written
+     * @param fileName Suggested download name, e.g. clinic-3-appointments-2025-01-01_2025-01-31.csv.gz
+     */
+    record Export(Integer clinicId, Dataset dataset, LocalDate fromDate, LocalDate toDate, Format format,
+                  String fileName) {
+    }
+
+    /**
+     * Authorize and validate an export before anything is written, so errors can still be reported as
+     * a normal response. Only system administrators and the clinic's own staff may export its data.
+     * @param callerId Supabase user ID of the authenticated caller, null if the request has no valid token
+     * @param clinicId The clinic ID
+     * @param dataset Which rows to export
+     * @param fromDate First day of the range (defaults to 29 days before toDate)
+     * @param toDate Last day of the range, inclusive (defaults to today)
+     * @param format CSV or NDJSON (defaults to CSV)
+     * @return The export to pass to writeExport
+     */
+    Export prepareExport(String callerId, Integer clinicId, Dataset dataset, LocalDate fromDate, LocalDate toDate, Format format);
+
+    /**
+     * Stream the clinic's rows, gzip-compressed, to out. Rows are read through a database cursor and
+     * written as they arrive, so memory use does not depend on the number of rows.
+     * @return Number of rows written
+     */
+    long writeExport(Export export, OutputStream out) throws IOException;
+}
@@ -3,6 +3,7 @@ package Singheatlh.springboot_backend.service;
 import java.util.List;
 
 import Singheatlh.springboot_backend.dto.ClinicDto;
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
 
 public interface ClinicManagementService {
@@ -39,4 +40,7 @@ public interface ClinicManagementService {
 
     // Get clinics with pagination and search
     PaginatedResponse<ClinicDto> getClinicsWithPagination(int page, int pageSize, String search);
+
+    // Get clinics with keyset (cursor) pagination and search
+    CursorPageResponse<ClinicDto> getClinicsWithCursor(String cursor, int pageSize, String search, boolean includeTotal);
 }
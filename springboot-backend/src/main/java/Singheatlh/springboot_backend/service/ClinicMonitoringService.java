@@ -1,6 +1,7 @@
 package Singheatlh.springboot_backend.service;
 
 import Singheatlh.springboot_backend.dto.ClinicStatisticsDto;
+import Singheatlh.springboot_backend.dto.QueueAnalyticsDto;
 import java.time.LocalDate;
 
 public interface ClinicMonitoringService {
@@ -11,5 +12,33 @@ public interface ClinicMonitoringService {
      * @return Clinic statistics DTO
      */
     ClinicStatisticsDto getClinicStatistics(Integer clinicId, LocalDate date);
-}
 
+    /**
+     * Drop the cached snapshot of a past day after its rollup changed
+     * @param clinicId The clinic ID
+     * @param date The statistics date
+     */
+    void evictStatisticsSnapshot(Integer clinicId, LocalDate date);
+
+    /**
+     * Get clinic-wide queue analytics over a date range, bucketed by day, week or month
+     * @param clinicId The clinic ID
+     * @param fromDate First day of the range (defaults to 29 days before toDate)
+     * @param toDate Last day of the range, inclusive (defaults to today)
+     * @param granularity Bucket size (defaults to DAY)
+     * @return Time series, range totals and per-doctor totals
+     */
+    QueueAnalyticsDto getClinicAnalytics(Integer clinicId, LocalDate fromDate, LocalDate toDate,
+                                         QueueAnalyticsDto.Granularity granularity);
+
+    /**
+     * Get queue analytics for one doctor over a date range, bucketed by day, week or month
+     * @param doctorId The doctor ID
+     * @param fromDate First day of the range (defaults to 29 days before toDate)
+     * @param toDate Last day of the range, inclusive (defaults to today)
+     * @param granularity Bucket size (defaults to DAY)
+     * @return Time series and range totals
+     */
+    QueueAnalyticsDto getDoctorAnalytics(String doctorId, LocalDate fromDate, LocalDate toDate,
+                                         QueueAnalyticsDto.Granularity granularity);
+}
@@ -1,5 +1,6 @@
 package Singheatlh.springboot_backend.service;
 
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.DoctorDto;
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
 
@@ -21,4 +22,6 @@ public interface DoctorService {
     int getDoctorCount();
 
     PaginatedResponse<DoctorDto> getDoctorsWithPagination(int page, int pageSize, String search);
+
+    CursorPageResponse<DoctorDto> getDoctorsWithCursor(String cursor, int pageSize, String search, boolean includeTotal);
 }
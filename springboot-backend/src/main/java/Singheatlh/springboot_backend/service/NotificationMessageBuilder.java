@@ -1,5 +1,7 @@
 package Singheatlh.springboot_backend.service;
 
+import Singheatlh.springboot_backend.dto.AppointmentCancellationNotice;
+import Singheatlh.springboot_backend.dto.AppointmentRescheduleNotice;
 import Singheatlh.springboot_backend.dto.NotificationContext;
 
 /**
@@ -33,6 +35,16 @@ public interface NotificationMessageBuilder {
      */
     String buildCheckInConfirmationMessage(NotificationContext context);
     
+    /**
+     * Build message for a staff-cancelled appointment
+     */
+    String buildAppointmentCancelledMessage(AppointmentCancellationNotice notice, String reason);
+    
+    /**
+     * Build message for an appointment moved to another doctor or time by staff
+     */
+    String buildAppointmentRescheduledMessage(AppointmentRescheduleNotice notice);
+    
     /**
      * Get subject line for notification type
      */
@@ -1,5 +1,9 @@
 package Singheatlh.springboot_backend.service;
 
+import java.util.List;
+
+import Singheatlh.springboot_backend.dto.AppointmentCancellationNotice;
+import Singheatlh.springboot_backend.dto.AppointmentRescheduleNotice;
 import Singheatlh.springboot_backend.entity.QueueTicket;
 
 /**
@@ -37,4 +41,19 @@ public interface NotificationService {
      * @param queueTicket The queue ticket of the patient who just checked in
      */
     void sendCheckInConfirmationNotification(QueueTicket queueTicket);
+    
+    /**
+     * Send email notifications to every patient whose appointment was cancelled in one bulk staff operation.
+     * Runs in the background so the cancelling request does not wait on the email API.
+     * @param notices The cancelled appointments with patient contact details
+     * @param reason The cancellation reason given by staff
+     */
+    void sendAppointmentCancelledNotifications(List<AppointmentCancellationNotice> notices, String reason);
+    
+    /**
+     * Send email notifications to every patient whose appointment was moved in one bulk staff operation.
+     * Runs in the background so the redistributing request does not wait on the email API.
+     * @param notices The moved appointments with patient contact details, new doctor and times
+     */
+    void sendAppointmentRescheduledNotifications(List<AppointmentRescheduleNotice> notices);
 }
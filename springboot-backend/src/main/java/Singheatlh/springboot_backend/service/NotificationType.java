@@ -8,6 +8,8 @@ public enum NotificationType {
     NEXT,
     CALLED,
     FAST_TRACK,
-    CHECK_IN_CONFIRMATION
+    CHECK_IN_CONFIRMATION,
+    APPOINTMENT_CANCELLED,
+    APPOINTMENT_RESCHEDULED
 }
 
@@ -2,6 +2,7 @@ package Singheatlh.springboot_backend.service;
 
 import java.util.List;
 
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.QueueStatusDto;
 import Singheatlh.springboot_backend.dto.QueueTicketDto;
 import Singheatlh.springboot_backend.entity.enums.QueueStatus;
@@ -34,6 +35,9 @@ public interface QueueService {
     
     List<QueueTicketDto> getQueueTicketsByPatientId(java.util.UUID patientId);
     
+    CursorPageResponse<QueueTicketDto> getQueueTicketsByPatientIdPage(
+        java.util.UUID patientId, String cursor, int pageSize, boolean includeTotal);
+    
     void processQueueNotifications(String doctorId);
     
     Integer getCurrentServingTicketId(String doctorId);
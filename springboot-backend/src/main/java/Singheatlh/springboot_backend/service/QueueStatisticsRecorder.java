@@ -0,0 +1,46 @@
+package Singheatlh.springboot_backend.service;
+
+import java.time.LocalDateTime;
+
+import Singheatlh.springboot_backend.entity.QueueTicket;
+import Singheatlh.springboot_backend.entity.enums.QueueStatus;
+
+/**
+ * Keeps the daily clinic/doctor statistics rollups in step with queue ticket transitions
+ */
+public interface QueueStatisticsRecorder {
+
+    /**
+     * Apply the difference between two states of a ticket to the rollups of its check-in date
+     * @param doctorId The ticket's doctor ID
+     * @param clinicId The doctor's clinic ID
+     * @param before The ticket state before the transition ({@link TicketSnapshot#NONE} for a new ticket)
+     * @param after The ticket state after the transition
+     */
+    void recordTransition(String doctorId, Integer clinicId, TicketSnapshot before, TicketSnapshot after);
+
+    /**
+     * Apply a transition of a ticket whose appointment is loaded
+     * @param ticket The ticket after the transition
+     * @param before The ticket state captured before the transition
+     */
+    default void recordTransition(QueueTicket ticket, TicketSnapshot before) {
+        recordTransition(ticket.getDoctorId(), ticket.getClinicId(), before, TicketSnapshot.of(ticket));
+    }
+
+    /**
+     * The ticket fields the statistics are derived from
+     */
+    record TicketSnapshot(QueueStatus status,
+                          LocalDateTime checkInTime,
+                          LocalDateTime consultationStartTime,
+                          LocalDateTime consultationCompleteTime) {
+
+        public static final TicketSnapshot NONE = new TicketSnapshot(null, null, null, null);
+
+        public static TicketSnapshot of(QueueTicket ticket) {
+            return new TicketSnapshot(ticket.getStatus(), ticket.getCheckInTime(),
+                    ticket.getConsultationStartTime(), ticket.getConsultationCompleteTime());
+        }
+    }
+}
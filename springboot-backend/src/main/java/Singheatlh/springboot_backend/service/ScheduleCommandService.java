@@ -1,5 +1,6 @@
 package Singheatlh.springboot_backend.service;
 
+import Singheatlh.springboot_backend.dto.ScheduleChangeImpactDto;
 import Singheatlh.springboot_backend.dto.ScheduleDto;
 
 /**
@@ -27,4 +28,18 @@ public interface ScheduleCommandService {
      * @param id The schedule ID
      */
     void deleteSchedule(String id);
+
+    /**
+     * Update an existing schedule and report the booked appointments it leaves uncovered
+     * @param scheduleDto The schedule data to update
+     * @return The updated schedule and the affected appointments
+     */
+    ScheduleChangeImpactDto updateScheduleWithImpact(ScheduleDto scheduleDto);
+
+    /**
+     * Delete a schedule by ID and report the booked appointments it leaves uncovered
+     * @param id The schedule ID
+     * @return The affected appointments (schedule is null)
+     */
+    ScheduleChangeImpactDto deleteScheduleWithImpact(String id);
 }
@@ -1,6 +1,8 @@
 package Singheatlh.springboot_backend.service;
 
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
+import Singheatlh.springboot_backend.dto.ScheduleChangeImpactDto;
 import Singheatlh.springboot_backend.dto.ScheduleDto;
 import Singheatlh.springboot_backend.dto.SlotDto;
 import Singheatlh.springboot_backend.entity.enums.ScheduleType;
@@ -17,6 +19,8 @@ public interface ScheduleService {
     List<ScheduleDto> getAllSchedules();
     ScheduleDto updateSchedule(ScheduleDto scheduleDto);
     void deleteSchedule(String id);
+    ScheduleChangeImpactDto updateScheduleWithImpact(ScheduleDto scheduleDto);
+    ScheduleChangeImpactDto deleteScheduleWithImpact(String id);
 
     // Custom queries
     List<ScheduleDto> getSchedulesByDoctorId(String doctorId);
@@ -43,6 +47,18 @@ public interface ScheduleService {
             int pageSize
     );
 
+    // Keyset (cursor) pagination - pass the previous page's nextCursor, or null for the first page
+    CursorPageResponse<ScheduleDto> getSchedulesByDoctorIdPage(
+            String doctorId, String cursor, int pageSize, boolean includeTotal);
+    CursorPageResponse<ScheduleDto> getSchedulesByDoctorAndDateRangePage(
+            String doctorId,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String cursor,
+            int pageSize,
+            boolean includeTotal
+    );
+
     /*
      * Get schedules in slots
      * Returns a map with date strings (YYYY-MM-DD format) as keys and list of available slots as values
@@ -1,14 +1,24 @@
 package Singheatlh.springboot_backend.service;
 
+import Singheatlh.springboot_backend.backup.BackupDownload;
+import Singheatlh.springboot_backend.backup.BackupManifest;
+import Singheatlh.springboot_backend.dto.BackupJobDto;
 import Singheatlh.springboot_backend.dto.BackupStatusDto;
-import org.springframework.core.io.Resource;
 
 import java.util.List;
 
 public interface SystemBackupService {
     BackupStatusDto createBackup();
     List<BackupStatusDto> getBackupHistory();
-    Resource downloadBackup(String backupId);
+    BackupManifest getBackupManifest(String backupId);
+    BackupDownload downloadBackup(String backupId);
     void restoreBackup(String backupId);
     void deleteBackup(String backupId);
+
+    // Background jobs: return as soon as the job is started; only one backup or restore runs at a time
+    BackupJobDto startBackup(boolean incremental);
+    BackupJobDto startRestore(String backupId);
+    BackupJobDto getJob(String jobId);
+    List<BackupJobDto> getJobs();
+    BackupJobDto cancelJob(String jobId);
 }
@@ -1,7 +1,24 @@
 package Singheatlh.springboot_backend.service;
 
+import Singheatlh.springboot_backend.dto.QueryInstrumentationReportDto;
 import Singheatlh.springboot_backend.dto.SystemStatisticsDto;
 
 public interface SystemMonitoringService {
     SystemStatisticsDto getSystemStatistics();
+
+    /**
+     * Per request mapping query counts, JDBC time, entities loaded and slowest statements
+     */
+    QueryInstrumentationReportDto getQueryInstrumentationReport();
+
+    /**
+     * Adjust query instrumentation at runtime; null arguments keep the current setting
+     */
+    QueryInstrumentationReportDto configureQueryInstrumentation(Boolean enabled, Double sampleRate,
+                                                                Long slowQueryThresholdMillis, Boolean hibernateStatistics);
+
+    /**
+     * Discard collected query instrumentation and Hibernate statistics
+     */
+    void resetQueryInstrumentation();
 }
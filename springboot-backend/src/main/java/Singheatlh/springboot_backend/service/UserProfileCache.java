@@ -0,0 +1,104 @@
+package Singheatlh.springboot_backend.service;
+
+import Singheatlh.springboot_backend.dto.ClinicStaffDto;
+import Singheatlh.springboot_backend.dto.UserDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Resolved user profiles by Supabase user ID: the role-specific UserDto (PatientDto, ClinicStaffDto
+ * with its clinic, SystemAdministratorDto), so identity lookups on authenticated requests skip the
+ * user_profile and role table queries.
+ *
+ * Bounded (least recently used entries go first) and time-limited. Services that create, update or
+ * delete a user call invalidate, and clinic changes call invalidateClinic; the TTL bounds staleness
+ * for changes made outside the application.
+ */
+@Component
+public class UserProfileCache {
+
+    private record Entry(UserDto profile, long expiresAtNanos) {
+    }
+
+    @Value("${auth.profile-cache.ttl:5m}")
+    private Duration ttl;
+
+    @Value("${auth.profile-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<UUID, Entry> entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+            return size() > maxSize;
+        }
+    });
+
+    // Bumped on every invalidation; a load that overlapped one is returned but not cached
+    private volatile long invalidations;
+
+    /**
+     * The cached profile, or the loader's result (cached) if there is none or it has expired
+     */
+    public UserDto get(UUID userId, Supplier<UserDto> loader) {
+        Entry entry = entries.get(userId);
+        long now = System.nanoTime();
+        if (entry != null && entry.expiresAtNanos() - now > 0) {
+            return entry.profile();
+        }
+        long invalidationsBefore = invalidations;
+        UserDto profile = loader.get();
+        synchronized (this) {
+            if (invalidations == invalidationsBefore) {
+                entries.put(userId, new Entry(profile, now + ttl.toNanos()));
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Drop a user's profile after it changed. Inside a transaction it is dropped again after commit,
+     * so a concurrent read of the old row cannot put it back.
+     */
+    public void invalidate(UUID userId) {
+        evictNowAndAfterCompletion(() -> evict(userId));
+    }
+
+    /**
+     * Drop the profiles of a clinic's staff after the clinic was updated or deleted
+     */
+    public void invalidateClinic(Integer clinicId) {
+        evictNowAndAfterCompletion(() -> evictClinic(clinicId));
+    }
+
+    private void evictNowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private synchronized void evict(UUID userId) {
+        invalidations++;
+        entries.remove(userId);
+    }
+
+    private synchronized void evictClinic(Integer clinicId) {
+        invalidations++;
+        entries.values().removeIf(entry -> entry.profile() instanceof ClinicStaffDto staff
+            && clinicId.equals(staff.getClinicId()));
+    }
+}
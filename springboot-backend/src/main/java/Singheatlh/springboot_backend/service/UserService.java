@@ -1,5 +1,6 @@
 package Singheatlh.springboot_backend.service;
 
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
 import Singheatlh.springboot_backend.dto.UserDto;
 import Singheatlh.springboot_backend.entity.enums.Role;
@@ -22,4 +23,6 @@ public interface UserService {
     List<UserDto> getUsersByRole(Role role);
 
     PaginatedResponse<UserDto> getUsersWithPagination(int page, int pageSize, String search, String role);
+
+    CursorPageResponse<UserDto> getUsersWithCursor(String cursor, int pageSize, String search, String role, boolean includeTotal);
 }
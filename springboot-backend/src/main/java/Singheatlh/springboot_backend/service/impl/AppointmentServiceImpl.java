@@ -1,27 +1,54 @@
 package Singheatlh.springboot_backend.service.impl;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import Singheatlh.springboot_backend.dto.AppointmentCancellationNotice;
 import Singheatlh.springboot_backend.dto.AppointmentDto;
+import Singheatlh.springboot_backend.dto.AppointmentRescheduleNotice;
+import Singheatlh.springboot_backend.dto.BulkCancellationResultDto;
+import Singheatlh.springboot_backend.dto.BulkRedistributionResultDto;
 import Singheatlh.springboot_backend.dto.CreateAppointmentRequest;
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
+import Singheatlh.springboot_backend.dto.request.BulkCancelAppointmentsRequest;
+import Singheatlh.springboot_backend.dto.request.BulkRedistributeAppointmentsRequest;
 import Singheatlh.springboot_backend.dto.request.RescheduleAppointmentRequest;
 import Singheatlh.springboot_backend.entity.Appointment;
+import Singheatlh.springboot_backend.entity.Doctor;
 import Singheatlh.springboot_backend.entity.enums.AppointmentStatus;
 import Singheatlh.springboot_backend.mapper.AppointmentMapper;
+import Singheatlh.springboot_backend.metrics.ApplicationMetrics;
 import Singheatlh.springboot_backend.repository.AppointmentRepository;
+import Singheatlh.springboot_backend.repository.DoctorRepository;
 import Singheatlh.springboot_backend.service.AppointmentService;
+import Singheatlh.springboot_backend.service.NotificationService;
+import Singheatlh.springboot_backend.service.ScheduleService;
 import Singheatlh.springboot_backend.strategy.AppointmentStrategyFactory;
 import Singheatlh.springboot_backend.strategy.cancellation.CancellationContext;
 import Singheatlh.springboot_backend.strategy.cancellation.CancellationStrategyFactory;
+import Singheatlh.springboot_backend.strategy.reschedule.AppointmentRedistributionPlanner;
+import Singheatlh.springboot_backend.strategy.reschedule.AppointmentRedistributionPlanner.CandidateSlot;
 import Singheatlh.springboot_backend.strategy.reschedule.RescheduleContext;
 import Singheatlh.springboot_backend.strategy.reschedule.RescheduleStrategyFactory;
+import Singheatlh.springboot_backend.util.KeysetCursor;
 import Singheatlh.springboot_backend.util.StreamMappingHelper;
+import Singheatlh.springboot_backend.util.TimeRangeValidator;
 
 @Service
 @Transactional
@@ -32,25 +59,42 @@ public class AppointmentServiceImpl implements AppointmentService {
     private final AppointmentStrategyFactory strategyFactory;
     private final CancellationStrategyFactory cancellationFactory;
     private final RescheduleStrategyFactory rescheduleFactory;
+    private final NotificationService notificationService;
+    private final DoctorRepository doctorRepository;
+    private final ScheduleService scheduleService;
+    private final AppointmentRedistributionPlanner redistributionPlanner;
+    private final ApplicationMetrics applicationMetrics;
 
     @Autowired
     public AppointmentServiceImpl(AppointmentRepository appointmentRepository,
                                  AppointmentMapper appointmentMapper,
                                  AppointmentStrategyFactory strategyFactory,
                                  CancellationStrategyFactory cancellationFactory,
-                                 RescheduleStrategyFactory rescheduleFactory) {
+                                 RescheduleStrategyFactory rescheduleFactory,
+                                 NotificationService notificationService,
+                                 DoctorRepository doctorRepository,
+                                 ScheduleService scheduleService,
+                                 AppointmentRedistributionPlanner redistributionPlanner,
+                                 ApplicationMetrics applicationMetrics) {
         this.appointmentRepository = appointmentRepository;
         this.appointmentMapper = appointmentMapper;
         this.strategyFactory = strategyFactory;
         this.cancellationFactory = cancellationFactory;
         this.rescheduleFactory = rescheduleFactory;
+        this.notificationService = notificationService;
+        this.doctorRepository = doctorRepository;
+        this.scheduleService = scheduleService;
+        this.redistributionPlanner = redistributionPlanner;
+        this.applicationMetrics = applicationMetrics;
     }
     
     @Override
     public AppointmentDto createAppointment(CreateAppointmentRequest request) {
         // Use Strategy Pattern to select and execute the appropriate creation strategy
         // All validation rules (including new ones from main) are handled by the validators
-        return strategyFactory.getStrategy(request).createAppointment(request);
+        return applicationMetrics.time(ApplicationMetrics.APPOINTMENT_CREATE,
+            () -> strategyFactory.getStrategy(request).createAppointment(request),
+            "walkIn", String.valueOf(request.isWalkIn()));
     }
 
     /**
@@ -76,16 +120,13 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Override
     @Transactional(readOnly = true)
     public List<AppointmentDto> getAppointmentsByPatientId(UUID patientId) {
-        List<Appointment> appointments = appointmentRepository.findByPatientId(patientId);
-        return StreamMappingHelper.mapToList(appointments, appointmentMapper::toDto);
+        return appointmentRepository.findDtosByPatientId(patientId);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<AppointmentDto> getUpcomingAppointmentsByPatientId(UUID patientId) {
-        List<Appointment> appointments = appointmentRepository
-            .findUpcomingAppointmentsByPatientId(patientId, LocalDateTime.now());
-        return StreamMappingHelper.mapToList(appointments, appointmentMapper::toDto);
+        return appointmentRepository.findUpcomingDtosByPatientId(patientId, LocalDateTime.now());
     }
     
     @Override
@@ -121,6 +162,63 @@ public class AppointmentServiceImpl implements AppointmentService {
         cancellationFactory.getStrategy(context).cancel(appointment, context);
     }
 
+    @Override
+    public BulkCancellationResultDto bulkCancelAppointmentsByStaff(BulkCancelAppointmentsRequest request) {
+        validateBulkCancellation(request);
+
+        // Truncate to the column precision so the read-back below matches the stored stamp exactly
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        String reason = request.getReason().trim();
+        LocalDateTime start = request.getStartDatetime();
+        LocalDateTime end = request.getEndDatetime();
+
+        // Single set-based UPDATE instead of findById + validate + save per appointment
+        if (request.getDoctorId() != null) {
+            appointmentRepository.bulkCancelByDoctorId(
+                request.getDoctorId(), start, end, request.getStaffId(), now, reason);
+        } else {
+            appointmentRepository.bulkCancelByClinicId(
+                request.getClinicId(), start, end, request.getStaffId(), now, reason);
+        }
+
+        List<AppointmentCancellationNotice> notices = appointmentRepository.findCancellationNotices(
+            start, end, request.getStaffId(), now);
+
+        // Hand the whole batch to notification only once the cancellation is committed
+        if (!notices.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notificationService.sendAppointmentCancelledNotifications(notices, reason);
+                }
+            });
+        }
+
+        List<String> cancelledIds = StreamMappingHelper.mapToList(
+            notices, AppointmentCancellationNotice::getAppointmentId);
+        return BulkCancellationResultDto.builder()
+            .cancelledCount(cancelledIds.size())
+            .cancelledAppointmentIds(cancelledIds)
+            .build();
+    }
+
+    /**
+     * Bulk cancellation follows the same rules as StaffCancellationStrategy (mandatory reason,
+     * no time restriction), plus a well-formed target and range.
+     */
+    private void validateBulkCancellation(BulkCancelAppointmentsRequest request) {
+        if (request.getReason() == null || request.getReason().trim().isEmpty()) {
+            throw new IllegalArgumentException("Cancellation reason is required for staff cancellations");
+        }
+        if (request.getStaffId() == null) {
+            throw new IllegalArgumentException("Staff ID is required for staff cancellations");
+        }
+        if ((request.getDoctorId() == null) == (request.getClinicId() == null)) {
+            throw new IllegalArgumentException("Exactly one of doctorId or clinicId must be provided");
+        }
+        TimeRangeValidator.validateTimeRange(request.getStartDatetime(), request.getEndDatetime());
+    }
+
     @Override
     public AppointmentDto rescheduleAppointment(String appointmentId, LocalDateTime newDateTime) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
@@ -189,47 +287,253 @@ public class AppointmentServiceImpl implements AppointmentService {
         return rescheduleFactory.getStrategy(context).reschedule(appointment, context);
     }
 
+    @Override
+    public BulkRedistributionResultDto bulkRedistributeAppointmentsByStaff(BulkRedistributeAppointmentsRequest request) {
+        if (request.getAppointmentIds() == null || request.getAppointmentIds().isEmpty()) {
+            throw new IllegalArgumentException("At least one appointment ID is required");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = (request.getWindowStart() != null && request.getWindowStart().isAfter(now))
+            ? request.getWindowStart() : now;
+        if (request.getWindowEnd() != null && !request.getWindowEnd().isAfter(windowStart)) {
+            throw new IllegalArgumentException("Window end must be after window start");
+        }
+
+        List<String> unassignedIds = new ArrayList<>();
+        List<Appointment> movable = new ArrayList<>();
+        Map<String, Appointment> byId = new HashMap<>();
+        appointmentRepository.findAllById(request.getAppointmentIds())
+            .forEach(appointment -> byId.put(appointment.getAppointmentId(), appointment));
+        for (String appointmentId : request.getAppointmentIds()) {
+            Appointment appointment = byId.get(appointmentId);
+            if (appointment != null
+                    && (appointment.getStatus() == AppointmentStatus.Upcoming
+                        || appointment.getStatus() == AppointmentStatus.Cancelled)) {
+                movable.add(appointment);
+            } else {
+                unassignedIds.add(appointmentId);
+            }
+        }
+
+        // Group by clinic - appointments may only move to doctors of their own clinic
+        Map<String, Integer> clinicBySourceDoctor = new HashMap<>();
+        doctorRepository.findAllById(StreamMappingHelper.mapToList(movable, Appointment::getDoctorId))
+            .forEach(doctor -> clinicBySourceDoctor.put(doctor.getDoctorId(), doctor.getClinicId()));
+        Map<Integer, List<Appointment>> appointmentsByClinic = new HashMap<>();
+        for (Appointment appointment : movable) {
+            Integer clinicId = clinicBySourceDoctor.get(appointment.getDoctorId());
+            if (clinicId == null) {
+                unassignedIds.add(appointment.getAppointmentId());
+                continue;
+            }
+            appointmentsByClinic.computeIfAbsent(clinicId, k -> new ArrayList<>()).add(appointment);
+        }
+
+        Map<UUID, List<CandidateSlot>> bookedByPatient = otherBookingsByPatient(movable, windowStart);
+        List<AppointmentDto> rescheduled = new ArrayList<>();
+        Map<String, LocalDateTime> previousStartById = new HashMap<>();
+        for (Map.Entry<Integer, List<Appointment>> group : appointmentsByClinic.entrySet()) {
+            Map<String, CandidateSlot> plan = redistributionPlanner.plan(group.getValue(),
+                freeSlotsForClinic(group.getKey()), bookedByPatient, windowStart, request.getWindowEnd());
+
+            for (Appointment appointment : group.getValue()) {
+                CandidateSlot slot = plan.get(appointment.getAppointmentId());
+                LocalDateTime previousStart = appointment.getStartDatetime();
+                AppointmentDto moved = slot != null ? applyRedistribution(appointment, slot, now) : null;
+                if (moved != null) {
+                    rescheduled.add(moved);
+                    previousStartById.put(appointment.getAppointmentId(), previousStart);
+                } else {
+                    unassignedIds.add(appointment.getAppointmentId());
+                }
+            }
+        }
+
+        // Patients learn of the new doctor and time only once the moves are committed
+        if (!previousStartById.isEmpty()) {
+            List<AppointmentRescheduleNotice> notices =
+                appointmentRepository.findRescheduleNotices(previousStartById.keySet());
+            notices.forEach(notice ->
+                notice.setPreviousStartDatetime(previousStartById.get(notice.getAppointmentId())));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notificationService.sendAppointmentRescheduledNotifications(notices);
+                }
+            });
+        }
+
+        return BulkRedistributionResultDto.builder()
+            .rescheduledAppointments(rescheduled)
+            .unassignedAppointmentIds(unassignedIds)
+            .build();
+    }
+
+    /**
+     * Active bookings the moved patients already hold from windowStart on, keyed by patient, so the
+     * planner does not double-book them. The appointments being moved are left out: they free their
+     * current time.
+     */
+    private Map<UUID, List<CandidateSlot>> otherBookingsByPatient(List<Appointment> movable, LocalDateTime windowStart) {
+        if (movable.isEmpty()) {
+            return Map.of();
+        }
+        Set<String> movingIds = new HashSet<>(StreamMappingHelper.mapToList(movable, Appointment::getAppointmentId));
+        Set<UUID> patientIds = new HashSet<>(StreamMappingHelper.mapToList(movable, Appointment::getPatientId));
+        Map<UUID, List<CandidateSlot>> bookedByPatient = new HashMap<>();
+        for (Appointment booked : appointmentRepository.findActiveByPatientIdsEndingAfter(patientIds, windowStart)) {
+            if (!movingIds.contains(booked.getAppointmentId())) {
+                bookedByPatient.computeIfAbsent(booked.getPatientId(), k -> new ArrayList<>())
+                    .add(new CandidateSlot(booked.getDoctorId(), booked.getStartDatetime(), booked.getEndDatetime()));
+            }
+        }
+        return bookedByPatient;
+    }
+
+    /**
+     * Free slots of every doctor in the clinic, keyed by doctor ID, from the schedule slot generator.
+     */
+    private Map<String, List<CandidateSlot>> freeSlotsForClinic(Integer clinicId) {
+        Map<String, List<CandidateSlot>> freeSlotsByDoctor = new HashMap<>();
+        for (Doctor doctor : doctorRepository.findByClinicId(clinicId)) {
+            String doctorId = doctor.getDoctorId();
+            List<CandidateSlot> slots = scheduleService.generateDoctorSlots(doctorId).values().stream()
+                .flatMap(List::stream)
+                .map(slot -> CandidateSlot.of(doctorId, slot))
+                .toList();
+            freeSlotsByDoctor.put(doctorId, slots);
+        }
+        return freeSlotsByDoctor;
+    }
+
+    /**
+     * Apply one planned move through the staff reschedule strategy, which still runs the
+     * past-time and doctor-conflict checks. A rejected move leaves the appointment untouched.
+     */
+    private AppointmentDto applyRedistribution(Appointment appointment, CandidateSlot slot, LocalDateTime now) {
+        String originalDoctorId = appointment.getDoctorId();
+        LocalDateTime originalStart = appointment.getStartDatetime();
+        LocalDateTime originalEnd = appointment.getEndDatetime();
+        AppointmentStatus originalStatus = appointment.getStatus();
+        UUID originalCancelledBy = appointment.getCancelledBy();
+        LocalDateTime originalCancelledAt = appointment.getCancelledAt();
+        String originalCancellationReason = appointment.getCancellationReason();
+
+        RescheduleContext context = RescheduleContext.builder()
+            .isStaff(true)
+            .newDateTime(slot.startDatetime())
+            .newDoctorId(slot.doctorId())
+            .now(now)
+            .build();
+        try {
+            return rescheduleFactory.getStrategy(context).reschedule(appointment, context);
+        } catch (IllegalArgumentException e) {
+            // Slot was taken concurrently - restore so the partially updated entity is not flushed
+            appointment.setDoctorId(originalDoctorId);
+            appointment.setStartDatetime(originalStart);
+            appointment.setEndDatetime(originalEnd);
+            appointment.setStatus(originalStatus);
+            appointment.setCancelledBy(originalCancelledBy);
+            appointment.setCancelledAt(originalCancelledAt);
+            appointment.setCancellationReason(originalCancellationReason);
+            return null;
+        }
+    }
+
     // ========== Clinic Staff Methods ==========
 
     @Override
     @Transactional(readOnly = true)
     public List<AppointmentDto> getAppointmentsByClinicId(Integer clinicId) {
-        List<Appointment> appointments = appointmentRepository.findByClinicId(clinicId);
-        return StreamMappingHelper.mapToList(appointments, appointmentMapper::toDto);
+        return appointmentRepository.findDtosByClinicId(clinicId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<AppointmentDto> getAppointmentsByClinicIdAndStatus(Integer clinicId, AppointmentStatus status) {
-        List<Appointment> appointments = appointmentRepository.findByClinicIdAndStatus(clinicId, status);
-        return StreamMappingHelper.mapToList(appointments, appointmentMapper::toDto);
+        return appointmentRepository.findDtosByClinicIdAndStatus(clinicId, status);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<AppointmentDto> getTodayAppointmentsByClinicId(Integer clinicId) {
-        List<Appointment> appointments = appointmentRepository.findTodayAppointmentsByClinicId(
-            clinicId, LocalDateTime.now()
-        );
-        return StreamMappingHelper.mapToList(appointments, appointmentMapper::toDto);
+        return appointmentRepository.findTodayDtosByClinicId(clinicId, LocalDateTime.now());
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<AppointmentDto> getAppointmentsByClinicIdAndDateRange(
             Integer clinicId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<Appointment> appointments = appointmentRepository.findByClinicIdAndDateRange(
-            clinicId, startDate, endDate
-        );
-        return StreamMappingHelper.mapToList(appointments, appointmentMapper::toDto);
+        return appointmentRepository.findDtosByClinicIdAndDateRange(clinicId, startDate, endDate);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<AppointmentDto> getUpcomingAppointmentsByClinicId(Integer clinicId) {
-        List<Appointment> appointments = appointmentRepository.findUpcomingAppointmentsByClinicId(
-            clinicId, LocalDateTime.now()
-        );
-        return StreamMappingHelper.mapToList(appointments, appointmentMapper::toDto);
+        return appointmentRepository.findUpcomingDtosByClinicId(clinicId, LocalDateTime.now());
+    }
+
+    // ========== Keyset (cursor) Pagination ==========
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AppointmentDto> getAppointmentsByPatientIdPage(
+            UUID patientId, String cursor, int pageSize, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        int size = KeysetCursor.normalizePageSize(pageSize);
+        List<AppointmentDto> rows = appointmentRepository.findDtosByPatientIdAfterCursor(
+            patientId, afterStart(after), afterId(after), PageRequest.of(0, size + 1));
+        return toCursorPage(rows, size,
+            includeTotal ? () -> appointmentRepository.countByPatientId(patientId) : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AppointmentDto> getAppointmentsByDoctorIdPage(
+            String doctorId, String cursor, int pageSize, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        int size = KeysetCursor.normalizePageSize(pageSize);
+        List<AppointmentDto> rows = appointmentRepository.findDtosByDoctorIdAfterCursor(
+            doctorId, afterStart(after), afterId(after), PageRequest.of(0, size + 1));
+        return toCursorPage(rows, size,
+            includeTotal ? () -> appointmentRepository.countByDoctorId(doctorId) : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AppointmentDto> getAppointmentsByClinicIdPage(
+            Integer clinicId, String cursor, int pageSize, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        int size = KeysetCursor.normalizePageSize(pageSize);
+        List<AppointmentDto> rows = appointmentRepository.findDtosByClinicIdAfterCursor(
+            clinicId, afterStart(after), afterId(after), PageRequest.of(0, size + 1));
+        return toCursorPage(rows, size,
+            includeTotal ? () -> appointmentRepository.countByClinicId(clinicId) : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AppointmentDto> getAppointmentsByStatusPage(
+            AppointmentStatus status, String cursor, int pageSize, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        int size = KeysetCursor.normalizePageSize(pageSize);
+        List<AppointmentDto> rows = appointmentRepository.findDtosByStatusAfterCursor(
+            status, afterStart(after), afterId(after), PageRequest.of(0, size + 1));
+        return toCursorPage(rows, size,
+            includeTotal ? () -> appointmentRepository.countByStatus(status) : null);
+    }
+
+    private LocalDateTime afterStart(KeysetCursor after) {
+        return after != null ? after.getDateTime(0) : KeysetCursor.MIN_DATETIME;
+    }
+
+    private String afterId(KeysetCursor after) {
+        return after != null ? after.getString(1) : KeysetCursor.MIN_STRING;
+    }
+
+    private CursorPageResponse<AppointmentDto> toCursorPage(
+            List<AppointmentDto> rows, int size, Supplier<Long> total) {
+        return KeysetCursor.toPage(rows, size, Function.identity(),
+            a -> KeysetCursor.encode(a.getStartDatetime(), a.getAppointmentId()), total);
     }
 }
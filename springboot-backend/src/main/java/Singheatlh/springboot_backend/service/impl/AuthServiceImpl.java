@@ -1,5 +1,6 @@
 package Singheatlh.springboot_backend.service.impl;
 
+import Singheatlh.springboot_backend.config.jwt.JwtUtils;
 import Singheatlh.springboot_backend.dto.*;
 import Singheatlh.springboot_backend.dto.request.SignUpRequest;
 import Singheatlh.springboot_backend.dto.request.LoginRequest;
@@ -8,18 +9,23 @@ import Singheatlh.springboot_backend.entity.*;
 import Singheatlh.springboot_backend.entity.enums.Role;
 import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.mapper.*;
+import Singheatlh.springboot_backend.metrics.ApplicationMetrics;
 import Singheatlh.springboot_backend.repository.*;
 import Singheatlh.springboot_backend.service.AuthService;
 import Singheatlh.springboot_backend.service.SupabaseAuthClient;
+import Singheatlh.springboot_backend.service.UserProfileCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -38,6 +44,16 @@ public class AuthServiceImpl implements AuthService {
     private final SystemAdministratorMapper systemAdministratorMapper;
 
     private final SupabaseAuthClient supabaseAuthClient;
+    private final ApplicationMetrics applicationMetrics;
+    private final JwtUtils jwtUtils;
+    private final UserProfileCache userProfileCache;
+
+    // Longest a signup waits for the auth trigger to create User_Profile
+    @Value("${auth.signup.profile-timeout:5s}")
+    private Duration signupProfileTimeout;
+
+    private static final long PROFILE_PROBE_INITIAL_DELAY_MS = 10;
+    private static final long PROFILE_PROBE_MAX_DELAY_MS = 250;
 
     @Override
     @Transactional
@@ -85,19 +101,8 @@ public class AuthServiceImpl implements AuthService {
         String refreshToken = authResponse.getRefreshToken();
         log.info("Created Supabase Auth user with ID: {}", supabaseUid);
 
-        // Wait briefly for trigger to create User_Profile
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        // Verify User_Profile was created by trigger
-        UUID userId = UUID.fromString(supabaseUid);
-        User baseUser = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User_Profile was not created by auth trigger"));
-
-        log.info("User_Profile created successfully via trigger for user: {}", supabaseUid);
+        // Wait for the trigger's User_Profile row, no longer than the signup budget
+        awaitUserProfile(UUID.fromString(supabaseUid));
 
         // Create role-specific record (Patient, ClinicStaff, or SystemAdministrator)
         UserDto userDto;
@@ -157,6 +162,7 @@ public class AuthServiceImpl implements AuthService {
         String accessToken = authResponse.getAccessToken();
         String refreshToken = authResponse.getRefreshToken();
         log.info("Supabase authentication successful for user: {}", userId);
+        applicationMetrics.recordUserActivity(userId);
 
         // Retrieve user profile from database
         User user = userRepository.findByEmail(loginRequest.getEmail())
@@ -182,27 +188,26 @@ public class AuthServiceImpl implements AuthService {
         log.debug("Fetching profile for user ID: {}", supabaseUid);
 
         UUID userId = UUID.fromString(supabaseUid);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundExecption("User not found with ID: " + supabaseUid));
-
-        // Return the appropriate DTO based on user type
-        return getUserSpecificDto(user);
+        applicationMetrics.recordUserActivity(supabaseUid);
+        return userProfileCache.get(userId, () -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundExecption("User not found with ID: " + supabaseUid));
+
+            // Return the appropriate DTO based on user type
+            return getUserSpecificDto(user);
+        });
     }
 
     @Override
     public boolean validateSupabaseJwt(String jwtToken) {
-        // TODO: Implement JWT validation using Supabase's public key
-        // For now, return true (you should implement proper JWT validation)
         log.debug("Validating JWT token");
-        return true;
+        return jwtUtils.verify(jwtToken).isPresent();
     }
 
     @Override
     public String extractUserIdFromToken(String jwtToken) {
-        // TODO: Extract the supabase user ID from the JWT token
-        // For now, return a placeholder (you should implement proper JWT parsing)
         log.debug("Extracting user ID from JWT token");
-        return "extracted-user-id-from-jwt";
+        return jwtUtils.verify(jwtToken).map(JwtUtils.JwtClaims::subject).orElse(null);
     }
 
     @Override
@@ -227,6 +232,7 @@ public class AuthServiceImpl implements AuthService {
 
         user.setEmail(newEmail);
         userRepository.save(user);
+        userProfileCache.invalidate(userUuid);
 
         log.info("Email updated successfully for user ID: {}", userId);
     }
@@ -273,6 +279,7 @@ public class AuthServiceImpl implements AuthService {
         patient.setRole(Role.P);
 
         Patient savedPatient = patientRepository.save(patient);
+        userProfileCache.invalidate(savedPatient.getUserId());
         return patientMapper.toDto(savedPatient);
     }
 
@@ -296,6 +303,7 @@ public class AuthServiceImpl implements AuthService {
         }
 
         ClinicStaff savedStaff = clinicStaffRepository.save(clinicStaff);
+        userProfileCache.invalidate(savedStaff.getUserId());
         return clinicStaffMapper.toDto(savedStaff);
     }
 
@@ -311,9 +319,40 @@ public class AuthServiceImpl implements AuthService {
         admin.setRole(Role.S);
 
         SystemAdministrator savedAdmin = systemAdministratorRepository.save(admin);
+        userProfileCache.invalidate(savedAdmin.getUserId());
         return systemAdministratorMapper.toDto(savedAdmin);
     }
 
+    /**
+     * Probe for the User_Profile row created by handle_new_user(), backing off exponentially between
+     * probes. The trigger runs in the auth insert, so the row is normally there on the first probe;
+     * the backoff covers a slow or loaded database without adding a fixed delay to every signup.
+     */
+    private void awaitUserProfile(UUID userId) {
+        long deadline = System.nanoTime() + signupProfileTimeout.toNanos();
+        long delayMillis = PROFILE_PROBE_INITIAL_DELAY_MS;
+        int probes = 0;
+        while (true) {
+            probes++;
+            if (userRepository.existsById(userId)) {
+                log.info("User_Profile created via trigger for user: {} (after {} probe(s))", userId, probes);
+                return;
+            }
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                log.error("User_Profile for user {} not found after {} probes in {}", userId, probes, signupProfileTimeout);
+                throw new RuntimeException("User_Profile was not created by auth trigger within " + signupProfileTimeout.toMillis() + " ms");
+            }
+            try {
+                Thread.sleep(Math.min(delayMillis, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for User_Profile to be created");
+            }
+            delayMillis = Math.min(delayMillis * 2, PROFILE_PROBE_MAX_DELAY_MS);
+        }
+    }
+
     private UserDto getUserSpecificDto(User user) {
         if (user instanceof Patient) {
             return patientMapper.toDto((Patient) user);
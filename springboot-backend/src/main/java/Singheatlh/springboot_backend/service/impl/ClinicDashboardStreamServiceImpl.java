@@ -0,0 +1,353 @@
+package Singheatlh.springboot_backend.service.impl;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import Singheatlh.springboot_backend.dto.ClinicDashboardDelta;
+import Singheatlh.springboot_backend.dto.ClinicDashboardSnapshot;
+import Singheatlh.springboot_backend.dto.ClinicStatisticsDto;
+import Singheatlh.springboot_backend.service.ClinicDashboardStreamService;
+import Singheatlh.springboot_backend.service.ClinicMonitoringService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * One channel per clinic with open dashboards. Queue events only flip the channel's dirty flag;
+ * a single flusher thread recomputes each dirty clinic once per tick, diffs it against the last
+ * state sent and queues the delta for every subscriber of that clinic.
+ *
+ * Each subscriber has a small bounded queue drained by a shared sender pool, so a slow connection
+ * never holds up the flusher or the other dashboards. A subscriber whose queue is full has fallen
+ * too far behind to catch up with deltas and is dropped; its client reconnects for a new snapshot.
+ */
+@Service
+public class ClinicDashboardStreamServiceImpl implements ClinicDashboardStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClinicDashboardStreamServiceImpl.class);
+
+    private static final String SNAPSHOT_EVENT = "snapshot";
+    private static final String DELTA_EVENT = "delta";
+    private static final long HEARTBEAT_MILLIS = 25_000;
+
+    private final ClinicMonitoringService clinicMonitoringService;
+    private final Map<Integer, ClinicChannel> channels = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(daemonThreads("dashboard-stream"));
+    private ExecutorService sender;
+
+    @Value("${monitoring.dashboard.max-updates-per-second:2}")
+    private int maxUpdatesPerSecond;
+
+    @Value("${monitoring.dashboard.stream-timeout-minutes:30}")
+    private long streamTimeoutMinutes;
+
+    @Value("${monitoring.dashboard.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${monitoring.dashboard.max-pending-events:16}")
+    private int maxPendingEvents;
+
+    private long lastHeartbeat = System.currentTimeMillis();
+
+    public ClinicDashboardStreamServiceImpl(ClinicMonitoringService clinicMonitoringService) {
+        this.clinicMonitoringService = clinicMonitoringService;
+    }
+
+    @PostConstruct
+    void startFlusher() {
+        sender = Executors.newFixedThreadPool(Math.max(senderThreads, 1), daemonThreads("dashboard-send-"));
+        long periodMillis = Math.max(1000L / Math.max(maxUpdatesPerSecond, 1), 50L);
+        flusher.scheduleWithFixedDelay(this::flush, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopFlusher() {
+        flusher.shutdownNow();
+        sender.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        channels.clear();
+    }
+
+    @Override
+    public SseEmitter subscribe(Integer clinicId) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(streamTimeoutMinutes));
+        Subscriber subscriber = new Subscriber(emitter, maxPendingEvents);
+        emitter.onCompletion(() -> unsubscribe(clinicId, emitter));
+        emitter.onTimeout(() -> unsubscribe(clinicId, emitter));
+        emitter.onError(error -> unsubscribe(clinicId, emitter));
+
+        // Registering inside compute() keeps a concurrent unsubscribe from dropping the channel under us
+        ClinicChannel channel = channels.compute(clinicId, (id, existing) -> {
+            ClinicChannel target = existing != null ? existing : new ClinicChannel(id);
+            target.subscribers.add(subscriber);
+            return target;
+        });
+
+        // Every subscriber of a channel starts from the same base so later deltas apply to all of them.
+        // A delta queued before the snapshot carries a sequence the snapshot already covers.
+        try {
+            synchronized (channel) {
+                if (channel.lastSent == null) {
+                    channel.lastSent = clinicMonitoringService.getClinicStatistics(clinicId, null);
+                }
+                enqueue(channel, subscriber, new StreamEvent(SNAPSHOT_EVENT, channel.sequence,
+                        new ClinicDashboardSnapshot(channel.sequence, channel.lastSent)));
+            }
+        } catch (RuntimeException e) {
+            unsubscribe(clinicId, emitter);
+            throw e;
+        }
+        return emitter;
+    }
+
+    @Override
+    public void markChanged(Integer clinicId) {
+        ClinicChannel channel = channels.get(clinicId);
+        if (channel != null) {
+            channel.dirty.set(true);
+        }
+    }
+
+    private void unsubscribe(Integer clinicId, SseEmitter emitter) {
+        channels.computeIfPresent(clinicId, (id, channel) -> {
+            channel.subscribers.removeIf(subscriber -> subscriber.emitter == emitter);
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    private void flush() {
+        LocalDate today = LocalDate.now();
+        for (ClinicChannel channel : channels.values()) {
+            try {
+                boolean dayRolledOver = channel.lastSent != null && !today.equals(channel.lastSent.getReportDate());
+                if (channel.dirty.getAndSet(false) || dayRolledOver) {
+                    publish(channel, dayRolledOver);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to refresh dashboard for clinicId={}: {}", channel.clinicId, e.getMessage());
+            }
+        }
+        heartbeat();
+    }
+
+    private void publish(ClinicChannel channel, boolean fullSnapshot) {
+        ClinicStatisticsDto current = clinicMonitoringService.getClinicStatistics(channel.clinicId, null);
+        synchronized (channel) {
+            if (fullSnapshot || channel.lastSent == null) {
+                channel.lastSent = current;
+                long sequence = ++channel.sequence;
+                broadcast(channel, new StreamEvent(SNAPSHOT_EVENT, sequence, new ClinicDashboardSnapshot(sequence, current)));
+                return;
+            }
+            ClinicDashboardDelta delta = diff(channel.lastSent, current);
+            channel.lastSent = current;
+            if (delta != null) {
+                delta.setSequence(++channel.sequence);
+                broadcast(channel, new StreamEvent(DELTA_EVENT, delta.getSequence(), delta));
+            }
+        }
+    }
+
+    // Proxies drop idle connections; an SSE comment keeps the stream open without waking clients
+    private void heartbeat() {
+        long now = System.currentTimeMillis();
+        if (now - lastHeartbeat < HEARTBEAT_MILLIS) {
+            return;
+        }
+        lastHeartbeat = now;
+        for (ClinicChannel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                enqueue(channel, subscriber, StreamEvent.PING);
+            }
+        }
+    }
+
+    private void broadcast(ClinicChannel channel, StreamEvent event) {
+        for (Subscriber subscriber : channel.subscribers) {
+            enqueue(channel, subscriber, event);
+        }
+    }
+
+    /**
+     * Queue an event for one subscriber without blocking. A subscriber whose queue is full is
+     * dropped: its drain task is still running, so it completes the emitter once its send returns.
+     */
+    private void enqueue(ClinicChannel channel, Subscriber subscriber, StreamEvent event) {
+        if (subscriber.dropped) {
+            return;
+        }
+        if (!subscriber.pending.offer(event)) {
+            log.info("Dropping dashboard subscriber of clinicId={}: {} events behind", channel.clinicId, maxPendingEvents);
+            subscriber.dropped = true;
+            subscriber.pending.clear();
+            unsubscribe(channel.clinicId, subscriber.emitter);
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(channel.clinicId, subscriber));
+        }
+    }
+
+    private void drain(Integer clinicId, Subscriber subscriber) {
+        try {
+            StreamEvent event;
+            while (!subscriber.dropped && (event = subscriber.pending.poll()) != null) {
+                subscriber.emitter.send(event.toSse());
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscriber.dropped = true;
+            unsubscribe(clinicId, subscriber.emitter);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (subscriber.dropped) {
+            subscriber.emitter.complete();
+        } else if (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            // An event was queued after the loop saw the queue empty but before draining was cleared
+            sender.execute(() -> drain(clinicId, subscriber));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name.endsWith("-") ? name + count.incrementAndGet() : name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Field-level difference between two statistics of the same clinic and day; null when nothing changed
+     */
+    static ClinicDashboardDelta diff(ClinicStatisticsDto before, ClinicStatisticsDto after) {
+        ClinicDashboardDelta delta = ClinicDashboardDelta.builder()
+                .clinicId(after.getClinicId())
+                .reportDate(after.getReportDate())
+                .totalPatientsSeenToday(changed(before.getTotalPatientsSeenToday(), after.getTotalPatientsSeenToday()))
+                .totalPatientsPendingToday(changed(before.getTotalPatientsPendingToday(), after.getTotalPatientsPendingToday()))
+                .totalCheckInsToday(changed(before.getTotalCheckInsToday(), after.getTotalCheckInsToday()))
+                .totalCompletedToday(changed(before.getTotalCompletedToday(), after.getTotalCompletedToday()))
+                .totalNoShowsToday(changed(before.getTotalNoShowsToday(), after.getTotalNoShowsToday()))
+                .averageWaitingTime(changed(before.getAverageWaitingTime(), after.getAverageWaitingTime()))
+                .minWaitingTime(changed(before.getMinWaitingTime(), after.getMinWaitingTime()))
+                .maxWaitingTime(changed(before.getMaxWaitingTime(), after.getMaxWaitingTime()))
+                .averageConsultationTime(changed(before.getAverageConsultationTime(), after.getAverageConsultationTime()))
+                .waitingTimePercentiles(changed(before.getWaitingTimePercentiles(), after.getWaitingTimePercentiles()))
+                .consultationTimePercentiles(changed(before.getConsultationTimePercentiles(), after.getConsultationTimePercentiles()))
+                .queueBreakdown(changed(before.getQueueBreakdown(), after.getQueueBreakdown()))
+                .doctorStats(changedDoctors(before.getDoctorStats(), after.getDoctorStats()))
+                .removedDoctorIds(removedDoctors(before.getDoctorStats(), after.getDoctorStats()))
+                .build();
+
+        ClinicDashboardDelta unchanged = ClinicDashboardDelta.builder()
+                .clinicId(after.getClinicId())
+                .reportDate(after.getReportDate())
+                .build();
+        return delta.equals(unchanged) ? null : delta;
+    }
+
+    private static <T> T changed(T before, T after) {
+        return Objects.equals(before, after) ? null : after;
+    }
+
+    private static List<ClinicStatisticsDto.DoctorDailyStats> changedDoctors(
+            List<ClinicStatisticsDto.DoctorDailyStats> before, List<ClinicStatisticsDto.DoctorDailyStats> after) {
+        if (after == null) {
+            return null;
+        }
+        Map<String, ClinicStatisticsDto.DoctorDailyStats> previous = before == null ? Map.of()
+                : before.stream().collect(Collectors.toMap(
+                        ClinicStatisticsDto.DoctorDailyStats::getDoctorId, Function.identity(), (a, b) -> b));
+        List<ClinicStatisticsDto.DoctorDailyStats> changed = new ArrayList<>();
+        for (ClinicStatisticsDto.DoctorDailyStats doctor : after) {
+            if (!doctor.equals(previous.get(doctor.getDoctorId()))) {
+                changed.add(doctor);
+            }
+        }
+        return changed.isEmpty() ? null : changed;
+    }
+
+    private static List<String> removedDoctors(
+            List<ClinicStatisticsDto.DoctorDailyStats> before, List<ClinicStatisticsDto.DoctorDailyStats> after) {
+        if (before == null) {
+            return null;
+        }
+        List<String> remaining = after == null ? List.of()
+                : after.stream().map(ClinicStatisticsDto.DoctorDailyStats::getDoctorId).toList();
+        List<String> removed = before.stream()
+                .map(ClinicStatisticsDto.DoctorDailyStats::getDoctorId)
+                .filter(doctorId -> !remaining.contains(doctorId))
+                .toList();
+        return removed.isEmpty() ? null : removed;
+    }
+
+    /**
+     * Subscribers of one clinic and the last state they were all sent
+     */
+    private static final class ClinicChannel {
+        private final Integer clinicId;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private ClinicStatisticsDto lastSent;
+        private long sequence;
+
+        private ClinicChannel(Integer clinicId) {
+            this.clinicId = clinicId;
+        }
+    }
+
+    /**
+     * One open dashboard: events waiting to be written, and whether a sender thread is writing them
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        }
+    }
+
+    /**
+     * An event as queued; the SSE builder is created per send because building it is not repeatable
+     */
+    private record StreamEvent(String name, long sequence, Object payload) {
+
+        private static final StreamEvent PING = new StreamEvent(null, 0, null);
+
+        private SseEmitter.SseEventBuilder toSse() {
+            if (name == null) {
+                return SseEmitter.event().comment("ping");
+            }
+            return SseEmitter.event().id(Long.toString(sequence)).name(name).data(payload);
+        }
+    }
+}
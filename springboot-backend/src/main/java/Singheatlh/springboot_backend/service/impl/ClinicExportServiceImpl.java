@@ -0,0 +1,311 @@
+package Singheatlh.springboot_backend.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import Singheatlh.springboot_backend.dto.AppointmentDto;
+import Singheatlh.springboot_backend.dto.MedicalSummaryDto;
+import Singheatlh.springboot_backend.dto.QueueTicketDto;
+import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
+import Singheatlh.springboot_backend.repository.AppointmentRepository;
+import Singheatlh.springboot_backend.repository.ClinicRepository;
+import Singheatlh.springboot_backend.repository.ClinicStaffRepository;
+import Singheatlh.springboot_backend.repository.MedicalSummaryRepository;
+import Singheatlh.springboot_backend.repository.QueueTicketRepository;
+import Singheatlh.springboot_backend.repository.SystemAdministratorRepository;
+import Singheatlh.springboot_backend.service.ClinicExportService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClinicExportServiceImpl implements ClinicExportService {
+
+    private static final int DEFAULT_EXPORT_DAYS = 30;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<Column<AppointmentDto>> APPOINTMENT_COLUMNS = List.of(
+        new Column<>("appointmentId", AppointmentDto::getAppointmentId),
+        new Column<>("patientId", AppointmentDto::getPatientId),
+        new Column<>("patientName", AppointmentDto::getPatientName),
+        new Column<>("doctorId", AppointmentDto::getDoctorId),
+        new Column<>("doctorName", AppointmentDto::getDoctorName),
+        new Column<>("clinicName", AppointmentDto::getClinicName),
+        new Column<>("startDatetime", AppointmentDto::getStartDatetime),
+        new Column<>("endDatetime", AppointmentDto::getEndDatetime),
+        new Column<>("status", AppointmentDto::getStatus));
+
+    private static final List<Column<QueueTicketDto>> QUEUE_TICKET_COLUMNS = List.of(
+        new Column<>("ticketId", QueueTicketDto::getTicketId),
+        new Column<>("appointmentId", QueueTicketDto::getAppointmentId),
+        new Column<>("status", QueueTicketDto::getStatus),
+        new Column<>("checkInTime", QueueTicketDto::getCheckInTime),
+        new Column<>("queueNumber", QueueTicketDto::getQueueNumber),
+        new Column<>("isFastTracked", QueueTicketDto::getIsFastTracked),
+        new Column<>("fastTrackReason", QueueTicketDto::getFastTrackReason),
+        new Column<>("ticketNumberForDay", QueueTicketDto::getTicketNumberForDay),
+        new Column<>("consultationStartTime", QueueTicketDto::getConsultationStartTime),
+        new Column<>("consultationCompleteTime", QueueTicketDto::getConsultationCompleteTime));
+
+    private static final List<Column<MedicalSummaryDto>> MEDICAL_SUMMARY_COLUMNS = List.of(
+        new Column<>("summaryId", MedicalSummaryDto::getSummaryId),
+        new Column<>("appointmentId", MedicalSummaryDto::getAppointmentId),
+        new Column<>("treatmentSummary", MedicalSummaryDto::getTreatmentSummary));
+
+    private final ClinicRepository clinicRepository;
+    private final ClinicStaffRepository clinicStaffRepository;
+    private final SystemAdministratorRepository systemAdministratorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final QueueTicketRepository queueTicketRepository;
+    private final MedicalSummaryRepository medicalSummaryRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Export prepareExport(String callerId, Integer clinicId, Dataset dataset, LocalDate fromDate, LocalDate toDate,
+                                Format format) {
+        checkClinicAccess(callerId, clinicId);
+        if (!clinicRepository.existsById(clinicId)) {
+            throw new ResourceNotFoundExecption("Clinic not found with id: " + clinicId);
+        }
+        if (dataset == null) {
+            throw new IllegalArgumentException("dataset is required");
+        }
+        LocalDate to = toDate != null ? toDate : LocalDate.now();
+        LocalDate from = fromDate != null ? fromDate : to.minusDays(DEFAULT_EXPORT_DAYS - 1);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("fromDate must not be after toDate");
+        }
+        Format exportFormat = format != null ? format : Format.CSV;
+        String fileName = String.format("clinic-%d-%s-%s_%s.%s.gz", clinicId,
+            dataset.name().toLowerCase(Locale.ROOT).replace('_', '-'), from, to,
+            exportFormat.name().toLowerCase(Locale.ROOT));
+        return new Export(clinicId, dataset, from, to, exportFormat, fileName);
+    }
+
+    private void checkClinicAccess(String callerId, Integer clinicId) {
+        if (callerId == null) {
+            throw new AuthenticationCredentialsNotFoundException("Authentication is required to export clinic data");
+        }
+        UUID userId = UUID.fromString(callerId);
+        if (systemAdministratorRepository.existsById(userId)) {
+            return;
+        }
+        boolean clinicStaff = clinicStaffRepository.findById(userId)
+            .map(staff -> Objects.equals(staff.getClinicId(), clinicId))
+            .orElse(false);
+        if (!clinicStaff) {
+            throw new AccessDeniedException("Only administrators and staff of clinic " + clinicId + " may export its data");
+        }
+    }
+
+    // The transaction keeps the cursor open while rows are written; readOnly skips Hibernate's flush
+    @Override
+    @Transactional(readOnly = true)
+    public long writeExport(Export export, OutputStream out) throws IOException {
+        LocalDateTime start = export.fromDate().atStartOfDay();
+        LocalDateTime end = export.toDate().plusDays(1).atStartOfDay();
+        long startTime = System.currentTimeMillis();
+
+        GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long rows;
+        switch (export.dataset()) {
+            case APPOINTMENTS -> {
+                try (Stream<AppointmentDto> stream =
+                         appointmentRepository.streamDtosByClinicIdAndDateRange(export.clinicId(), start, end)) {
+                    rows = writeRows(stream, APPOINTMENT_COLUMNS, rowWriter(export.format(), writer));
+                }
+            }
+            case QUEUE_TICKETS -> {
+                try (Stream<QueueTicketDto> stream =
+                         queueTicketRepository.streamDtosByClinicIdAndCheckInRange(export.clinicId(), start, end)) {
+                    rows = writeRows(stream, QUEUE_TICKET_COLUMNS, rowWriter(export.format(), writer));
+                }
+            }
+            case MEDICAL_SUMMARIES -> {
+                try (Stream<MedicalSummaryDto> stream =
+                         medicalSummaryRepository.streamDtosByClinicIdAndDateRange(export.clinicId(), start, end)) {
+                    rows = writeRows(stream, MEDICAL_SUMMARY_COLUMNS, rowWriter(export.format(), writer));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported dataset: " + export.dataset());
+        }
+        writer.flush();
+        // Finish rather than close: the container owns the response stream
+        gzip.finish();
+        gzip.flush();
+
+        log.info("Exported {} {} rows of clinic {} ({} to {}) as {} in {} ms", rows, export.dataset(),
+            export.clinicId(), export.fromDate(), export.toDate(), export.format(),
+            System.currentTimeMillis() - startTime);
+        return rows;
+    }
+
+    private RowWriter rowWriter(Format format, Writer writer) throws IOException {
+        if (format == Format.NDJSON) {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            // One object per line, separated by newlines instead of the default space
+            generator.setRootValueSeparator(null);
+            return new NdjsonRowWriter(generator, writer);
+        }
+        return new CsvRowWriter(writer);
+    }
+
+    private static <T> long writeRows(Stream<T> stream, List<Column<T>> columns, RowWriter out) throws IOException {
+        String[] names = columns.stream().map(Column::name).toArray(String[]::new);
+        Object[] values = new Object[columns.size()];
+        out.start(names);
+        long rows = 0;
+        Iterator<T> iterator = stream.iterator();
+        while (iterator.hasNext()) {
+            T row = iterator.next();
+            for (int i = 0; i < values.length; i++) {
+                values[i] = columns.get(i).value().apply(row);
+            }
+            out.row(values);
+            rows++;
+        }
+        out.end();
+        return rows;
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    private interface RowWriter {
+        void start(String[] names) throws IOException;
+
+        void row(Object[] values) throws IOException;
+
+        void end() throws IOException;
+    }
+
+    /**
+     * RFC 4180 CSV with a header line; dates in ISO-8601, nulls as empty fields. Text that a spreadsheet
+     * would read as a formula (starting with =, +, -, @, tab or CR) is prefixed with a single quote.
+     */
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer out;
+
+        CsvRowWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void start(String[] names) throws IOException {
+            row(names);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                if (values[i] instanceof String text) {
+                    writeField(escapeFormula(text));
+                } else if (values[i] != null) {
+                    writeField(values[i].toString());
+                }
+            }
+            out.write("\r\n");
+        }
+
+        private static String escapeFormula(String value) {
+            if (value.isEmpty()) {
+                return value;
+            }
+            char first = value.charAt(0);
+            return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r'
+                ? "'" + value
+                : value;
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+
+    /**
+     * One JSON object per line, keyed by column name; dates in ISO-8601 like the CSV
+     */
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final Writer out;
+        private String[] names;
+
+        NdjsonRowWriter(JsonGenerator generator, Writer out) {
+            this.generator = generator;
+            this.out = out;
+        }
+
+        @Override
+        public void start(String[] names) {
+            this.names = names;
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(names[i]);
+                Object value = values[i];
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Integer number) {
+                    generator.writeNumber(number);
+                } else if (value instanceof Boolean flag) {
+                    generator.writeBoolean(flag);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.flush();
+            out.write('\n');
+        }
+
+        @Override
+        public void end() throws IOException {
+            generator.close();
+        }
+    }
+}
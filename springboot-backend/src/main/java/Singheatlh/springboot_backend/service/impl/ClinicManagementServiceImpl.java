@@ -12,12 +12,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import Singheatlh.springboot_backend.dto.ClinicDto;
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
 import Singheatlh.springboot_backend.entity.Clinic;
 import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.mapper.ClinicMapper;
 import Singheatlh.springboot_backend.repository.ClinicRepository;
 import Singheatlh.springboot_backend.service.ClinicManagementService;
+import Singheatlh.springboot_backend.service.UserProfileCache;
+import Singheatlh.springboot_backend.util.KeysetCursor;
 import lombok.AllArgsConstructor;
 
 @Service
@@ -26,6 +29,7 @@ public class ClinicManagementServiceImpl implements ClinicManagementService {
 
     private ClinicRepository clinicRepository;
     private ClinicMapper clinicMapper;
+    private UserProfileCache userProfileCache;
 
     @Override
     @Transactional
@@ -49,6 +53,7 @@ public class ClinicManagementServiceImpl implements ClinicManagementService {
         existingClinic.setClosingHours(clinicDto.getClosingHours());
 
         Clinic updatedClinic = clinicRepository.save(existingClinic);
+        userProfileCache.invalidateClinic(clinicId);
         return clinicMapper.toDto(updatedClinic);
     }
 
@@ -58,6 +63,7 @@ public class ClinicManagementServiceImpl implements ClinicManagementService {
         Clinic clinic = clinicRepository.findById(clinicId)
                 .orElseThrow(() -> new ResourceNotFoundExecption("Clinic not found with id: " + clinicId));
         clinicRepository.deleteById(clinicId);
+        userProfileCache.invalidateClinic(clinicId);
     }
 
     @Override
@@ -111,6 +117,7 @@ public class ClinicManagementServiceImpl implements ClinicManagementService {
         clinic.setClosingHours(LocalTime.parse(closingHours, formatter));
 
         Clinic updatedClinic = clinicRepository.save(clinic);
+        userProfileCache.invalidateClinic(clinicId);
         return clinicMapper.toDto(updatedClinic);
     }
 
@@ -142,4 +149,19 @@ public class ClinicManagementServiceImpl implements ClinicManagementService {
                 .hasPreviousPage(clinicsPage.hasPrevious())
                 .build();
     }
+
+    @Override
+    public CursorPageResponse<ClinicDto> getClinicsWithCursor(String cursor, int pageSize, String search, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 1);
+        Integer afterId = after != null ? after.getInt(0) : KeysetCursor.MIN_INT;
+        int size = KeysetCursor.normalizePageSize(pageSize);
+
+        // Build search pattern with wildcards
+        String searchPattern = (search != null && !search.isEmpty()) ? "%" + search + "%" : null;
+
+        List<Clinic> rows = clinicRepository.findWithSearchAfterCursor(search, searchPattern, afterId, size + 1);
+        return KeysetCursor.toPage(rows, size, clinicMapper::toDto,
+                clinic -> KeysetCursor.encode(clinic.getClinicId()),
+                includeTotal ? () -> clinicRepository.countWithSearch(search, searchPattern) : null);
+    }
 }
@@ -2,159 +2,306 @@ package Singheatlh.springboot_backend.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import Singheatlh.springboot_backend.dto.ClinicStatisticsDto;
-import Singheatlh.springboot_backend.entity.Clinic;
+import Singheatlh.springboot_backend.dto.DoctorDto;
+import Singheatlh.springboot_backend.dto.LatencyPercentilesDto;
+import Singheatlh.springboot_backend.dto.QueueAnalyticsDto;
+import Singheatlh.springboot_backend.entity.ClinicDailyStatistics;
+import Singheatlh.springboot_backend.entity.DailyQueueStatistics;
 import Singheatlh.springboot_backend.entity.Doctor;
-import Singheatlh.springboot_backend.entity.QueueTicket;
-import Singheatlh.springboot_backend.entity.enums.QueueStatus;
+import Singheatlh.springboot_backend.entity.DoctorDailyStatistics;
+import Singheatlh.springboot_backend.entity.enums.LatencyMetric;
+import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.repository.ClinicRepository;
+import Singheatlh.springboot_backend.repository.DoctorDailyStatisticsRepository;
+import Singheatlh.springboot_backend.repository.DoctorLatencyHistogramRepository;
 import Singheatlh.springboot_backend.repository.DoctorRepository;
-import Singheatlh.springboot_backend.repository.QueueTicketRepository;
+import Singheatlh.springboot_backend.repository.QueueStatsAggregate;
 import Singheatlh.springboot_backend.service.ClinicMonitoringService;
+import Singheatlh.springboot_backend.util.LatencyHistogram;
 
-import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Serves clinic statistics from the daily rollups maintained by QueueStatisticsRecorder:
+ * the clinic's doctor rows, summed for the clinic totals, instead of scanning the day's tickets.
+ * Past days no longer change, so their result is cached as an immutable snapshot.
+ */
 @Service
 @RequiredArgsConstructor
 public class ClinicMonitoringServiceImpl implements ClinicMonitoringService {
-    
-    private final QueueTicketRepository queueTicketRepository;
+
+    private static final int MAX_CACHED_SNAPSHOTS = 1000;
+    private static final int DEFAULT_ANALYTICS_DAYS = 30;
+
+    private final DoctorDailyStatisticsRepository doctorDailyStatisticsRepository;
+    private final DoctorLatencyHistogramRepository doctorLatencyHistogramRepository;
     private final ClinicRepository clinicRepository;
     private final DoctorRepository doctorRepository;
-    
+
+    private final Map<String, ClinicStatisticsDto> pastDaySnapshots = new ConcurrentHashMap<>();
+
     @Override
+    @Transactional(readOnly = true)
     public ClinicStatisticsDto getClinicStatistics(Integer clinicId, LocalDate date) {
         final LocalDate reportDate = (date == null) ? LocalDate.now() : date;
-        
-        Clinic clinic = clinicRepository.findById(clinicId).orElse(null);
-        String clinicName = clinic != null ? clinic.getName() : "Unknown Clinic";
-        
-        LocalDateTime startOfDay = reportDate.atStartOfDay();
-        
-        //get all tickets for today
-        final List<QueueTicket> todayTickets = queueTicketRepository.findAllQueueTicketsByClinicIdAndDate(clinicId, startOfDay);
-        
-        // Calculate metrics
-        int totalCheckIns = todayTickets.size();
-        int totalCompleted = (int) todayTickets.stream()
-            .filter(t -> t.getStatus() == QueueStatus.COMPLETED)
-            .count();
-        int totalNoShows = (int) todayTickets.stream()
-            .filter(t -> t.getStatus() == QueueStatus.NO_SHOW)
-            .count();
-        int totalPending = (int) todayTickets.stream()
-            .filter(t -> t.getStatus() != QueueStatus.COMPLETED && t.getStatus() != QueueStatus.NO_SHOW)
-            .count();
-        
-        // Calculate waiting times (only for tickets with consultation start time)
-        // Excludes NO_SHOW tickets (they won't have consultation_start_time)
-        List<Double> waitingTimes = todayTickets.stream()
-            .filter(t -> t.getConsultationStartTime() != null && t.getCheckInTime() != null)
-            .map(t -> {
-                Duration duration = Duration.between(t.getCheckInTime(), t.getConsultationStartTime());
-                return (double) duration.toMinutes(); // Duration in minutes
-            })
-            .collect(Collectors.toList());
-        
-        Double avgWaitingTime = waitingTimes.isEmpty() ? 0.0 : 
-            waitingTimes.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        Double minWaitingTime = waitingTimes.isEmpty() ? 0.0 :
-            waitingTimes.stream().mapToDouble(Double::doubleValue).min().orElse(0.0);
-        Double maxWaitingTime = waitingTimes.isEmpty() ? 0.0 :
-            waitingTimes.stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
-        
-        // Calculate consultation times (only for completed tickets with both timestamps)
-        // Excludes NO_SHOW tickets (they won't have consultation_complete_time)
-        List<Double> consultationTimes = todayTickets.stream()
-            .filter(t -> t.getConsultationStartTime() != null && t.getConsultationCompleteTime() != null)
-            .map(t -> {
-                Duration duration = Duration.between(t.getConsultationStartTime(), t.getConsultationCompleteTime());
-                return (double) duration.toMinutes(); // Duration in minutes
-            })
-            .collect(Collectors.toList());
-        
-        Double avgConsultationTime = consultationTimes.isEmpty() ? 0.0 :
-            consultationTimes.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        
-        // Get per-doctor statistics
-        List<Doctor> clinicDoctors = doctorRepository.findByClinicId(clinicId);
+
+        if (!reportDate.isBefore(LocalDate.now())) {
+            return buildStatistics(clinicId, reportDate);
+        }
+
+        String key = snapshotKey(clinicId, reportDate);
+        ClinicStatisticsDto cached = pastDaySnapshots.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        ClinicStatisticsDto statistics = buildStatistics(clinicId, reportDate);
+        if (pastDaySnapshots.size() >= MAX_CACHED_SNAPSHOTS) {
+            pastDaySnapshots.clear();
+        }
+        pastDaySnapshots.put(key, statistics);
+        return statistics;
+    }
+
+    @Override
+    public void evictStatisticsSnapshot(Integer clinicId, LocalDate date) {
+        pastDaySnapshots.remove(snapshotKey(clinicId, date));
+    }
+
+    private ClinicStatisticsDto buildStatistics(Integer clinicId, LocalDate reportDate) {
+        String clinicName = clinicRepository.findById(clinicId)
+            .map(clinic -> clinic.getName())
+            .orElse("Unknown Clinic");
+
+        // A doctor without a row had no check-ins that day: all counters are zero
+        List<DoctorDailyStatistics> doctorRows = doctorDailyStatisticsRepository
+            .findByClinicIdAndStatsDate(clinicId, reportDate);
+        DailyQueueStatistics clinicStats = ClinicDailyStatistics.sumOf(doctorRows);
+
+        Map<String, DoctorDailyStatistics> statsByDoctor = doctorRows.stream()
+            .collect(Collectors.toMap(DoctorDailyStatistics::getDoctorId, Function.identity()));
+
+        // Every doctor of the clinic is listed, including those without tickets that day
+        List<DoctorDto> clinicDoctors = doctorRepository.findDtosByClinicId(clinicId);
         List<ClinicStatisticsDto.DoctorDailyStats> doctorStats = clinicDoctors.stream()
             .map(doctor -> {
-                List<QueueTicket> doctorTickets = todayTickets.stream()
-                    .filter(t -> doctor.getDoctorId().equals(t.getDoctorId()))
-                    .collect(Collectors.toList());
-                
-                int patientsSeenToday = (int) doctorTickets.stream()
-                    .filter(t -> t.getStatus() == QueueStatus.COMPLETED)
-                    .count();
-                
-                List<Double> doctorWaitingTimes = doctorTickets.stream()
-                    .filter(t -> t.getConsultationStartTime() != null && t.getCheckInTime() != null)
-                    .map(t -> {
-                        Duration duration = Duration.between(t.getCheckInTime(), t.getConsultationStartTime());
-                        return (double) duration.toMinutes(); // Duration in minutes
-                    })
-                    .collect(Collectors.toList());
-                
-                Double doctorAvgWaitTime = doctorWaitingTimes.isEmpty() ? 0.0 :
-                    doctorWaitingTimes.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                
-                // Calculate average consultation time per doctor
-                List<Double> doctorConsultationTimes = doctorTickets.stream()
-                    .filter(t -> t.getConsultationStartTime() != null && t.getConsultationCompleteTime() != null)
-                    .map(t -> {
-                        Duration duration = Duration.between(t.getConsultationStartTime(), t.getConsultationCompleteTime());
-                        return (double) duration.toMinutes(); // Duration in minutes
-                    })
-                    .collect(Collectors.toList());
-                
-                Double doctorAvgConsultationTime = doctorConsultationTimes.isEmpty() ? 0.0 :
-                    doctorConsultationTimes.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                
-                int currentQueueSize = (int) doctorTickets.stream()
-                    .filter(t -> t.getStatus() != QueueStatus.COMPLETED && t.getStatus() != QueueStatus.NO_SHOW)
-                    .count();
-                
+                DailyQueueStatistics stats = statsByDoctor.containsKey(doctor.getDoctorId())
+                    ? statsByDoctor.get(doctor.getDoctorId())
+                    : new DoctorDailyStatistics();
                 return ClinicStatisticsDto.DoctorDailyStats.builder()
                     .doctorId(doctor.getDoctorId())
                     .doctorName(doctor.getName())
-                    .patientsSeenToday(patientsSeenToday)
-                    .averageWaitingTime(doctorAvgWaitTime)
-                    .averageConsultationTime(doctorAvgConsultationTime)
-                    .currentQueueSize(currentQueueSize)
+                    .patientsSeenToday(stats.getCompletedCount())
+                    .averageWaitingTime(stats.getAverageWaitMinutes())
+                    .averageConsultationTime(stats.getAverageConsultationMinutes())
+                    .currentQueueSize(stats.getPendingCount())
                     .build();
             })
             .collect(Collectors.toList());
-        
+
         // Queue status breakdown
         ClinicStatisticsDto.QueueStatusBreakdown queueBreakdown = ClinicStatisticsDto.QueueStatusBreakdown.builder()
-            .checkedIn((int) todayTickets.stream().filter(t -> t.getStatus() == QueueStatus.CHECKED_IN).count())
-            .called((int) todayTickets.stream().filter(t -> t.getStatus() == QueueStatus.CALLED).count())
-            .completed((int) todayTickets.stream().filter(t -> t.getStatus() == QueueStatus.COMPLETED).count())
-            .noShow((int) todayTickets.stream().filter(t -> t.getStatus() == QueueStatus.NO_SHOW).count())
-            .fastTracked((int) todayTickets.stream().filter(t -> t.getStatus() == QueueStatus.FAST_TRACKED).count())
+            .checkedIn(clinicStats.getCheckedInCount())
+            .called(clinicStats.getCalledCount())
+            .completed(clinicStats.getCompletedCount())
+            .noShow(clinicStats.getNoShowCount())
+            .fastTracked(clinicStats.getFastTrackedCount())
             .build();
-        
+
+        Map<LatencyMetric, LatencyHistogram> histograms =
+            toHistograms(doctorLatencyHistogramRepository.mergeForClinic(clinicId, reportDate, reportDate));
+
         return ClinicStatisticsDto.builder()
             .clinicId(clinicId)
             .clinicName(clinicName)
             .reportDate(reportDate)
-            .totalPatientsSeenToday(totalCompleted)
-            .totalPatientsPendingToday(totalPending)
-            .totalCheckInsToday(totalCheckIns)
-            .totalCompletedToday(totalCompleted)
-            .totalNoShowsToday(totalNoShows)
-            .averageWaitingTime(avgWaitingTime)
-            .minWaitingTime(minWaitingTime)
-            .maxWaitingTime(maxWaitingTime)
-            .averageConsultationTime(avgConsultationTime)
+            .totalPatientsSeenToday(clinicStats.getCompletedCount())
+            .totalPatientsPendingToday(clinicStats.getPendingCount())
+            .totalCheckInsToday(clinicStats.getTotalCheckIns())
+            .totalCompletedToday(clinicStats.getCompletedCount())
+            .totalNoShowsToday(clinicStats.getNoShowCount())
+            .averageWaitingTime(clinicStats.getAverageWaitMinutes())
+            .minWaitingTime(toMinutes(clinicStats.getWaitMinMinutes()))
+            .maxWaitingTime(toMinutes(clinicStats.getWaitMaxMinutes()))
+            .averageConsultationTime(clinicStats.getAverageConsultationMinutes())
+            .waitingTimePercentiles(toPercentiles(histograms.get(LatencyMetric.WAIT)))
+            .consultationTimePercentiles(toPercentiles(histograms.get(LatencyMetric.CONSULTATION)))
             .doctorStats(doctorStats)
             .queueBreakdown(queueBreakdown)
             .build();
     }
-}
 
+    @Override
+    @Transactional(readOnly = true)
+    public QueueAnalyticsDto getClinicAnalytics(Integer clinicId, LocalDate fromDate, LocalDate toDate,
+                                                QueueAnalyticsDto.Granularity granularity) {
+        LocalDate to = toDate != null ? toDate : LocalDate.now();
+        LocalDate from = fromDate != null ? fromDate : to.minusDays(DEFAULT_ANALYTICS_DAYS - 1);
+        validateAnalyticsRange(from, to);
+        QueueAnalyticsDto.Granularity bucket = granularity != null ? granularity : QueueAnalyticsDto.Granularity.DAY;
+
+        List<QueueStatsAggregate.Period> rows = doctorDailyStatisticsRepository
+            .findClinicSeries(clinicId, from, to, bucket.name().toLowerCase(Locale.ROOT));
+
+        Map<String, String> doctorNames = doctorRepository.findDtosByClinicId(clinicId).stream()
+            .collect(Collectors.toMap(DoctorDto::getDoctorId, DoctorDto::getName));
+
+        // Per-doctor histograms merged over the range; the clinic histogram merges them all
+        Map<String, List<DoctorLatencyHistogramRepository.LatencyBucket>> bucketsByDoctor =
+            doctorLatencyHistogramRepository.mergePerDoctorForClinic(clinicId, from, to).stream()
+                .collect(Collectors.groupingBy(DoctorLatencyHistogramRepository.LatencyBucket::getDoctorId));
+        Map<LatencyMetric, LatencyHistogram> clinicHistograms = new EnumMap<>(LatencyMetric.class);
+
+        List<QueueAnalyticsDto.DoctorRangeStats> doctorSummaries = doctorDailyStatisticsRepository
+            .findPerDoctorTotals(clinicId, from, to).stream()
+            .map(row -> {
+                Map<LatencyMetric, LatencyHistogram> histograms =
+                    toHistograms(bucketsByDoctor.getOrDefault(row.getDoctorId(), List.of()));
+                histograms.forEach((metric, histogram) ->
+                    clinicHistograms.computeIfAbsent(metric, m -> new LatencyHistogram()).merge(histogram));
+                return QueueAnalyticsDto.DoctorRangeStats.builder()
+                    .doctorId(row.getDoctorId())
+                    .doctorName(doctorNames.get(row.getDoctorId()))
+                    .stats(toPeriodStats(row, null))
+                    .waitingTimePercentiles(toPercentiles(histograms.get(LatencyMetric.WAIT)))
+                    .consultationTimePercentiles(toPercentiles(histograms.get(LatencyMetric.CONSULTATION)))
+                    .build();
+            })
+            .collect(Collectors.toList());
+
+        return QueueAnalyticsDto.builder()
+            .clinicId(clinicId)
+            .fromDate(from)
+            .toDate(to)
+            .granularity(bucket)
+            .series(rows.stream().map(row -> toPeriodStats(row, row.getPeriodStart())).collect(Collectors.toList()))
+            .summary(summarize(rows))
+            .waitingTimePercentiles(toPercentiles(clinicHistograms.get(LatencyMetric.WAIT)))
+            .consultationTimePercentiles(toPercentiles(clinicHistograms.get(LatencyMetric.CONSULTATION)))
+            .doctorSummaries(doctorSummaries)
+            .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public QueueAnalyticsDto getDoctorAnalytics(String doctorId, LocalDate fromDate, LocalDate toDate,
+                                                QueueAnalyticsDto.Granularity granularity) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+            .orElseThrow(() -> new ResourceNotFoundExecption("Doctor not found with id: " + doctorId));
+
+        LocalDate to = toDate != null ? toDate : LocalDate.now();
+        LocalDate from = fromDate != null ? fromDate : to.minusDays(DEFAULT_ANALYTICS_DAYS - 1);
+        validateAnalyticsRange(from, to);
+        QueueAnalyticsDto.Granularity bucket = granularity != null ? granularity : QueueAnalyticsDto.Granularity.DAY;
+
+        List<QueueStatsAggregate.Period> rows = doctorDailyStatisticsRepository
+            .findSeries(doctorId, from, to, bucket.name().toLowerCase(Locale.ROOT));
+        Map<LatencyMetric, LatencyHistogram> histograms =
+            toHistograms(doctorLatencyHistogramRepository.mergeForDoctor(doctorId, from, to));
+
+        return QueueAnalyticsDto.builder()
+            .clinicId(doctor.getClinicId())
+            .doctorId(doctorId)
+            .fromDate(from)
+            .toDate(to)
+            .granularity(bucket)
+            .series(rows.stream().map(row -> toPeriodStats(row, row.getPeriodStart())).collect(Collectors.toList()))
+            .summary(summarize(rows))
+            .waitingTimePercentiles(toPercentiles(histograms.get(LatencyMetric.WAIT)))
+            .consultationTimePercentiles(toPercentiles(histograms.get(LatencyMetric.CONSULTATION)))
+            .build();
+    }
+
+    private static void validateAnalyticsRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("fromDate must not be after toDate");
+        }
+    }
+
+    private static QueueAnalyticsDto.PeriodStats toPeriodStats(QueueStatsAggregate row, LocalDate periodStart) {
+        return buildPeriodStats(periodStart, nz(row.getCheckIns()), nz(row.getCompleted()), nz(row.getNoShows()),
+            nz(row.getWaitCount()), nz(row.getWaitSumMinutes()), row.getWaitMinMinutes(), row.getWaitMaxMinutes(),
+            nz(row.getConsultationCount()), nz(row.getConsultationSumMinutes()));
+    }
+
+    // Range totals: sums add up across buckets, min/max fold
+    private static QueueAnalyticsDto.PeriodStats summarize(List<? extends QueueStatsAggregate> rows) {
+        long checkIns = 0, completed = 0, noShows = 0, waitCount = 0, waitSum = 0, consultationCount = 0, consultationSum = 0;
+        Long waitMin = null, waitMax = null;
+        for (QueueStatsAggregate row : rows) {
+            checkIns += nz(row.getCheckIns());
+            completed += nz(row.getCompleted());
+            noShows += nz(row.getNoShows());
+            waitCount += nz(row.getWaitCount());
+            waitSum += nz(row.getWaitSumMinutes());
+            consultationCount += nz(row.getConsultationCount());
+            consultationSum += nz(row.getConsultationSumMinutes());
+            if (row.getWaitMinMinutes() != null && (waitMin == null || row.getWaitMinMinutes() < waitMin)) {
+                waitMin = row.getWaitMinMinutes();
+            }
+            if (row.getWaitMaxMinutes() != null && (waitMax == null || row.getWaitMaxMinutes() > waitMax)) {
+                waitMax = row.getWaitMaxMinutes();
+            }
+        }
+        return buildPeriodStats(null, checkIns, completed, noShows, waitCount, waitSum, waitMin, waitMax,
+            consultationCount, consultationSum);
+    }
+
+    private static QueueAnalyticsDto.PeriodStats buildPeriodStats(LocalDate periodStart, long checkIns, long completed,
+                                                                  long noShows, long waitCount, long waitSum,
+                                                                  Long waitMin, Long waitMax,
+                                                                  long consultationCount, long consultationSum) {
+        return QueueAnalyticsDto.PeriodStats.builder()
+            .periodStart(periodStart)
+            .checkIns(checkIns)
+            .completed(completed)
+            .noShows(noShows)
+            .averageWaitingTime(waitCount == 0 ? 0.0 : (double) waitSum / waitCount)
+            .minWaitingTime(toMinutes(waitMin))
+            .maxWaitingTime(toMinutes(waitMax))
+            .averageConsultationTime(consultationCount == 0 ? 0.0 : (double) consultationSum / consultationCount)
+            .build();
+    }
+
+    private static Map<LatencyMetric, LatencyHistogram> toHistograms(
+            List<DoctorLatencyHistogramRepository.LatencyBucket> buckets) {
+        Map<LatencyMetric, LatencyHistogram> histograms = new EnumMap<>(LatencyMetric.class);
+        for (DoctorLatencyHistogramRepository.LatencyBucket bucket : buckets) {
+            histograms.computeIfAbsent(LatencyMetric.valueOf(bucket.getMetric()), m -> new LatencyHistogram())
+                .add(bucket.getBucketMinutes(), nz(bucket.getSampleCount()));
+        }
+        return histograms;
+    }
+
+    private static LatencyPercentilesDto toPercentiles(LatencyHistogram histogram) {
+        if (histogram == null) {
+            return LatencyPercentilesDto.builder().sampleCount(0).build();
+        }
+        return LatencyPercentilesDto.builder()
+            .sampleCount(histogram.getSampleCount())
+            .p50(toMinutes(histogram.percentile(0.50)))
+            .p90(toMinutes(histogram.percentile(0.90)))
+            .p99(toMinutes(histogram.percentile(0.99)))
+            .build();
+    }
+
+    private static long nz(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    private static Double toMinutes(Long minutes) {
+        return minutes == null ? 0.0 : minutes.doubleValue();
+    }
+
+    private static String snapshotKey(Integer clinicId, LocalDate date) {
+        return clinicId + "|" + date;
+    }
+}
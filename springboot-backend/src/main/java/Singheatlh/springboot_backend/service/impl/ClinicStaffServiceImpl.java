@@ -7,6 +7,7 @@ import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.mapper.ClinicStaffMapper;
 import Singheatlh.springboot_backend.repository.ClinicStaffRepository;
 import Singheatlh.springboot_backend.service.ClinicStaffService;
+import Singheatlh.springboot_backend.service.UserProfileCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +21,7 @@ public class ClinicStaffServiceImpl implements ClinicStaffService {
 
     private final ClinicStaffRepository clinicStaffRepository;
     private final ClinicStaffMapper clinicStaffMapper;
+    private final UserProfileCache userProfileCache;
 
     @Override
     public ClinicStaffDto getById(String id) {
@@ -34,6 +36,7 @@ public class ClinicStaffServiceImpl implements ClinicStaffService {
         ClinicStaff clinicStaff = clinicStaffMapper.toEntity(clinicStaffDto);
         clinicStaff.setRole(Role.C);
         ClinicStaff savedStaff = clinicStaffRepository.save(clinicStaff);
+        userProfileCache.invalidate(savedStaff.getUserId());
         return clinicStaffMapper.toDto(savedStaff);
     }
 
@@ -49,6 +52,7 @@ public class ClinicStaffServiceImpl implements ClinicStaffService {
         // Clinic should be updated through a separate method or service
 
         ClinicStaff updatedStaff = clinicStaffRepository.save(clinicStaff);
+        userProfileCache.invalidate(updatedStaff.getUserId());
         return clinicStaffMapper.toDto(updatedStaff);
     }
 
@@ -74,6 +78,7 @@ public class ClinicStaffServiceImpl implements ClinicStaffService {
         ClinicStaff clinicStaff = clinicStaffRepository.findById(staffId)
                 .orElseThrow(() -> new ResourceNotFoundExecption("Clinic staff not found with id: " + id));
         clinicStaffRepository.deleteById(staffId);
+        userProfileCache.invalidate(staffId);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package Singheatlh.springboot_backend.service.impl;
 
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.DoctorDto;
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
 import Singheatlh.springboot_backend.entity.Clinic;
@@ -9,6 +10,7 @@ import Singheatlh.springboot_backend.mapper.DoctorMapper;
 import Singheatlh.springboot_backend.repository.ClinicRepository;
 import Singheatlh.springboot_backend.repository.DoctorRepository;
 import Singheatlh.springboot_backend.service.DoctorService;
+import Singheatlh.springboot_backend.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -56,19 +58,15 @@ public class DoctorServiceImpl implements DoctorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<DoctorDto> getAllDoctors() {
-        List<Doctor> doctors = doctorRepository.findAll();
-        return doctors.stream()
-                .map(doctorMapper::toDto)
-                .collect(Collectors.toList());
+        return doctorRepository.findAllDtos();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<DoctorDto> getDoctorsByClinicId(Integer clinicId) {
-        List<Doctor> doctors = doctorRepository.findByClinicId(clinicId);
-        return doctors.stream()
-                .map(doctorMapper::toDto)
-                .collect(Collectors.toList());
+        return doctorRepository.findDtosByClinicId(clinicId);
     }
 
     @Override
@@ -132,6 +130,21 @@ public class DoctorServiceImpl implements DoctorService {
                 .build();
     }
 
+    @Override
+    public CursorPageResponse<DoctorDto> getDoctorsWithCursor(String cursor, int pageSize, String search, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 1);
+        String afterId = after != null ? after.getString(0) : KeysetCursor.MIN_STRING;
+        int size = KeysetCursor.normalizePageSize(pageSize);
+
+        // Build search pattern with wildcards
+        String searchPattern = (search != null && !search.isEmpty()) ? "%" + search + "%" : null;
+
+        List<Doctor> rows = doctorRepository.findWithSearchAfterCursor(search, searchPattern, afterId, size + 1);
+        return KeysetCursor.toPage(rows, size, doctorMapper::toDto,
+                doctor -> KeysetCursor.encode(doctor.getDoctorId()),
+                includeTotal ? () -> doctorRepository.countWithSearch(search, searchPattern) : null);
+    }
+
     private String generateDoctorId() {
         List<Doctor> allDoctors = doctorRepository.findAll();
         if (allDoctors.isEmpty()) {
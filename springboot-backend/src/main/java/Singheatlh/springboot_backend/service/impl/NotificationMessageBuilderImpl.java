@@ -1,7 +1,11 @@
 package Singheatlh.springboot_backend.service.impl;
 
+import java.time.format.DateTimeFormatter;
+
 import org.springframework.stereotype.Component;
 
+import Singheatlh.springboot_backend.dto.AppointmentCancellationNotice;
+import Singheatlh.springboot_backend.dto.AppointmentRescheduleNotice;
 import Singheatlh.springboot_backend.dto.NotificationContext;
 import Singheatlh.springboot_backend.service.NotificationMessageBuilder;
 import Singheatlh.springboot_backend.service.NotificationType;
@@ -12,6 +16,9 @@ import Singheatlh.springboot_backend.service.NotificationType;
 @Component
 public class NotificationMessageBuilderImpl implements NotificationMessageBuilder {
     
+    private static final DateTimeFormatter APPOINTMENT_TIME_FORMAT =
+        DateTimeFormatter.ofPattern("EEEE, MMMM d, yyyy 'at' h:mm a");
+    
     @Override
     public String buildQueueNotification3AwayMessage(NotificationContext context) {
         return String.format(
@@ -118,6 +125,45 @@ public class NotificationMessageBuilderImpl implements NotificationMessageBuilde
         }
     }
     
+    @Override
+    public String buildAppointmentCancelledMessage(AppointmentCancellationNotice notice, String reason) {
+        String appointmentTime = notice.getStartDatetime() != null
+            ? notice.getStartDatetime().format(APPOINTMENT_TIME_FORMAT)
+            : "N/A";
+        return String.format(
+            "Dear %s,\n\n" +
+            "Your appointment with %s on %s has been cancelled by the clinic.\n\n" +
+            "Reason: %s\n\n" +
+            "Please book a new appointment at your convenience. " +
+            "We apologise for the inconvenience.",
+            notice.getPatientName() != null ? notice.getPatientName() : "Patient",
+            notice.getDoctorName() != null ? notice.getDoctorName() : "your doctor",
+            appointmentTime,
+            reason
+        );
+    }
+    
+    @Override
+    public String buildAppointmentRescheduledMessage(AppointmentRescheduleNotice notice) {
+        String previousTime = notice.getPreviousStartDatetime() != null
+            ? notice.getPreviousStartDatetime().format(APPOINTMENT_TIME_FORMAT)
+            : "N/A";
+        String appointmentTime = notice.getStartDatetime() != null
+            ? notice.getStartDatetime().format(APPOINTMENT_TIME_FORMAT)
+            : "N/A";
+        return String.format(
+            "Dear %s,\n\n" +
+            "Your appointment on %s has been rescheduled by the clinic.\n\n" +
+            "New appointment: %s with %s\n\n" +
+            "If this time does not suit you, please reschedule or cancel it in the app. " +
+            "We apologise for the inconvenience.",
+            notice.getPatientName() != null ? notice.getPatientName() : "Patient",
+            previousTime,
+            appointmentTime,
+            notice.getDoctorName() != null ? notice.getDoctorName() : "your doctor"
+        );
+    }
+    
     @Override
     public String getSubject(NotificationType type) {
         switch (type) {
@@ -131,6 +177,10 @@ public class NotificationMessageBuilderImpl implements NotificationMessageBuilde
                 return "Queue Update - You've Been Fast-Tracked!";
             case CHECK_IN_CONFIRMATION:
                 return "Check-in Confirmation";
+            case APPOINTMENT_CANCELLED:
+                return "Appointment Cancelled";
+            case APPOINTMENT_RESCHEDULED:
+                return "Appointment Rescheduled";
             default:
                 return "Queue Notification";
         }
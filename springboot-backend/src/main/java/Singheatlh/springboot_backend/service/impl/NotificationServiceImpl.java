@@ -1,5 +1,7 @@
 package Singheatlh.springboot_backend.service.impl;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
@@ -7,13 +9,17 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import Singheatlh.springboot_backend.dto.AppointmentCancellationNotice;
+import Singheatlh.springboot_backend.dto.AppointmentRescheduleNotice;
 import Singheatlh.springboot_backend.dto.EmailRequest;
 import Singheatlh.springboot_backend.dto.EmailResponse;
 import Singheatlh.springboot_backend.dto.NotificationContext;
 import Singheatlh.springboot_backend.entity.QueueTicket;
+import Singheatlh.springboot_backend.metrics.ApplicationMetrics;
 import Singheatlh.springboot_backend.service.NotificationMessageBuilder;
 import Singheatlh.springboot_backend.service.NotificationService;
 import Singheatlh.springboot_backend.service.NotificationType;
@@ -37,6 +43,9 @@ public class NotificationServiceImpl implements NotificationService {
     @Autowired
     private NotificationMessageBuilder messageBuilder;
     
+    @Autowired
+    private ApplicationMetrics applicationMetrics;
+    
     @Value("${smu.notification.api.base-url}")
     private String apiBaseUrl;
     
@@ -69,7 +78,7 @@ public class NotificationServiceImpl implements NotificationService {
         String subject = messageBuilder.getSubject(NotificationType.FAST_TRACK);
         String message = messageBuilder.buildFastTrackMessage(context);
         
-        sendEmail(queueTicket, subject, message);
+        sendEmail(queueTicket, subject, message, NotificationType.FAST_TRACK);
     }
     
     @Override
@@ -87,7 +96,27 @@ public class NotificationServiceImpl implements NotificationService {
         String subject = messageBuilder.getSubject(NotificationType.CHECK_IN_CONFIRMATION);
         String message = messageBuilder.buildCheckInConfirmationMessage(context);
         
-        sendEmail(queueTicket, subject, message);
+        sendEmail(queueTicket, subject, message, NotificationType.CHECK_IN_CONFIRMATION);
+    }
+    
+    @Override
+    @Async("notificationExecutor")
+    public void sendAppointmentCancelledNotifications(List<AppointmentCancellationNotice> notices, String reason) {
+        String subject = messageBuilder.getSubject(NotificationType.APPOINTMENT_CANCELLED);
+        for (AppointmentCancellationNotice notice : notices) {
+            String message = messageBuilder.buildAppointmentCancelledMessage(notice, reason);
+            postEmail(notice.getPatientEmail(), subject, message, NotificationType.APPOINTMENT_CANCELLED);
+        }
+    }
+    
+    @Override
+    @Async("notificationExecutor")
+    public void sendAppointmentRescheduledNotifications(List<AppointmentRescheduleNotice> notices) {
+        String subject = messageBuilder.getSubject(NotificationType.APPOINTMENT_RESCHEDULED);
+        for (AppointmentRescheduleNotice notice : notices) {
+            String message = messageBuilder.buildAppointmentRescheduledMessage(notice);
+            postEmail(notice.getPatientEmail(), subject, message, NotificationType.APPOINTMENT_RESCHEDULED);
+        }
     }
     
     /**
@@ -98,7 +127,7 @@ public class NotificationServiceImpl implements NotificationService {
         NotificationContext context = buildNotificationContext(queueTicket);
         String subject = messageBuilder.getSubject(type);
         String message = buildMessageForType(type, context);
-        sendEmail(queueTicket, subject, message);
+        sendEmail(queueTicket, subject, message, type);
     }
     
     /**
@@ -143,17 +172,30 @@ public class NotificationServiceImpl implements NotificationService {
      * @param queueTicket QueueTicket object containing appointment information
      * @param subject Email subject line
      * @param message Email message content
+     * @param type Notification type, used to tag latency and failure metrics
      */
-    private void sendEmail(QueueTicket queueTicket, String subject, String message) {
+    private void sendEmail(QueueTicket queueTicket, String subject, String message, NotificationType type) {
+        // Get patient email using the info service
+        String email = patientInfoService.getPatientEmail(queueTicket);
+        postEmail(email, subject, message, type);
+    }
+    
+    /**
+     * POST a single email to the SMU Lab Notification Service API
+     * @param email Recipient address; nothing is sent if blank
+     * @param subject Email subject line
+     * @param message Email message content
+     * @param type Notification type, used to tag latency and failure metrics
+     */
+    private void postEmail(String email, String subject, String message, NotificationType type) {
+        // Skip sending email if no valid email address found
+        if (email == null || email.trim().isEmpty()) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        boolean failed = false;
         try {
-            // Get patient email using the info service
-            String email = patientInfoService.getPatientEmail(queueTicket);
-            
-            // Skip sending email if no valid email address found
-            if (email == null || email.trim().isEmpty()) {
-                return;
-            }
-            
             EmailRequest emailRequest = new EmailRequest(email, subject, message);
             
             HttpHeaders headers = new HttpHeaders();
@@ -171,12 +213,13 @@ public class NotificationServiceImpl implements NotificationService {
                 EmailResponse.class
             );
             
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                // Email sent successfully
-            }
+            failed = !response.getStatusCode().is2xxSuccessful();
             
         } catch (Exception e) {
             // Don't throw exception - notification failure shouldn't break queue operations
+            failed = true;
+        } finally {
+            applicationMetrics.recordNotification(type.name(), System.nanoTime() - start, failed);
         }
     }
 }
@@ -7,6 +7,7 @@ import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.mapper.PatientMapper;
 import Singheatlh.springboot_backend.repository.PatientRepository;
 import Singheatlh.springboot_backend.service.PatientService;
+import Singheatlh.springboot_backend.service.UserProfileCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +21,7 @@ public class PatientServiceImpl implements PatientService {
 
     private final PatientRepository patientRepository;
     private final PatientMapper patientMapper;
+    private final UserProfileCache userProfileCache;
 
     @Override
     public PatientDto getById(String id) {
@@ -41,6 +43,7 @@ public class PatientServiceImpl implements PatientService {
         // ✅ No password handling - handled by Supabase Auth
 
         Patient savedPatient = patientRepository.save(patient);
+        userProfileCache.invalidate(savedPatient.getUserId());
         return patientMapper.toDto(savedPatient);
     }
 
@@ -62,6 +65,7 @@ public class PatientServiceImpl implements PatientService {
         patient.setName(patientDto.getName());
 
         Patient savedPatient = patientRepository.save(patient);
+        userProfileCache.invalidate(savedPatient.getUserId());
         return patientMapper.toDto(savedPatient);
     }
 
@@ -72,6 +76,7 @@ public class PatientServiceImpl implements PatientService {
                 () -> new ResourceNotFoundExecption("Patient does not exist with the given id " + id)
         );
         patientRepository.deleteById(patientId);
+        userProfileCache.invalidate(patientId);
     }
 
     @Override
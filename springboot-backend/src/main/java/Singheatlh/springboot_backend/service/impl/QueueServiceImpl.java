@@ -5,13 +5,21 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.QueueStatusDto;
 import Singheatlh.springboot_backend.dto.QueueTicketDto;
 import Singheatlh.springboot_backend.entity.Appointment;
@@ -20,12 +28,16 @@ import Singheatlh.springboot_backend.entity.enums.AppointmentStatus;
 import Singheatlh.springboot_backend.entity.enums.QueueStatus;
 import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.mapper.QueueTicketMapper;
+import Singheatlh.springboot_backend.metrics.ApplicationMetrics;
 import Singheatlh.springboot_backend.repository.AppointmentRepository;
 import Singheatlh.springboot_backend.repository.QueueTicketRepository;
 import Singheatlh.springboot_backend.service.CheckInValidator;
 import Singheatlh.springboot_backend.service.NotificationService;
 import Singheatlh.springboot_backend.service.QueueNumberCalculator;
 import Singheatlh.springboot_backend.service.QueueService;
+import Singheatlh.springboot_backend.service.QueueStatisticsRecorder;
+import Singheatlh.springboot_backend.service.QueueStatisticsRecorder.TicketSnapshot;
+import Singheatlh.springboot_backend.util.KeysetCursor;
 
 @Service
 @Transactional
@@ -57,6 +69,15 @@ public class QueueServiceImpl implements QueueService {
     
     @Autowired
     private QueueNumberCalculator queueNumberCalculator;
+    
+    @Autowired
+    private QueueStatisticsRecorder queueStatisticsRecorder;
+    
+    @Autowired
+    private ApplicationMetrics applicationMetrics;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Override
     @Transactional(isolation = Isolation.SERIALIZABLE)
@@ -70,9 +91,16 @@ public class QueueServiceImpl implements QueueService {
             Object lock = doctorLocks.computeIfAbsent(doctorId, k -> new Object());
             
             // Synchronize on doctor-specific lock to prevent concurrent check-ins
+            long lockRequested = System.nanoTime();
+            QueueTicketDto ticket;
             synchronized (lock) {
-                return performCheckIn(appointmentId, appointment);
+                applicationMetrics.recordDoctorLockWait("checkIn", System.nanoTime() - lockRequested);
+                ticket = applicationMetrics.time(ApplicationMetrics.QUEUE_CHECK_IN,
+                    () -> performCheckIn(appointmentId, appointment));
+                applicationMetrics.recordCheckIn();
             }
+            publishQueueLength(doctorId);
+            return ticket;
         } catch (ResourceNotFoundExecption e) {
             throw e; 
         } catch (IllegalStateException e) {
@@ -99,6 +127,8 @@ public class QueueServiceImpl implements QueueService {
             
             // Step 3: Create queue ticket
             QueueTicket queueTicket = createQueueTicket(appointmentId, now, newQueueNumber, newTicketNumberForDay);
+            queueStatisticsRecorder.recordTransition(appointment.getDoctorId(), clinicId,
+                TicketSnapshot.NONE, TicketSnapshot.of(queueTicket));
             
             // Step 4: Update appointment status
             updateAppointmentStatus(appointment);
@@ -159,6 +189,33 @@ public class QueueServiceImpl implements QueueService {
         }
     }
 
+    /**
+     * Refresh the per-doctor queue length gauge once the transition has committed. The count runs
+     * after the doctor lock is released and outside the SERIALIZABLE transaction, in a short read-only
+     * transaction of its own, so it adds nothing to the time the queue is held; a rolled-back
+     * transition leaves the gauge alone.
+     */
+    private void publishQueueLength(String doctorId) {
+        Runnable publish = () -> {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            readOnly.setReadOnly(true);
+            Long activeCount = readOnly.execute(status ->
+                queueTicketRepository.countActiveQueueByDoctorIdAndDate(doctorId, LocalDateTime.now()));
+            applicationMetrics.updateQueueLength(doctorId, activeCount == null ? 0 : activeCount);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish.run();
+            }
+        });
+    }
+
     @Override
     public QueueTicketDto getQueueTicketById(Integer ticketId) {
         QueueTicket queueTicket = queueTicketRepository.findById(ticketId)
@@ -221,21 +278,17 @@ public class QueueServiceImpl implements QueueService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<QueueTicketDto> getActiveQueueByDoctor(String doctorId) {
         LocalDateTime today = LocalDateTime.now();
-        List<QueueTicket> activeQueue = queueTicketRepository.findActiveQueueByDoctorIdAndDate(doctorId, today);
-        return activeQueue.stream()
-            .map(queueTicketMapper::toDto)
-            .collect(Collectors.toList());
+        return queueTicketRepository.findActiveQueueDtosByDoctorIdAndDate(doctorId, today);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<QueueTicketDto> getActiveQueueByClinic(Integer clinicId) {
         LocalDateTime today = LocalDateTime.now();
-        List<QueueTicket> activeQueue = queueTicketRepository.findActiveQueueByClinicIdAndDate(clinicId, today);
-        return activeQueue.stream()
-            .map(queueTicketMapper::toDto)
-            .collect(Collectors.toList());
+        return queueTicketRepository.findActiveQueueDtosByClinicIdAndDate(clinicId, today);
     }
 
     @Override
@@ -250,9 +303,15 @@ public class QueueServiceImpl implements QueueService {
             Object lock = doctorLocks.computeIfAbsent(doctorId, k -> new Object());
             
             // Synchronize on doctor-specific lock to prevent concurrent call-next operations
+            long lockRequested = System.nanoTime();
+            QueueTicketDto next;
             synchronized (lock) {
-                return performCallNext(doctorId);
+                applicationMetrics.recordDoctorLockWait("callNext", System.nanoTime() - lockRequested);
+                next = applicationMetrics.time(ApplicationMetrics.QUEUE_CALL_NEXT,
+                    () -> performCallNext(doctorId));
             }
+            publishQueueLength(doctorId);
+            return next;
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (IllegalStateException e) {
@@ -278,6 +337,7 @@ public class QueueServiceImpl implements QueueService {
             List<QueueTicket> currentlyServing = queueTicketRepository.findCurrentQueueNumberByDoctorIdAndDate(doctorId, today);
             for (QueueTicket serving : currentlyServing) {
                 if (serving.getStatus() == QueueStatus.CALLED) {
+                    TicketSnapshot before = TicketSnapshot.of(serving);
 
                     if (serving.getConsultationCompleteTime() == null) {
                         serving.setConsultationCompleteTime(LocalDateTime.now());
@@ -285,6 +345,7 @@ public class QueueServiceImpl implements QueueService {
                     serving.setStatus(QueueStatus.COMPLETED);
                     serving.setQueueNumber(EMPTY_QUEUE_NUMBER);
                     queueTicketRepository.save(serving);
+                    queueStatisticsRecorder.recordTransition(serving, before);
                     
                     Appointment appointment = appointmentRepository.findById(serving.getAppointmentId()).orElse(null);
                     if (appointment != null) {
@@ -294,14 +355,8 @@ public class QueueServiceImpl implements QueueService {
                 }
             }
             
-            List<QueueTicket> allTicketsToday = queueTicketRepository.findActiveQueueByDoctorIdAndDate(doctorId, today);
-            
-            for (QueueTicket ticket : allTicketsToday) {
-                if (ticket.getStatus() != QueueStatus.COMPLETED && ticket.getStatus() != QueueStatus.NO_SHOW) {
-                    ticket.setQueueNumber(ticket.getQueueNumber() - QUEUE_DECREMENT);
-                    queueTicketRepository.save(ticket);
-                }
-            }
+            // Tickets stay locked from the first read; renumber them in one statement, not one per ticket
+            queueTicketRepository.decrementActiveQueueNumbers(doctorId, today);
             
             // Refresh the active queue list after updates
             activeQueue = queueTicketRepository.findActiveQueueByDoctorIdAndDate(doctorId, today);
@@ -315,11 +370,13 @@ public class QueueServiceImpl implements QueueService {
                 
             if (nextTicketOptional.isPresent()) {
                 QueueTicket nextTicket = nextTicketOptional.get();
+                TicketSnapshot before = TicketSnapshot.of(nextTicket);
                 if (nextTicket.getConsultationStartTime() == null) {
                     nextTicket.setConsultationStartTime(LocalDateTime.now());
                 }
                 nextTicket.setStatus(QueueStatus.CALLED);
                 nextTicket = queueTicketRepository.save(nextTicket);
+                queueStatisticsRecorder.recordTransition(nextTicket, before);
                 
                 // Process notifications
                 processQueueNotifications(doctorId);
@@ -338,6 +395,7 @@ public class QueueServiceImpl implements QueueService {
     public QueueTicketDto updateQueueStatus(Integer ticketId, QueueStatus status) {
         QueueTicket queueTicket = queueTicketRepository.findById(ticketId)
             .orElseThrow(() -> new ResourceNotFoundExecption("Queue ticket not found with id: " + ticketId));
+        TicketSnapshot before = TicketSnapshot.of(queueTicket);
         
         if (status == QueueStatus.CALLED && queueTicket.getConsultationStartTime() == null) {
             queueTicket.setConsultationStartTime(LocalDateTime.now());
@@ -349,6 +407,7 @@ public class QueueServiceImpl implements QueueService {
         
         queueTicket.setStatus(status);
         queueTicket = queueTicketRepository.save(queueTicket);
+        queueStatisticsRecorder.recordTransition(queueTicket, before);
         
         // Update appointment status if needed
         if (status == QueueStatus.COMPLETED || status == QueueStatus.NO_SHOW) {
@@ -363,6 +422,7 @@ public class QueueServiceImpl implements QueueService {
         
         if (status == QueueStatus.COMPLETED || status == QueueStatus.NO_SHOW) {
             processQueueNotifications(queueTicket.getDoctorId());
+            publishQueueLength(queueTicket.getDoctorId());
         }
         
         return queueTicketMapper.toDto(queueTicket);
@@ -386,9 +446,14 @@ public class QueueServiceImpl implements QueueService {
             Object lock = doctorLocks.computeIfAbsent(doctorId, k -> new Object());
             
             // Synchronize on doctor-specific lock to prevent race conditions
+            long lockRequested = System.nanoTime();
+            QueueTicketDto ticket;
             synchronized (lock) {
-                return performMarkAsNoShow(ticketId, queueTicket, doctorId);
+                applicationMetrics.recordDoctorLockWait("markAsNoShow", System.nanoTime() - lockRequested);
+                ticket = performMarkAsNoShow(ticketId, queueTicket, doctorId);
             }
+            publishQueueLength(doctorId);
+            return ticket;
         } catch (ResourceNotFoundExecption e) {
             throw e;
         } catch (Exception e) {
@@ -399,10 +464,12 @@ public class QueueServiceImpl implements QueueService {
     private QueueTicketDto performMarkAsNoShow(Integer ticketId, QueueTicket queueTicket, String doctorId) {
         try {
             LocalDateTime referenceTime = queueTicket.getCheckInTime() != null ? queueTicket.getCheckInTime() : LocalDateTime.now();
+            TicketSnapshot before = TicketSnapshot.of(queueTicket);
             
             queueTicket.setStatus(QueueStatus.NO_SHOW);
             queueTicket.setQueueNumber(EMPTY_QUEUE_NUMBER);
             queueTicket = queueTicketRepository.save(queueTicket);
+            queueStatisticsRecorder.recordTransition(queueTicket, before);
             
             // Update appointment status
             Appointment appointment = appointmentRepository.findById(queueTicket.getAppointmentId()).orElse(null);
@@ -411,13 +478,9 @@ public class QueueServiceImpl implements QueueService {
                 appointmentRepository.save(appointment);
             }
             
-            List<QueueTicket> allTicketsToday = queueTicketRepository.findActiveQueueByDoctorIdAndDate(doctorId, referenceTime);
-            for (QueueTicket ticket : allTicketsToday) {
-                if (ticket.getStatus() != QueueStatus.COMPLETED && ticket.getStatus() != QueueStatus.NO_SHOW) {
-                    ticket.setQueueNumber(ticket.getQueueNumber() - QUEUE_DECREMENT);
-                    queueTicketRepository.save(ticket);
-                }
-            }
+            // Lock the remaining tickets, then renumber them in one statement rather than one per ticket
+            queueTicketRepository.findActiveQueueByDoctorIdAndDate(doctorId, referenceTime);
+            queueTicketRepository.decrementActiveQueueNumbers(doctorId, referenceTime);
             
             // Refresh the active queue list after updates
             List<QueueTicket> activeQueue = queueTicketRepository.findActiveQueueByDoctorIdAndDate(doctorId, referenceTime);
@@ -429,8 +492,10 @@ public class QueueServiceImpl implements QueueService {
             
             if (nextTicketOptional.isPresent()) {
                 QueueTicket nextTicket = nextTicketOptional.get();
+                TicketSnapshot nextBefore = TicketSnapshot.of(nextTicket);
                 nextTicket.setStatus(QueueStatus.CALLED);
                 queueTicketRepository.save(nextTicket);
+                queueStatisticsRecorder.recordTransition(nextTicket, nextBefore);
             }
             
             processQueueNotifications(doctorId);
@@ -463,7 +528,9 @@ public class QueueServiceImpl implements QueueService {
         Object lock = doctorLocks.computeIfAbsent(doctorId, k -> new Object());
         
         // Synchronize on doctor-specific lock to prevent race conditions
+        long lockRequested = System.nanoTime();
         synchronized (lock) {
+            applicationMetrics.recordDoctorLockWait("fastTrack", System.nanoTime() - lockRequested);
             return performFastTrack(ticketId, reason, queueTicket, doctorId);
         }
     }
@@ -522,11 +589,13 @@ public class QueueServiceImpl implements QueueService {
             }
         }
         
+        TicketSnapshot before = TicketSnapshot.of(queueTicket);
         queueTicket.setIsFastTracked(true);
         queueTicket.setFastTrackReason(reason);
         queueTicket.setStatus(QueueStatus.FAST_TRACKED);
         queueTicket.setQueueNumber(newQueueNumber);
         queueTicket = queueTicketRepository.save(queueTicket);
+        queueStatisticsRecorder.recordTransition(queueTicket, before);
         
         // Reload with appointment and doctor eagerly loaded for notification
         queueTicket = queueTicketRepository.findByIdWithAppointment(queueTicket.getTicketId())
@@ -543,11 +612,25 @@ public class QueueServiceImpl implements QueueService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<QueueTicketDto> getQueueTicketsByPatientId(java.util.UUID patientId) {
-        List<QueueTicket> queueTickets = queueTicketRepository.findByPatientId(patientId);
-        return queueTickets.stream()
-            .map(queueTicketMapper::toDto)
-            .collect(Collectors.toList());
+        return queueTicketRepository.findDtosByPatientId(patientId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<QueueTicketDto> getQueueTicketsByPatientIdPage(
+            java.util.UUID patientId, String cursor, int pageSize, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 1);
+        int size = KeysetCursor.normalizePageSize(pageSize);
+        Integer afterTicketId = after != null ? after.getInt(0) : KeysetCursor.MIN_INT;
+        
+        List<QueueTicketDto> rows = queueTicketRepository.findDtosByPatientIdAfterCursor(
+            patientId, afterTicketId, PageRequest.of(0, size + 1));
+        
+        return KeysetCursor.toPage(rows, size, Function.identity(),
+            ticket -> KeysetCursor.encode(ticket.getTicketId()),
+            includeTotal ? () -> queueTicketRepository.countByPatientId(patientId) : null);
     }
 
     @Override
@@ -624,11 +707,9 @@ public class QueueServiceImpl implements QueueService {
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<QueueTicketDto> getAllQueueTickets() {
-        List<QueueTicket> allTickets = queueTicketRepository.findAll();
-        return allTickets.stream()
-            .map(queueTicketMapper::toDto)
-            .collect(Collectors.toList());
+        return queueTicketRepository.findAllDtos();
     }
     
     // to work in conjuction with notification service, message is returned already
@@ -0,0 +1,139 @@
+package Singheatlh.springboot_backend.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import Singheatlh.springboot_backend.entity.enums.LatencyMetric;
+import Singheatlh.springboot_backend.entity.enums.QueueStatus;
+import Singheatlh.springboot_backend.repository.DoctorDailyStatisticsRepository;
+import Singheatlh.springboot_backend.repository.DoctorLatencyHistogramRepository;
+import Singheatlh.springboot_backend.service.ClinicDashboardStreamService;
+import Singheatlh.springboot_backend.service.ClinicMonitoringService;
+import Singheatlh.springboot_backend.service.QueueStatisticsRecorder;
+import Singheatlh.springboot_backend.util.LatencyHistogram;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Turns a ticket transition into a delta (after - before) of the rollup counters and applies it
+ * with an additive upsert, in the caller's transaction so the rollups commit with the ticket.
+ * Only the doctor's own rows are written; clinic figures are summed from them when read, so
+ * doctors of the same clinic never contend for a shared row.
+ * Check-in and consultation timestamps are write-once, so wait/consultation samples are only ever
+ * added and the stored min/max never need to shrink.
+ */
+@Service
+@RequiredArgsConstructor
+public class QueueStatisticsRecorderImpl implements QueueStatisticsRecorder {
+
+    private final DoctorDailyStatisticsRepository doctorDailyStatisticsRepository;
+    private final DoctorLatencyHistogramRepository doctorLatencyHistogramRepository;
+    private final ClinicMonitoringService clinicMonitoringService;
+    private final ClinicDashboardStreamService clinicDashboardStreamService;
+
+    @Override
+    public void recordTransition(String doctorId, Integer clinicId, TicketSnapshot before, TicketSnapshot after) {
+        LocalDateTime checkInTime = after.checkInTime() != null ? after.checkInTime() : before.checkInTime();
+        if (doctorId == null || clinicId == null || checkInTime == null) {
+            return;
+        }
+
+        Contribution from = Contribution.of(before);
+        Contribution to = Contribution.of(after);
+        if (from.equals(to)) {
+            return;
+        }
+
+        LocalDate statsDate = checkInTime.toLocalDate();
+        int checkIns = to.checkIns - from.checkIns;
+        int checkedIn = to.checkedIn - from.checkedIn;
+        int called = to.called - from.called;
+        int completed = to.completed - from.completed;
+        int noShow = to.noShow - from.noShow;
+        int fastTracked = to.fastTracked - from.fastTracked;
+        int waitCount = count(to.waitMinutes) - count(from.waitMinutes);
+        long waitSum = sum(to.waitMinutes) - sum(from.waitMinutes);
+        Long waitSample = from.waitMinutes == null ? to.waitMinutes : null;
+        int consultationCount = count(to.consultationMinutes) - count(from.consultationMinutes);
+        long consultationSum = sum(to.consultationMinutes) - sum(from.consultationMinutes);
+
+        doctorDailyStatisticsRepository.applyDelta(doctorId, statsDate, clinicId, checkIns, checkedIn, called,
+                completed, noShow, fastTracked, waitCount, waitSum, waitSample, consultationCount, consultationSum);
+
+        // Newly observed durations also go into the doctor's latency histogram for percentiles
+        if (waitSample != null) {
+            addHistogramSample(doctorId, clinicId, statsDate, LatencyMetric.WAIT, waitSample);
+        }
+        if (from.consultationMinutes == null && to.consultationMinutes != null) {
+            addHistogramSample(doctorId, clinicId, statsDate, LatencyMetric.CONSULTATION, to.consultationMinutes);
+        }
+
+        // Past days are served from an immutable snapshot cache; drop it once this change is visible.
+        // Today's changes are pushed to open dashboards instead.
+        if (statsDate.isBefore(LocalDate.now())) {
+            afterCommit(() -> clinicMonitoringService.evictStatisticsSnapshot(clinicId, statsDate));
+        } else {
+            afterCommit(() -> clinicDashboardStreamService.markChanged(clinicId));
+        }
+    }
+
+    private void addHistogramSample(String doctorId, Integer clinicId, LocalDate statsDate,
+                                    LatencyMetric metric, long minutes) {
+        doctorLatencyHistogramRepository.addSample(doctorId, statsDate, metric.name(),
+                LatencyHistogram.bucketOf(minutes), clinicId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int count(Long minutes) {
+        return minutes == null ? 0 : 1;
+    }
+
+    private static long sum(Long minutes) {
+        return minutes == null ? 0L : minutes;
+    }
+
+    /**
+     * What a single ticket in a given state adds to the counters
+     */
+    private record Contribution(int checkIns, int checkedIn, int called, int completed, int noShow,
+                                int fastTracked, Long waitMinutes, Long consultationMinutes) {
+
+        static Contribution of(TicketSnapshot snapshot) {
+            QueueStatus status = snapshot.status();
+            if (status == null) {
+                return new Contribution(0, 0, 0, 0, 0, 0, null, null);
+            }
+            Long waitMinutes = minutesBetween(snapshot.checkInTime(), snapshot.consultationStartTime());
+            Long consultationMinutes = minutesBetween(snapshot.consultationStartTime(), snapshot.consultationCompleteTime());
+            return new Contribution(
+                    1,
+                    status == QueueStatus.CHECKED_IN ? 1 : 0,
+                    status == QueueStatus.CALLED ? 1 : 0,
+                    status == QueueStatus.COMPLETED ? 1 : 0,
+                    status == QueueStatus.NO_SHOW ? 1 : 0,
+                    status == QueueStatus.FAST_TRACKED ? 1 : 0,
+                    waitMinutes,
+                    consultationMinutes);
+        }
+
+        private static Long minutesBetween(LocalDateTime from, LocalDateTime to) {
+            return from == null || to == null ? null : Duration.between(from, to).toMinutes();
+        }
+    }
+}
@@ -14,7 +14,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import Singheatlh.springboot_backend.dto.AppointmentDto;
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
+import Singheatlh.springboot_backend.dto.ScheduleChangeImpactDto;
 import Singheatlh.springboot_backend.dto.ScheduleDto;
 import Singheatlh.springboot_backend.dto.SlotDto;
 import Singheatlh.springboot_backend.entity.Appointment;
@@ -24,6 +27,7 @@ import Singheatlh.springboot_backend.entity.enums.AppointmentStatus;
 import Singheatlh.springboot_backend.entity.enums.ScheduleType;
 import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.mapper.ScheduleMapper;
+import Singheatlh.springboot_backend.metrics.ApplicationMetrics;
 import Singheatlh.springboot_backend.repository.AppointmentRepository;
 import Singheatlh.springboot_backend.repository.DoctorRepository;
 import Singheatlh.springboot_backend.repository.ScheduleRepository;
@@ -33,6 +37,7 @@ import Singheatlh.springboot_backend.service.ScheduleQueryService;
 import Singheatlh.springboot_backend.service.ScheduleSearchService;
 import Singheatlh.springboot_backend.service.ScheduleService;
 import Singheatlh.springboot_backend.util.EntityDtoConverter;
+import Singheatlh.springboot_backend.util.KeysetCursor;
 import Singheatlh.springboot_backend.util.TimeProvider;
 import Singheatlh.springboot_backend.validation.ScheduleValidator;
 import lombok.RequiredArgsConstructor;
@@ -62,6 +67,7 @@ public class ScheduleServiceImpl implements
     private final TimeProvider timeProvider;
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
+    private final ApplicationMetrics applicationMetrics;
 
     // ========== Helper Methods ==========
 
@@ -120,12 +126,28 @@ public class ScheduleServiceImpl implements
     @Override
     @Transactional(isolation = Isolation.REPEATABLE_READ)
     public ScheduleDto updateSchedule(ScheduleDto scheduleDto) {
+        return updateScheduleWithImpact(scheduleDto).getSchedule();
+    }
+
+    @Override
+    @Transactional
+    public void deleteSchedule(String id) {
+        deleteScheduleWithImpact(id);
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public ScheduleChangeImpactDto updateScheduleWithImpact(ScheduleDto scheduleDto) {
         // Find existing schedule
         Schedule schedule = findScheduleOrThrow(scheduleDto.getScheduleId());
 
         // Validation delegated to extensible validator chain
         scheduleValidator.validate(scheduleDto);
 
+        // Impact is computed against the old block, so capture it before mutating
+        List<AppointmentDto> affected = findAffectedAppointments(schedule,
+                scheduleDto.getStartDatetime(), scheduleDto.getEndDatetime(), scheduleDto.getType());
+
         // Update fields
         schedule.setStartDatetime(scheduleDto.getStartDatetime());
         schedule.setEndDatetime(scheduleDto.getEndDatetime());
@@ -133,14 +155,56 @@ public class ScheduleServiceImpl implements
 
         // Save and return
         Schedule savedSchedule = scheduleRepository.save(schedule);
-        return scheduleMapper.toDto(savedSchedule);
+        return ScheduleChangeImpactDto.builder()
+                .schedule(scheduleMapper.toDto(savedSchedule))
+                .affectedAppointments(affected)
+                .build();
     }
 
     @Override
     @Transactional
-    public void deleteSchedule(String id) {
-        findScheduleOrThrow(id);
+    public ScheduleChangeImpactDto deleteScheduleWithImpact(String id) {
+        Schedule schedule = findScheduleOrThrow(id);
+        List<AppointmentDto> affected = findAffectedAppointments(schedule, null, null, null);
         scheduleRepository.deleteById(id);
+        return ScheduleChangeImpactDto.builder()
+                .affectedAppointments(affected)
+                .build();
+    }
+
+    /**
+     * Booked appointments that lose coverage when an AVAILABLE block [oldStart, oldEnd) becomes
+     * [newStart, newEnd) of newType (all nulls = deleted). Only the removed parts of the block
+     * (the delta) are queried. Schedules for a doctor never overlap, so no other block can
+     * still cover the delta.
+     */
+    private List<AppointmentDto> findAffectedAppointments(Schedule old, LocalDateTime newStart,
+                                                          LocalDateTime newEnd, ScheduleType newType) {
+        if (old.getType() != ScheduleType.AVAILABLE) {
+            return new ArrayList<>();
+        }
+        LocalDateTime oldStart = old.getStartDatetime();
+        LocalDateTime oldEnd = old.getEndDatetime();
+
+        // Whole block lost: deleted, switched to UNAVAILABLE, or moved so that it no longer overlaps
+        if (newType != ScheduleType.AVAILABLE || !newStart.isBefore(oldEnd) || !newEnd.isAfter(oldStart)) {
+            return appointmentRepository.findBookedDtosOverlapping(old.getDoctorId(), oldStart, oldStart, oldEnd);
+        }
+
+        List<AppointmentDto> affected = new ArrayList<>();
+        // Leading gap [oldStart, newStart): anything overlapping it starts inside it
+        if (newStart.isAfter(oldStart)) {
+            affected.addAll(appointmentRepository.findBookedDtosOverlapping(
+                    old.getDoctorId(), oldStart, oldStart, newStart));
+        }
+        // Trailing gap [newEnd, oldEnd): also catch appointments straddling newEnd, which started
+        // inside the old block; skip any already reported by the leading gap
+        if (newEnd.isBefore(oldEnd)) {
+            LocalDateTime scanFrom = newStart.isAfter(oldStart) ? newStart : oldStart;
+            affected.addAll(appointmentRepository.findBookedDtosOverlapping(
+                    old.getDoctorId(), scanFrom, newEnd, oldEnd));
+        }
+        return affected;
     }
 
     // ========== Query Service Methods (Read Operations) ==========
@@ -252,9 +316,54 @@ public class ScheduleServiceImpl implements
                 .build();
     }
 
+    @Override
+    public CursorPageResponse<ScheduleDto> getSchedulesByDoctorIdPage(
+            String doctorId, String cursor, int pageSize, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        int size = KeysetCursor.normalizePageSize(pageSize);
+        List<Schedule> rows = scheduleRepository.findByDoctorIdAfterCursor(
+                doctorId, afterStart(after), afterId(after), size + 1);
+
+        return KeysetCursor.toPage(rows, size, scheduleMapper::toDto, this::cursorOf,
+                includeTotal ? () -> scheduleRepository.countByDoctorId(doctorId) : null);
+    }
+
+    @Override
+    public CursorPageResponse<ScheduleDto> getSchedulesByDoctorAndDateRangePage(
+            String doctorId,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String cursor,
+            int pageSize,
+            boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        int size = KeysetCursor.normalizePageSize(pageSize);
+        List<Schedule> rows = scheduleRepository.findByDoctorIdAndDateRangeAfterCursor(
+                doctorId, startDate, endDate, afterStart(after), afterId(after), size + 1);
+
+        return KeysetCursor.toPage(rows, size, scheduleMapper::toDto, this::cursorOf,
+                includeTotal ? () -> scheduleRepository.countByDoctorIdAndDateRange(doctorId, startDate, endDate) : null);
+    }
+
+    private LocalDateTime afterStart(KeysetCursor after) {
+        return after != null ? after.getDateTime(0) : KeysetCursor.MIN_DATETIME;
+    }
+
+    private String afterId(KeysetCursor after) {
+        return after != null ? after.getString(1) : KeysetCursor.MIN_STRING;
+    }
+
+    private String cursorOf(Schedule schedule) {
+        return KeysetCursor.encode(schedule.getStartDatetime(), schedule.getScheduleId());
+    }
+
     // ========= Slot Service Methods ========
     @Override
     public Map<String, List<SlotDto>> generateDoctorSlots(String id) {
+        return applicationMetrics.time(ApplicationMetrics.SCHEDULE_SLOTS_GENERATE, () -> buildDoctorSlots(id));
+    }
+
+    private Map<String, List<SlotDto>> buildDoctorSlots(String id) {
 
         Doctor doctor = doctorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundExecption(
@@ -14,6 +14,7 @@ import Singheatlh.springboot_backend.mapper.SystemAdministratorMapper;
 import Singheatlh.springboot_backend.repository.*;
 import Singheatlh.springboot_backend.service.SystemAdministratorService;
 import Singheatlh.springboot_backend.service.SupabaseAuthClient;
+import Singheatlh.springboot_backend.service.UserProfileCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +37,7 @@ public class SystemAdministratorServiceImpl implements SystemAdministratorServic
     private final PatientMapper patientMapper;
     private final ClinicStaffMapper clinicStaffMapper;
     private final SupabaseAuthClient supabaseAuthClient;
+    private final UserProfileCache userProfileCache;
 
     @Override
     public SystemAdministratorDto getById(String id) {
@@ -55,6 +57,7 @@ public class SystemAdministratorServiceImpl implements SystemAdministratorServic
         admin.setRole(Role.S);
 
         SystemAdministrator savedAdmin = systemAdministratorRepository.save(admin);
+        userProfileCache.invalidate(savedAdmin.getUserId());
         return systemAdministratorMapper.toDto(savedAdmin);
     }
 
@@ -76,6 +79,7 @@ public class SystemAdministratorServiceImpl implements SystemAdministratorServic
         // Email and role should be updated through separate auth service
 
         SystemAdministrator savedAdmin = systemAdministratorRepository.save(admin);
+        userProfileCache.invalidate(savedAdmin.getUserId());
         return systemAdministratorMapper.toDto(savedAdmin);
     }
 
@@ -86,6 +90,7 @@ public class SystemAdministratorServiceImpl implements SystemAdministratorServic
             throw new ResourceNotFoundExecption("System Administrator not found with id: " + id);
         }
         systemAdministratorRepository.deleteById(adminId);
+        userProfileCache.invalidate(adminId);
     }
 
     @Override
@@ -126,6 +131,7 @@ public class SystemAdministratorServiceImpl implements SystemAdministratorServic
         patient.setRole(Role.P);
 
         Patient savedPatient = patientRepository.save(patient);
+        userProfileCache.invalidate(savedPatient.getUserId());
         return patientMapper.toDto(savedPatient);
     }
 
@@ -173,6 +179,7 @@ public class SystemAdministratorServiceImpl implements SystemAdministratorServic
         }
 
         ClinicStaff savedStaff = clinicStaffRepository.save(clinicStaff);
+        userProfileCache.invalidate(savedStaff.getUserId());
         return clinicStaffMapper.toDto(savedStaff);
     }
 }
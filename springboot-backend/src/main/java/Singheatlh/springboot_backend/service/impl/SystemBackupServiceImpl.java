@@ -1,425 +1,300 @@
 package Singheatlh.springboot_backend.service.impl;
 
+import Singheatlh.springboot_backend.backup.ArchiveStore;
+import Singheatlh.springboot_backend.backup.BackupCatalog;
+import Singheatlh.springboot_backend.backup.BackupDownload;
+import Singheatlh.springboot_backend.backup.BackupInProgressException;
+import Singheatlh.springboot_backend.backup.BackupJob;
+import Singheatlh.springboot_backend.backup.BackupManifest;
+import Singheatlh.springboot_backend.backup.PgCopyBackupEngine;
+import Singheatlh.springboot_backend.backup.PgCopyRestoreEngine;
+import Singheatlh.springboot_backend.dto.BackupJobDto;
 import Singheatlh.springboot_backend.dto.BackupStatusDto;
+import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.service.SystemBackupService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SystemBackupServiceImpl implements SystemBackupService {
-    private final JdbcTemplate jdbcTemplate;
-
-    @Value("${spring.datasource.url}")
-    private String datasourceUrl;
-
-    @Value("${spring.datasource.username}")
-    private String datasourceUsername;
-
-    @Value("${spring.datasource.password}")
-    private String datasourcePassword;
-
-    @Value("${backup.directory:./backups}")
-    private String backupDirectory;
-    
-    @Value("${docker.container.name:supabase-db}")
-    private String dockerContainerName;
-
-    private static final String BACKUP_FILE_EXTENSION = ".sql.gz";
+    private final PgCopyBackupEngine backupEngine;
+    private final PgCopyRestoreEngine restoreEngine;
+    private final BackupCatalog backupCatalog;
+    private final ArchiveStore archiveStore;
+
+    // Single-flight guard: the one backup or restore currently running, if any
+    private final AtomicReference<BackupJob> activeJob = new AtomicReference<>();
+    private final Map<String, BackupJob> recentJobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BackupJob> eldest) {
+            return size() > RECENT_JOB_LIMIT;
+        }
+    });
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "backup-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final int RECENT_JOB_LIMIT = 20;
+
+    @PreDestroy
+    void stopJobs() {
+        BackupJob job = activeJob.get();
+        if (job != null) {
+            job.requestCancel();
+        }
+        jobExecutor.shutdown();
+    }
 
     @Override
     public BackupStatusDto createBackup() {
-        try {
-            String backupId = UUID.randomUUID().toString();
-            LocalDateTime createdAt = LocalDateTime.now();
-            Path backupDir = createBackupDirectory();
-            Path backupFile = backupDir.resolve(backupId + BACKUP_FILE_EXTENSION);
-
-            log.info("Starting database backup: {}", backupId);
-
-            // Extract database credentials from datasource URL
-            String dbName = extractDatabaseName(datasourceUrl);
-            
-            // Build docker exec command to run pg_dump inside the container
-            List<String> command = new ArrayList<>();
-            command.add("docker");
-            command.add("exec");
-            command.add("-e");
-            command.add("PGPASSWORD=" + datasourcePassword); // Set password as env var
-            command.add(dockerContainerName);
-            command.add("pg_dump");
-            command.add("-U");
-            command.add(datasourceUsername);
-            command.add("-d");
-            command.add(dbName);
-            command.add("-F");
-            command.add("c"); // Custom format (binary, compressible)
-            command.add("--file=/tmp/backup.dump"); // Temp file inside container
-            command.add("-v"); // Verbose
-
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.redirectErrorStream(true); // Combine stdout and stderr for easier capture
-
-            log.info("Executing pg_dump via docker exec (container: {})", dockerContainerName);
-            log.debug("Database: {}, Username: {}", dbName, datasourceUsername);
-
-            // Execute pg_dump
-            Process process = pb.start();
-
-            // Capture output in real-time (must do this BEFORE waiting or can deadlock)
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    log.debug("pg_dump: {}", line);
-                    output.append(line).append("\n");
-                }
-            }
-
-            // Wait for process to complete with timeout
-            boolean completed = process.waitFor(5, TimeUnit.MINUTES);
-            if (!completed) {
-                process.destroy();
-                throw new RuntimeException("Backup process timed out after 5 minutes");
-            }
-
-            int exitCode = process.exitValue();
-            if (exitCode != 0) {
-                String errorMsg = output.toString();
-                log.error("pg_dump failed with output:\n{}", errorMsg);
-                throw new RuntimeException("pg_dump failed with exit code: " + exitCode + 
-                    "\nError details: " + errorMsg +
-                    "\n\nConnection details:" +
-                    "\n  Container: " + dockerContainerName +
-                    "\n  Database: " + dbName +
-                    "\n  Username: " + datasourceUsername +
-                    "\n\nPlease verify the Docker container is running and credentials are correct.");
-            }
-            
-            log.info("pg_dump completed successfully, copying backup from container...");
-            
-            // Copy backup file from container to host
-            List<String> copyCommand = new ArrayList<>();
-            copyCommand.add("docker");
-            copyCommand.add("cp");
-            copyCommand.add(dockerContainerName + ":/tmp/backup.dump");
-            copyCommand.add(backupFile.toString());
-            
-            ProcessBuilder copyPb = new ProcessBuilder(copyCommand);
-            copyPb.redirectErrorStream(true);
-            Process copyProcess = copyPb.start();
-            
-            // Capture copy output
-            StringBuilder copyOutput = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(copyProcess.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    log.debug("docker cp: {}", line);
-                    copyOutput.append(line).append("\n");
-                }
-            }
-            
-            boolean copyCompleted = copyProcess.waitFor(1, TimeUnit.MINUTES);
-            if (!copyCompleted) {
-                copyProcess.destroy();
-                throw new RuntimeException("Docker cp timed out");
-            }
-            
-            int copyExitCode = copyProcess.exitValue();
-            if (copyExitCode != 0) {
-                throw new RuntimeException("Failed to copy backup from container: " + copyOutput.toString());
-            }
-            
-            // Clean up temp file in container
-            try {
-                List<String> cleanupCommand = new ArrayList<>();
-                cleanupCommand.add("docker");
-                cleanupCommand.add("exec");
-                cleanupCommand.add(dockerContainerName);
-                cleanupCommand.add("rm");
-                cleanupCommand.add("/tmp/backup.dump");
-                new ProcessBuilder(cleanupCommand).start();
-            } catch (Exception e) {
-                log.warn("Failed to cleanup temp backup file in container: {}", e.getMessage());
-            }
-
-            // Verify backup file was created on host
-            if (!Files.exists(backupFile)) {
-                throw new RuntimeException("Backup file was not created on host");
-            }
-
-            long fileSize = Files.size(backupFile);
-            int recordCount = countTotalRecords();
-
-            log.info("Backup completed successfully: {} (Size: {} bytes)", backupId, fileSize);
-
-            return BackupStatusDto.builder()
-                    .backupId(backupId)
-                    .createdAt(createdAt)
-                    .sizeInBytes(fileSize)
-                    .status("COMPLETED")
-                    .description("Database backup completed successfully")
-                    .recordCount(recordCount)
-                    .build();
-
-        } catch (Exception e) {
-            log.error("Failed to create backup", e);
-            throw new RuntimeException("Failed to create backup: " + e.getMessage(), e);
-        }
+        return awaitJob(launchBackup(false));
     }
 
     @Override
     public List<BackupStatusDto> getBackupHistory() {
-        List<BackupStatusDto> backups = new ArrayList<>();
-        try {
-            Path backupDir = Paths.get(backupDirectory);
-            if (!Files.exists(backupDir)) {
-                return backups;
-            }
-
-            Files.list(backupDir)
-                    .filter(p -> p.toString().endsWith(BACKUP_FILE_EXTENSION))
-                    .forEach(backupFile -> {
-                        try {
-                            String backupId = backupFile.getFileName().toString()
-                                    .replace(BACKUP_FILE_EXTENSION, "");
-                            long fileSize = Files.size(backupFile);
-                            LocalDateTime createdAt = LocalDateTime.ofInstant(
-                                    Files.getLastModifiedTime(backupFile).toInstant(),
-                                    java.time.ZoneId.systemDefault()
-                            );
+        return backupCatalog.list().stream()
+                .map(manifest -> toStatus(manifest, "Database backup file"))
+                .toList();
+    }
 
-                            int recordCount = countTotalRecords();
+    @Override
+    public BackupManifest getBackupManifest(String backupId) {
+        return backupCatalog.find(backupId)
+                .orElseThrow(() -> new ResourceNotFoundExecption("Backup not found: " + backupId));
+    }
 
-                            backups.add(BackupStatusDto.builder()
-                                    .backupId(backupId)
-                                    .createdAt(createdAt)
-                                    .sizeInBytes(fileSize)
-                                    .status("COMPLETED")
-                                    .description("Database backup file")
-                                    .recordCount(recordCount)
-                                    .build());
-                        } catch (IOException e) {
-                            log.error("Error reading backup file: {}", backupFile, e);
-                        }
-                    });
-        } catch (IOException e) {
-            log.error("Failed to retrieve backup history", e);
+    @Override
+    public BackupDownload downloadBackup(String backupId) {
+        BackupManifest manifest = getBackupManifest(backupId);
+        if (!archiveStore.exists(backupId)) {
+            throw new ResourceNotFoundExecption("Backup not found: " + backupId);
         }
+        long completedAt = manifest.getCompletedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new BackupDownload(backupId, backupId + PgCopyBackupEngine.ARCHIVE_EXTENSION,
+                "\"" + manifest.archiveChecksum() + "\"", manifest.getArchiveBytes(), completedAt,
+                archiveStore.localFile(backupId).orElse(null), archiveStore);
+    }
 
-        // Sort by creation time, newest first
-        backups.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-        return backups;
+    @Override
+    public void restoreBackup(String backupId) {
+        awaitJob(launchRestore(backupId));
     }
 
     @Override
-    public Resource downloadBackup(String backupId) {
+    public void deleteBackup(String backupId) {
+        BackupJob job = activeJob.get();
+        if (job != null && backupId.equals(job.getBackupId())) {
+            throw new BackupInProgressException(job.getJobId());
+        }
+        if (!backupCatalog.children(backupId).isEmpty()) {
+            throw new IllegalStateException("Backup " + backupId + " has incremental backups based on it; delete those first");
+        }
         try {
-            Path backupFile = Paths.get(backupDirectory, backupId + BACKUP_FILE_EXTENSION);
-            if (!Files.exists(backupFile)) {
-                throw new FileNotFoundException("Backup not found: " + backupId);
+            if (backupCatalog.remove(backupId)) {
+                log.info("Backup deleted: {}", backupId);
             }
-            return new FileSystemResource(backupFile);
-        } catch (Exception e) {
-            log.error("Failed to download backup: {}", backupId, e);
-            throw new RuntimeException("Failed to download backup: " + e.getMessage(), e);
+        } catch (IOException e) {
+            log.error("Failed to delete backup: {}", backupId, e);
+            throw new RuntimeException("Failed to delete backup: " + e.getMessage(), e);
         }
     }
 
     @Override
-    public void restoreBackup(String backupId) {
-        try {
-            Path backupFile = Paths.get(backupDirectory, backupId + BACKUP_FILE_EXTENSION);
-            if (!Files.exists(backupFile)) {
-                throw new FileNotFoundException("Backup not found: " + backupId);
-            }
-
-            log.info("Starting database restore from backup: {}", backupId);
-
-            // Extract database credentials from datasource URL
-            String dbName = extractDatabaseName(datasourceUrl);
-
-            // Copy backup file into Docker container first
-            List<String> copyCommand = new ArrayList<>();
-            copyCommand.add("docker");
-            copyCommand.add("cp");
-            copyCommand.add(backupFile.toString());
-            copyCommand.add(dockerContainerName + ":/tmp/" + backupId + BACKUP_FILE_EXTENSION);
-
-            ProcessBuilder copyPb = new ProcessBuilder(copyCommand);
-            Process copyProcess = copyPb.start();
-            boolean copyCompleted = copyProcess.waitFor(2, TimeUnit.MINUTES);
-            if (!copyCompleted) {
-                copyProcess.destroy();
-                throw new RuntimeException("Docker copy timed out");
-            }
-            if (copyProcess.exitValue() != 0) {
-                throw new RuntimeException("Failed to copy backup to Docker container");
-            }
-
-            // Build docker exec command to run pg_restore inside container
-            List<String> command = new ArrayList<>();
-            command.add("docker");
-            command.add("exec");
-            command.add("-e");
-            command.add("PGPASSWORD=" + datasourcePassword);
-            command.add(dockerContainerName);
-            command.add("pg_restore");
-            command.add("-U");
-            command.add(datasourceUsername);
-            command.add("-d");
-            command.add(dbName);
-            command.add("-v"); // Verbose
-            command.add("--clean"); // Clean (drop) objects before recreating
-            command.add("--if-exists"); // Use IF EXISTS clause for compatibility
-            command.add("--no-owner"); // Don't restore object ownership (avoids permission issues)
-            command.add("--disable-triggers"); // Disable triggers during restore
-            command.add("-j");
-            command.add("4"); // Use 4 parallel jobs for faster restore
-            command.add("/tmp/" + backupId + BACKUP_FILE_EXTENSION);
-
-            // Execute docker exec with pg_restore
-            ProcessBuilder pb = new ProcessBuilder(command);
+    public BackupJobDto startBackup(boolean incremental) {
+        return toJobDto(launchBackup(incremental));
+    }
 
-            // Execute pg_restore
-            Process process = pb.start();
+    @Override
+    public BackupJobDto startRestore(String backupId) {
+        return toJobDto(launchRestore(backupId));
+    }
 
-            // Capture output
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            BufferedReader outputReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            StringBuilder output = new StringBuilder();
-            StringBuilder errorOutput = new StringBuilder();
+    @Override
+    public BackupJobDto getJob(String jobId) {
+        return toJobDto(findJob(jobId));
+    }
 
-            String line;
-            while ((line = errorReader.readLine()) != null) {
-                log.debug("pg_restore stderr: {}", line);
-                errorOutput.append(line).append("\n");
-            }
+    @Override
+    public List<BackupJobDto> getJobs() {
+        List<BackupJob> jobs;
+        synchronized (recentJobs) {
+            jobs = new ArrayList<>(recentJobs.values());
+        }
+        Collections.reverse(jobs); // newest first
+        return jobs.stream().map(this::toJobDto).toList();
+    }
 
-            while ((line = outputReader.readLine()) != null) {
-                log.debug("pg_restore stdout: {}", line);
-                output.append(line).append("\n");
-            }
+    @Override
+    public BackupJobDto cancelJob(String jobId) {
+        BackupJob job = findJob(jobId);
+        if (job.isFinished()) {
+            throw new IllegalStateException("Job " + jobId + " has already finished");
+        }
+        job.requestCancel();
+        log.info("Cancellation requested for backup job {}", jobId);
+        return toJobDto(job);
+    }
 
-            // Wait for process to complete with timeout
-            boolean completed = process.waitFor(10, TimeUnit.MINUTES);
-            if (!completed) {
-                process.destroy();
-                throw new RuntimeException("Restore process timed out after 10 minutes");
+    // Job handling
+    private BackupJob launchBackup(boolean incremental) {
+        BackupJob job = new BackupJob(BackupJob.Type.BACKUP, UUID.randomUUID().toString());
+        return launch(job, () -> {
+            BackupManifest parent = incremental ? backupCatalog.incrementalParent().orElse(null) : null;
+            if (incremental && parent == null) {
+                log.info("No backup to base an incremental backup on since the last restore; taking a full backup");
             }
-
-            int exitCode = process.exitValue();
-            // pg_restore returns exit code 0 on success, but may have warnings
-            // We consider it successful if exit code is 0 or if only harmless errors occurred
-            if (exitCode == 0) {
-                log.info("Database restore completed successfully from backup: {}", backupId);
-            } else {
-                // Check if the output indicates warnings (731 errors ignored, etc.)
-                String allOutput = errorOutput.toString() + output.toString();
-                if (allOutput.toLowerCase().contains("errors ignored")) {
-                    log.info("Database restore completed with non-critical errors from backup: {}", backupId);
-                } else {
-                    log.error("pg_restore stderr: {}", errorOutput.toString());
-                    log.error("pg_restore stdout: {}", output.toString());
-                    throw new RuntimeException("pg_restore failed with exit code: " + exitCode);
-                }
+            log.info("Starting database backup: {}", job.getBackupId());
+            BackupManifest manifest = backupEngine.backup(job.getBackupId(), backupCatalog.directory(), parent, job);
+            try {
+                backupCatalog.register(manifest);
+            } catch (IOException e) {
+                backupCatalog.remove(job.getBackupId());
+                throw e;
             }
+            pruneTombstones();
+            log.info("Backup completed successfully: {} (Size: {} bytes)", job.getBackupId(), manifest.getArchiveBytes());
+            return toStatus(manifest, "Database backup completed successfully");
+        });
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to restore backup: {}", backupId, e);
-            throw new RuntimeException("Failed to restore backup: " + e.getMessage(), e);
-        }
+    private BackupJob launchRestore(String backupId) {
+        List<BackupManifest> chain = backupCatalog.chain(backupId);
+        BackupManifest manifest = chain.get(chain.size() - 1);
+        BackupJob job = new BackupJob(BackupJob.Type.RESTORE, backupId);
+        return launch(job, () -> {
+            log.info("Starting database restore from backup: {} (chain of {})", backupId, chain.size());
+            restoreEngine.restore(chain, backupCatalog.directory(), job);
+            backupCatalog.recordRestore();
+            log.info("Database restore completed successfully from backup: {}", backupId);
+            return toStatus(manifest, "Database restored from backup");
+        });
     }
 
-    @Override
-    public void deleteBackup(String backupId) {
+    private void pruneTombstones() {
+        // Best effort: tombstones only grow until the next successful prune
         try {
-            Path backupFile = Paths.get(backupDirectory, backupId + BACKUP_FILE_EXTENSION);
-            if (Files.exists(backupFile)) {
-                Files.delete(backupFile);
-                log.info("Backup deleted: {}", backupId);
+            Optional<String> oldestSnapshot = backupCatalog.oldestSnapshot();
+            if (oldestSnapshot.isPresent()) {
+                backupEngine.pruneTombstones(oldestSnapshot.get());
             }
         } catch (Exception e) {
-            log.error("Failed to delete backup: {}", backupId, e);
-            throw new RuntimeException("Failed to delete backup: " + e.getMessage(), e);
+            log.warn("Could not prune backup tombstones: {}", e.getMessage());
         }
     }
 
-    // Helper methods
-    private Path createBackupDirectory() throws IOException {
-        Path backupDir = Paths.get(backupDirectory);
-        if (!Files.exists(backupDir)) {
-            Files.createDirectories(backupDir);
+    private BackupJob launch(BackupJob job, JobBody body) {
+        if (!activeJob.compareAndSet(null, job)) {
+            BackupJob running = activeJob.get();
+            throw new BackupInProgressException(running != null ? running.getJobId() : job.getJobId());
         }
-        return backupDir;
-    }
-
-    private int countTotalRecords() {
+        recentJobs.put(job.getJobId(), job);
         try {
-            Integer count = jdbcTemplate.queryForObject(
-                    "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = 'public' AND table_type = 'BASE TABLE'",
-                    Integer.class
-            );
-            return count != null ? count : 0;
-        } catch (Exception e) {
-            log.warn("Could not count tables in database", e);
-            return 0;
+            jobExecutor.execute(() -> runJob(job, body));
+        } catch (RuntimeException e) {
+            activeJob.set(null);
+            job.fail(e);
+            throw e;
         }
+        return job;
     }
 
-    private String extractDatabaseName(String datasourceUrl) {
-        // Extract database name from JDBC URL: jdbc:postgresql://host:port/dbname
+    private void runJob(BackupJob job, JobBody body) {
         try {
-            String[] parts = datasourceUrl.split("/");
-            if (parts.length > 0) {
-                return parts[parts.length - 1].split("\\?")[0]; // Remove query parameters if any
-            }
+            job.complete(body.run());
         } catch (Exception e) {
-            log.warn("Could not extract database name from datasource URL", e);
+            if (job.isCancelled()) {
+                log.info("Backup job {} cancelled", job.getJobId());
+            } else {
+                log.error("Backup job {} ({} {}) failed", job.getJobId(), job.getType(), job.getBackupId(), e);
+            }
+            job.fail(e);
+        } finally {
+            activeJob.compareAndSet(job, null);
         }
-        return "postgres"; // Default fallback
     }
 
-    private String extractHost(String datasourceUrl) {
-        // Extract host from JDBC URL: jdbc:postgresql://host:port/dbname
+    private BackupStatusDto awaitJob(BackupJob job) {
         try {
-            String url = datasourceUrl.replace("jdbc:postgresql://", "");
-            String hostAndPort = url.split("/")[0];
-            String host = hostAndPort.split(":")[0];
-            return host;
-        } catch (Exception e) {
-            log.warn("Could not extract host from datasource URL, using localhost", e);
+            return job.getCompletion().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            String action = job.getType() == BackupJob.Type.BACKUP ? "create" : "restore";
+            throw new RuntimeException("Failed to " + action + " backup: " + cause.getMessage(), cause);
         }
-        return "localhost"; // Default fallback
     }
 
-    private String extractPort(String datasourceUrl) {
-        // Extract port from JDBC URL: jdbc:postgresql://host:port/dbname
-        try {
-            String url = datasourceUrl.replace("jdbc:postgresql://", "");
-            if (url.contains(":")) {
-                String[] parts = url.split(":");
-                if (parts.length > 1) {
-                    return parts[1].split("/")[0];
-                }
-            }
-        } catch (Exception e) {
-            log.warn("Could not extract port from datasource URL, using 5432", e);
+    private BackupJob findJob(String jobId) {
+        BackupJob job = recentJobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundExecption("Backup job not found: " + jobId);
         }
-        return "5432"; // Default PostgreSQL port
+        return job;
+    }
+
+    private BackupJobDto toJobDto(BackupJob job) {
+        List<BackupJobDto.TableProgressDto> tables = job.getTables().stream()
+                .map(table -> BackupJobDto.TableProgressDto.builder()
+                        .name(table.getName())
+                        .state(table.getState().name())
+                        .expectedRows(table.getExpectedRows())
+                        .rows(table.getRows())
+                        .bytes(table.getBytes())
+                        .build())
+                .toList();
+        return BackupJobDto.builder()
+                .jobId(job.getJobId())
+                .type(job.getType().name())
+                .backupId(job.getBackupId())
+                .status(job.getStatus().name())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .error(job.getError())
+                .totalTables(tables.size())
+                .completedTables((int) tables.stream().filter(table -> "DONE".equals(table.getState())).count())
+                .bytesProcessed(tables.stream().mapToLong(BackupJobDto.TableProgressDto::getBytes).sum())
+                .rowsProcessed(tables.stream().mapToLong(BackupJobDto.TableProgressDto::getRows).sum())
+                .tables(tables)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface JobBody {
+        BackupStatusDto run() throws Exception;
+    }
+
+    // Helper methods
+    private BackupStatusDto toStatus(BackupManifest manifest, String description) {
+        return BackupStatusDto.builder()
+                .backupId(manifest.getBackupId())
+                .createdAt(manifest.getStartedAt())
+                .sizeInBytes(manifest.getArchiveBytes())
+                .status("COMPLETED")
+                .description(description)
+                .recordCount((int) Math.min(manifest.getTotalRows(), Integer.MAX_VALUE))
+                .type(manifest.getType() != null ? manifest.getType() : BackupManifest.TYPE_FULL)
+                .parentBackupId(manifest.getParentBackupId())
+                .totalRows(manifest.getTotalRows())
+                .tableCount(manifest.getTables() != null ? manifest.getTables().size() : 0)
+                .format(manifest.getFormat())
+                .compression(manifest.getCompression())
+                .uncompressedBytes(manifest.getTables() != null
+                        ? manifest.getTables().stream().mapToLong(BackupManifest.TableEntry::getUncompressedBytes).sum()
+                        : 0)
+                .durationMillis(manifest.getDurationMillis())
+                .build();
     }
 }
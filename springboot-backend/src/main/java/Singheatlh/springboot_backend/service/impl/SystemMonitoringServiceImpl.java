@@ -1,10 +1,13 @@
 package Singheatlh.springboot_backend.service.impl;
 
+import Singheatlh.springboot_backend.dto.QueryInstrumentationReportDto;
 import Singheatlh.springboot_backend.dto.SystemStatisticsDto;
-import Singheatlh.springboot_backend.entity.enums.AppointmentStatus;
+import Singheatlh.springboot_backend.metrics.ApplicationMetrics;
+import Singheatlh.springboot_backend.metrics.QueryInstrumentation;
 import Singheatlh.springboot_backend.repository.*;
 import Singheatlh.springboot_backend.service.SystemMonitoringService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -13,58 +16,85 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class SystemMonitoringServiceImpl implements SystemMonitoringService {
     private final UserRepository userRepository;
-    private final DoctorRepository doctorRepository;
-    private final ClinicRepository clinicRepository;
-    private final AppointmentRepository appointmentRepository;
-    private final PatientRepository patientRepository;
-    private final ClinicStaffRepository clinicStaffRepository;
-    private final SystemAdministratorRepository systemAdministratorRepository;
+    private final ApplicationMetrics applicationMetrics;
+    private final QueryInstrumentation queryInstrumentation;
+
+    // Dashboard totals are served from a short-lived snapshot so refreshes cost O(1);
+    // at most one refresh query runs per TTL window regardless of how many admins poll
+    @Value("${monitoring.statistics.cache-ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    private volatile CachedCounts cachedCounts;
 
     @Override
     public SystemStatisticsDto getSystemStatistics() {
+        UserRepository.SystemCounts counts = currentCounts();
+
         // Count total users and their breakdown by role
-        int totalPatients = (int) patientRepository.count();
-        int totalClinicStaff = (int) clinicStaffRepository.count();
-        int totalAdministrators = (int) systemAdministratorRepository.count();
+        int totalPatients = toInt(counts.getPatients());
+        int totalClinicStaff = toInt(counts.getClinicStaff());
+        int totalAdministrators = toInt(counts.getAdministrators());
         int totalUsers = totalPatients + totalClinicStaff + totalAdministrators;
 
-        // Count doctors and clinics
-        int totalDoctors = (int) doctorRepository.count();
-        int totalClinics = (int) clinicRepository.count();
-
-        // Count appointments by status
-        int totalAppointments = (int) appointmentRepository.count();
-        long completedCount = appointmentRepository.findByStatus(AppointmentStatus.Completed).size();
-        long pendingCount = appointmentRepository.findByStatus(AppointmentStatus.Upcoming).size();
-        long cancelledCount = appointmentRepository.findByStatus(AppointmentStatus.Cancelled).size();
-
         return SystemStatisticsDto.builder()
                 .totalUsers(totalUsers)
-                .totalDoctors(totalDoctors)
-                .totalClinics(totalClinics)
-                .totalAppointments(totalAppointments)
-                .completedAppointments((int) completedCount)
-                .pendingAppointments((int) pendingCount)
-                .cancelledAppointments((int) cancelledCount)
+                .totalDoctors(toInt(counts.getDoctors()))
+                .totalClinics(toInt(counts.getClinics()))
+                .totalAppointments(toInt(counts.getAppointments()))
+                .completedAppointments(toInt(counts.getCompletedAppointments()))
+                .pendingAppointments(toInt(counts.getUpcomingAppointments()))
+                .cancelledAppointments(toInt(counts.getCancelledAppointments()))
                 .totalPatients(totalPatients)
                 .totalClinicStaff(totalClinicStaff)
                 .totalAdministrators(totalAdministrators)
                 .lastBackupTime(LocalDateTime.now())
-                .systemUptime(calculateSystemUptime())
-                .activeUsers(calculateActiveUsers())
+                .systemUptime(applicationMetrics.getAvailabilityPercent())
+                .uptimeSeconds(applicationMetrics.getUptimeSeconds())
+                .activeUsers(applicationMetrics.getActiveUserCount())
                 .build();
     }
 
-    private double calculateSystemUptime() {
-        // Placeholder: In a real system, track actual uptime
-        // For now returning 99.9% uptime
-        return 99.9;
+    @Override
+    public QueryInstrumentationReportDto getQueryInstrumentationReport() {
+        return queryInstrumentation.report();
+    }
+
+    @Override
+    public QueryInstrumentationReportDto configureQueryInstrumentation(Boolean enabled, Double sampleRate,
+                                                                       Long slowQueryThresholdMillis,
+                                                                       Boolean hibernateStatistics) {
+        queryInstrumentation.configure(enabled, sampleRate, slowQueryThresholdMillis, hibernateStatistics);
+        return queryInstrumentation.report();
+    }
+
+    @Override
+    public void resetQueryInstrumentation() {
+        queryInstrumentation.reset();
+    }
+
+    private UserRepository.SystemCounts currentCounts() {
+        CachedCounts snapshot = cachedCounts;
+        if (snapshot != null && !snapshot.isExpired()) {
+            return snapshot.counts();
+        }
+        synchronized (this) {
+            snapshot = cachedCounts;
+            if (snapshot == null || snapshot.isExpired()) {
+                snapshot = new CachedCounts(userRepository.countSystemTotals(),
+                        System.nanoTime() + cacheTtlSeconds * 1_000_000_000L);
+                cachedCounts = snapshot;
+            }
+            return snapshot.counts();
+        }
+    }
+
+    private static int toInt(Long value) {
+        return value == null ? 0 : value.intValue();
     }
 
-    private int calculateActiveUsers() {
-        // Placeholder: In a real system, track login sessions
-        // For now returning approximate active users (users created in last 24 hours)
-        LocalDateTime yesterday = LocalDateTime.now().minusHours(24);
-        return (int) userRepository.count(); // Simplified for now
+    private record CachedCounts(UserRepository.SystemCounts counts, long expiresAtNanos) {
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
+        }
     }
 }
@@ -1,5 +1,6 @@
 package Singheatlh.springboot_backend.service.impl;
 
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
 import Singheatlh.springboot_backend.dto.PaginatedResponse;
 import Singheatlh.springboot_backend.dto.UserDto;
 import Singheatlh.springboot_backend.entity.User;
@@ -7,7 +8,9 @@ import Singheatlh.springboot_backend.entity.enums.Role;
 import Singheatlh.springboot_backend.exception.ResourceNotFoundExecption;
 import Singheatlh.springboot_backend.mapper.UserMapper;
 import Singheatlh.springboot_backend.repository.UserRepository;
+import Singheatlh.springboot_backend.service.UserProfileCache;
 import Singheatlh.springboot_backend.service.UserService;
+import Singheatlh.springboot_backend.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -24,6 +27,7 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final UserProfileCache userProfileCache;
 
     @Override
     public UserDto getById(String id) {
@@ -52,6 +56,7 @@ public class UserServiceImpl implements UserService {
         // Email and role should be updated through separate auth service
 
         User savedUser = userRepository.save(user);
+        userProfileCache.invalidate(savedUser.getUserId());
         return userMapper.toDto(savedUser);
     }
 
@@ -62,6 +67,7 @@ public class UserServiceImpl implements UserService {
             throw new ResourceNotFoundExecption("User not found with id: " + id);
         }
         userRepository.deleteById(userId);
+        userProfileCache.invalidate(userId);
     }
 
     @Override
@@ -108,4 +114,19 @@ public class UserServiceImpl implements UserService {
                 .build();
     }
 
+    @Override
+    public CursorPageResponse<UserDto> getUsersWithCursor(String cursor, int pageSize, String search, String role, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 1);
+        UUID afterId = after != null ? after.getUuid(0) : KeysetCursor.MIN_UUID;
+        int size = KeysetCursor.normalizePageSize(pageSize);
+
+        // Build search pattern with wildcards
+        String searchPattern = (search != null && !search.isEmpty()) ? "%" + search + "%" : null;
+
+        List<User> rows = userRepository.findWithSearchAfterCursor(search, searchPattern, role, afterId, size + 1);
+        return KeysetCursor.toPage(rows, size, userMapper::toDto,
+                user -> KeysetCursor.encode(user.getUserId()),
+                includeTotal ? () -> userRepository.countWithSearch(search, searchPattern, role) : null);
+    }
+
 }
@@ -44,7 +44,12 @@ public abstract class AbstractRescheduleStrategy implements AppointmentReschedul
         // Common logic - update appointment times
         updateAppointmentTimes(appointment, context);
 
-        // Common logic - ensure status is Upcoming
+        // Common logic - ensure status is Upcoming; a revived cancellation drops its cancellation record
+        if (appointment.getStatus() == AppointmentStatus.Cancelled) {
+            appointment.setCancelledBy(null);
+            appointment.setCancelledAt(null);
+            appointment.setCancellationReason(null);
+        }
         appointment.setStatus(AppointmentStatus.Upcoming);
 
         // Persist and return DTO
@@ -94,6 +99,9 @@ public abstract class AbstractRescheduleStrategy implements AppointmentReschedul
             .stream()
             .filter(apt -> apt.getStatus() == AppointmentStatus.Upcoming || apt.getStatus() == AppointmentStatus.Ongoing)
             .filter(apt -> !apt.getAppointmentId().equals(appointment.getAppointmentId())) // Exclude current appointment
+            // Only actual overlaps conflict - back-to-back appointments are fine
+            .filter(apt -> apt.getStartDatetime().isBefore(newEndTime)
+                && apt.getEndDatetime().isAfter(context.getNewDateTime()))
             .collect(Collectors.toList());
 
         if (!conflicts.isEmpty()) {
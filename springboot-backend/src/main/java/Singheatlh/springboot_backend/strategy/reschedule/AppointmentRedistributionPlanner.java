@@ -0,0 +1,145 @@
+package Singheatlh.springboot_backend.strategy.reschedule;
+
+import Singheatlh.springboot_backend.dto.SlotDto;
+import Singheatlh.springboot_backend.entity.Appointment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Computes an assignment of displaced appointments onto free slots of other doctors.
+ *
+ * Uses greedy min-cost matching: every (appointment, candidate slot) pair is an edge whose cost is
+ * how far the slot is from the appointment's original start time. Edges are taken cheapest-first,
+ * skipping any whose appointment or slot is already used, or that would double-book the patient
+ * against an earlier choice in the batch or one of their existing bookings.
+ * This keeps patients as close as possible to their preferred time without an exact solver,
+ * and runs in O(E log E) for E candidate edges.
+ *
+ * The planner is pure - it only decides; the moves are applied through the reschedule strategies.
+ */
+@Component
+public class AppointmentRedistributionPlanner {
+
+    /**
+     * Cap on candidate slots considered per appointment (the nearest ones by cost).
+     * Bounds the edge count for large clinics while leaving plenty of fallbacks.
+     */
+    private static final int MAX_CANDIDATES_PER_APPOINTMENT = 50;
+
+    /**
+     * A free slot belonging to a specific doctor.
+     */
+    public record CandidateSlot(String doctorId, LocalDateTime startDatetime, LocalDateTime endDatetime) {
+
+        public static CandidateSlot of(String doctorId, SlotDto slot) {
+            return new CandidateSlot(doctorId, slot.getStartDatetime(), slot.getEndDatetime());
+        }
+
+        private long lengthMinutes() {
+            return Duration.between(startDatetime, endDatetime).toMinutes();
+        }
+    }
+
+    private record Edge(Appointment appointment, CandidateSlot slot, long cost) { }
+
+    /**
+     * Plan the redistribution.
+     *
+     * @param appointments The appointments to move (none of their current doctors is a candidate)
+     * @param freeSlotsByDoctor Free slots per candidate doctor, e.g. from generateDoctorSlots
+     * @param bookedByPatient The patients' other active bookings, which a new slot must not overlap
+     * @param windowStart Earliest allowed new start time (inclusive)
+     * @param windowEnd Latest allowed new start time (inclusive), or null for no limit
+     * @return Chosen slot per appointment ID; appointments without a feasible slot are absent
+     */
+    public Map<String, CandidateSlot> plan(List<Appointment> appointments,
+                                           Map<String, List<CandidateSlot>> freeSlotsByDoctor,
+                                           Map<UUID, List<CandidateSlot>> bookedByPatient,
+                                           LocalDateTime windowStart,
+                                           LocalDateTime windowEnd) {
+        // A doctor being cleared must not receive another cleared doctor's patients
+        Set<String> sourceDoctorIds = new HashSet<>();
+        for (Appointment appointment : appointments) {
+            sourceDoctorIds.add(appointment.getDoctorId());
+        }
+
+        List<Edge> edges = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            edges.addAll(candidateEdges(appointment, freeSlotsByDoctor, sourceDoctorIds, windowStart, windowEnd));
+        }
+        edges.sort(Comparator.comparingLong(Edge::cost)
+                .thenComparing(edge -> edge.slot().startDatetime()));
+
+        Map<String, CandidateSlot> assignment = new LinkedHashMap<>();
+        Set<CandidateSlot> usedSlots = new HashSet<>();
+        Map<UUID, List<CandidateSlot>> slotsByPatient = new HashMap<>();
+
+        for (Edge edge : edges) {
+            Appointment appointment = edge.appointment();
+            if (assignment.containsKey(appointment.getAppointmentId()) || usedSlots.contains(edge.slot())) {
+                continue;
+            }
+            List<CandidateSlot> patientSlots = slotsByPatient.computeIfAbsent(appointment.getPatientId(),
+                    patientId -> new ArrayList<>(bookedByPatient.getOrDefault(patientId, List.of())));
+            if (overlapsAny(edge.slot(), patientSlots)) {
+                continue;
+            }
+            assignment.put(appointment.getAppointmentId(), edge.slot());
+            usedSlots.add(edge.slot());
+            patientSlots.add(edge.slot());
+        }
+        return assignment;
+    }
+
+    private List<Edge> candidateEdges(Appointment appointment,
+                                      Map<String, List<CandidateSlot>> freeSlotsByDoctor,
+                                      Set<String> sourceDoctorIds,
+                                      LocalDateTime windowStart,
+                                      LocalDateTime windowEnd) {
+        long durationMinutes = Duration.between(
+                appointment.getStartDatetime(), appointment.getEndDatetime()).toMinutes();
+
+        List<Edge> edges = new ArrayList<>();
+        for (Map.Entry<String, List<CandidateSlot>> entry : freeSlotsByDoctor.entrySet()) {
+            // "Other doctors" only - every doctor in the batch is being cleared
+            if (sourceDoctorIds.contains(entry.getKey())) {
+                continue;
+            }
+            for (CandidateSlot slot : entry.getValue()) {
+                if (slot.startDatetime().isBefore(windowStart)
+                        || (windowEnd != null && slot.startDatetime().isAfter(windowEnd))
+                        || slot.lengthMinutes() < durationMinutes) {
+                    continue;
+                }
+                long cost = Math.abs(Duration.between(appointment.getStartDatetime(), slot.startDatetime()).toMinutes());
+                edges.add(new Edge(appointment, slot, cost));
+            }
+        }
+
+        if (edges.size() > MAX_CANDIDATES_PER_APPOINTMENT) {
+            edges.sort(Comparator.comparingLong(Edge::cost));
+            return new ArrayList<>(edges.subList(0, MAX_CANDIDATES_PER_APPOINTMENT));
+        }
+        return edges;
+    }
+
+    private boolean overlapsAny(CandidateSlot slot, List<CandidateSlot> others) {
+        for (CandidateSlot other : others) {
+            if (slot.startDatetime().isBefore(other.endDatetime()) && slot.endDatetime().isAfter(other.startDatetime())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package Singheatlh.springboot_backend.util;
+
+import Singheatlh.springboot_backend.dto.CursorPageResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Helpers for keyset (seek) pagination.
+ *
+ * A cursor is an opaque URL-safe token that encodes the sort key of the last row
+ * on the previous page, e.g. "startDatetime|appointmentId". Repositories then seek
+ * past that key with a range predicate instead of an OFFSET, so every page costs
+ * the same regardless of how deep the client has scrolled.
+ *
+ * The first page uses the sentinel values below rather than NULL parameters,
+ * which keeps the predicate a plain index range scan.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public static final LocalDateTime MIN_DATETIME = LocalDateTime.of(1900, 1, 1, 0, 0);
+    public static final String MIN_STRING = "";
+    public static final int MIN_INT = Integer.MIN_VALUE;
+    public static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private static final String SEPARATOR = "|";
+
+    private final String[] parts;
+
+    private KeysetCursor(String[] parts) {
+        this.parts = parts;
+    }
+
+    /**
+     * Encodes the sort key values of a row into an opaque cursor.
+     */
+    public static String encode(Object... values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARATOR);
+            }
+            sb.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(Object...)}.
+     *
+     * @return the decoded cursor, or null when no cursor was supplied (first page)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static KeysetCursor decode(String cursor, int expectedParts) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != expectedParts) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(parts);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String getString(int index) {
+        return parts[index];
+    }
+
+    public LocalDateTime getDateTime(int index) {
+        try {
+            return LocalDateTime.parse(parts[index]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public int getInt(int index) {
+        try {
+            return Integer.parseInt(parts[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public UUID getUuid(int index) {
+        try {
+            return UUID.fromString(parts[index]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Clamps a requested page size into [1, MAX_PAGE_SIZE].
+     */
+    public static int normalizePageSize(int pageSize) {
+        if (pageSize <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Builds a cursor page from rows fetched with a limit of pageSize + 1.
+     * The extra row only signals that another page exists and is dropped.
+     *
+     * @param rows rows in keyset order, at most pageSize + 1
+     * @param pageSize the normalized page size
+     * @param mapper entity to DTO mapping function
+     * @param cursorOf builds the cursor for a given row (usually via {@link #encode(Object...)})
+     * @param total supplier of the total count, or null when not requested
+     */
+    public static <E, D> CursorPageResponse<D> toPage(List<E> rows, int pageSize,
+                                                      Function<E, D> mapper,
+                                                      Function<E, String> cursorOf,
+                                                      Supplier<Long> total) {
+        boolean hasNext = rows.size() > pageSize;
+        List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        return CursorPageResponse.<D>builder()
+                .content(StreamMappingHelper.mapToList(page, mapper))
+                .pageSize(pageSize)
+                .nextCursor(hasNext ? cursorOf.apply(page.get(page.size() - 1)) : null)
+                .hasNextPage(hasNext)
+                .totalElements(total != null ? total.get() : null)
+                .build();
+    }
+}
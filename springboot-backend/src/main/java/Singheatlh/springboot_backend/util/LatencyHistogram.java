@@ -0,0 +1,72 @@
+package Singheatlh.springboot_backend.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable histogram of durations in whole minutes.
+ *
+ * Values keep two significant digits: below 100 they are exact, larger values are rounded down
+ * (127 -> 120, 1234 -> 1200), so relative error stays under 10% with a few hundred buckets at most.
+ * Histograms from different days or doctors merge by adding bucket counts, which is what lets
+ * percentiles be served for any range from the persisted daily histograms.
+ */
+public final class LatencyHistogram {
+
+    private static final long EXACT_LIMIT = 100;
+
+    private final TreeMap<Long, Long> counts = new TreeMap<>();
+    private long sampleCount;
+
+    /**
+     * Bucket a duration is recorded under
+     * @param minutes Duration in minutes (negative values are clamped to 0)
+     * @return Lower bound of the bucket
+     */
+    public static long bucketOf(long minutes) {
+        if (minutes < EXACT_LIMIT) {
+            return Math.max(minutes, 0);
+        }
+        long scale = 1;
+        for (long v = minutes; v >= EXACT_LIMIT; v /= 10) {
+            scale *= 10;
+        }
+        return (minutes / scale) * scale;
+    }
+
+    public void add(long bucketMinutes, long count) {
+        if (count <= 0) {
+            return;
+        }
+        counts.merge(bucketMinutes, count, Long::sum);
+        sampleCount += count;
+    }
+
+    public void merge(LatencyHistogram other) {
+        other.counts.forEach(this::add);
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Nearest-rank percentile
+     * @param quantile Between 0 and 1 (e.g. 0.9 for p90)
+     * @return Bucket holding the percentile, or null if the histogram is empty
+     */
+    public Long percentile(double quantile) {
+        if (sampleCount == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * sampleCount));
+        long seen = 0;
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            seen += entry.getValue();
+            if (seen >= rank) {
+                return entry.getKey();
+            }
+        }
+        return counts.lastKey();
+    }
+}
@@ -0,0 +1,163 @@
+package Singheatlh.springboot_backend.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves content with HTTP range support, so large downloads can be resumed or fetched in parallel chunks.
+ *
+ * A single byte range (Range: bytes=a-b, a-, or -n) is answered with 206 Partial Content; it is
+ * honoured only if If-Range, when sent, still matches the content's ETag or Last-Modified. Requests
+ * for several ranges get everything (RFC 9110 lets a server ignore Range), which keeps every 206 a
+ * single plain body. If-None-Match / If-Match and the date conditions are evaluated as usual.
+ *
+ * Content backed by a local file goes out with Tomcat's sendfile when the connector supports it, so
+ * the bytes never pass through the JVM, and otherwise with FileChannel.transferTo.
+ */
+public final class RangedContentSender {
+
+    /**
+     * Something to serve: a local file, or anything that can read back a byte range of itself
+     */
+    public interface Content {
+
+        long length();
+
+        long lastModified();
+
+        /**
+         * Quoted strong ETag of the current bytes
+         */
+        String etag();
+
+        /**
+         * A local file holding exactly these bytes, or null to read them with open
+         */
+        Path file();
+
+        InputStream open(long offset, long length) throws IOException;
+    }
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private RangedContentSender() {
+    }
+
+    /**
+     * Write the content, or the requested part of it, as the response
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Content content,
+                            MediaType contentType) throws IOException {
+        long length = content.length();
+        long lastModified = content.lastModified();
+        String etag = content.etag();
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            // 304 Not Modified or 412 Precondition Failed already set
+            return;
+        }
+
+        long start = 0;
+        long end = length;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length) + 1;
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+        response.setContentType(contentType.toString());
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        Path file = content.file();
+        if (file == null) {
+            try (InputStream in = content.open(start, end - start)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat streams the file from the kernel once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    throw new EOFException("File " + file + " shrank while being sent");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * The single range to serve, or null to serve the whole file
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(request, etag, lastModified)) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // Malformed or unsupported unit: ignore the header
+            return null;
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Strong comparison: a weak validator never matches
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
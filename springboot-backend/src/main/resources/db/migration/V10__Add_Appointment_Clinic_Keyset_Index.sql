@@ -0,0 +1,48 @@
+-- =====================================================
+-- Migration: Add clinic keyset index for appointments
+-- Description: Appointments reach their clinic only through Doctor, so the clinic-scoped cursor
+--              query could not seek an index and sorted all of the clinic's appointments for
+--              every page. Appointment now carries the doctor's clinic_id, kept in step by
+--              triggers, and (clinic_id, start_datetime, appointment_id) serves that seek like
+--              the V6 indexes do for patient, doctor and status.
+-- =====================================================
+
+ALTER TABLE Appointment ADD COLUMN clinic_id INT;
+
+UPDATE Appointment a
+SET clinic_id = d.clinic_id
+FROM Doctor d
+WHERE d.doctor_id = a.doctor_id;
+
+ALTER TABLE Appointment ALTER COLUMN clinic_id SET NOT NULL;
+
+CREATE INDEX idx_appointment_clinic_start_id ON Appointment(clinic_id, start_datetime, appointment_id);
+
+-- New and reassigned appointments take their doctor's clinic
+CREATE OR REPLACE FUNCTION public.appointment_set_clinic_id()
+RETURNS TRIGGER AS $$
+BEGIN
+    SELECT d.clinic_id INTO NEW.clinic_id FROM public.Doctor d WHERE d.doctor_id = NEW.doctor_id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER appointment_set_clinic_id_on_insert BEFORE INSERT ON public.Appointment
+    FOR EACH ROW EXECUTE FUNCTION public.appointment_set_clinic_id();
+
+CREATE TRIGGER appointment_set_clinic_id_on_reassign BEFORE UPDATE OF doctor_id ON public.Appointment
+    FOR EACH ROW WHEN (OLD.doctor_id IS DISTINCT FROM NEW.doctor_id)
+    EXECUTE FUNCTION public.appointment_set_clinic_id();
+
+-- A doctor moving clinic takes their appointments along
+CREATE OR REPLACE FUNCTION public.doctor_propagate_clinic_id()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE public.Appointment SET clinic_id = NEW.clinic_id WHERE doctor_id = NEW.doctor_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER doctor_propagate_clinic_id AFTER UPDATE OF clinic_id ON public.Doctor
+    FOR EACH ROW WHEN (OLD.clinic_id IS DISTINCT FROM NEW.clinic_id)
+    EXECUTE FUNCTION public.doctor_propagate_clinic_id();
@@ -0,0 +1,9 @@
+-- =====================================================
+-- Migration: Drop the clinic daily rollup
+-- Description: Every queue transition of every doctor upserted the clinic's row for the day,
+--              so two doctors of one clinic acting at once collided on it under SERIALIZABLE
+--              (SQLSTATE 40001). Clinic figures are now summed from Doctor_Daily_Stats through
+--              idx_doctor_daily_stats_clinic_date, one indexed read of a row per doctor.
+-- =====================================================
+
+DROP TABLE IF EXISTS Clinic_Daily_Stats;
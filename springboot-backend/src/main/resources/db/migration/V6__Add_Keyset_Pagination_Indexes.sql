@@ -0,0 +1,11 @@
+-- =====================================================
+-- Migration: Add composite indexes for keyset (cursor) pagination
+-- Description: Each index matches a "WHERE <filter> AND (sort_key, id) > (...) ORDER BY sort_key, id"
+--              seek so that every page is a bounded index range scan instead of an OFFSET skip
+-- =====================================================
+
+CREATE INDEX idx_appointment_patient_start_id ON Appointment(patient_id, start_datetime, appointment_id);
+CREATE INDEX idx_appointment_doctor_start_id ON Appointment(doctor_id, start_datetime, appointment_id);
+CREATE INDEX idx_appointment_status_start_id ON Appointment(status, start_datetime, appointment_id);
+
+CREATE INDEX idx_schedule_doctor_start_id ON Schedule(doctor_id, start_datetime, schedule_id);
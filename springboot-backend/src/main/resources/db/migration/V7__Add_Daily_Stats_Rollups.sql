@@ -0,0 +1,94 @@
+-- =====================================================
+-- Migration: Add daily queue statistics rollups
+-- Description: Per-doctor and per-clinic daily counters maintained incrementally on every
+--              queue ticket transition, so clinic statistics are a row lookup instead of a
+--              scan of the day's tickets. Rows are keyed by the ticket's check-in date.
+-- =====================================================
+
+CREATE TABLE Doctor_Daily_Stats (
+    doctor_id CHAR(10) NOT NULL,
+    stats_date DATE NOT NULL,
+    clinic_id INT NOT NULL,
+    total_check_ins INT NOT NULL DEFAULT 0,
+    checked_in_count INT NOT NULL DEFAULT 0,
+    called_count INT NOT NULL DEFAULT 0,
+    completed_count INT NOT NULL DEFAULT 0,
+    no_show_count INT NOT NULL DEFAULT 0,
+    fast_tracked_count INT NOT NULL DEFAULT 0,
+    wait_count INT NOT NULL DEFAULT 0,
+    wait_sum_minutes BIGINT NOT NULL DEFAULT 0,
+    wait_min_minutes BIGINT,
+    wait_max_minutes BIGINT,
+    consultation_count INT NOT NULL DEFAULT 0,
+    consultation_sum_minutes BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (doctor_id, stats_date),
+    CONSTRAINT fk_doctor_daily_stats_doctor FOREIGN KEY (doctor_id)
+        REFERENCES Doctor(doctor_id)
+        ON DELETE CASCADE
+);
+
+CREATE TABLE Clinic_Daily_Stats (
+    clinic_id INT NOT NULL,
+    stats_date DATE NOT NULL,
+    total_check_ins INT NOT NULL DEFAULT 0,
+    checked_in_count INT NOT NULL DEFAULT 0,
+    called_count INT NOT NULL DEFAULT 0,
+    completed_count INT NOT NULL DEFAULT 0,
+    no_show_count INT NOT NULL DEFAULT 0,
+    fast_tracked_count INT NOT NULL DEFAULT 0,
+    wait_count INT NOT NULL DEFAULT 0,
+    wait_sum_minutes BIGINT NOT NULL DEFAULT 0,
+    wait_min_minutes BIGINT,
+    wait_max_minutes BIGINT,
+    consultation_count INT NOT NULL DEFAULT 0,
+    consultation_sum_minutes BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (clinic_id, stats_date),
+    CONSTRAINT fk_clinic_daily_stats_clinic FOREIGN KEY (clinic_id)
+        REFERENCES Clinic(clinic_id)
+        ON DELETE CASCADE
+);
+
+-- Doctor rows of a clinic for one day (per-doctor breakdown of the statistics endpoint)
+CREATE INDEX idx_doctor_daily_stats_clinic_date ON Doctor_Daily_Stats(clinic_id, stats_date);
+
+-- Backfill from existing tickets; durations are whole minutes, matching the service
+INSERT INTO Doctor_Daily_Stats (doctor_id, stats_date, clinic_id, total_check_ins,
+    checked_in_count, called_count, completed_count, no_show_count, fast_tracked_count,
+    wait_count, wait_sum_minutes, wait_min_minutes, wait_max_minutes,
+    consultation_count, consultation_sum_minutes)
+SELECT a.doctor_id,
+       CAST(qt.check_in_time AS DATE),
+       d.clinic_id,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE qt.status = 'CHECKED_IN'),
+       COUNT(*) FILTER (WHERE qt.status = 'CALLED'),
+       COUNT(*) FILTER (WHERE qt.status = 'COMPLETED'),
+       COUNT(*) FILTER (WHERE qt.status = 'NO_SHOW'),
+       COUNT(*) FILTER (WHERE qt.status = 'FAST_TRACKED'),
+       COUNT(qt.consultation_start_time),
+       COALESCE(SUM(TRUNC(EXTRACT(EPOCH FROM (qt.consultation_start_time - qt.check_in_time)) / 60)), 0),
+       MIN(TRUNC(EXTRACT(EPOCH FROM (qt.consultation_start_time - qt.check_in_time)) / 60)),
+       MAX(TRUNC(EXTRACT(EPOCH FROM (qt.consultation_start_time - qt.check_in_time)) / 60)),
+       COUNT(*) FILTER (WHERE qt.consultation_start_time IS NOT NULL AND qt.consultation_complete_time IS NOT NULL),
+       COALESCE(SUM(TRUNC(EXTRACT(EPOCH FROM (qt.consultation_complete_time - qt.consultation_start_time)) / 60)), 0)
+FROM Queue_Ticket qt
+JOIN Appointment a ON a.appointment_id = qt.appointment_id
+JOIN Doctor d ON d.doctor_id = a.doctor_id
+WHERE qt.check_in_time IS NOT NULL
+GROUP BY a.doctor_id, CAST(qt.check_in_time AS DATE), d.clinic_id;
+
+INSERT INTO Clinic_Daily_Stats (clinic_id, stats_date, total_check_ins,
+    checked_in_count, called_count, completed_count, no_show_count, fast_tracked_count,
+    wait_count, wait_sum_minutes, wait_min_minutes, wait_max_minutes,
+    consultation_count, consultation_sum_minutes)
+SELECT clinic_id, stats_date, SUM(total_check_ins),
+       SUM(checked_in_count), SUM(called_count), SUM(completed_count), SUM(no_show_count), SUM(fast_tracked_count),
+       SUM(wait_count), SUM(wait_sum_minutes), MIN(wait_min_minutes), MAX(wait_max_minutes),
+       SUM(consultation_count), SUM(consultation_sum_minutes)
+FROM Doctor_Daily_Stats
+GROUP BY clinic_id, stats_date;
+
+COMMENT ON TABLE Doctor_Daily_Stats IS 'Incrementally maintained per-doctor queue statistics per check-in date';
+COMMENT ON TABLE Clinic_Daily_Stats IS 'Incrementally maintained per-clinic queue statistics per check-in date';
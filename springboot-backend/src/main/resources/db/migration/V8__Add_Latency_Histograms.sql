@@ -0,0 +1,56 @@
+-- =====================================================
+-- Migration: Add per-doctor daily latency histograms
+-- Description: Mergeable histograms of waiting and consultation times (in minutes), one row per
+--              (doctor, day, metric, bucket). Histograms of any range of days or set of doctors merge
+--              by summing sample_count per bucket, so percentiles never rescan queue tickets.
+--              Bucketing keeps two significant digits: values below 100 are exact, larger values are
+--              rounded down (e.g. 127 -> 120).
+-- =====================================================
+
+CREATE TABLE Doctor_Latency_Histogram (
+    doctor_id CHAR(10) NOT NULL,
+    stats_date DATE NOT NULL,
+    metric VARCHAR(20) NOT NULL CHECK (metric IN ('WAIT', 'CONSULTATION')),
+    bucket_minutes BIGINT NOT NULL,
+    clinic_id INT NOT NULL,
+    sample_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (doctor_id, stats_date, metric, bucket_minutes),
+    CONSTRAINT fk_latency_histogram_doctor FOREIGN KEY (doctor_id)
+        REFERENCES Doctor(doctor_id)
+        ON DELETE CASCADE
+);
+
+-- Clinic-wide merges over a date range
+CREATE INDEX idx_latency_histogram_clinic_date ON Doctor_Latency_Histogram(clinic_id, stats_date);
+
+-- Backfill from existing tickets
+WITH samples AS (
+    SELECT a.doctor_id, d.clinic_id, CAST(qt.check_in_time AS DATE) AS stats_date, 'WAIT' AS metric,
+           GREATEST(CAST(TRUNC(EXTRACT(EPOCH FROM (qt.consultation_start_time - qt.check_in_time)) / 60) AS BIGINT), 0) AS minutes
+    FROM Queue_Ticket qt
+    JOIN Appointment a ON a.appointment_id = qt.appointment_id
+    JOIN Doctor d ON d.doctor_id = a.doctor_id
+    WHERE qt.check_in_time IS NOT NULL AND qt.consultation_start_time IS NOT NULL
+    UNION ALL
+    SELECT a.doctor_id, d.clinic_id, CAST(qt.check_in_time AS DATE), 'CONSULTATION',
+           GREATEST(CAST(TRUNC(EXTRACT(EPOCH FROM (qt.consultation_complete_time - qt.consultation_start_time)) / 60) AS BIGINT), 0)
+    FROM Queue_Ticket qt
+    JOIN Appointment a ON a.appointment_id = qt.appointment_id
+    JOIN Doctor d ON d.doctor_id = a.doctor_id
+    WHERE qt.check_in_time IS NOT NULL AND qt.consultation_start_time IS NOT NULL
+      AND qt.consultation_complete_time IS NOT NULL
+),
+bucketed AS (
+    SELECT doctor_id, clinic_id, stats_date, metric,
+           CASE WHEN minutes < 100 THEN minutes
+                ELSE (minutes / CAST(power(10, length(CAST(minutes AS TEXT)) - 2) AS BIGINT))
+                     * CAST(power(10, length(CAST(minutes AS TEXT)) - 2) AS BIGINT)
+           END AS bucket_minutes
+    FROM samples
+)
+INSERT INTO Doctor_Latency_Histogram (doctor_id, stats_date, metric, bucket_minutes, clinic_id, sample_count)
+SELECT doctor_id, stats_date, metric, bucket_minutes, MIN(clinic_id), COUNT(*)
+FROM bucketed
+GROUP BY doctor_id, stats_date, metric, bucket_minutes;
+
+COMMENT ON TABLE Doctor_Latency_Histogram IS 'Mergeable per-doctor daily histograms of waiting and consultation minutes';
@@ -0,0 +1,84 @@
+-- =====================================================
+-- Migration: Add row change tracking for incremental backups
+-- Description: Every table with a primary key gets row_txid, the id of the transaction that last
+--              inserted or updated the row. An incremental backup copies only the rows whose
+--              row_txid was not yet visible in the previous backup's snapshot, using the row_txid
+--              index. Deleted rows (and the old key of a re-keyed row) are remembered in
+--              Backup_Tombstone so the restore can delete them too.
+--              Existing rows get row_txid 0, i.e. "older than any backup".
+--              The daily rollups and latency histograms are left untracked: they are rewritten
+--              on every queue transition, small, and derived from the tickets, so stamping them
+--              would cost a trigger call and a new index entry per transition and rule out HOT
+--              updates. Untracked tables are copied in full by every backup.
+-- =====================================================
+
+CREATE TABLE Backup_Tombstone (
+    table_name TEXT NOT NULL,
+    row_key JSONB NOT NULL,
+    deleted_txid XID8 NOT NULL DEFAULT pg_current_xact_id()
+);
+
+CREATE INDEX idx_backup_tombstone_txid ON Backup_Tombstone(deleted_txid);
+
+CREATE OR REPLACE FUNCTION public.backup_stamp_row_txid()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.row_txid := pg_current_xact_id();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Trigger arguments are the table's primary key columns
+CREATE OR REPLACE FUNCTION public.backup_record_tombstone()
+RETURNS TRIGGER AS $$
+DECLARE
+    old_key JSONB;
+    new_key JSONB;
+BEGIN
+    SELECT jsonb_object_agg(k, to_jsonb(OLD) -> k) INTO old_key FROM unnest(TG_ARGV) AS k;
+    IF TG_OP = 'UPDATE' THEN
+        SELECT jsonb_object_agg(k, to_jsonb(NEW) -> k) INTO new_key FROM unnest(TG_ARGV) AS k;
+        IF old_key = new_key THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+    INSERT INTO public.Backup_Tombstone (table_name, row_key) VALUES (TG_TABLE_NAME, old_key);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    t RECORD;
+    key_columns TEXT[];
+BEGIN
+    FOR t IN
+        SELECT c.oid, c.relname
+        FROM pg_class c
+        JOIN pg_namespace n ON n.oid = c.relnamespace
+        WHERE n.nspname = 'public'
+          AND c.relkind = 'r'
+          AND c.relname NOT IN ('flyway_schema_history', 'backup_tombstone',
+                                'doctor_daily_stats', 'clinic_daily_stats', 'doctor_latency_histogram')
+    LOOP
+        SELECT array_agg(a.attname::TEXT ORDER BY array_position(i.indkey::INT2[], a.attnum))
+        INTO key_columns
+        FROM pg_index i
+        JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = ANY (i.indkey)
+        WHERE i.indrelid = t.oid AND i.indisprimary;
+
+        -- Tables without a primary key are always copied in full
+        CONTINUE WHEN key_columns IS NULL;
+
+        EXECUTE format('ALTER TABLE public.%I ADD COLUMN row_txid XID8 NOT NULL DEFAULT ''0''', t.relname);
+        EXECUTE format('CREATE INDEX %I ON public.%I (row_txid)', 'idx_' || t.relname || '_row_txid', t.relname);
+        EXECUTE format('CREATE TRIGGER backup_stamp_row_txid BEFORE INSERT OR UPDATE ON public.%I '
+                       'FOR EACH ROW EXECUTE FUNCTION public.backup_stamp_row_txid()', t.relname);
+        -- UPDATE OF the key columns only: ordinary updates never change the key
+        EXECUTE format('CREATE TRIGGER backup_record_tombstone AFTER DELETE OR UPDATE OF %s ON public.%I '
+                       'FOR EACH ROW EXECUTE FUNCTION public.backup_record_tombstone(%s)',
+                       (SELECT string_agg(quote_ident(k), ', ') FROM unnest(key_columns) AS k),
+                       t.relname,
+                       (SELECT string_agg(quote_literal(k), ', ') FROM unnest(key_columns) AS k));
+    END LOOP;
+END $$;
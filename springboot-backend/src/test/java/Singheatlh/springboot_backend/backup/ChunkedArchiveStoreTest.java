@@ -0,0 +1,174 @@
+package Singheatlh.springboot_backend.backup;
+
+import static Singheatlh.springboot_backend.backup.FileArchiveStoreTest.assertMembersTileTheArchive;
+import static Singheatlh.springboot_backend.backup.FileArchiveStoreTest.randomBytes;
+import static Singheatlh.springboot_backend.backup.FileArchiveStoreTest.sha256;
+import static Singheatlh.springboot_backend.backup.FileArchiveStoreTest.writeConcurrently;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import Singheatlh.springboot_backend.backup.ArchiveStore.Member;
+import Singheatlh.springboot_backend.backup.ArchiveStore.Writer;
+
+class ChunkedArchiveStoreTest {
+
+    @TempDir
+    Path backupDirectory;
+
+    @TempDir
+    Path workDir;
+
+    private ChunkedArchiveStore store;
+
+    @BeforeEach
+    void createStore() {
+        store = newStore();
+    }
+
+    @Test
+    void membersWrittenConcurrentlyAreEachReadBackWhole() throws Exception {
+        List<byte[]> contents = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            contents.add(randomBytes(i * 20_000 + 7, i));
+        }
+
+        List<Member> members = new ArrayList<>();
+        long archiveSize;
+        try (Writer writer = store.create("backup-1", workDir)) {
+            for (int i = 0; i < contents.size(); i++) {
+                members.add(writer.newMember());
+            }
+            writeConcurrently(members, contents);
+            archiveSize = writer.commit(members);
+        }
+
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            assertEquals(contents.get(i).length, member.size());
+            try (InputStream in = store.open("backup-1", member.offset(), member.size())) {
+                assertArrayEquals(sha256(contents.get(i)), sha256(in.readAllBytes()), "member " + i);
+            }
+        }
+        assertMembersTileTheArchive(members, archiveSize);
+    }
+
+    @Test
+    void referenceCountsReturnToZeroOnceEveryBackupIsDeleted() throws IOException {
+        byte[] shared = randomBytes(200_000, 1);
+        write("backup-1", shared, randomBytes(50_000, 2));
+        write("backup-2", shared, randomBytes(50_000, 3));
+        long chunksOfBoth = chunkFiles();
+
+        store.delete("backup-1");
+
+        assertTrue(chunkFiles() < chunksOfBoth);
+        try (InputStream in = store.open("backup-2", 0, shared.length)) {
+            assertArrayEquals(sha256(shared), sha256(in.readAllBytes()));
+        }
+
+        store.delete("backup-2");
+
+        assertTrue(references().isEmpty());
+        assertEquals(0, chunkFiles());
+        assertFalse(store.exists("backup-2"));
+    }
+
+    @Test
+    void uncommittedArchiveGivesItsReferencesBack() throws IOException {
+        write("backup-1", randomBytes(100_000, 1));
+        Map<String, Integer> committed = Map.copyOf(references());
+
+        try (Writer writer = store.create("backup-2", workDir)) {
+            Member member = writer.newMember();
+            member.write(randomBytes(100_000, 1));
+            member.write(randomBytes(100_000, 2));
+            member.close();
+        }
+
+        assertEquals(committed, references());
+        assertEquals(committed.size(), chunkFiles());
+    }
+
+    @Test
+    void loadRemovesOnlyUnreferencedChunks() throws IOException {
+        byte[] content = randomBytes(100_000, 1);
+        write("backup-1", content);
+        long chunks = chunkFiles();
+        Path orphan = backupDirectory.resolve("chunks").resolve("ab").resolve("ab" + "0".repeat(62));
+        Files.createDirectories(orphan.getParent());
+        Files.write(orphan, new byte[] {1});
+
+        ChunkedArchiveStore restarted = newStore();
+        restarted.load();
+
+        assertFalse(Files.exists(orphan));
+        assertEquals(chunks, chunkFiles());
+        try (InputStream in = restarted.open("backup-1", 0, content.length)) {
+            assertArrayEquals(sha256(content), sha256(in.readAllBytes()));
+        }
+    }
+
+    @Test
+    void loadKeepsEveryChunkWhenARecipeCannotBeRead() throws IOException {
+        write("backup-1", randomBytes(100_000, 1));
+        write("backup-2", randomBytes(100_000, 2));
+        long chunks = chunkFiles();
+        // Truncated: the count promises more chunks than follow
+        Path recipe = backupDirectory.resolve("backup-2.chunks");
+        byte[] bytes = Files.readAllBytes(recipe);
+        Files.write(recipe, Arrays.copyOf(bytes, bytes.length / 2));
+
+        newStore().load();
+
+        assertEquals(chunks, chunkFiles());
+    }
+
+    private ChunkedArchiveStore newStore() {
+        ChunkedArchiveStore chunked = new ChunkedArchiveStore();
+        ReflectionTestUtils.setField(chunked, "backupDirectory", backupDirectory.toString());
+        ReflectionTestUtils.setField(chunked, "chunkSize", DataSize.ofKilobytes(4));
+        return chunked;
+    }
+
+    private void write(String backupId, byte[]... contents) throws IOException {
+        try (Writer writer = store.create(backupId, workDir)) {
+            List<Member> members = new ArrayList<>();
+            for (byte[] content : contents) {
+                Member member = writer.newMember();
+                member.write(content);
+                member.close();
+                members.add(member);
+            }
+            writer.commit(members);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Integer> references() {
+        return (Map<String, Integer>) ReflectionTestUtils.getField(store, "references");
+    }
+
+    private long chunkFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(backupDirectory.resolve("chunks"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
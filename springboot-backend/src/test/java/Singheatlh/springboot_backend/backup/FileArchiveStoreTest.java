@@ -0,0 +1,161 @@
+package Singheatlh.springboot_backend.backup;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import Singheatlh.springboot_backend.backup.ArchiveStore.Member;
+import Singheatlh.springboot_backend.backup.ArchiveStore.Writer;
+
+class FileArchiveStoreTest {
+
+    // From a few bytes to past the in-memory spool, so members go live, stay in memory and spill
+    private static final int[] MEMBER_SIZES = {10, 1_000, 70_000, 300_000, 1_500_000, 3_000_000, 0, 64 * 1024};
+
+    @TempDir
+    Path backupDirectory;
+
+    @TempDir
+    Path workDir;
+
+    private FileArchiveStore store;
+
+    @BeforeEach
+    void createStore() {
+        store = new FileArchiveStore();
+        ReflectionTestUtils.setField(store, "backupDirectory", backupDirectory.toString());
+    }
+
+    @Test
+    void membersWrittenConcurrentlyAreEachReadBackWhole() throws Exception {
+        List<byte[]> contents = new ArrayList<>();
+        for (int i = 0; i < MEMBER_SIZES.length; i++) {
+            contents.add(randomBytes(MEMBER_SIZES[i], i));
+        }
+
+        List<Member> members = new ArrayList<>();
+        long archiveSize;
+        try (Writer writer = store.create("backup-1", workDir)) {
+            for (int i = 0; i < contents.size(); i++) {
+                members.add(writer.newMember());
+            }
+            writeConcurrently(members, contents);
+            archiveSize = writer.commit(members);
+        }
+
+        assertEquals(contents.stream().mapToLong(content -> content.length).sum(), archiveSize);
+        assertEquals(archiveSize, Files.size(store.archivePath("backup-1")));
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            assertEquals(contents.get(i).length, member.size());
+            try (InputStream in = store.open("backup-1", member.offset(), member.size())) {
+                assertArrayEquals(sha256(contents.get(i)), sha256(in.readAllBytes()), "member " + i);
+            }
+        }
+        assertMembersTileTheArchive(members, archiveSize);
+        try (var spills = Files.list(workDir)) {
+            assertEquals(0, spills.count());
+        }
+    }
+
+    @Test
+    void uncommittedArchiveIsDiscarded() throws IOException {
+        try (Writer writer = store.create("backup-1", workDir)) {
+            Member member = writer.newMember();
+            member.write(randomBytes(1_000, 1));
+            member.close();
+        }
+
+        assertFalse(store.exists("backup-1"));
+        try (var files = Files.list(backupDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void loadRemovesArchivesWithoutAManifest() throws IOException {
+        Files.write(backupDirectory.resolve("kept" + PgCopyBackupEngine.ARCHIVE_EXTENSION), new byte[] {1});
+        Files.write(backupDirectory.resolve("kept" + BackupCatalog.MANIFEST_FILE_EXTENSION), new byte[] {'{', '}'});
+        Files.write(backupDirectory.resolve("orphan" + PgCopyBackupEngine.ARCHIVE_EXTENSION), new byte[] {1});
+
+        store.load();
+
+        assertTrue(store.exists("kept"));
+        assertFalse(store.exists("orphan"));
+    }
+
+    /**
+     * Write every member on its own thread, in uneven pieces, all starting together
+     */
+    static void writeConcurrently(List<Member> members, List<byte[]> contents) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(members.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < members.size(); i++) {
+                Member member = members.get(i);
+                byte[] content = contents.get(i);
+                Random pieces = new Random(i);
+                writes.add(executor.submit(() -> {
+                    start.await();
+                    try (member) {
+                        int written = 0;
+                        while (written < content.length) {
+                            int length = Math.min(content.length - written, 1 + pieces.nextInt(100_000));
+                            member.write(content, written, length);
+                            written += length;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> write : writes) {
+                write.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static void assertMembersTileTheArchive(List<Member> members, long archiveSize) {
+        List<Member> byOffset = new ArrayList<>(members);
+        byOffset.sort(Comparator.comparingLong(Member::offset).thenComparingLong(Member::size));
+        long next = 0;
+        for (Member member : byOffset) {
+            assertEquals(next, member.offset());
+            next += member.size();
+        }
+        assertEquals(archiveSize, next);
+    }
+
+    static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    static byte[] sha256(byte[] data) {
+        return PgCopySupport.sha256().digest(data);
+    }
+}
@@ -0,0 +1,222 @@
+package Singheatlh.springboot_backend.backup;
+
+import static Singheatlh.springboot_backend.backup.FileArchiveStoreTest.assertMembersTileTheArchive;
+import static Singheatlh.springboot_backend.backup.FileArchiveStoreTest.randomBytes;
+import static Singheatlh.springboot_backend.backup.FileArchiveStoreTest.sha256;
+import static Singheatlh.springboot_backend.backup.FileArchiveStoreTest.writeConcurrently;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import Singheatlh.springboot_backend.backup.ArchiveStore.Member;
+import Singheatlh.springboot_backend.backup.ArchiveStore.Writer;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+class S3ArchiveStoreTest {
+
+    private static final int MIB = 1024 * 1024;
+
+    @TempDir
+    Path workDir;
+
+    private final StubS3Client s3 = new StubS3Client();
+    private ExecutorService uploadExecutor;
+    private S3ArchiveStore store;
+
+    @BeforeEach
+    void createStore() {
+        uploadExecutor = Executors.newFixedThreadPool(3);
+        store = new S3ArchiveStore();
+        ReflectionTestUtils.setField(store, "bucket", "backups");
+        ReflectionTestUtils.setField(store, "prefix", "backups/");
+        ReflectionTestUtils.setField(store, "partSize", DataSize.ofMegabytes(5));
+        ReflectionTestUtils.setField(store, "uploadParallelism", 3);
+        ReflectionTestUtils.setField(store, "s3", s3);
+        ReflectionTestUtils.setField(store, "uploadExecutor", uploadExecutor);
+    }
+
+    @AfterEach
+    void stopUploads() {
+        uploadExecutor.shutdownNow();
+    }
+
+    @Test
+    void membersWrittenConcurrentlyAreUploadedInOrderedParts() throws Exception {
+        List<byte[]> contents = List.of(randomBytes(6 * MIB, 1), randomBytes(3 * MIB + 17, 2),
+                randomBytes(100, 3), randomBytes(4 * MIB, 4), randomBytes(0, 5));
+
+        List<Member> members = new ArrayList<>();
+        long archiveSize;
+        try (Writer writer = store.create("backup-1", workDir)) {
+            for (int i = 0; i < contents.size(); i++) {
+                members.add(writer.newMember());
+            }
+            writeConcurrently(members, contents);
+            archiveSize = writer.commit(members);
+        }
+
+        assertEquals(contents.stream().mapToLong(content -> content.length).sum(), archiveSize);
+        assertEquals(archiveSize, s3.objects.get("backups/backup-1.pgcopy.gz").length);
+        // Parts 1..n in order; every part but the last at least the S3 minimum
+        List<CompletedPart> parts = s3.completedParts;
+        for (int i = 0; i < parts.size(); i++) {
+            assertEquals(i + 1, parts.get(i).partNumber());
+            if (i < parts.size() - 1) {
+                assertTrue(s3.partSizes.get(i + 1) >= 5 * MIB);
+            }
+        }
+        assertTrue(parts.size() > 1);
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            assertEquals(contents.get(i).length, member.size());
+            try (InputStream in = store.open("backup-1", member.offset(), member.size())) {
+                assertArrayEquals(sha256(contents.get(i)), sha256(in.readAllBytes()), "member " + i);
+            }
+        }
+        assertMembersTileTheArchive(members, archiveSize);
+        assertTrue(s3.aborted.isEmpty());
+        try (Stream<Path> spools = Files.list(workDir)) {
+            assertEquals(0, spools.count());
+        }
+    }
+
+    @Test
+    void emptyArchiveIsUploadedAsOneEmptyPart() throws IOException {
+        try (Writer writer = store.create("backup-1", workDir)) {
+            Member member = writer.newMember();
+            member.close();
+            assertEquals(0, writer.commit(List.of(member)));
+        }
+
+        assertEquals(1, s3.completedParts.size());
+        assertEquals(0, s3.objects.get("backups/backup-1.pgcopy.gz").length);
+    }
+
+    @Test
+    void failedPartFailsTheCommitAndAbortsTheUpload() throws IOException {
+        s3.failPart = 2;
+
+        try (Writer writer = store.create("backup-1", workDir)) {
+            Member member = writer.newMember();
+            member.write(randomBytes(12 * MIB, 1));
+            member.close();
+            assertThrows(IOException.class, () -> writer.commit(List.of(member)));
+        }
+
+        assertEquals(List.of("backups/backup-1.pgcopy.gz"), s3.aborted);
+        assertTrue(s3.objects.isEmpty());
+    }
+
+    /**
+     * In-memory multipart uploads; parts finish in random order, as they would over the network
+     */
+    private static final class StubS3Client implements S3Client {
+        private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+        private final Map<Integer, Integer> partSizes = new ConcurrentHashMap<>();
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        private final List<String> aborted = new ArrayList<>();
+        private List<CompletedPart> completedParts = List.of();
+        private volatile int failPart;
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            return CreateMultipartUploadResponse.builder().uploadId("upload-1").build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            if (request.partNumber() == failPart) {
+                throw S3Exception.builder().message("part rejected").statusCode(500).build();
+            }
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+                byte[] data = in.readAllBytes();
+                assertEquals(request.contentLength(), data.length);
+                uploadedParts.put(request.partNumber(), data);
+                partSizes.put(request.partNumber(), data.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            completedParts = request.multipartUpload().parts();
+            ByteArrayOutputStream object = new ByteArrayOutputStream();
+            for (CompletedPart part : completedParts) {
+                assertEquals("etag-" + part.partNumber(), part.eTag());
+                object.writeBytes(uploadedParts.get(part.partNumber()));
+            }
+            objects.put(request.key(), object.toByteArray());
+            return CompleteMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public synchronized AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            aborted.add(request.key());
+            return AbortMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            byte[] object = objects.get(request.key());
+            String[] range = request.range().substring("bytes=".length()).split("-");
+            int from = Integer.parseInt(range[0]);
+            int to = Integer.parseInt(range[1]);
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(object, from, to - from + 1)));
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package Singheatlh.springboot_backend.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import jakarta.servlet.Filter;
+
+/**
+ * Anonymous callers reach only the public routes; everything else answers 401 before a controller runs
+ */
+@SpringBootTest
+@ActiveProfiles("querybudget")
+class SecurityConfigTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private Filter springSecurityFilterChain;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void createMockMvc() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(springSecurityFilterChain)
+                .build();
+    }
+
+    @Test
+    void publicRoutesAreOpen() throws Exception {
+        mockMvc.perform(get("/api/auth/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/clinic")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/doctor")).andExpect(status().isOk());
+    }
+
+    @Test
+    void administrationRequiresAuthentication() throws Exception {
+        mockMvc.perform(get("/api/system-administrators/backup/history")).andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/system-administrators/backup/restore/{backupId}", "any")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/system-administrators/monitoring/instrumentation")).andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/api/system-administrators/monitoring/instrumentation")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/clinic-staff/monitoring/stream/{clinicId}", 1)).andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/api/doctor/{id}", "D00000001")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void onlyHealthIsPublicAmongActuatorEndpoints() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void accountRoutesRequireAuthentication() throws Exception {
+        mockMvc.perform(get("/api/auth/profile")).andExpect(status().isUnauthorized());
+        mockMvc.perform(put("/api/auth/email").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/auth/profile").header("Authorization", "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,214 @@
+package Singheatlh.springboot_backend.config.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Mono;
+
+class JwtUtilsTest {
+
+    private static final String SUPABASE_URL = "https://project.supabase.co";
+    private static final String ISSUER = SUPABASE_URL + "/auth/v1";
+    private static final String SECRET = "test-secret-with-at-least-32-characters";
+    private static final String AUDIENCE = "authenticated";
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+    private static final String SUBJECT = "7b0c3f8e-2d4a-4f6b-9e1c-5a8d2b7f4c31";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger jwksFetches = new AtomicInteger();
+    private KeyPair signingKey;
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void createJwtUtils() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        signingKey = generator.generateKeyPair();
+
+        // Serves the JWKS without a network round trip and counts the fetches
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+            jwksFetches.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(jwks("known-key"))
+                    .build());
+        });
+        jwtUtils = new JwtUtils(SUPABASE_URL, SECRET, "", AUDIENCE, CLOCK_SKEW, Duration.ofMinutes(10), 100,
+                objectMapper, webClientBuilder);
+    }
+
+    @AfterEach
+    void shutdown() {
+        jwtUtils.shutdown();
+    }
+
+    @Test
+    void acceptsValidHs256Token() throws Exception {
+        Optional<JwtUtils.JwtClaims> claims = jwtUtils.verify(hs256(claims(), SECRET));
+
+        assertTrue(claims.isPresent());
+        assertEquals(SUBJECT, claims.get().subject());
+        assertEquals("patient@example.com", claims.get().email());
+        assertEquals("authenticated", claims.get().role());
+    }
+
+    @Test
+    void rejectsBadSignature() throws Exception {
+        assertTrue(jwtUtils.verify(hs256(claims(), "some-other-secret-of-similar-length!")).isEmpty());
+    }
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("exp", Instant.now().minus(CLOCK_SKEW).minusSeconds(60).getEpochSecond());
+
+        assertTrue(jwtUtils.verify(hs256(claims, SECRET)).isEmpty());
+    }
+
+    @Test
+    void acceptsNotBeforeWithinClockSkew() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("nbf", Instant.now().plus(CLOCK_SKEW).minusSeconds(10).getEpochSecond());
+
+        assertTrue(jwtUtils.verify(hs256(claims, SECRET)).isPresent());
+    }
+
+    @Test
+    void rejectsNotBeforeBeyondClockSkew() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("nbf", Instant.now().plus(CLOCK_SKEW).plusSeconds(60).getEpochSecond());
+
+        assertTrue(jwtUtils.verify(hs256(claims, SECRET)).isEmpty());
+    }
+
+    @Test
+    void rejectsWrongAudience() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("aud", "anon");
+
+        assertTrue(jwtUtils.verify(hs256(claims, SECRET)).isEmpty());
+    }
+
+    @Test
+    void rejectsWrongIssuer() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("iss", "https://other-project.supabase.co/auth/v1");
+
+        assertTrue(jwtUtils.verify(hs256(claims, SECRET)).isEmpty());
+    }
+
+    @Test
+    void rejectsAlgNone() throws Exception {
+        String unsigned = encode(Map.of("alg", "none", "typ", "JWT")) + "." + encode(claims()) + ".";
+
+        assertTrue(jwtUtils.verify(unsigned).isEmpty());
+    }
+
+    @Test
+    void acceptsEs256TokenSignedWithJwksKey() throws Exception {
+        assertTrue(jwtUtils.verify(es256(claims(), "known-key")).isPresent());
+        assertEquals(1, jwksFetches.get());
+    }
+
+    @Test
+    void unknownKeyIdRefetchesJwksOnceWithinRateLimit() throws Exception {
+        assertTrue(jwtUtils.verify(es256(claims(), "rotated-key")).isEmpty());
+        assertEquals(1, jwksFetches.get());
+
+        // Further unknown kids inside the refetch interval are rejected without another fetch
+        assertTrue(jwtUtils.verify(es256(claims(), "made-up-key")).isEmpty());
+        assertTrue(jwtUtils.verify(es256(claims(), "another-made-up-key")).isEmpty());
+        assertEquals(1, jwksFetches.get());
+
+        // The fetched set still serves known keys
+        assertTrue(jwtUtils.verify(es256(claims(), "known-key")).isPresent());
+        assertEquals(1, jwksFetches.get());
+    }
+
+    private Map<String, Object> claims() {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", SUBJECT);
+        claims.put("email", "patient@example.com");
+        claims.put("role", "authenticated");
+        claims.put("aud", AUDIENCE);
+        claims.put("iss", ISSUER);
+        claims.put("exp", Instant.now().plusSeconds(3600).getEpochSecond());
+        return claims;
+    }
+
+    private String hs256(Map<String, Object> claims, String secret) throws Exception {
+        String signingInput = encode(Map.of("alg", "HS256", "typ", "JWT")) + "." + encode(claims);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return signingInput + "." + base64Url(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private String es256(Map<String, Object> claims, String kid) throws Exception {
+        String signingInput = encode(Map.of("alg", "ES256", "typ", "JWT", "kid", kid)) + "." + encode(claims);
+        Signature signer = Signature.getInstance("SHA256withECDSAinP1363Format");
+        signer.initSign(signingKey.getPrivate());
+        signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + base64Url(signer.sign());
+    }
+
+    private String jwks(String kid) {
+        ECPublicKey key = (ECPublicKey) signingKey.getPublic();
+        Map<String, Object> jwk = Map.of("kty", "EC", "crv", "P-256", "use", "sig", "kid", kid,
+                "x", base64Url(unsigned(key.getW().getAffineX().toByteArray())),
+                "y", base64Url(unsigned(key.getW().getAffineY().toByteArray())));
+        try {
+            return objectMapper.writeValueAsString(Map.of("keys", List.of(jwk)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String encode(Map<String, Object> json) throws Exception {
+        return base64Url(objectMapper.writeValueAsBytes(json));
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // BigInteger.toByteArray may add a leading sign byte; JWK coordinates are 32 bytes for P-256
+    private static byte[] unsigned(byte[] bytes) {
+        if (bytes.length == 32) {
+            return bytes;
+        }
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return padded;
+    }
+}
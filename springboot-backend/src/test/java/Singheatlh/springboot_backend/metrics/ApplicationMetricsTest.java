@@ -0,0 +1,60 @@
+package Singheatlh.springboot_backend.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ApplicationMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private ApplicationMetrics metrics;
+
+    @BeforeEach
+    void createMetrics() {
+        registry = new SimpleMeterRegistry();
+        metrics = new ApplicationMetrics(registry);
+    }
+
+    @Test
+    void timedCallsShareOneTimerPerTagsAndOutcome() {
+        for (int i = 0; i < 3; i++) {
+            metrics.time(ApplicationMetrics.APPOINTMENT_CREATE, () -> "ok", "walkIn", "false");
+        }
+        metrics.time(ApplicationMetrics.APPOINTMENT_CREATE, () -> "ok", "walkIn", "true");
+        assertThrows(IllegalStateException.class, () -> metrics.time(ApplicationMetrics.APPOINTMENT_CREATE,
+                () -> { throw new IllegalStateException(); }, "walkIn", "false"));
+
+        assertEquals(3, registry.get(ApplicationMetrics.APPOINTMENT_CREATE)
+                .tags("walkIn", "false", "outcome", "success").timer().count());
+        assertEquals(1, registry.get(ApplicationMetrics.APPOINTMENT_CREATE)
+                .tags("walkIn", "true", "outcome", "success").timer().count());
+        assertEquals(1, registry.get(ApplicationMetrics.APPOINTMENT_CREATE)
+                .tags("walkIn", "false", "outcome", "error").timer().count());
+        assertEquals(3, registry.find(ApplicationMetrics.APPOINTMENT_CREATE).timers().size());
+    }
+
+    @Test
+    void notificationsAreTimedAndFailuresCounted() {
+        metrics.recordNotification("CALLED", 1_000, false);
+        metrics.recordNotification("CALLED", 1_000, true);
+        metrics.recordNotification("CALLED", 1_000, true);
+
+        assertEquals(1, registry.get("notification.send").tags("type", "CALLED", "outcome", "success").timer().count());
+        assertEquals(2, registry.get("notification.send").tags("type", "CALLED", "outcome", "failure").timer().count());
+        assertEquals(2, registry.get("notification.failures").tag("type", "CALLED").counter().count());
+    }
+
+    @Test
+    void lockWaitsAreTimedPerOperation() {
+        metrics.recordDoctorLockWait("checkIn", 10);
+        metrics.recordDoctorLockWait("checkIn", 20);
+        metrics.recordDoctorLockWait("callNext", 30);
+
+        assertEquals(2, registry.get("queue.doctor.lock.wait").tag("operation", "checkIn").timer().count());
+        assertEquals(1, registry.get("queue.doctor.lock.wait").tag("operation", "callNext").timer().count());
+    }
+}
@@ -0,0 +1,174 @@
+package Singheatlh.springboot_backend.querybudget;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import Singheatlh.springboot_backend.entity.Appointment;
+import Singheatlh.springboot_backend.entity.Clinic;
+import Singheatlh.springboot_backend.entity.Doctor;
+import Singheatlh.springboot_backend.entity.Patient;
+import Singheatlh.springboot_backend.entity.QueueTicket;
+import Singheatlh.springboot_backend.entity.Schedule;
+import Singheatlh.springboot_backend.entity.enums.QueueStatus;
+import Singheatlh.springboot_backend.entity.enums.ScheduleType;
+import Singheatlh.springboot_backend.repository.AppointmentRepository;
+import Singheatlh.springboot_backend.repository.ClinicRepository;
+import Singheatlh.springboot_backend.repository.DoctorRepository;
+import Singheatlh.springboot_backend.repository.PatientRepository;
+import Singheatlh.springboot_backend.repository.QueueTicketRepository;
+import Singheatlh.springboot_backend.repository.ScheduleRepository;
+import Singheatlh.springboot_backend.service.QueueStatisticsRecorder;
+
+/**
+ * Base for query budget tests: boots the application on H2 and seeds one clinic, one doctor and
+ * SEEDED_ROWS patients, so a per-row query (N+1) shows up as at least SEEDED_ROWS extra statements.
+ *
+ * Endpoint tests go through MockMvc, which keeps open-session-in-view and therefore counts the lazy
+ * loads a real request would make. Tests are not @Transactional so nothing is served from a
+ * shared persistence context.
+ */
+@SpringBootTest
+@ActiveProfiles("querybudget")
+@ExtendWith(QueryBudgetExtension.class)
+abstract class AbstractQueryBudgetTest {
+
+    protected static final int SEEDED_ROWS = 50;
+    protected static final String DOCTOR_ID = "D00000001";
+
+    // Rollup upserts are PostgreSQL-only and have a fixed cost per transition
+    @MockitoBean
+    protected QueueStatisticsRecorder queueStatisticsRecorder;
+
+    // Notification API; the patient/doctor lookups made before sending are still counted
+    @MockitoBean
+    protected RestTemplate restTemplate;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    protected ClinicRepository clinicRepository;
+
+    @Autowired
+    protected DoctorRepository doctorRepository;
+
+    @Autowired
+    protected PatientRepository patientRepository;
+
+    @Autowired
+    protected AppointmentRepository appointmentRepository;
+
+    @Autowired
+    protected ScheduleRepository scheduleRepository;
+
+    @Autowired
+    protected QueueTicketRepository queueTicketRepository;
+
+    protected MockMvc mockMvc;
+    protected Clinic clinic;
+    protected Doctor doctor;
+    protected List<Patient> patients;
+
+    private int appointmentSequence;
+    private int scheduleSequence;
+
+    @BeforeEach
+    void seedClinic() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        appointmentSequence = 0;
+        scheduleSequence = 0;
+
+        Clinic newClinic = new Clinic();
+        newClinic.setType("G");
+        newClinic.setName("Budget Clinic");
+        newClinic.setOpeningHours(LocalTime.of(8, 0));
+        newClinic.setClosingHours(LocalTime.of(22, 0));
+        clinic = clinicRepository.save(newClinic);
+
+        Doctor newDoctor = new Doctor();
+        newDoctor.setDoctorId(DOCTOR_ID);
+        newDoctor.setName("Dr Budget");
+        newDoctor.setClinicId(clinic.getClinicId());
+        newDoctor.setAppointmentDurationInMinutes(15);
+        doctor = doctorRepository.save(newDoctor);
+
+        patients = new ArrayList<>();
+        for (int i = 0; i < SEEDED_ROWS + 1; i++) {
+            Patient patient = new Patient();
+            patient.setUserId(UUID.randomUUID());
+            patient.setName("Patient " + i);
+            patient.setEmail("patient" + i + "@budget.test");
+            patients.add(patientRepository.save(patient));
+        }
+    }
+
+    @AfterEach
+    void clearData() {
+        queueTicketRepository.deleteAllInBatch();
+        appointmentRepository.deleteAllInBatch();
+        scheduleRepository.deleteAllInBatch();
+        doctorRepository.deleteAllInBatch();
+        patientRepository.deleteAllInBatch();
+        clinicRepository.deleteAllInBatch();
+    }
+
+    protected Appointment bookAppointment(Patient patient, LocalDateTime start) {
+        appointmentSequence++;
+        Appointment appointment = new Appointment(String.format("A%09d", appointmentSequence),
+                patient.getUserId(), DOCTOR_ID, start, start.plusMinutes(doctor.getAppointmentDurationInMinutes()));
+        return appointmentRepository.save(appointment);
+    }
+
+    /**
+     * Book and check in the first SEEDED_ROWS patients for today; the first is being served
+     */
+    protected List<QueueTicket> seedTodayQueue() {
+        LocalDateTime firstSlot = LocalDate.now().atTime(8, 0);
+        List<QueueTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < SEEDED_ROWS; i++) {
+            Appointment appointment = bookAppointment(patients.get(i), firstSlot.plusMinutes(15L * i));
+            QueueTicket ticket = new QueueTicket(appointment.getAppointmentId(), LocalDateTime.now(), i + 1);
+            ticket.setTicketNumberForDay(i + 1);
+            if (i == 0) {
+                ticket.setStatus(QueueStatus.CALLED);
+                ticket.setConsultationStartTime(LocalDateTime.now());
+            }
+            tickets.add(queueTicketRepository.save(ticket));
+        }
+        return tickets;
+    }
+
+    /**
+     * One AVAILABLE morning schedule on each of the next SEEDED_ROWS days
+     */
+    protected List<Schedule> seedSchedules() {
+        List<Schedule> schedules = new ArrayList<>();
+        for (int day = 1; day <= SEEDED_ROWS; day++) {
+            scheduleSequence++;
+            Schedule schedule = new Schedule();
+            schedule.setScheduleId(String.format("S%09d", scheduleSequence));
+            schedule.setDoctorId(DOCTOR_ID);
+            schedule.setStartDatetime(LocalDate.now().plusDays(day).atTime(9, 0));
+            schedule.setEndDatetime(LocalDate.now().plusDays(day).atTime(12, 0));
+            schedule.setType(ScheduleType.AVAILABLE);
+            schedules.add(scheduleRepository.save(schedule));
+        }
+        return schedules;
+    }
+}
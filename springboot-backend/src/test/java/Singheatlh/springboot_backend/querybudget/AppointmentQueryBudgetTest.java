@@ -0,0 +1,62 @@
+package Singheatlh.springboot_backend.querybudget;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import Singheatlh.springboot_backend.dto.CreateAppointmentRequest;
+import Singheatlh.springboot_backend.service.AppointmentService;
+
+/**
+ * Statement budgets for booking and the appointment listings, with SEEDED_ROWS upcoming
+ * appointments for the first patient
+ */
+class AppointmentQueryBudgetTest extends AbstractQueryBudgetTest {
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void seedAppointments() {
+        for (int day = 1; day <= SEEDED_ROWS; day++) {
+            bookAppointment(patients.get(0), LocalDate.now().plusDays(day).atTime(10, 0));
+        }
+    }
+
+    @Test
+    @QueryBudget(6)
+    void createAppointment() {
+        CreateAppointmentRequest request = new CreateAppointmentRequest();
+        request.setPatientId(patients.get(1).getUserId());
+        request.setDoctorId(DOCTOR_ID);
+        request.setStartDatetime(LocalDate.now().plusDays(1).atTime(14, 0));
+        appointmentService.createAppointment(request);
+    }
+
+    @Test
+    @QueryBudget(1)
+    void appointmentsByPatientEndpoint() throws Exception {
+        mockMvc.perform(get("/api/appointments/patient/{patientId}", patients.get(0).getUserId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(1)
+    void upcomingAppointmentsByClinicEndpoint() throws Exception {
+        mockMvc.perform(get("/api/appointments/clinic/{clinicId}/upcoming", clinic.getClinicId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(2)
+    void appointmentsByDoctorScrollEndpoint() throws Exception {
+        mockMvc.perform(get("/api/appointments/doctor/{doctorId}/scroll", DOCTOR_ID)
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,26 @@
+package Singheatlh.springboot_backend.querybudget;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * The queue and appointment queries compare days with DATE(x), which PostgreSQL accepts as a cast.
+ * H2 has no such function, so map it to CAST(x AS DATE) when the budgets run on H2.
+ */
+public class H2DateFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof H2Dialect)) {
+            return;
+        }
+        functionContributions.getFunctionRegistry()
+                .patternDescriptorBuilder("date", "cast(?1 as date)")
+                .setExactArgumentCount(1)
+                .setInvariantType(functionContributions.getTypeConfiguration()
+                        .getBasicTypeRegistry().resolve(StandardBasicTypes.LOCAL_DATE))
+                .register();
+    }
+}
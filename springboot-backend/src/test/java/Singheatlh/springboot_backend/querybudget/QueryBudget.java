@@ -0,0 +1,22 @@
+package Singheatlh.springboot_backend.querybudget;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Upper bound on the SQL statements a test body may execute.
+ * Data seeded in @BeforeEach is not counted; enforced by QueryBudgetExtension.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    /**
+     * Maximum number of statements
+     */
+    int value();
+}
@@ -0,0 +1,67 @@
+package Singheatlh.springboot_backend.querybudget;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import Singheatlh.springboot_backend.metrics.QueryCapture;
+
+/**
+ * Counts the SQL statements executed by a @QueryBudget test body on the test thread and fails
+ * the test, listing every statement, when the budget is exceeded.
+ *
+ * Counting reuses the application's datasource-proxy QueryCapture, so it sees exactly what the
+ * instrumentation endpoint would report for the same request.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (budgetOf(context).isPresent()) {
+            context.getStore(NAMESPACE).put(context.getUniqueId(), QueryCapture.begin(true, true));
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryCapture capture = context.getStore(NAMESPACE).remove(context.getUniqueId(), QueryCapture.class);
+        if (capture == null) {
+            return;
+        }
+        capture.end();
+
+        // Let the test's own failure surface rather than a budget report on partial work
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        int budget = budgetOf(context).orElseThrow().value();
+        if (capture.getQueryCount() > budget) {
+            fail(describe(context.getDisplayName(), budget, capture.getStatements()));
+        }
+    }
+
+    private static Optional<QueryBudget> budgetOf(ExtensionContext context) {
+        return context.getTestMethod()
+                .flatMap(method -> AnnotationSupport.findAnnotation(method, QueryBudget.class));
+    }
+
+    private static String describe(String testName, int budget, List<String> statements) {
+        StringBuilder message = new StringBuilder()
+                .append(testName).append(" executed ").append(statements.size())
+                .append(" SQL statements, budget is ").append(budget).append(':');
+        for (int i = 0; i < statements.size(); i++) {
+            message.append(System.lineSeparator()).append(String.format("%3d. ", i + 1)).append(statements.get(i));
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package Singheatlh.springboot_backend.querybudget;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import Singheatlh.springboot_backend.entity.Appointment;
+import Singheatlh.springboot_backend.entity.QueueTicket;
+import Singheatlh.springboot_backend.service.QueueService;
+
+/**
+ * Statement budgets for the queue paths, with SEEDED_ROWS patients already in today's queue
+ */
+class QueueQueryBudgetTest extends AbstractQueryBudgetTest {
+
+    @Autowired
+    private QueueService queueService;
+
+    private List<QueueTicket> tickets;
+    private Appointment walkUp;
+
+    @BeforeEach
+    void seedQueue() {
+        tickets = seedTodayQueue();
+        walkUp = bookAppointment(patients.get(SEEDED_ROWS), LocalDate.now().atTime(21, 0));
+    }
+
+    @Test
+    @QueryBudget(10)
+    void checkIn() {
+        queueService.checkIn(walkUp.getAppointmentId());
+    }
+
+    @Test
+    @QueryBudget(10)
+    void checkInEndpoint() throws Exception {
+        mockMvc.perform(post("/api/queue/check-in/{appointmentId}", walkUp.getAppointmentId()))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @QueryBudget(15)
+    void callNext() {
+        queueService.callNextQueue(DOCTOR_ID);
+    }
+
+    @Test
+    @QueryBudget(1)
+    void activeQueueByDoctorEndpoint() throws Exception {
+        mockMvc.perform(get("/api/queue/doctor/{doctorId}", DOCTOR_ID))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(1)
+    void activeQueueByClinicEndpoint() throws Exception {
+        mockMvc.perform(get("/api/queue/clinic/{clinicId}", clinic.getClinicId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(7)
+    void queueStatusEndpoint() throws Exception {
+        mockMvc.perform(get("/api/queue/status/{ticketId}", tickets.get(SEEDED_ROWS - 1).getTicketId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(1)
+    void patientTicketsScrollEndpoint() throws Exception {
+        mockMvc.perform(get("/api/queue/patient/{patientId}/scroll", patients.get(0).getUserId()))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,51 @@
+package Singheatlh.springboot_backend.querybudget;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Statement budgets for the schedule listings and slot generation, with SEEDED_ROWS schedules
+ * for the doctor and one booking inside them
+ */
+class ScheduleQueryBudgetTest extends AbstractQueryBudgetTest {
+
+    @BeforeEach
+    void seedSchedulesAndBooking() {
+        seedSchedules();
+        bookAppointment(patients.get(0), LocalDate.now().plusDays(1).atTime(9, 30));
+    }
+
+    @Test
+    @QueryBudget(2)
+    void schedulesByDoctorEndpoint() throws Exception {
+        mockMvc.perform(get("/api/schedules/doctor/{doctorId}", DOCTOR_ID))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(2)
+    void availableSchedulesByDoctorEndpoint() throws Exception {
+        mockMvc.perform(get("/api/schedules/doctor/{doctorId}/available", DOCTOR_ID))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(3)
+    void schedulesByDoctorScrollEndpoint() throws Exception {
+        mockMvc.perform(get("/api/schedules/doctor/{doctorId}/scroll", DOCTOR_ID)
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(3)
+    void slotsByDoctorEndpoint() throws Exception {
+        mockMvc.perform(get("/api/schedules/doctor/{doctorId}/slot", DOCTOR_ID))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,163 @@
+package Singheatlh.springboot_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.RestTemplate;
+
+import Singheatlh.springboot_backend.dto.QueueTicketDto;
+import Singheatlh.springboot_backend.entity.Appointment;
+import Singheatlh.springboot_backend.entity.Clinic;
+import Singheatlh.springboot_backend.entity.Doctor;
+import Singheatlh.springboot_backend.entity.Patient;
+import Singheatlh.springboot_backend.entity.QueueTicket;
+import Singheatlh.springboot_backend.entity.enums.QueueStatus;
+import Singheatlh.springboot_backend.repository.AppointmentRepository;
+import Singheatlh.springboot_backend.repository.ClinicRepository;
+import Singheatlh.springboot_backend.repository.DoctorDailyStatisticsRepository;
+import Singheatlh.springboot_backend.repository.DoctorLatencyHistogramRepository;
+import Singheatlh.springboot_backend.repository.DoctorRepository;
+import Singheatlh.springboot_backend.repository.PatientRepository;
+import Singheatlh.springboot_backend.repository.QueueTicketRepository;
+
+/**
+ * Two doctors of one clinic calling next at the same time must not contend on anything shared by
+ * the clinic. The real statistics recorder runs; its PostgreSQL-only upserts are stubbed to wait
+ * until both transactions are in flight, so a clinic-wide lock or row would stall the barrier.
+ */
+@SpringBootTest
+@ActiveProfiles("querybudget")
+class QueueCallNextConcurrencyTest {
+
+    private static final List<String> DOCTOR_IDS = List.of("D00000011", "D00000012");
+
+    @MockitoBean
+    private DoctorDailyStatisticsRepository doctorDailyStatisticsRepository;
+
+    // Histogram upserts are PostgreSQL-only too; the mock's default return is enough
+    @MockitoBean
+    private DoctorLatencyHistogramRepository doctorLatencyHistogramRepository;
+
+    @MockitoBean
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private QueueService queueService;
+
+    @Autowired
+    private ClinicRepository clinicRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private QueueTicketRepository queueTicketRepository;
+
+    private Clinic clinic;
+
+    @BeforeEach
+    void seedClinicWithTwoQueues() {
+        Clinic newClinic = new Clinic();
+        newClinic.setType("G");
+        newClinic.setName("Concurrency Clinic");
+        newClinic.setOpeningHours(LocalTime.of(8, 0));
+        newClinic.setClosingHours(LocalTime.of(22, 0));
+        clinic = clinicRepository.save(newClinic);
+
+        int sequence = 0;
+        for (String doctorId : DOCTOR_IDS) {
+            Doctor doctor = new Doctor();
+            doctor.setDoctorId(doctorId);
+            doctor.setName("Dr " + doctorId);
+            doctor.setClinicId(clinic.getClinicId());
+            doctor.setAppointmentDurationInMinutes(15);
+            doctorRepository.save(doctor);
+
+            for (int i = 0; i < 2; i++) {
+                sequence++;
+                Patient patient = new Patient();
+                patient.setUserId(UUID.randomUUID());
+                patient.setName("Patient " + sequence);
+                patient.setEmail("patient" + sequence + "@concurrency.test");
+                patientRepository.save(patient);
+
+                LocalDateTime start = LocalDate.now().atTime(8, 0).plusMinutes(15L * i);
+                Appointment appointment = appointmentRepository.save(new Appointment(String.format("A%09d", sequence),
+                        patient.getUserId(), doctorId, start, start.plusMinutes(15)));
+                QueueTicket ticket = new QueueTicket(appointment.getAppointmentId(), LocalDateTime.now(), i + 1);
+                ticket.setTicketNumberForDay(i + 1);
+                queueTicketRepository.save(ticket);
+            }
+        }
+    }
+
+    @AfterEach
+    void clearData() {
+        queueTicketRepository.deleteAllInBatch();
+        appointmentRepository.deleteAllInBatch();
+        doctorRepository.deleteAllInBatch();
+        patientRepository.deleteAllInBatch();
+        clinicRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void doctorsOfOneClinicCallNextConcurrently() throws Exception {
+        CyclicBarrier bothRecording = new CyclicBarrier(DOCTOR_IDS.size());
+        Map<String, Integer> recordedClinicByDoctor = new ConcurrentHashMap<>();
+        when(doctorDailyStatisticsRepository.applyDelta(anyString(), any(), any(), anyInt(), anyInt(), anyInt(),
+                anyInt(), anyInt(), anyInt(), anyInt(), anyLong(), any(), anyInt(), anyLong()))
+            .thenAnswer(invocation -> {
+                recordedClinicByDoctor.put(invocation.getArgument(0), invocation.getArgument(2));
+                bothRecording.await(10, TimeUnit.SECONDS);
+                return 1;
+            });
+
+        ExecutorService executor = Executors.newFixedThreadPool(DOCTOR_IDS.size());
+        try {
+            List<Future<QueueTicketDto>> calls = DOCTOR_IDS.stream()
+                .map(doctorId -> executor.submit(() -> queueService.callNextQueue(doctorId)))
+                .toList();
+            for (Future<QueueTicketDto> call : calls) {
+                QueueTicketDto called = call.get(30, TimeUnit.SECONDS);
+                assertNotNull(called);
+                assertEquals(QueueStatus.CALLED, called.getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(Map.of(DOCTOR_IDS.get(0), clinic.getClinicId(), DOCTOR_IDS.get(1), clinic.getClinicId()),
+                recordedClinicByDoctor);
+    }
+}
@@ -0,0 +1,152 @@
+package Singheatlh.springboot_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import Singheatlh.springboot_backend.dto.ClinicStaffDto;
+import Singheatlh.springboot_backend.dto.PatientDto;
+import Singheatlh.springboot_backend.dto.UserDto;
+
+class UserProfileCacheTest {
+
+    private UserProfileCache cache;
+
+    @BeforeEach
+    void createCache() {
+        cache = new UserProfileCache();
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+    }
+
+    @Test
+    void secondLookupIsServedFromCache() {
+        UUID userId = UUID.randomUUID();
+        CountingLoader loader = new CountingLoader(patient(userId));
+
+        UserDto first = cache.get(userId, loader);
+        UserDto second = cache.get(userId, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loader.calls.get());
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        UUID userId = UUID.randomUUID();
+        CountingLoader loader = new CountingLoader(patient(userId));
+
+        cache.get(userId, loader);
+        cache.invalidate(userId);
+        cache.get(userId, loader);
+
+        assertEquals(2, loader.calls.get());
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() {
+        UUID userId = UUID.randomUUID();
+        UserDto stale = patient(userId);
+        UserDto fresh = patient(userId);
+
+        // The user is updated while the old row is being read
+        UserDto returned = cache.get(userId, () -> {
+            cache.invalidate(userId);
+            return stale;
+        });
+        UserDto reloaded = cache.get(userId, () -> fresh);
+
+        assertSame(stale, returned);
+        assertSame(fresh, reloaded);
+    }
+
+    @Test
+    void invalidateClinicEvictsOnlyThatClinicsStaff() {
+        UUID staffId = UUID.randomUUID();
+        UUID otherStaffId = UUID.randomUUID();
+        UUID patientId = UUID.randomUUID();
+        CountingLoader staffLoader = new CountingLoader(staff(staffId, 1));
+        CountingLoader otherStaffLoader = new CountingLoader(staff(otherStaffId, 2));
+        CountingLoader patientLoader = new CountingLoader(patient(patientId));
+
+        cache.get(staffId, staffLoader);
+        cache.get(otherStaffId, otherStaffLoader);
+        cache.get(patientId, patientLoader);
+        cache.invalidateClinic(1);
+        cache.get(staffId, staffLoader);
+        cache.get(otherStaffId, otherStaffLoader);
+        cache.get(patientId, patientLoader);
+
+        assertEquals(2, staffLoader.calls.get());
+        assertEquals(1, otherStaffLoader.calls.get());
+        assertEquals(1, patientLoader.calls.get());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ZERO);
+        UUID userId = UUID.randomUUID();
+        CountingLoader loader = new CountingLoader(patient(userId));
+
+        cache.get(userId, loader);
+        cache.get(userId, loader);
+
+        assertEquals(2, loader.calls.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsDroppedWhenFull() {
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        CountingLoader firstLoader = new CountingLoader(patient(first));
+        CountingLoader secondLoader = new CountingLoader(patient(second));
+
+        cache.get(first, firstLoader);
+        cache.get(second, secondLoader);
+        cache.get(first, firstLoader);
+        cache.get(third, new CountingLoader(patient(third)));
+        cache.get(first, firstLoader);
+        cache.get(second, secondLoader);
+
+        assertEquals(1, firstLoader.calls.get());
+        assertEquals(2, secondLoader.calls.get());
+    }
+
+    private static PatientDto patient(UUID userId) {
+        PatientDto patient = new PatientDto();
+        patient.setUserId(userId);
+        return patient;
+    }
+
+    private static ClinicStaffDto staff(UUID userId, Integer clinicId) {
+        ClinicStaffDto staff = new ClinicStaffDto();
+        staff.setUserId(userId);
+        staff.setClinicId(clinicId);
+        return staff;
+    }
+
+    private static final class CountingLoader implements Supplier<UserDto> {
+        private final UserDto profile;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingLoader(UserDto profile) {
+            this.profile = profile;
+        }
+
+        @Override
+        public UserDto get() {
+            calls.incrementAndGet();
+            return profile;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package Singheatlh.springboot_backend.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import Singheatlh.springboot_backend.dto.ClinicDashboardDelta;
+import Singheatlh.springboot_backend.dto.ClinicStatisticsDto;
+import Singheatlh.springboot_backend.dto.ClinicStatisticsDto.DoctorDailyStats;
+
+class ClinicDashboardStreamServiceImplTest {
+
+    @Test
+    void unchangedStatisticsProduceNoDelta() {
+        ClinicStatisticsDto state = statistics(doctor("D1", 3), doctor("D2", 1));
+
+        assertNull(ClinicDashboardStreamServiceImpl.diff(state, statistics(doctor("D1", 3), doctor("D2", 1))));
+    }
+
+    @Test
+    void deltaListsChangedDoctorsOnly() {
+        ClinicDashboardDelta delta = ClinicDashboardStreamServiceImpl.diff(
+                statistics(doctor("D1", 3), doctor("D2", 1)),
+                statistics(doctor("D1", 4), doctor("D2", 1)));
+
+        assertEquals(List.of(doctor("D1", 4)), delta.getDoctorStats());
+        assertNull(delta.getRemovedDoctorIds());
+    }
+
+    @Test
+    void doctorsLeavingTheListAreSentAsRemovals() {
+        ClinicDashboardDelta delta = ClinicDashboardStreamServiceImpl.diff(
+                statistics(doctor("D1", 3), doctor("D2", 1)),
+                statistics(doctor("D1", 3)));
+
+        assertNull(delta.getDoctorStats());
+        assertEquals(List.of("D2"), delta.getRemovedDoctorIds());
+    }
+
+    private static ClinicStatisticsDto statistics(DoctorDailyStats... doctors) {
+        return ClinicStatisticsDto.builder()
+                .clinicId(1)
+                .reportDate(LocalDate.of(2030, 1, 7))
+                .doctorStats(List.of(doctors))
+                .build();
+    }
+
+    private static DoctorDailyStats doctor(String doctorId, int patientsSeen) {
+        return DoctorDailyStats.builder()
+                .doctorId(doctorId)
+                .doctorName("Dr " + doctorId)
+                .patientsSeenToday(patientsSeen)
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package Singheatlh.springboot_backend.strategy.reschedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import Singheatlh.springboot_backend.entity.Appointment;
+import Singheatlh.springboot_backend.strategy.reschedule.AppointmentRedistributionPlanner.CandidateSlot;
+
+class AppointmentRedistributionPlannerTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2030, 1, 7, 9, 0);
+    private static final LocalDateTime WINDOW_START = NINE.minusDays(1);
+
+    private final AppointmentRedistributionPlanner planner = new AppointmentRedistributionPlanner();
+
+    @Test
+    void neverAssignsToAnyDoctorBeingCleared() {
+        Appointment fromA = appointment("A000000001", "DA", NINE);
+        Appointment fromB = appointment("A000000002", "DB", NINE);
+        // DA and DB are both free at 9 and would be the cheapest choice for each other's patient
+        Map<String, List<CandidateSlot>> freeSlots = Map.of(
+                "DA", List.of(slot("DA", NINE)),
+                "DB", List.of(slot("DB", NINE)),
+                "DC", List.of(slot("DC", NINE.plusHours(1)), slot("DC", NINE.plusHours(2))));
+
+        Map<String, CandidateSlot> plan = planner.plan(List.of(fromA, fromB), freeSlots, Map.of(), WINDOW_START, null);
+
+        assertEquals(2, plan.size());
+        assertTrue(plan.values().stream().allMatch(chosen -> chosen.doctorId().equals("DC")));
+    }
+
+    @Test
+    void prefersTheSlotNearestTheOriginalTime() {
+        Appointment appointment = appointment("A000000001", "DA", NINE);
+        Map<String, List<CandidateSlot>> freeSlots = Map.of(
+                "DB", List.of(slot("DB", NINE.plusHours(3))),
+                "DC", List.of(slot("DC", NINE.plusMinutes(30))));
+
+        Map<String, CandidateSlot> plan = planner.plan(List.of(appointment), freeSlots, Map.of(), WINDOW_START, null);
+
+        assertEquals(slot("DC", NINE.plusMinutes(30)), plan.get("A000000001"));
+    }
+
+    @Test
+    void eachSlotIsUsedOnce() {
+        Appointment first = appointment("A000000001", "DA", NINE);
+        Appointment second = appointment("A000000002", "DA", NINE.plusMinutes(15));
+        Map<String, List<CandidateSlot>> freeSlots = Map.of("DB", List.of(slot("DB", NINE)));
+
+        Map<String, CandidateSlot> plan = planner.plan(List.of(first, second), freeSlots, Map.of(), WINDOW_START, null);
+
+        assertEquals(Map.of("A000000001", slot("DB", NINE)), plan);
+    }
+
+    @Test
+    void skipsSlotsOverlappingThePatientsOtherBookings() {
+        Appointment appointment = appointment("A000000001", "DA", NINE);
+        Map<String, List<CandidateSlot>> freeSlots = Map.of(
+                "DB", List.of(slot("DB", NINE), slot("DB", NINE.plusHours(1))));
+        Map<UUID, List<CandidateSlot>> booked = Map.of(
+                appointment.getPatientId(), List.of(slot("DX", NINE.plusMinutes(5))));
+
+        Map<String, CandidateSlot> plan = planner.plan(List.of(appointment), freeSlots, booked, WINDOW_START, null);
+
+        assertEquals(slot("DB", NINE.plusHours(1)), plan.get("A000000001"));
+    }
+
+    @Test
+    void leavesOutSlotsOutsideTheWindowOrTooShort() {
+        Appointment appointment = appointment("A000000001", "DA", NINE);
+        Map<String, List<CandidateSlot>> freeSlots = Map.of(
+                "DB", List.of(
+                        slot("DB", NINE.minusHours(1)),
+                        slot("DB", NINE.plusHours(5)),
+                        new CandidateSlot("DB", NINE.plusHours(1), NINE.plusHours(1).plusMinutes(10))));
+
+        Map<String, CandidateSlot> plan = planner.plan(List.of(appointment), freeSlots, Map.of(),
+                NINE, NINE.plusHours(4));
+
+        assertFalse(plan.containsKey("A000000001"));
+    }
+
+    private static Appointment appointment(String appointmentId, String doctorId, LocalDateTime start) {
+        return new Appointment(appointmentId, UUID.randomUUID(), doctorId, start, start.plusMinutes(15));
+    }
+
+    private static CandidateSlot slot(String doctorId, LocalDateTime start) {
+        return new CandidateSlot(doctorId, start, start.plusMinutes(15));
+    }
+}
@@ -56,7 +56,7 @@ const AdminBackupPage = () => {
       const url = window.URL.createObjectURL(new Blob([response.data]));
       const link = document.createElement("a");
       link.href = url;
-      link.setAttribute("download", `${backupId}.zip`);
+      link.setAttribute("download", `${backupId}.pgcopy.gz`);
       document.body.appendChild(link);
       link.click();
       link.parentElement.removeChild(link);